@@ -12,6 +12,7 @@ package heros;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -268,6 +269,14 @@ public class EdgeFunctionCache<N, D, M, V> implements EdgeFunctions<N, D, M, V>
 	}
 
 
+	/**
+	 * Returns the statistics of all four edge-function caches combined. The statistics are
+	 * only recorded if the caches were built with {@link CacheBuilder#recordStats()}.
+	 */
+	public CacheStats getStats() {
+		return normalCache.stats().plus(callCache.stats()).plus(returnCache.stats()).plus(callToReturnCache.stats());
+	}
+	
 	public void printStats() {
         logger.debug("Stats for edge-function cache:\n" +
                      "Normal:         {}\n"+
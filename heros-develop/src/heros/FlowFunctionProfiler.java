@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A wrapper that profiles the flow functions it hands out. Unlike
+ * {@link ProfiledFlowFunctions}, which sums up the time spent creating flow functions,
+ * this wrapper measures the time spent in {@link FlowFunction#computeTargets(Object)}
+ * with {@link System#nanoTime()}, and attributes it to the kind of flow function, the
+ * method containing the statement the flow function was created for, and the type of
+ * that statement.
+ *
+ * To keep the overhead low, only every n-th application of a flow function is measured
+ * on each thread. Measurements are recorded in {@link Histogram}s with logarithmic
+ * buckets, which can be aggregated by kind, method or statement type, or written as
+ * folded stacks for flame graph tools via {@link #writeFoldedStacks(Writer)}.
+ *
+ * The wrapper only relies on the {@link FlowFunctions} interface, so it can be used with
+ * any solver, by wrapping the flow functions returned by
+ * {@link IFDSTabulationProblem#flowFunctions()}.
+ */
+@ThreadSafe
+public class FlowFunctionProfiler<N, D, M> implements FlowFunctions<N, D, M> {
+
+	/**
+	 * The default sampling interval, i.e., every 16th application is measured.
+	 */
+	public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+	/**
+	 * The kinds of flow functions.
+	 */
+	public enum Kind {
+		Normal, Call, Return, CallToReturn
+	}
+
+	@DontSynchronize("immutable")
+	protected final FlowFunctions<N, D, M> delegate;
+
+	@DontSynchronize("immutable")
+	protected final InterproceduralCFG<N, M> icfg;
+
+	@DontSynchronize("immutable")
+	private final int sampleInterval;
+
+	@DontSynchronize("thread local")
+	private final ThreadLocal<int[]> applications = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<Key<M>, Histogram> histograms = new ConcurrentHashMap<Key<M>, Histogram>();
+
+	/**
+	 * Creates a profiler that measures every {@link #DEFAULT_SAMPLE_INTERVAL}-th
+	 * application of a flow function.
+	 * @param delegate The flow functions to profile
+	 * @param icfg The control flow graph used to find the method of a statement
+	 */
+	public FlowFunctionProfiler(FlowFunctions<N, D, M> delegate, InterproceduralCFG<N, M> icfg) {
+		this(delegate, icfg, DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Creates a profiler.
+	 * @param delegate The flow functions to profile
+	 * @param icfg The control flow graph used to find the method of a statement
+	 * @param sampleInterval Every how many applications of a flow function one is
+	 * measured. Pass 1 to measure all applications.
+	 */
+	public FlowFunctionProfiler(FlowFunctions<N, D, M> delegate, InterproceduralCFG<N, M> icfg, int sampleInterval) {
+		if (sampleInterval < 1)
+			throw new IllegalArgumentException("Sample interval must be positive");
+		this.delegate = delegate;
+		this.icfg = icfg;
+		this.sampleInterval = sampleInterval;
+	}
+
+	public FlowFunction<D> getNormalFlowFunction(N curr, N succ) {
+		return profile(delegate.getNormalFlowFunction(curr, succ), Kind.Normal, curr, null);
+	}
+
+	public FlowFunction<D> getCallFlowFunction(N callStmt, M destinationMethod) {
+		return profile(delegate.getCallFlowFunction(callStmt, destinationMethod), Kind.Call, callStmt, null);
+	}
+
+	public FlowFunction<D> getReturnFlowFunction(N callSite, M calleeMethod, N exitStmt, N returnSite) {
+		return profile(delegate.getReturnFlowFunction(callSite, calleeMethod, exitStmt, returnSite),
+				Kind.Return, exitStmt, calleeMethod);
+	}
+
+	public FlowFunction<D> getCallToReturnFlowFunction(N callSite, N returnSite) {
+		return profile(delegate.getCallToReturnFlowFunction(callSite, returnSite), Kind.CallToReturn, callSite, null);
+	}
+
+	/**
+	 * Wraps a single flow function so that its applications are measured. Subclasses
+	 * can override this method to return wrappers that keep additional interfaces of
+	 * the original flow function, using {@link #sample()} and
+	 * {@link #record(Kind, Object, Object, long)} to take the measurements.
+	 * @param function The flow function to wrap, may be <code>null</code>
+	 * @param kind The kind of flow function
+	 * @param stmt The statement the flow function was created for
+	 * @param method The method containing the statement, or <code>null</code> to look
+	 * it up in the control flow graph
+	 * @return The wrapped flow function
+	 */
+	protected FlowFunction<D> profile(final FlowFunction<D> function, final Kind kind, final N stmt, final M method) {
+		if (function == null)
+			return null;
+		return new FlowFunction<D>() {
+			public Set<D> computeTargets(D source) {
+				if (!sample())
+					return function.computeTargets(source);
+
+				long before = System.nanoTime();
+				try {
+					return function.computeTargets(source);
+				}
+				finally {
+					record(kind, stmt, method, System.nanoTime() - before);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Counts an application of a flow function on the current thread
+	 * @return True if this application is to be measured, otherwise false
+	 */
+	protected final boolean sample() {
+		int[] counter = applications.get();
+		if (++counter[0] < sampleInterval)
+			return false;
+		counter[0] = 0;
+		return true;
+	}
+
+	/**
+	 * Records the measured duration of a flow function application
+	 * @param kind The kind of flow function
+	 * @param stmt The statement the flow function was created for
+	 * @param method The method containing the statement, or <code>null</code> to look
+	 * it up in the control flow graph
+	 * @param nanos The duration in nanoseconds
+	 */
+	protected final void record(Kind kind, N stmt, M method, long nanos) {
+		if (method == null && stmt != null)
+			method = icfg.getMethodOf(stmt);
+		Key<M> key = new Key<M>(kind, method, statementType(stmt));
+		Histogram histogram = histograms.get(key);
+		if (histogram == null) {
+			histogram = new Histogram();
+			Histogram old = histograms.putIfAbsent(key, histogram);
+			if (old != null)
+				histogram = old;
+		}
+		histogram.record(nanos);
+	}
+
+	private static String statementType(Object stmt) {
+		if (stmt == null)
+			return "<none>";
+		Class<?> clazz = stmt.getClass();
+		String name = clazz.getSimpleName();
+		return name.isEmpty() ? clazz.getName() : name;
+	}
+
+	/**
+	 * Gets the sampling interval of this profiler
+	 * @return Every how many applications of a flow function one is measured
+	 */
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * Gets the measurements aggregated by kind of flow function
+	 */
+	public Map<Kind, Histogram> getHistogramsByKind() {
+		Map<Kind, Histogram> res = Maps.newEnumMap(Kind.class);
+		for (Entry<Key<M>, Histogram> entry : histograms.entrySet())
+			aggregate(res, entry.getKey().kind, entry.getValue());
+		return res;
+	}
+
+	/**
+	 * Gets the measurements aggregated by the method containing the statements
+	 */
+	public Map<M, Histogram> getHistogramsByMethod() {
+		Map<M, Histogram> res = Maps.newHashMap();
+		for (Entry<Key<M>, Histogram> entry : histograms.entrySet())
+			aggregate(res, entry.getKey().method, entry.getValue());
+		return res;
+	}
+
+	/**
+	 * Gets the measurements aggregated by the simple class name of the statements
+	 */
+	public Map<String, Histogram> getHistogramsByStatementType() {
+		Map<String, Histogram> res = Maps.newHashMap();
+		for (Entry<Key<M>, Histogram> entry : histograms.entrySet())
+			aggregate(res, entry.getKey().statementType, entry.getValue());
+		return res;
+	}
+
+	private static <K> void aggregate(Map<K, Histogram> map, K key, Histogram histogram) {
+		Histogram aggregate = map.get(key);
+		if (aggregate == null) {
+			aggregate = new Histogram();
+			map.put(key, aggregate);
+		}
+		aggregate.add(histogram);
+	}
+
+	/**
+	 * Writes the measurements as folded stacks of the form
+	 * <code>method;kind;statementType nanoseconds</code>, one line per combination,
+	 * as expected by flame graph tools such as flamegraph.pl. The nanoseconds are the
+	 * total measured time, i.e., they are not extrapolated by the sampling interval.
+	 * @param writer The writer to write the stacks to
+	 * @throws IOException Thrown if the stacks could not be written
+	 */
+	public void writeFoldedStacks(Writer writer) throws IOException {
+		writeFoldedStacks(writer, null);
+	}
+
+	/**
+	 * Writes the measurements as folded stacks below the given root frame, e.g.,
+	 * to distinguish several profilers in a single flame graph.
+	 * @param writer The writer to write the stacks to
+	 * @param rootFrame The name of the frame below all others, or <code>null</code>
+	 * for none
+	 * @throws IOException Thrown if the stacks could not be written
+	 * @see #writeFoldedStacks(Writer)
+	 */
+	public void writeFoldedStacks(Writer writer, String rootFrame) throws IOException {
+		for (Entry<Key<M>, Histogram> entry : histograms.entrySet()) {
+			Key<M> key = entry.getKey();
+			if (rootFrame != null) {
+				writer.write(frame(rootFrame));
+				writer.write(';');
+			}
+			writer.write(frame(String.valueOf(key.method)));
+			writer.write(';');
+			writer.write(key.kind.name());
+			writer.write(';');
+			writer.write(frame(key.statementType));
+			writer.write(' ');
+			writer.write(Long.toString(entry.getValue().getTotalNanos()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private static String frame(String name) {
+		return name.replace(';', ':').replace('\n', ' ');
+	}
+
+	/**
+	 * Removes all measurements
+	 */
+	public void reset() {
+		histograms.clear();
+	}
+
+	/**
+	 * A histogram of durations in nanoseconds. Bucket i counts the durations d with
+	 * 2^i <= d < 2^(i+1); bucket 0 also counts durations of 0.
+	 */
+	@ThreadSafe
+	public static class Histogram {
+
+		public static final int NUM_BUCKETS = 64;
+
+		@SynchronizedBy("consistent lock on this")
+		private final long[] buckets = new long[NUM_BUCKETS];
+		@SynchronizedBy("consistent lock on this")
+		private long count, totalNanos, maxNanos;
+
+		synchronized void record(long nanos) {
+			if (nanos < 0)
+				nanos = 0;
+			buckets[bucketOf(nanos)]++;
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		synchronized void add(Histogram other) {
+			synchronized (other) {
+				for (int i = 0; i < NUM_BUCKETS; i++)
+					buckets[i] += other.buckets[i];
+				count += other.count;
+				totalNanos += other.totalNanos;
+				maxNanos = Math.max(maxNanos, other.maxNanos);
+			}
+		}
+
+		private static int bucketOf(long nanos) {
+			return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+		}
+
+		/**
+		 * Gets the number of measured applications
+		 */
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the number of measured applications in the given bucket
+		 */
+		public synchronized long getBucketCount(int bucket) {
+			return buckets[bucket];
+		}
+
+		public synchronized long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public synchronized long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public synchronized double getMeanNanos() {
+			return count == 0 ? 0 : (double) totalNanos / count;
+		}
+
+		/**
+		 * Gets an upper bound of the given percentile, i.e., the upper boundary of the
+		 * bucket containing it
+		 * @param percentile The percentile between 0 and 100
+		 */
+		public synchronized long getPercentileNanos(double percentile) {
+			long rank = (long) Math.ceil(count * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < NUM_BUCKETS; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0)
+					return Math.min(maxNanos, i == 62 ? Long.MAX_VALUE : (2L << i) - 1);
+			}
+			return 0;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("count=%d, total=%.3fms, mean=%.0fns, p50<=%dns, p99<=%dns, max=%dns", count,
+					totalNanos / 1e6, getMeanNanos(), getPercentileNanos(50), getPercentileNanos(99), maxNanos);
+		}
+	}
+
+	private static class Key<M> {
+		private final Kind kind;
+		private final M method;
+		private final String statementType;
+
+		private Key(Kind kind, M method, String statementType) {
+			this.kind = kind;
+			this.method = method;
+			this.statementType = statementType;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + kind.hashCode();
+			result = prime * result + ((method == null) ? 0 : method.hashCode());
+			result = prime * result + statementType.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key<?> other = (Key<?>) obj;
+			if (kind != other.kind)
+				return false;
+			if (method == null ? other.method != null : !method.equals(other.method))
+				return false;
+			return statementType.equals(other.statementType);
+		}
+	}
+
+}
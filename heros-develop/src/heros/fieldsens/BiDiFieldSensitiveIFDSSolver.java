@@ -36,8 +36,9 @@ public class BiDiFieldSensitiveIFDSSolver<Field, Fact, Stmt, Method, I extends I
 		
 		this.scheduler = scheduler;
 		
-		forwardSynchronizer = new SynchronizerImpl<Stmt>();
-		backwardSynchronizer = new SynchronizerImpl<Stmt>();
+		Object lock = new Object();
+		forwardSynchronizer = new SynchronizerImpl<Stmt>(lock);
+		backwardSynchronizer = new SynchronizerImpl<Stmt>(lock);
 		forwardSynchronizer.otherSynchronizer = backwardSynchronizer;
 		backwardSynchronizer.otherSynchronizer = forwardSynchronizer;
 		
@@ -60,19 +61,27 @@ public class BiDiFieldSensitiveIFDSSolver<Field, Fact, Stmt, Method, I extends I
 		private SynchronizerImpl<Stmt> otherSynchronizer;
 		private Set<Stmt> leakedSources = Sets.newHashSet();
 		private HashMultimap<Stmt, Runnable> pausedJobs = HashMultimap.create();
+		//shared with the other synchronizer, as a ConcurrentScheduler may process call sites in different methods concurrently
+		private final Object lock;
+
+		private SynchronizerImpl(Object lock) {
+			this.lock = lock;
+		}
 
 		@Override
 		public void synchronizeOnStmt(Stmt stmt, Runnable job) {
-			leakedSources.add(stmt);
-			if(otherSynchronizer.leakedSources.contains(stmt)) {
-				job.run();
-				for(Runnable runnable : otherSynchronizer.pausedJobs.get(stmt)) {
-					runnable.run();
+			synchronized (lock) {
+				leakedSources.add(stmt);
+				if(otherSynchronizer.leakedSources.contains(stmt)) {
+					job.run();
+					for(Runnable runnable : otherSynchronizer.pausedJobs.get(stmt)) {
+						runnable.run();
+					}
+					otherSynchronizer.pausedJobs.removeAll(stmt);
+				}
+				else {
+					pausedJobs.put(stmt, job);
 				}
-				otherSynchronizer.pausedJobs.removeAll(stmt);
-			}
-			else {
-				pausedJobs.put(stmt, job);
 			}
 		}
 	}
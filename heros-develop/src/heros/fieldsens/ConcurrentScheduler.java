@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Johannes Lerch.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.fieldsens;
+
+import heros.fieldsens.FlowFunction.Constraint;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A {@link Scheduler} that processes different methods on a pool of threads. Each
+ * method has a mailbox of jobs and actions, which is drained by at most one thread at
+ * a time, so the analysis state of a method is only ever accessed sequentially.
+ *
+ * Whenever a method touches the state of another method, e.g. to add an incoming call
+ * edge, to return a fact to a caller or to resolve a constraint at a resolver of
+ * another method, the access is posted to the mailbox of that method instead of being
+ * performed directly. Callbacks registered at resolvers of other methods are posted
+ * back to the mailbox of the method that registered them.
+ *
+ * Jobs scheduled before {@link #runAndAwaitCompletion()} is called, e.g. for the
+ * initial seeds, are only started by that call. Flow functions, the
+ * {@link FactMergeHandler} and the {@link Debugger} are called concurrently for
+ * different methods and must therefore be thread safe.
+ */
+public class ConcurrentScheduler extends Scheduler {
+
+	private static final int BATCH_SIZE = 64;
+
+	private static final ThreadLocal<Mailbox> currentMailbox = new ThreadLocal<Mailbox>();
+
+	private final int numThreads;
+	private final ConcurrentMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<Object, Mailbox>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final Object completionLock = new Object();
+	private final List<Mailbox> readyBeforeStart = Lists.newLinkedList();
+	private volatile ExecutorService executor;
+	private volatile Throwable failure;
+
+	public ConcurrentScheduler(int numThreads) {
+		if(numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Jobs that are not bound to a method are processed in a mailbox of their own.
+	 */
+	@Override
+	public void schedule(Runnable job) {
+		schedule(ConcurrentScheduler.class, job);
+	}
+
+	@Override
+	public void schedule(Object method, Runnable job) {
+		post(method, job);
+	}
+
+	/**
+	 * Runs the action immediately if the calling thread is working on the given method,
+	 * and posts it to the mailbox of the method otherwise.
+	 */
+	@Override
+	public void execute(Object method, Runnable action) {
+		Mailbox current = currentMailbox.get();
+		if(current != null && current.scheduler == this && current.method.equals(method))
+			action.run();
+		else
+			post(method, action);
+	}
+
+	@Override
+	public void runAndAwaitCompletion() {
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Field-sensitive IFDS solver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		synchronized (readyBeforeStart) {
+			this.executor = executor;
+			for(Mailbox mailbox : readyBeforeStart)
+				executor.execute(mailbox);
+			readyBeforeStart.clear();
+		}
+		try {
+			synchronized (completionLock) {
+				while(pending.get() > 0 && failure == null)
+					completionLock.wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdownNow();
+			this.executor = null;
+		}
+		Throwable t = failure;
+		if(t != null) {
+			failure = null;
+			if(t instanceof RuntimeException)
+				throw (RuntimeException) t;
+			if(t instanceof Error)
+				throw (Error) t;
+			throw new RuntimeException(t);
+		}
+	}
+
+	private void post(Object method, Runnable action) {
+		Mailbox mailbox = mailboxes.get(method);
+		if(mailbox == null) {
+			mailbox = new Mailbox(method);
+			Mailbox old = mailboxes.putIfAbsent(method, mailbox);
+			if(old != null)
+				mailbox = old;
+		}
+		pending.incrementAndGet();
+		mailbox.actions.add(action);
+		mailbox.dispatch();
+	}
+
+	private void finished(int numActions) {
+		if(pending.addAndGet(-numActions) == 0) {
+			synchronized (completionLock) {
+				completionLock.notifyAll();
+			}
+		}
+	}
+
+	private void failed(Throwable t) {
+		synchronized (completionLock) {
+			if(failure == null)
+				failure = t;
+			completionLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Resolves the constraint at the given resolver within the mailbox of the resolver's
+	 * method, if the calling thread works on a different method. The callback is then
+	 * executed within the mailbox of the calling method.
+	 *
+	 * @return true if the request was posted, false if the caller must resolve the
+	 *         constraint itself
+	 */
+	static <Field, Fact, Stmt, Method> boolean resolveInMailboxOf(final Resolver<Field, Fact, Stmt, Method> resolver,
+			final Constraint<Field> constraint, final InterestCallback<Field, Fact, Stmt, Method> callback) {
+		final Mailbox requester = currentMailbox.get();
+		if(requester == null)
+			return false;
+		Method owner = resolver.analyzer.getMethod();
+		if(requester.method.equals(owner))
+			return false;
+
+		final InterestCallback<Field, Fact, Stmt, Method> forwardingCallback = new InterestCallback<Field, Fact, Stmt, Method>() {
+			@Override
+			public void interest(final PerAccessPathMethodAnalyzer<Field, Fact, Stmt, Method> analyzer,
+					final Resolver<Field, Fact, Stmt, Method> resolver) {
+				requester.scheduler.execute(requester.method, new Runnable() {
+					@Override
+					public void run() {
+						callback.interest(analyzer, resolver);
+					}
+				});
+			}
+
+			@Override
+			public void canBeResolvedEmpty() {
+				requester.scheduler.execute(requester.method, new Runnable() {
+					@Override
+					public void run() {
+						callback.canBeResolvedEmpty();
+					}
+				});
+			}
+		};
+		requester.scheduler.post(owner, new Runnable() {
+			@Override
+			public void run() {
+				resolver.resolve(constraint, forwardingCallback);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * The jobs and actions of a single method. A mailbox is submitted to the executor
+	 * whenever it holds actions and is not already submitted or running.
+	 */
+	private class Mailbox implements Runnable {
+
+		private final Object method;
+		private final ConcurrentScheduler scheduler = ConcurrentScheduler.this;
+		private final Queue<Runnable> actions = new ConcurrentLinkedQueue<Runnable>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private Mailbox(Object method) {
+			this.method = method;
+		}
+
+		private void dispatch() {
+			if(actions.isEmpty() || !scheduled.compareAndSet(false, true))
+				return;
+			ExecutorService executor = ConcurrentScheduler.this.executor;
+			if(executor == null) {
+				synchronized (readyBeforeStart) {
+					executor = ConcurrentScheduler.this.executor;
+					if(executor == null) {
+						readyBeforeStart.add(this);
+						return;
+					}
+				}
+			}
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				//the run was aborted because another job failed
+			}
+		}
+
+		@Override
+		public void run() {
+			int processed = 0;
+			currentMailbox.set(this);
+			try {
+				Runnable action;
+				while(processed < BATCH_SIZE && failure == null && (action = actions.poll()) != null) {
+					action.run();
+					processed++;
+				}
+			} catch (Throwable t) {
+				failed(t);
+				return;
+			} finally {
+				currentMailbox.remove();
+			}
+			scheduled.set(false);
+			finished(processed);
+			dispatch();
+		}
+	}
+}
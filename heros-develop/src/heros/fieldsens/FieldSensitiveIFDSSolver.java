@@ -51,7 +51,9 @@ public class FieldSensitiveIFDSSolver<FieldRef, D, N, M, I extends Interprocedur
 			public MethodAnalyzer<FieldRef, D, N, M> getAnalyzer(M method) {
 				if(method == null)
 					throw new IllegalArgumentException("Method must be not null");
-				return methodAnalyzers.getOrCreate(method);
+				synchronized (methodAnalyzers) {
+					return methodAnalyzers.getOrCreate(method);
+				}
 			}
 		};
 	}
@@ -122,7 +122,7 @@ public class PerAccessPathMethodAnalyzer<Field, Fact, Stmt, Method> {
 		} else {
 			log("Edge to "+factAtStmt);
 			reachableStatements.put(factAtStmt, factAtStmt);
-			context.scheduler.schedule(new Job(factAtStmt));
+			context.scheduler.schedule(method, new Job(factAtStmt));
 			debugger.edgeTo(this, factAtStmt);
 		}
 	}
@@ -138,14 +138,19 @@ public class PerAccessPathMethodAnalyzer<Field, Fact, Stmt, Method> {
 
 	void processCall(WrappedFactAtStatement<Field,Fact, Stmt, Method> factAtStmt) {
 		Collection<Method> calledMethods = context.icfg.getCalleesOfCallAt(factAtStmt.getStatement());
-		for (Method calledMethod : calledMethods) {
+		for (final Method calledMethod : calledMethods) {
 			FlowFunction<Field, Fact, Stmt, Method> flowFunction = context.flowFunctions.getCallFlowFunction(factAtStmt.getStatement(), calledMethod);
 			Collection<ConstrainedFact<Field, Fact, Stmt, Method>> targetFacts =  flowFunction.computeTargets(factAtStmt.getFact(), new AccessPathHandler<Field, Fact, Stmt, Method>(factAtStmt.getAccessPath(), factAtStmt.getResolver(), debugger));
 			for (ConstrainedFact<Field, Fact, Stmt, Method> targetFact : targetFacts) {
 				//TODO handle constraint
-				MethodAnalyzer<Field, Fact, Stmt, Method> analyzer = context.getAnalyzer(calledMethod);
-				analyzer.addIncomingEdge(new CallEdge<Field, Fact, Stmt, Method>(this,
-						factAtStmt, targetFact.getFact()));
+				final CallEdge<Field, Fact, Stmt, Method> callEdge = new CallEdge<Field, Fact, Stmt, Method>(this,
+						factAtStmt, targetFact.getFact());
+				context.scheduler.execute(calledMethod, new Runnable() {
+					@Override
+					public void run() {
+						context.getAnalyzer(calledMethod).addIncomingEdge(callEdge);
+					}
+				});
 			}
 		}
 		
@@ -161,14 +166,21 @@ public class PerAccessPathMethodAnalyzer<Field, Fact, Stmt, Method> {
 
 		if(context.followReturnsPastSeeds && isZeroSource()) {
 			Collection<Stmt> callSites = context.icfg.getCallersOf(method);
-			for(Stmt callSite : callSites) {
+			for(final Stmt callSite : callSites) {
 				Collection<Stmt> returnSites = context.icfg.getReturnSitesOfCallAt(callSite);
 				for(Stmt returnSite : returnSites) {
 					FlowFunction<Field, Fact, Stmt, Method> flowFunction = context.flowFunctions.getReturnFlowFunction(callSite, method, factAtStmt.getStatement(), returnSite);
 					Collection<ConstrainedFact<Field, Fact, Stmt, Method>> targetFacts = flowFunction.computeTargets(factAtStmt.getFact(), new AccessPathHandler<Field, Fact, Stmt, Method>(factAtStmt.getAccessPath(), factAtStmt.getResolver(), debugger));
 					for (ConstrainedFact<Field, Fact, Stmt, Method> targetFact : targetFacts) {
 						//TODO handle constraint
-						context.getAnalyzer(context.icfg.getMethodOf(callSite)).addUnbalancedReturnFlow(new WrappedFactAtStatement<Field, Fact, Stmt, Method>(returnSite, targetFact.getFact()), callSite);
+						final Method caller = context.icfg.getMethodOf(callSite);
+						final WrappedFactAtStatement<Field, Fact, Stmt, Method> target = new WrappedFactAtStatement<Field, Fact, Stmt, Method>(returnSite, targetFact.getFact());
+						context.scheduler.execute(caller, new Runnable() {
+							@Override
+							public void run() {
+								context.getAnalyzer(caller).addUnbalancedReturnFlow(target, callSite);
+							}
+						});
 					}
 				}
 			}
@@ -288,11 +300,16 @@ public class PerAccessPathMethodAnalyzer<Field, Fact, Stmt, Method> {
 				fact.getWrappedFact().getResolver()), null, Delta.<Field>empty());
 	}
 	
-	private void scheduleReturnEdge(CallEdge<Field, Fact, Stmt, Method> incEdge, WrappedFact<Field, Fact, Stmt, Method> fact, Stmt returnSite) {
-		Delta<Field> delta = accessPath.getDeltaTo(incEdge.getCalleeSourceFact().getAccessPath());
-		ReturnSiteResolver<Field, Fact, Stmt, Method> returnSiteResolver = incEdge.getCallerAnalyzer().returnSiteResolvers.getOrCreate(
-				new FactAtStatement<Fact, Stmt>(fact.getFact(), returnSite));
-		returnSiteResolver.addIncoming(fact, incEdge.getCalleeSourceFact().getResolver(), delta);
+	private void scheduleReturnEdge(final CallEdge<Field, Fact, Stmt, Method> incEdge, final WrappedFact<Field, Fact, Stmt, Method> fact, final Stmt returnSite) {
+		final Delta<Field> delta = accessPath.getDeltaTo(incEdge.getCalleeSourceFact().getAccessPath());
+		context.scheduler.execute(incEdge.getCallerAnalyzer().getMethod(), new Runnable() {
+			@Override
+			public void run() {
+				ReturnSiteResolver<Field, Fact, Stmt, Method> returnSiteResolver = incEdge.getCallerAnalyzer().returnSiteResolvers.getOrCreate(
+						new FactAtStatement<Fact, Stmt>(fact.getFact(), returnSite));
+				returnSiteResolver.addIncoming(fact, incEdge.getCalleeSourceFact().getResolver(), delta);
+			}
+		});
 	}
 
 	void applySummaries(CallEdge<Field, Fact, Stmt, Method> incEdge) {
@@ -91,6 +91,9 @@ public abstract class ResolverTemplate<Field, Fact, Stmt, Method, Incoming>  ext
 	
 	@Override
 	public void resolve(Constraint<Field> constraint, InterestCallback<Field, Fact, Stmt, Method> callback) {
+		if(ConcurrentScheduler.resolveInMailboxOf(this, constraint, callback))
+			return;
+		
 		log("Resolve: "+constraint);
 		debugger.askedToResolve(this, constraint);
 		if(constraint.canBeAppliedTo(resolvedAccessPath) && !isLocked()) {
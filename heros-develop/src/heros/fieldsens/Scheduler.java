@@ -13,6 +13,11 @@ package heros.fieldsens;
 import java.util.LinkedList;
 import com.google.common.collect.Lists;
 
+/**
+ * Runs the jobs of the field-sensitive solvers one after another on the calling thread.
+ * 
+ * @see ConcurrentScheduler
+ */
 public class Scheduler {
 
 	private LinkedList<Runnable> worklist = Lists.newLinkedList();
@@ -21,6 +26,22 @@ public class Scheduler {
 		worklist.add(job);
 	}
 
+	/**
+	 * Schedules a job that reads and modifies the analysis state of the given method.
+	 */
+	public void schedule(Object method, Runnable job) {
+		schedule(job);
+	}
+
+	/**
+	 * Executes an action that reads and modifies the analysis state of the given method.
+	 * This implementation runs the action immediately. Implementations that process
+	 * methods concurrently may defer the action until no other thread works on the method.
+	 */
+	public void execute(Object method, Runnable action) {
+		action.run();
+	}
+
 	public void runAndAwaitCompletion() {
 		while(!worklist.isEmpty()) {
 			worklist.removeLast().run();
@@ -0,0 +1,601 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import heros.DontSynchronize;
+import heros.EdgeFunction;
+import heros.SynchronizedBy;
+import heros.ThreadSafe;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.Table.Cell;
+import com.google.common.collect.Tables;
+
+/**
+ * Jump functions that store each jump function exactly once instead of three times.
+ * Target nodes and facts are numbered on first use, and every jump function is an
+ * entry in a set of parallel arrays holding the numbers of its source fact, target
+ * node and target fact, and its edge function. The three indices of
+ * {@link JumpFunctions} are linked lists threaded through these arrays: every entry
+ * holds the number of the next entry with the same source fact and target node, with
+ * the same target node and target fact, and with the same target node. Looking up an
+ * index only hashes primitive keys and allocates nothing but the returned view.
+ *
+ * The maps and sets returned by the lookup methods are views that reflect later
+ * changes. As with {@link JumpFunctions}, they must not be iterated while jump
+ * functions are removed. Nodes and facts keep their numbers, and thus stay reachable,
+ * until {@link #clear()} is called.
+ *
+ * To use these jump functions, override {@link IDESolver#createJumpFunctions()}.
+ */
+@ThreadSafe
+public class CompactJumpFunctions<N,D,L> extends JumpFunctions<N,D,L> {
+
+	private static final int NONE = -1;
+
+	@DontSynchronize("immutable")
+	private final EdgeFunction<L> allTop;
+
+	@SynchronizedBy("consistent lock on this")
+	private final Map<N,Integer> nodeNumbers = new HashMap<N,Integer>();
+
+	@SynchronizedBy("consistent lock on this")
+	private final Map<D,Integer> factNumbers = new HashMap<D,Integer>();
+
+	@SynchronizedBy("consistent lock on this")
+	private Object[] facts = new Object[16];
+
+	//the entries, one per jump function
+	@SynchronizedBy("consistent lock on this")
+	private int[] sourceFacts = new int[16];
+	@SynchronizedBy("consistent lock on this")
+	private int[] targetNodes = new int[16];
+	@SynchronizedBy("consistent lock on this")
+	private int[] targetFacts = new int[16];
+	@SynchronizedBy("consistent lock on this")
+	private Object[] functions = new Object[16];
+	@SynchronizedBy("consistent lock on this")
+	private int numEntries = 0;
+	@SynchronizedBy("consistent lock on this")
+	private int size = 0;
+	//removed entries, linked through nextForward
+	@SynchronizedBy("consistent lock on this")
+	private int freeEntries = NONE;
+
+	//next entry with the same source fact and target node
+	@SynchronizedBy("consistent lock on this")
+	private int[] nextForward = new int[16];
+	//next entry with the same target node and target fact
+	@SynchronizedBy("consistent lock on this")
+	private int[] nextReverse = new int[16];
+	//next entry with the same target node
+	@SynchronizedBy("consistent lock on this")
+	private int[] nextByTarget = new int[16];
+
+	//mapping from source fact and target node to a number, and from that number to the first entry
+	@SynchronizedBy("consistent lock on this")
+	private final LongIntMap forwardKeys = new LongIntMap();
+	@SynchronizedBy("consistent lock on this")
+	private int[] forwardHeads = new int[16];
+
+	//mapping from target node and target fact to a number, and from that number to the first entry
+	@SynchronizedBy("consistent lock on this")
+	private final LongIntMap reverseKeys = new LongIntMap();
+	@SynchronizedBy("consistent lock on this")
+	private int[] reverseHeads = new int[16];
+
+	//mapping from target node number to the first entry
+	@SynchronizedBy("consistent lock on this")
+	private int[] byTargetHeads = new int[16];
+
+	//mapping from forward key number and target fact to the entry
+	@SynchronizedBy("consistent lock on this")
+	private final LongIntMap entries = new LongIntMap();
+
+	public CompactJumpFunctions(EdgeFunction<L> allTop) {
+		super(allTop);
+		this.allTop = allTop;
+		Arrays.fill(byTargetHeads, NONE);
+	}
+
+	@Override
+	public synchronized void addFunction(D sourceVal, N target, D targetVal, EdgeFunction<L> function) {
+		assert sourceVal!=null;
+		assert target!=null;
+		assert targetVal!=null;
+		assert function!=null;
+
+		//we do not store the default function (all-top)
+		if(function.equalTo(allTop)) return;
+
+		int source = factNumber(sourceVal);
+		int node = nodeNumber(target);
+		int fact = factNumber(targetVal);
+
+		int forwardKey = forwardKeys.get(pair(source, node));
+		if(forwardKey==NONE) {
+			forwardKey = forwardKeys.size();
+			forwardKeys.put(pair(source, node), forwardKey);
+			forwardHeads = ensureCapacity(forwardHeads, forwardKey, NONE);
+			forwardHeads[forwardKey] = NONE;
+		}
+		int e = entries.get(pair(forwardKey, fact));
+		if(e!=NONE) {
+			functions[e] = function;
+			return;
+		}
+
+		int reverseKey = reverseKeys.get(pair(node, fact));
+		if(reverseKey==NONE) {
+			reverseKey = reverseKeys.size();
+			reverseKeys.put(pair(node, fact), reverseKey);
+			reverseHeads = ensureCapacity(reverseHeads, reverseKey, NONE);
+			reverseHeads[reverseKey] = NONE;
+		}
+
+		e = newEntry();
+		sourceFacts[e] = source;
+		targetNodes[e] = node;
+		targetFacts[e] = fact;
+		functions[e] = function;
+		nextForward[e] = forwardHeads[forwardKey];
+		forwardHeads[forwardKey] = e;
+		nextReverse[e] = reverseHeads[reverseKey];
+		reverseHeads[reverseKey] = e;
+		nextByTarget[e] = byTargetHeads[node];
+		byTargetHeads[node] = e;
+		entries.put(pair(forwardKey, fact), e);
+		size++;
+	}
+
+	@Override
+	public synchronized EdgeFunction<L> getFunction(D sourceVal, N target, D targetVal) {
+		int e = entry(sourceVal, target, targetVal);
+		return e==NONE ? null : function(e);
+	}
+
+	@Override
+	public synchronized Map<D,EdgeFunction<L>> reverseLookup(N target, D targetVal) {
+		assert target!=null;
+		assert targetVal!=null;
+		Integer node = nodeNumbers.get(target);
+		Integer fact = factNumbers.get(targetVal);
+		if(node==null || fact==null) return Collections.emptyMap();
+		int reverseKey = reverseKeys.get(pair(node, fact));
+		if(reverseKey==NONE) return Collections.emptyMap();
+		return new ReverseMap(node, fact, reverseKey);
+	}
+
+	@Override
+	public synchronized Map<D,EdgeFunction<L>> forwardLookup(D sourceVal, N target) {
+		assert sourceVal!=null;
+		assert target!=null;
+		Integer source = factNumbers.get(sourceVal);
+		Integer node = nodeNumbers.get(target);
+		if(source==null || node==null) return Collections.emptyMap();
+		int forwardKey = forwardKeys.get(pair(source, node));
+		if(forwardKey==NONE) return Collections.emptyMap();
+		return new ForwardMap(forwardKey);
+	}
+
+	@Override
+	public synchronized Set<Cell<D,D,EdgeFunction<L>>> lookupByTarget(N target) {
+		assert target!=null;
+		final Integer node = nodeNumbers.get(target);
+		if(node==null) return Collections.emptySet();
+		return new AbstractSet<Cell<D,D,EdgeFunction<L>>>() {
+			@Override
+			public Iterator<Cell<D,D,EdgeFunction<L>>> iterator() {
+				return new EntryIterator<Cell<D,D,EdgeFunction<L>>>(byTargetHeads[node]) {
+					@Override
+					protected int next(int e) {
+						return nextByTarget[e];
+					}
+					@Override
+					protected Cell<D,D,EdgeFunction<L>> element(int e) {
+						return Tables.immutableCell(fact(sourceFacts[e]), fact(targetFacts[e]), function(e));
+					}
+				};
+			}
+			@Override
+			public int size() {
+				return count(byTargetHeads[node], nextByTarget);
+			}
+			@Override
+			public boolean isEmpty() {
+				return byTargetHeads[node]==NONE;
+			}
+		};
+	}
+
+	@Override
+	public synchronized boolean removeFunction(D sourceVal, N target, D targetVal) {
+		assert sourceVal!=null;
+		assert target!=null;
+		assert targetVal!=null;
+
+		int e = entry(sourceVal, target, targetVal);
+		if(e==NONE) return false;
+
+		int forwardKey = forwardKeys.get(pair(sourceFacts[e], targetNodes[e]));
+		int reverseKey = reverseKeys.get(pair(targetNodes[e], targetFacts[e]));
+		forwardHeads[forwardKey] = unlink(forwardHeads[forwardKey], e, nextForward);
+		reverseHeads[reverseKey] = unlink(reverseHeads[reverseKey], e, nextReverse);
+		byTargetHeads[targetNodes[e]] = unlink(byTargetHeads[targetNodes[e]], e, nextByTarget);
+		entries.put(pair(forwardKey, targetFacts[e]), NONE);
+
+		functions[e] = null;
+		nextForward[e] = freeEntries;
+		freeEntries = e;
+		size--;
+		return true;
+	}
+
+	@Override
+	public synchronized void clear() {
+		nodeNumbers.clear();
+		factNumbers.clear();
+		Arrays.fill(facts, null);
+		Arrays.fill(functions, null);
+		numEntries = 0;
+		size = 0;
+		freeEntries = NONE;
+		forwardKeys.clear();
+		reverseKeys.clear();
+		entries.clear();
+		Arrays.fill(byTargetHeads, NONE);
+	}
+
+	/**
+	 * Returns the number of jump functions stored.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private int entry(D sourceVal, N target, D targetVal) {
+		Integer source = factNumbers.get(sourceVal);
+		Integer node = nodeNumbers.get(target);
+		Integer fact = factNumbers.get(targetVal);
+		if(source==null || node==null || fact==null) return NONE;
+		int forwardKey = forwardKeys.get(pair(source, node));
+		if(forwardKey==NONE) return NONE;
+		return entries.get(pair(forwardKey, fact));
+	}
+
+	private int newEntry() {
+		if(freeEntries!=NONE) {
+			int e = freeEntries;
+			freeEntries = nextForward[e];
+			return e;
+		}
+		int e = numEntries++;
+		if(e==functions.length) {
+			int length = 2 * e;
+			sourceFacts = Arrays.copyOf(sourceFacts, length);
+			targetNodes = Arrays.copyOf(targetNodes, length);
+			targetFacts = Arrays.copyOf(targetFacts, length);
+			functions = Arrays.copyOf(functions, length);
+			nextForward = Arrays.copyOf(nextForward, length);
+			nextReverse = Arrays.copyOf(nextReverse, length);
+			nextByTarget = Arrays.copyOf(nextByTarget, length);
+		}
+		return e;
+	}
+
+	private int nodeNumber(N node) {
+		Integer number = nodeNumbers.get(node);
+		if(number==null) {
+			number = nodeNumbers.size();
+			nodeNumbers.put(node, number);
+			byTargetHeads = ensureCapacity(byTargetHeads, number, NONE);
+		}
+		return number;
+	}
+
+	private int factNumber(D fact) {
+		Integer number = factNumbers.get(fact);
+		if(number==null) {
+			number = factNumbers.size();
+			factNumbers.put(fact, number);
+			if(number==facts.length)
+				facts = Arrays.copyOf(facts, 2 * number);
+			facts[number] = fact;
+		}
+		return number;
+	}
+
+	@SuppressWarnings("unchecked")
+	private D fact(int number) {
+		return (D) facts[number];
+	}
+
+	@SuppressWarnings("unchecked")
+	private EdgeFunction<L> function(int e) {
+		return (EdgeFunction<L>) functions[e];
+	}
+
+	private static int[] ensureCapacity(int[] array, int index, int fill) {
+		if(index<array.length) return array;
+		int oldLength = array.length;
+		int[] res = Arrays.copyOf(array, Math.max(index + 1, 2 * oldLength));
+		Arrays.fill(res, oldLength, res.length, fill);
+		return res;
+	}
+
+	private static int unlink(int head, int e, int[] next) {
+		if(head==e) return next[e];
+		for(int curr = head; curr!=NONE; curr = next[curr]) {
+			if(next[curr]==e) {
+				next[curr] = next[e];
+				break;
+			}
+		}
+		return head;
+	}
+
+	private static int count(int head, int[] next) {
+		int count = 0;
+		for(int e = head; e!=NONE; e = next[e])
+			count++;
+		return count;
+	}
+
+	private static long pair(int first, int second) {
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * View of the functions from a fixed source fact to a fixed target node, keyed by
+	 * target fact.
+	 */
+	private class ForwardMap extends ChainMap {
+		private final int forwardKey;
+
+		ForwardMap(int forwardKey) {
+			this.forwardKey = forwardKey;
+		}
+
+		@Override
+		protected int head() {
+			return forwardHeads[forwardKey];
+		}
+
+		@Override
+		protected int next(int e) {
+			return nextForward[e];
+		}
+
+		@Override
+		protected D key(int e) {
+			return fact(targetFacts[e]);
+		}
+
+		@Override
+		protected int entry(Object key) {
+			Integer fact = factNumbers.get(key);
+			if(fact==null) return NONE;
+			return entries.get(pair(forwardKey, fact));
+		}
+	}
+
+	/**
+	 * View of the functions to a fixed target fact at a fixed target node, keyed by
+	 * source fact.
+	 */
+	private class ReverseMap extends ChainMap {
+		private final int node;
+		private final int fact;
+		private final int reverseKey;
+
+		ReverseMap(int node, int fact, int reverseKey) {
+			this.node = node;
+			this.fact = fact;
+			this.reverseKey = reverseKey;
+		}
+
+		@Override
+		protected int head() {
+			return reverseHeads[reverseKey];
+		}
+
+		@Override
+		protected int next(int e) {
+			return nextReverse[e];
+		}
+
+		@Override
+		protected D key(int e) {
+			return fact(sourceFacts[e]);
+		}
+
+		@Override
+		protected int entry(Object key) {
+			Integer source = factNumbers.get(key);
+			if(source==null) return NONE;
+			int forwardKey = forwardKeys.get(pair(source, node));
+			if(forwardKey==NONE) return NONE;
+			return entries.get(pair(forwardKey, fact));
+		}
+	}
+
+	/**
+	 * Read-only map view over one of the linked lists of entries.
+	 */
+	private abstract class ChainMap extends AbstractMap<D,EdgeFunction<L>> {
+
+		protected abstract int head();
+
+		protected abstract int next(int e);
+
+		protected abstract D key(int e);
+
+		protected abstract int entry(Object key);
+
+		@Override
+		public EdgeFunction<L> get(Object key) {
+			synchronized (CompactJumpFunctions.this) {
+				int e = entry(key);
+				return e==NONE ? null : function(e);
+			}
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key)!=null;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return head()==NONE;
+		}
+
+		@Override
+		public int size() {
+			int count = 0;
+			for(int e = head(); e!=NONE; e = next(e))
+				count++;
+			return count;
+		}
+
+		@Override
+		public Set<Entry<D,EdgeFunction<L>>> entrySet() {
+			return new AbstractSet<Entry<D,EdgeFunction<L>>>() {
+				@Override
+				public Iterator<Entry<D,EdgeFunction<L>>> iterator() {
+					return new EntryIterator<Entry<D,EdgeFunction<L>>>(head()) {
+						@Override
+						protected int next(int e) {
+							return ChainMap.this.next(e);
+						}
+						@Override
+						protected Entry<D,EdgeFunction<L>> element(int e) {
+							return new SimpleImmutableEntry<D,EdgeFunction<L>>(key(e), function(e));
+						}
+					};
+				}
+				@Override
+				public int size() {
+					return ChainMap.this.size();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Iterates over a linked list of entries.
+	 */
+	private abstract class EntryIterator<E> implements Iterator<E> {
+		private int next;
+
+		EntryIterator(int head) {
+			this.next = head;
+		}
+
+		protected abstract int next(int e);
+
+		protected abstract E element(int e);
+
+		public boolean hasNext() {
+			return next!=NONE;
+		}
+
+		public E next() {
+			if(next==NONE) throw new NoSuchElementException();
+			int e = next;
+			next = next(e);
+			return element(e);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Open-addressing hash map from non-negative long keys to int values, returning
+	 * {@link CompactJumpFunctions#NONE} for absent keys.
+	 */
+	private static class LongIntMap {
+		private static final long EMPTY = -1L;
+
+		private long[] keys;
+		private int[] values;
+		private int size;
+
+		LongIntMap() {
+			clear();
+		}
+
+		int get(long key) {
+			int mask = keys.length - 1;
+			for(int i = hash(key) & mask; ; i = (i + 1) & mask) {
+				long k = keys[i];
+				if(k==key) return values[i];
+				if(k==EMPTY) return NONE;
+			}
+		}
+
+		void put(long key, int value) {
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while(keys[i]!=EMPTY && keys[i]!=key)
+				i = (i + 1) & mask;
+			if(keys[i]==EMPTY) {
+				keys[i] = key;
+				size++;
+			}
+			values[i] = value;
+			if(2 * size > keys.length)
+				rehash();
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			keys = new long[16];
+			Arrays.fill(keys, EMPTY);
+			values = new int[16];
+			size = 0;
+		}
+
+		private void rehash() {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[2 * oldKeys.length];
+			Arrays.fill(keys, EMPTY);
+			values = new int[keys.length];
+			int mask = keys.length - 1;
+			for(int j = 0; j < oldKeys.length; j++) {
+				if(oldKeys[j]==EMPTY) continue;
+				int i = hash(oldKeys[j]) & mask;
+				while(keys[i]!=EMPTY)
+					i = (i + 1) & mask;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+
+		private static int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+
+}
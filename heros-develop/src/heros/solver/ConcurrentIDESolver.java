@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import heros.EdgeFunction;
+import heros.IDETabulationProblem;
+import heros.InterproceduralCFG;
+import heros.SynchronizedBy;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table.Cell;
+import com.google.common.collect.Tables;
+
+/**
+ * An {@link IDESolver} that does not serialize its worker threads on the monitors of
+ * jumpFn, incoming and val. All shared state is kept in concurrent hash maps instead of
+ * Guava tables: jump functions in {@link ConcurrentJumpFunctions}, end summaries and
+ * incoming edges in maps keyed by the start point and fact, and values in a
+ * {@link ConcurrentJoinTable}. Joins of jump functions and values are compare-and-set
+ * loops on a single map entry, so threads only contend when they update the very same
+ * entry.
+ *
+ * Registering an incoming edge and reading the end summaries (and vice versa) is no
+ * longer atomic. Since both sides first write and then read, at least one of them
+ * observes the other, so no flow is lost. An edge may occasionally be processed twice,
+ * which is harmless because propagation is idempotent.
+ *
+ * The solver is a drop-in replacement for {@link IDESolver}, but subclasses must not
+ * access the fields {@link #incoming}, {@link #endSummary} and {@link #val} directly,
+ * as these remain empty.
+ *
+ * @see ConcurrentIFDSSolver
+ */
+public class ConcurrentIDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> extends IDESolver<N,D,M,V,I> {
+
+	@SynchronizedBy("thread safe data structure")
+	protected final ConcurrentMap<Pair<N,D>,ConcurrentMap<Pair<N,D>,Cell<N,D,EdgeFunction<V>>>> concurrentEndSummary =
+			new ConcurrentHashMap<Pair<N,D>,ConcurrentMap<Pair<N,D>,Cell<N,D,EdgeFunction<V>>>>();
+
+	@SynchronizedBy("thread safe data structure")
+	protected final ConcurrentMap<Pair<N,D>,ConcurrentMap<N,Set<D>>> concurrentIncoming =
+			new ConcurrentHashMap<Pair<N,D>,ConcurrentMap<N,Set<D>>>();
+
+	@SynchronizedBy("thread safe data structure")
+	protected final ConcurrentJoinTable<N,D,V> concurrentVal = new ConcurrentJoinTable<N,D,V>(valueLattice) {
+		@Override
+		protected V join(N row, D column, V curr, V newVal) {
+			return joinValueAt(row, column, curr, newVal);
+		}
+	};
+
+	/**
+	 * Creates a solver for the given problem, which caches flow functions and edge functions.
+	 * The solver must then be started by calling {@link #solve()}.
+	 */
+	public ConcurrentIDESolver(IDETabulationProblem<N,D,M,V,I> tabulationProblem) {
+		super(tabulationProblem);
+	}
+
+	/**
+	 * Creates a solver for the given problem, constructing caches with the given {@link CacheBuilder}. The solver must then be started by calling
+	 * {@link #solve()}.
+	 * @param flowFunctionCacheBuilder A valid {@link CacheBuilder} or <code>null</code> if no caching is to be used for flow functions.
+	 * @param edgeFunctionCacheBuilder A valid {@link CacheBuilder} or <code>null</code> if no caching is to be used for edge functions.
+	 */
+	public ConcurrentIDESolver(IDETabulationProblem<N,D,M,V,I> tabulationProblem, @SuppressWarnings("rawtypes") CacheBuilder flowFunctionCacheBuilder, @SuppressWarnings("rawtypes") CacheBuilder edgeFunctionCacheBuilder) {
+		super(tabulationProblem, flowFunctionCacheBuilder, edgeFunctionCacheBuilder);
+	}
+
+	/**
+	 * Unlike the executor of {@link IDESolver}, which only ever starts a single thread
+	 * because its work queue is unbounded, this one keeps {@link #numThreads} threads
+	 * running.
+	 */
+	@Override
+	protected CountingThreadPoolExecutor getExecutor() {
+		return new CountingThreadPoolExecutor(this.numThreads, this.numThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+	}
+
+	@Override
+	protected JumpFunctions<N,D,V> createJumpFunctions() {
+		return new ConcurrentJumpFunctions<N,D,V>(allTop);
+	}
+
+	private ConcurrentJumpFunctions<N,D,V> concurrentJumpFn() {
+		return (ConcurrentJumpFunctions<N,D,V>) jumpFn;
+	}
+
+	@Override
+	protected EdgeFunction<V> jumpFunction(PathEdge<N,D> edge) {
+		EdgeFunction<V> function = concurrentJumpFn().getFunction(edge);
+		if(function==null) return allTop; //JumpFn initialized to all-top, see line [2] in SRH96 paper
+		return function;
+	}
+
+	@Override
+	protected EdgeFunction<V> joinJumpFunction(D sourceVal, N target, D targetVal, EdgeFunction<V> f) {
+		return concurrentJumpFn().joinFunction(new PathEdge<N,D>(sourceVal, target, targetVal), f);
+	}
+
+	@Override
+	protected Map<D,EdgeFunction<V>> reverseJumpFunctions(N target, D targetVal) {
+		return jumpFn.reverseLookup(target, targetVal);
+	}
+
+	@Override
+	protected Set<Cell<N, D, EdgeFunction<V>>> addIncomingAndGetEndSummaries(N sP, D d3, N n, D d2) {
+		addIncoming(sP, d3, n, d2);
+		return endSummary(sP, d3);
+	}
+
+	@Override
+	protected Map<N, Set<D>> addEndSummaryAndGetIncoming(N sP, D d1, N eP, D d2, EdgeFunction<V> f) {
+		addEndSummary(sP, d1, eP, d2, f);
+		return incoming(d1, sP);
+	}
+
+	@Override
+	protected Set<Cell<N, D, EdgeFunction<V>>> endSummary(N sP, D d3) {
+		ConcurrentMap<Pair<N,D>,Cell<N,D,EdgeFunction<V>>> map = concurrentEndSummary.get(new Pair<N,D>(sP, d3));
+		if(map==null) return Collections.emptySet();
+		final Collection<Cell<N,D,EdgeFunction<V>>> cells = map.values();
+		return new AbstractSet<Cell<N,D,EdgeFunction<V>>>() {
+			@Override
+			public Iterator<Cell<N,D,EdgeFunction<V>>> iterator() {
+				return cells.iterator();
+			}
+			@Override
+			public int size() {
+				return cells.size();
+			}
+		};
+	}
+
+	@Override
+	protected void addEndSummary(N sP, D d1, N eP, D d2, EdgeFunction<V> f) {
+		ConcurrentMap<Pair<N,D>,Cell<N,D,EdgeFunction<V>>> summaries = getOrCreate(concurrentEndSummary, new Pair<N,D>(sP, d1));
+		//note: at this point we don't need to join with a potential previous f
+		//because f is a jump function, which is already properly joined
+		//within propagate(..)
+		summaries.put(new Pair<N,D>(eP, d2), Tables.immutableCell(eP, d2, f));
+	}
+
+	@Override
+	protected Map<N, Set<D>> incoming(D d1, N sP) {
+		Map<N, Set<D>> map = concurrentIncoming.get(new Pair<N,D>(sP, d1));
+		if(map==null) return Collections.emptyMap();
+		return map;
+	}
+
+	@Override
+	protected void addIncoming(N sP, D d3, N n, D d2) {
+		ConcurrentMap<N, Set<D>> summaries = getOrCreate(concurrentIncoming, new Pair<N,D>(sP, d3));
+		Set<D> set = summaries.get(n);
+		if(set==null) {
+			set = Collections.newSetFromMap(new ConcurrentHashMap<D,Boolean>());
+			Set<D> old = summaries.putIfAbsent(n, set);
+			if(old!=null) set = old;
+		}
+		set.add(d2);
+	}
+
+	@Override
+	protected boolean joinVal(N nHashN, D nHashD, V v) {
+		V vPrime = concurrentVal.join(nHashN, nHashD, v);
+		if(vPrime==null)
+			return false;
+		logger.debug("VALUE: {} {} {} {}", icfg.getMethodOf(nHashN), nHashN, nHashD, vPrime);
+		return true;
+	}
+
+	@Override
+	protected void joinVals(Map<N, Map<D, V>> values) {
+		for(Entry<N, Map<D, V>> row : values.entrySet())
+			for(Entry<D, V> entry : row.getValue().entrySet())
+				joinVal(row.getKey(), entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	protected V val(N nHashN, D nHashD) {
+		V l = concurrentVal.get(nHashN, nHashD);
+		if(l==null) return valueLattice.topElement(); //implicitly initialized to top; see line [1] of Fig. 7 in SRH96 paper
+		else return l;
+	}
+
+	@Override
+	protected void setVal(N nHashN, D nHashD, V l) {
+		concurrentVal.put(nHashN, nHashD, l);
+		logger.debug("VALUE: {} {} {} {}", icfg.getMethodOf(nHashN), nHashN, nHashD, l);
+	}
+
+	@Override
+	public V resultAt(N stmt, D value) {
+		return concurrentVal.get(stmt, value);
+	}
+
+	@Override
+	public Map<D,V> resultsAt(N stmt) {
+		//filter out the artificial zero-value
+		return Maps.filterKeys(concurrentVal.row(stmt), new Predicate<D>() {
+
+			public boolean apply(D val) {
+				return val!=zeroValue;
+			}
+		});
+	}
+
+	private static <K,K2,V2> ConcurrentMap<K2,V2> getOrCreate(ConcurrentMap<K,ConcurrentMap<K2,V2>> map, K key) {
+		ConcurrentMap<K2,V2> inner = map.get(key);
+		if(inner==null) {
+			inner = new ConcurrentHashMap<K2,V2>();
+			ConcurrentMap<K2,V2> old = map.putIfAbsent(key, inner);
+			if(old!=null) inner = old;
+		}
+		return inner;
+	}
+
+}
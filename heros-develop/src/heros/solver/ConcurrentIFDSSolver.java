@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import heros.IFDSTabulationProblem;
+import heros.InterproceduralCFG;
+import heros.solver.IFDSSolver.BinaryDomain;
+
+import java.util.Set;
+
+/**
+ * A solver for an {@link IFDSTabulationProblem} that is based on the
+ * {@link ConcurrentIDESolver} instead of the {@link IDESolver}, see {@link IFDSSolver}.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph. Typically {@link Unit}.
+ * @param <D> The type of data-flow facts to be computed by the tabulation problem.
+ * @param <M> The type of objects used to represent methods. Typically {@link SootMethod}.
+ * @param <I> The type of inter-procedural control-flow graph being used.
+ */
+public class ConcurrentIFDSSolver<N,D,M,I extends InterproceduralCFG<N, M>> extends ConcurrentIDESolver<N,D,M,BinaryDomain,I> {
+
+	/**
+	 * Creates a solver for the given problem. The solver must then be started by calling
+	 * {@link #solve()}.
+	 */
+	public ConcurrentIFDSSolver(final IFDSTabulationProblem<N,D,M,I> ifdsProblem) {
+		super(IFDSSolver.createIDETabulationProblem(ifdsProblem));
+	}
+
+	/**
+	 * Returns the set of facts that hold at the given statement.
+	 */
+	public Set<D> ifdsResultsAt(N statement) {
+		return resultsAt(statement).keySet();
+	}
+
+}
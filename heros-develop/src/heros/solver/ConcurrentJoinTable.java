@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import heros.DontSynchronize;
+import heros.JoinLattice;
+import heros.SynchronizedBy;
+import heros.ThreadSafe;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent table of lattice values that merges values instead of overwriting them.
+ * Entries are created on demand and implicitly hold the top element of the lattice,
+ * which is never stored. {@link #join(Object, Object, Object)} is a compare-and-set
+ * loop on a single entry, so threads only contend when they update the very same
+ * entry.
+ *
+ * @param <R> The type of row keys, typically statements.
+ * @param <C> The type of column keys, typically data-flow facts.
+ * @param <V> The type of values, elements of a {@link JoinLattice}.
+ */
+@ThreadSafe
+public class ConcurrentJoinTable<R,C,V> {
+
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<R,ConcurrentMap<C,V>> rows = new ConcurrentHashMap<R,ConcurrentMap<C,V>>();
+
+	@DontSynchronize("stateless")
+	protected final JoinLattice<V> lattice;
+
+	public ConcurrentJoinTable(JoinLattice<V> lattice) {
+		this.lattice = lattice;
+	}
+
+	/**
+	 * Returns the value stored for the given keys, or <code>null</code> if
+	 * the value is top.
+	 */
+	public V get(R row, C column) {
+		Map<C,V> values = rows.get(row);
+		if(values==null) return null;
+		return values.get(column);
+	}
+
+	/**
+	 * Atomically joins v into the value stored for the given keys.
+	 * @return the joined value if it differs from the previous value,
+	 *         <code>null</code> otherwise
+	 */
+	public V join(R row, C column, V v) {
+		ConcurrentMap<C,V> values = getOrCreateRow(row);
+		while(true) {
+			V old = values.get(column);
+			V current = old==null ? lattice.topElement() : old;
+			V joined = join(row, column, current, v);
+			if(joined.equals(current))
+				return null;
+			if(old==null ? values.putIfAbsent(column, joined)==null : values.replace(column, old, joined))
+				return joined;
+		}
+	}
+
+	/**
+	 * Joins two values for the given keys. The default implementation simply
+	 * uses the lattice; subclasses may take the keys into account.
+	 */
+	protected V join(R row, C column, V curr, V newVal) {
+		return lattice.join(curr, newVal);
+	}
+
+	/**
+	 * Stores the given value, overwriting the previous one.
+	 */
+	public void put(R row, C column, V v) {
+		// TOP is the implicit default value which we do not need to store.
+		if(v==lattice.topElement()) {
+			Map<C,V> values = rows.get(row);
+			if(values!=null) values.remove(column);
+		}
+		else
+			getOrCreateRow(row).put(column, v);
+	}
+
+	/**
+	 * Returns a live view of the non-top values in the given row.
+	 */
+	public Map<C,V> row(R row) {
+		Map<C,V> values = rows.get(row);
+		if(values==null) return Collections.emptyMap();
+		return Collections.unmodifiableMap(values);
+	}
+
+	public void clear() {
+		rows.clear();
+	}
+
+	private ConcurrentMap<C,V> getOrCreateRow(R row) {
+		ConcurrentMap<C,V> values = rows.get(row);
+		if(values==null) {
+			values = new ConcurrentHashMap<C,V>();
+			ConcurrentMap<C,V> old = rows.putIfAbsent(row, values);
+			if(old!=null) values = old;
+		}
+		return values;
+	}
+
+}
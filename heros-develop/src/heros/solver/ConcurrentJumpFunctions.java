@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import heros.DontSynchronize;
+import heros.EdgeFunction;
+import heros.SynchronizedBy;
+import heros.ThreadSafe;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Table.Cell;
+import com.google.common.collect.Tables;
+
+/**
+ * Jump functions that can be read and updated by multiple threads without a common lock.
+ * All functions are stored in a single concurrent map keyed by their {@link PathEdge}.
+ * The three indices of {@link JumpFunctions} only hold the keys of this map, so that
+ * updating a function is a single atomic operation on the main map. The maps and sets
+ * returned by the lookup methods are weakly consistent views: they never throw a
+ * {@link java.util.ConcurrentModificationException}, and they may or may not reflect
+ * updates made while iterating over them.
+ */
+@ThreadSafe
+public class ConcurrentJumpFunctions<N,D,L> extends JumpFunctions<N,D,L> {
+
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<PathEdge<N,D>,EdgeFunction<L>> functions = new ConcurrentHashMap<PathEdge<N,D>,EdgeFunction<L>>();
+
+	//mapping from target node and value to all source values with a function
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<Pair<N,D>,Set<D>> sourceValsByTarget = new ConcurrentHashMap<Pair<N,D>,Set<D>>();
+
+	//mapping from source value and target node to all target values with a function
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<Pair<D,N>,Set<D>> targetValsBySource = new ConcurrentHashMap<Pair<D,N>,Set<D>>();
+
+	//mapping from target node to all edges with a function
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentMap<N,Set<PathEdge<N,D>>> edgesByTargetNode = new ConcurrentHashMap<N,Set<PathEdge<N,D>>>();
+
+	@DontSynchronize("immutable")
+	private final EdgeFunction<L> allTop;
+
+	public ConcurrentJumpFunctions(EdgeFunction<L> allTop) {
+		super(allTop);
+		this.allTop = allTop;
+	}
+
+	/**
+	 * Returns the jump function for the given edge, or <code>null</code> if there is none.
+	 */
+	public EdgeFunction<L> getFunction(PathEdge<N,D> edge) {
+		return functions.get(edge);
+	}
+
+	@Override
+	public EdgeFunction<L> getFunction(D sourceVal, N target, D targetVal) {
+		return functions.get(new PathEdge<N,D>(sourceVal, target, targetVal));
+	}
+
+	/**
+	 * Atomically joins f into the jump function for the given edge. The function is
+	 * initialized to all-top.
+	 * @return the joined function if it differs from the previous function,
+	 *         <code>null</code> otherwise
+	 */
+	public EdgeFunction<L> joinFunction(PathEdge<N,D> edge, EdgeFunction<L> f) {
+		while(true) {
+			EdgeFunction<L> old = functions.get(edge);
+			EdgeFunction<L> current = old==null ? allTop : old;
+			EdgeFunction<L> joined = current.joinWith(f);
+			if(joined.equalTo(current))
+				return null;
+			if(old==null ? functions.putIfAbsent(edge, joined)==null : functions.replace(edge, old, joined)) {
+				index(edge);
+				return joined;
+			}
+		}
+	}
+
+	@Override
+	public void addFunction(D sourceVal, N target, D targetVal, EdgeFunction<L> function) {
+		assert sourceVal!=null;
+		assert target!=null;
+		assert targetVal!=null;
+		assert function!=null;
+
+		//we do not store the default function (all-top)
+		if(function.equalTo(allTop)) return;
+
+		PathEdge<N,D> edge = new PathEdge<N,D>(sourceVal, target, targetVal);
+		functions.put(edge, function);
+		index(edge);
+	}
+
+	@Override
+	public Map<D,EdgeFunction<L>> reverseLookup(N target, D targetVal) {
+		assert target!=null;
+		assert targetVal!=null;
+		Set<D> sourceVals = sourceValsByTarget.get(new Pair<N,D>(target, targetVal));
+		if(sourceVals==null) return Collections.emptyMap();
+		return new FunctionsBySourceVal(target, targetVal, sourceVals);
+	}
+
+	@Override
+	public Map<D,EdgeFunction<L>> forwardLookup(D sourceVal, N target) {
+		assert sourceVal!=null;
+		assert target!=null;
+		Set<D> targetVals = targetValsBySource.get(new Pair<D,N>(sourceVal, target));
+		if(targetVals==null) return Collections.emptyMap();
+		return new FunctionsByTargetVal(sourceVal, target, targetVals);
+	}
+
+	@Override
+	public Set<Cell<D,D,EdgeFunction<L>>> lookupByTarget(N target) {
+		assert target!=null;
+		final Set<PathEdge<N,D>> edges = edgesByTargetNode.get(target);
+		if(edges==null) return Collections.emptySet();
+		return new AbstractSet<Cell<D,D,EdgeFunction<L>>>() {
+			@Override
+			public Iterator<Cell<D,D,EdgeFunction<L>>> iterator() {
+				final Iterator<PathEdge<N,D>> it = edges.iterator();
+				return new FunctionIterator<PathEdge<N,D>,Cell<D,D,EdgeFunction<L>>>(it) {
+					@Override
+					protected EdgeFunction<L> function(PathEdge<N,D> edge) {
+						return functions.get(edge);
+					}
+					@Override
+					protected Cell<D,D,EdgeFunction<L>> element(PathEdge<N,D> edge, EdgeFunction<L> function) {
+						return Tables.immutableCell(edge.factAtSource(), edge.factAtTarget(), function);
+					}
+				};
+			}
+			@Override
+			public int size() {
+				return edges.size();
+			}
+		};
+	}
+
+	@Override
+	public boolean removeFunction(D sourceVal, N target, D targetVal) {
+		assert sourceVal!=null;
+		assert target!=null;
+		assert targetVal!=null;
+
+		//remove from the indices first, so that they never refer to a missing function
+		//for longer than necessary
+		PathEdge<N,D> edge = new PathEdge<N,D>(sourceVal, target, targetVal);
+		Set<D> sourceVals = sourceValsByTarget.get(new Pair<N,D>(target, targetVal));
+		if(sourceVals!=null) sourceVals.remove(sourceVal);
+		Set<D> targetVals = targetValsBySource.get(new Pair<D,N>(sourceVal, target));
+		if(targetVals!=null) targetVals.remove(targetVal);
+		Set<PathEdge<N,D>> edges = edgesByTargetNode.get(target);
+		if(edges!=null) edges.remove(edge);
+		return functions.remove(edge)!=null;
+	}
+
+	@Override
+	public void clear() {
+		sourceValsByTarget.clear();
+		targetValsBySource.clear();
+		edgesByTargetNode.clear();
+		functions.clear();
+	}
+
+	private void index(PathEdge<N,D> edge) {
+		getOrCreate(sourceValsByTarget, new Pair<N,D>(edge.getTarget(), edge.factAtTarget())).add(edge.factAtSource());
+		getOrCreate(targetValsBySource, new Pair<D,N>(edge.factAtSource(), edge.getTarget())).add(edge.factAtTarget());
+		getOrCreate(edgesByTargetNode, edge.getTarget()).add(edge);
+	}
+
+	private static <K,E> Set<E> getOrCreate(ConcurrentMap<K,Set<E>> map, K key) {
+		Set<E> set = map.get(key);
+		if(set==null) {
+			set = Collections.newSetFromMap(new ConcurrentHashMap<E,Boolean>());
+			Set<E> old = map.putIfAbsent(key, set);
+			if(old!=null) set = old;
+		}
+		return set;
+	}
+
+	/**
+	 * View of the functions from a fixed source value to a fixed target node,
+	 * keyed by target value.
+	 */
+	private class FunctionsByTargetVal extends FunctionMap {
+		private final D sourceVal;
+		private final N target;
+
+		FunctionsByTargetVal(D sourceVal, N target, Set<D> targetVals) {
+			super(targetVals);
+			this.sourceVal = sourceVal;
+			this.target = target;
+		}
+
+		@Override
+		protected EdgeFunction<L> function(D targetVal) {
+			return functions.get(new PathEdge<N,D>(sourceVal, target, targetVal));
+		}
+	}
+
+	/**
+	 * View of the functions to a fixed target value at a fixed target node,
+	 * keyed by source value.
+	 */
+	private class FunctionsBySourceVal extends FunctionMap {
+		private final N target;
+		private final D targetVal;
+
+		FunctionsBySourceVal(N target, D targetVal, Set<D> sourceVals) {
+			super(sourceVals);
+			this.target = target;
+			this.targetVal = targetVal;
+		}
+
+		@Override
+		protected EdgeFunction<L> function(D sourceVal) {
+			return functions.get(new PathEdge<N,D>(sourceVal, target, targetVal));
+		}
+	}
+
+	/**
+	 * Read-only map view over a key set of one of the indices, looking up the
+	 * functions in the main map. Keys whose function is being removed are skipped.
+	 */
+	private abstract class FunctionMap extends AbstractMap<D,EdgeFunction<L>> {
+		private final Set<D> keys;
+
+		FunctionMap(Set<D> keys) {
+			this.keys = keys;
+		}
+
+		protected abstract EdgeFunction<L> function(D key);
+
+		@Override
+		public EdgeFunction<L> get(Object key) {
+			if(!keys.contains(key)) return null;
+			@SuppressWarnings("unchecked")
+			D d = (D) key;
+			return function(d);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key)!=null;
+		}
+
+		@Override
+		public Set<Entry<D,EdgeFunction<L>>> entrySet() {
+			return new AbstractSet<Entry<D,EdgeFunction<L>>>() {
+				@Override
+				public Iterator<Entry<D,EdgeFunction<L>>> iterator() {
+					return new FunctionIterator<D,Entry<D,EdgeFunction<L>>>(keys.iterator()) {
+						@Override
+						protected EdgeFunction<L> function(D key) {
+							return FunctionMap.this.function(key);
+						}
+						@Override
+						protected Entry<D,EdgeFunction<L>> element(D key, EdgeFunction<L> function) {
+							return new SimpleImmutableEntry<D,EdgeFunction<L>>(key, function);
+						}
+					};
+				}
+				@Override
+				public int size() {
+					return keys.size();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return keys.size();
+		}
+	}
+
+	/**
+	 * Iterates over the keys of an index and returns an element for each key that
+	 * still has a function.
+	 */
+	private abstract class FunctionIterator<K,E> implements Iterator<E> {
+		private final Iterator<K> keys;
+		private E next;
+
+		FunctionIterator(Iterator<K> keys) {
+			this.keys = keys;
+			advance();
+		}
+
+		protected abstract EdgeFunction<L> function(K key);
+
+		protected abstract E element(K key, EdgeFunction<L> function);
+
+		private void advance() {
+			next = null;
+			while(next==null && keys.hasNext()) {
+				K key = keys.next();
+				EdgeFunction<L> function = function(key);
+				if(function!=null) next = element(key, function);
+			}
+		}
+
+		public boolean hasNext() {
+			return next!=null;
+		}
+
+		public E next() {
+			if(next==null) throw new NoSuchElementException();
+			E ret = next;
+			advance();
+			return ret;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -28,10 +28,13 @@ import heros.SynchronizedBy;
 import heros.ZeroedFlowFunctions;
 import heros.edgefunc.EdgeIdentity;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -44,6 +47,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Predicate;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
@@ -70,6 +75,19 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	
 	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
 	
+	/**
+	 * The default maximum number of entries in each of the flow and edge function caches.
+	 */
+	public static final long DEFAULT_FUNCTION_CACHE_SIZE = 500000;
+	
+	/**
+	 * The default builder for flow and edge function caches. Unlike {@link #DEFAULT_CACHE_BUILDER},
+	 * it does not use soft values, which are cleared unpredictably when memory gets tight and then
+	 * need to be recomputed exactly when doing so is most expensive.
+	 * @see #functionCacheBuilder(long)
+	 */
+	public static CacheBuilder<Object, Object> DEFAULT_FUNCTION_CACHE_BUILDER = functionCacheBuilder(DEFAULT_FUNCTION_CACHE_SIZE);
+	
     protected static final Logger logger = LoggerFactory.getLogger(IDESolver.class);
 
     @SynchronizedBy("consistent lock on field")
@@ -157,12 +175,39 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 
 	private boolean recordEdges;
 
+	@DontSynchronize("only used by single thread; reset after each solve")
+	protected Collection<N> valueQueryNodes;
+
+	@DontSynchronize("written before phase II starts")
+	protected Set<M> valueQueryMethods;
+
 	/**
 	 * Creates a solver for the given problem, which caches flow functions and edge functions.
 	 * The solver must then be started by calling {@link #solve()}.
 	 */
 	public IDESolver(IDETabulationProblem<N,D,M,V,I> tabulationProblem) {
-		this(tabulationProblem, DEFAULT_CACHE_BUILDER, DEFAULT_CACHE_BUILDER);
+		this(tabulationProblem, DEFAULT_FUNCTION_CACHE_BUILDER, DEFAULT_FUNCTION_CACHE_BUILDER);
+	}
+	
+	/**
+	 * Creates a builder for flow and edge function caches that hold at most the given number
+	 * of entries. Once a cache is full, the least recently used entries are evicted. Each
+	 * cache is split into segments for concurrent access, which keep their own recency order.
+	 * Statistics are always recorded.
+	 */
+	public static CacheBuilder<Object, Object> functionCacheBuilder(long maximumSize) {
+		return CacheBuilder.newBuilder().concurrencyLevel(Runtime.getRuntime().availableProcessors())
+				.initialCapacity((int) Math.min(10000, maximumSize)).maximumSize(maximumSize).recordStats();
+	}
+	
+	/**
+	 * Creates a builder for flow and edge function caches whose entries weigh at most the given
+	 * total weight, as determined by the given {@link Weigher}. Once a cache is full, the least
+	 * recently used entries are evicted. Statistics are always recorded.
+	 */
+	public static CacheBuilder<Object, Object> functionCacheBuilder(long maximumWeight, Weigher<Object, Object> weigher) {
+		return CacheBuilder.newBuilder().concurrencyLevel(Runtime.getRuntime().availableProcessors())
+				.maximumWeight(maximumWeight).weigher(weigher).recordStats();
 	}
 
 	/**
@@ -201,7 +246,7 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		this.unbalancedRetSites = Collections.newSetFromMap(new ConcurrentHashMap<N, Boolean>());
 		this.valueLattice = tabulationProblem.joinLattice();
 		this.allTop = tabulationProblem.allTopFunction();
-		this.jumpFn = new JumpFunctions<N,D,V>(allTop);
+		this.jumpFn = createJumpFunctions();
 		this.followReturnsPastSeeds = tabulationProblem.followReturnsPastSeeds();
 		this.numThreads = Math.max(1,tabulationProblem.numThreads());
 		this.computeValues = tabulationProblem.computeValues();
@@ -217,6 +262,17 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		awaitCompletionComputeValuesAndShutdown();
 	}
 
+	/**
+	 * Runs the solver on the configured problem, but computes values only for the given
+	 * statements, plus the start points and call sites they depend on. The results
+	 * for all other statements are incomplete. If the problem does not compute values,
+	 * this is the same as {@link #solve()}. The restriction only applies to this solve.
+	 */
+	public void solve(Collection<N> valueQueryNodes) {
+		this.valueQueryNodes = valueQueryNodes;
+		solve();
+	}
+
 	/**
 	 * Schedules the processing of initial seeds, initiating the analysis.
 	 * Clients should only call this methods if performing synchronization on
@@ -248,6 +304,9 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 			computeValues();
 			durationFlowFunctionApplication = System.currentTimeMillis() - before;
 		}
+		//a later solve() must not inherit the restriction of solve(Collection)
+		valueQueryNodes = null;
+		valueQueryMethods = null;
 		if(logger.isDebugEnabled())
 			printStats();
 		
@@ -363,13 +422,8 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 					propagate(d3, sP, d3, EdgeIdentity.<V>v(), n, false); //line 15
 	
 					//register the fact that <sp,d3> has an incoming edge from <n,d2>
-					Set<Cell<N, D, EdgeFunction<V>>> endSumm;
-					synchronized (incoming) {
-						//line 15.1 of Naeem/Lhotak/Rodriguez
-						addIncoming(sP,d3,n,d2);
-						//line 15.2, copy to avoid concurrent modification exceptions by other threads
-						endSumm = new HashSet<Table.Cell<N,D,EdgeFunction<V>>>(endSummary(sP, d3));
-					}
+					//line 15.1 and 15.2 of Naeem/Lhotak/Rodriguez
+					Set<Cell<N, D, EdgeFunction<V>>> endSumm = addIncomingAndGetEndSummaries(sP, d3, n, d2);
 					
 					//still line 15.2 of Naeem/Lhotak/Rodriguez
 					//for each already-queried exit value <eP,d4> reachable from <sP,d3>,
@@ -464,12 +518,7 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 			//line 21.1 of Naeem/Lhotak/Rodriguez
 			
 			//register end-summary
-			synchronized (incoming) {
-				addEndSummary(sP, d1, n, d2, f);
-				//copy to avoid concurrent modification exceptions by other threads
-				for (Entry<N, Set<D>> entry : incoming(d1, sP).entrySet())
-					inc.put(entry.getKey(), new HashSet<D>(entry.getValue()));
-			}
+			inc.putAll(addEndSummaryAndGetIncoming(sP, d1, n, d2, f));
 		}
 		
 		//for each incoming call edge already processed
@@ -494,14 +543,12 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 						EdgeFunction<V> f5 = edgeFunctions.getReturnEdgeFunction(c, icfg.getMethodOf(n), n, d2, retSiteC, d5);
 						EdgeFunction<V> fPrime = f4.composeWith(f).composeWith(f5);
 						//for each jump function coming into the call, propagate to return site using the composed function
-						synchronized (jumpFn) { // some other thread might change jumpFn on the way
-							for(Map.Entry<D,EdgeFunction<V>> valAndFunc: jumpFn.reverseLookup(c,d4).entrySet()) {
-								EdgeFunction<V> f3 = valAndFunc.getValue();
-								if(!f3.equalTo(allTop)) {
-									D d3 = valAndFunc.getKey();
-									D d5_restoredCtx = restoreContextOnReturnedFact(c, d4, d5);
-									propagate(d3, retSiteC, d5_restoredCtx, f3.composeWith(fPrime), c, false);
-								}
+						for(Map.Entry<D,EdgeFunction<V>> valAndFunc: reverseJumpFunctions(c,d4).entrySet()) {
+							EdgeFunction<V> f3 = valAndFunc.getValue();
+							if(!f3.equalTo(allTop)) {
+								D d3 = valAndFunc.getKey();
+								D d5_restoredCtx = restoreContextOnReturnedFact(c, d4, d5);
+								propagate(d3, retSiteC, d5_restoredCtx, f3.composeWith(fPrime), c, false);
 							}
 						}
 					}
@@ -634,20 +681,8 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	protected void propagate(D sourceVal, N target, D targetVal, EdgeFunction<V> f,
 		/* deliberately exposed to clients */ N relatedCallSite,
 		/* deliberately exposed to clients */ boolean isUnbalancedReturn) {
-		EdgeFunction<V> jumpFnE;
-		EdgeFunction<V> fPrime;
-		boolean newFunction;
-		synchronized (jumpFn) {
-			jumpFnE = jumpFn.reverseLookup(target, targetVal).get(sourceVal);
-			if(jumpFnE==null) jumpFnE = allTop; //JumpFn is initialized to all-top (see line [2] in SRH96 paper)
-			fPrime = jumpFnE.joinWith(f);
-			newFunction = !fPrime.equalTo(jumpFnE);
-			if(newFunction) {
-				jumpFn.addFunction(sourceVal, target, targetVal, fPrime);
-			}
-		}
-
-		if(newFunction) {
+		EdgeFunction<V> fPrime = joinJumpFunction(sourceVal, target, targetVal, f);
+		if(fPrime!=null) {
 			PathEdge<N,D> edge = new PathEdge<N,D>(sourceVal, target, targetVal);
 			scheduleEdgeProcessing(edge);
 
@@ -663,6 +698,7 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	private void computeValues() {	
 		//Phase II(i)
         logger.debug("Computing the final values for the edge functions");
+        valueQueryMethods = valueQueryNodes==null ? null : methodsAffecting(valueQueryNodes);
         //add caller seeds to initial seeds in an unbalanced problem
         Map<N, Set<D>> allSeeds = new HashMap<N, Set<D>>(initialSeeds);
         for(N unbalancedRetSite: unbalancedRetSites) {
@@ -676,6 +712,8 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		//do processing
 		for(Entry<N, Set<D>> seed: allSeeds.entrySet()) {
 			N startPoint = seed.getKey();
+			if(valueQueryMethods!=null && !valueQueryMethods.contains(icfg.getMethodOf(startPoint)))
+				continue;
 			for(D val: seed.getValue()) {
 				setVal(startPoint, val, valueLattice.bottomElement());
 				Pair<N, D> superGraphNode = new Pair<N,D>(startPoint, val); 
@@ -691,18 +729,24 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		}
 		
 		//Phase II(ii)
-		//we create an array of all nodes and then dispatch fractions of this array to multiple threads
-		Set<N> allNonCallStartNodes = icfg.allNonCallStartNodes();
-		@SuppressWarnings("unchecked")
-		N[] nonCallStartNodesArray = (N[]) new Object[allNonCallStartNodes.size()];
-		int i=0;
-		for (N n : allNonCallStartNodes) {
-			nonCallStartNodesArray[i] = n;
-			i++;
+		//we group the nodes by method and compute the values of each method in a separate task;
+		//a task only writes values of its own method and only reads values at start points,
+		//which are final after phase II(i)
+		Map<M, List<N>> nodesByMethod = new LinkedHashMap<M, List<N>>();
+		for (N n : valueQueryNodes==null ? icfg.allNonCallStartNodes() : valueQueryNodes) {
+			if(valueQueryNodes!=null && (icfg.isCallStmt(n) || icfg.isStartPoint(n)))
+				continue; //computed in phase II(i)
+			M m = icfg.getMethodOf(n);
+			List<N> nodes = nodesByMethod.get(m);
+			if(nodes==null) {
+				nodes = new ArrayList<N>();
+				nodesByMethod.put(m, nodes);
+			}
+			nodes.add(n);
 		}
 		//No need to keep track of the number of tasks scheduled here, since we call shutdown
-		for(int t=0;t<numThreads; t++) {
-			ValueComputationTask task = new ValueComputationTask(nonCallStartNodesArray, t);
+		for(Entry<M, List<N>> entry : nodesByMethod.entrySet()) {
+			ValueComputationTask task = new ValueComputationTask(entry.getKey(), entry.getValue());
 			scheduleValueComputationTask(task);
 		}
 		//await termination of tasks
@@ -713,20 +757,40 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		}
 	}
 
+	/**
+	 * Returns the methods of the given nodes and all their transitive callers. Only
+	 * values in these methods can flow into the given nodes.
+	 */
+	private Set<M> methodsAffecting(Collection<N> nodes) {
+		Set<M> methods = new HashSet<M>();
+		List<M> worklist = new ArrayList<M>();
+		for(N n : nodes) {
+			M m = icfg.getMethodOf(n);
+			if(methods.add(m))
+				worklist.add(m);
+		}
+		while(!worklist.isEmpty()) {
+			M m = worklist.remove(worklist.size() - 1);
+			for(N c : icfg.getCallersOf(m)) {
+				M caller = icfg.getMethodOf(c);
+				if(methods.add(caller))
+					worklist.add(caller);
+			}
+		}
+		return methods;
+	}
+
 	private void propagateValueAtStart(Pair<N, D> nAndD, N n) {
 		D d = nAndD.getO2();		
 		M p = icfg.getMethodOf(n);
-		for(N c: icfg.getCallsFromWithin(p)) {					
-			Set<Entry<D, EdgeFunction<V>>> entries; 
-			synchronized (jumpFn) {
-				entries = jumpFn.forwardLookup(d,c).entrySet();
-				for(Map.Entry<D,EdgeFunction<V>> dPAndFP: entries) {
-					D dPrime = dPAndFP.getKey();
-					EdgeFunction<V> fPrime = dPAndFP.getValue();
-					N sP = n;
-					propagateValue(c,dPrime,fPrime.computeTarget(val(sP,d)));
-					flowFunctionApplicationCount++;
-				}
+		for(N c: icfg.getCallsFromWithin(p)) {
+			//no locking needed, the jump functions do not change any more in phase II
+			for(Map.Entry<D,EdgeFunction<V>> dPAndFP: jumpFn.forwardLookup(d,c).entrySet()) {
+				D dPrime = dPAndFP.getKey();
+				EdgeFunction<V> fPrime = dPAndFP.getValue();
+				N sP = n;
+				propagateValue(c,dPrime,fPrime.computeTarget(val(sP,d)));
+				flowFunctionApplicationCount++;
 			}
 		}
 	}
@@ -734,6 +798,8 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	private void propagateValueAtCall(Pair<N, D> nAndD, N n) {
 		D d = nAndD.getO2();
 		for(M q: icfg.getCalleesOfCallAt(n)) {
+			if(valueQueryMethods!=null && !valueQueryMethods.contains(q))
+				continue;
 			FlowFunction<D> callFlowFunction = flowFunctions.getCallFlowFunction(n, q);
 			flowFunctionConstructionCount++;
 			for(D dPrime: callFlowFunction.computeTargets(d)) {
@@ -751,17 +817,38 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	}
 	
 	private void propagateValue(N nHashN, D nHashD, V v) {
+		if(joinVal(nHashN, nHashD, v)) {
+			scheduleValueProcessing(new ValuePropagationTask(new Pair<N,D>(nHashN,nHashD)));
+		}
+	}
+
+	/**
+	 * Joins v into the value of nHashD at nHashN, see {@link #joinValueAt(Object, Object, Object, Object)}.
+	 * @return <code>true</code> if the stored value has changed
+	 */
+	protected boolean joinVal(N nHashN, D nHashD, V v) {
 		synchronized (val) {
 			V valNHash = val(nHashN, nHashD);
 			V vPrime = joinValueAt(nHashN, nHashD, valNHash,v);
-			if(!vPrime.equals(valNHash)) {
-				setVal(nHashN, nHashD, vPrime);
-				scheduleValueProcessing(new ValuePropagationTask(new Pair<N,D>(nHashN,nHashD)));
-			}
+			if(vPrime.equals(valNHash))
+				return false;
+			setVal(nHashN, nHashD, vPrime);
+			return true;
 		}
 	}
 
-	private V val(N nHashN, D nHashD){ 
+	/**
+	 * Joins the given values, computed in phase II(ii), into the values stored so far.
+	 */
+	protected void joinVals(Map<N, Map<D, V>> values) {
+		synchronized (val) {
+			for(Entry<N, Map<D, V>> row : values.entrySet())
+				for(Entry<D, V> entry : row.getValue().entrySet())
+					joinVal(row.getKey(), entry.getKey(), entry.getValue());
+		}
+	}
+
+	protected V val(N nHashN, D nHashD){ 
 		V l;
 		synchronized (val) {
 			l = val.get(nHashN, nHashD);
@@ -770,7 +857,7 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		else return l;
 	}
 	
-	private void setVal(N nHashN, D nHashD,V l){
+	protected void setVal(N nHashN, D nHashD,V l){
 		// TOP is the implicit default value which we do not need to store.
 		synchronized (val) {
 			if (l == valueLattice.topElement())     // do not store top values
@@ -781,21 +868,49 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
         logger.debug("VALUE: {} {} {} {}", icfg.getMethodOf(nHashN), nHashN, nHashD, l);
 	}
 
-	private EdgeFunction<V> jumpFunction(PathEdge<N,D> edge) {
+	protected EdgeFunction<V> jumpFunction(PathEdge<N,D> edge) {
 		synchronized (jumpFn) {
-			EdgeFunction<V> function = jumpFn.forwardLookup(edge.factAtSource(), edge.getTarget()).get(edge.factAtTarget());
+			EdgeFunction<V> function = jumpFn.getFunction(edge.factAtSource(), edge.getTarget(), edge.factAtTarget());
 			if(function==null) return allTop; //JumpFn initialized to all-top, see line [2] in SRH96 paper
 			return function;
 		}
 	}
 
+	/**
+	 * Joins f into the jump function from sourceVal to targetVal at target.
+	 * @return the joined function if it differs from the previous jump function,
+	 *         <code>null</code> otherwise
+	 */
+	protected EdgeFunction<V> joinJumpFunction(D sourceVal, N target, D targetVal, EdgeFunction<V> f) {
+		synchronized (jumpFn) {
+			EdgeFunction<V> jumpFnE = jumpFn.getFunction(sourceVal, target, targetVal);
+			if(jumpFnE==null) jumpFnE = allTop; //JumpFn is initialized to all-top (see line [2] in SRH96 paper)
+			EdgeFunction<V> fPrime = jumpFnE.joinWith(f);
+			if(fPrime.equalTo(jumpFnE))
+				return null;
+			jumpFn.addFunction(sourceVal, target, targetVal, fPrime);
+			return fPrime;
+		}
+	}
+
+	/**
+	 * Returns the jump functions ending in targetVal at target as a mapping from
+	 * source value to function. The returned map may be iterated without locking.
+	 */
+	protected Map<D,EdgeFunction<V>> reverseJumpFunctions(N target, D targetVal) {
+		synchronized (jumpFn) {
+			//copy to avoid concurrent modification exceptions by other threads
+			return new LinkedHashMap<D,EdgeFunction<V>>(jumpFn.reverseLookup(target, targetVal));
+		}
+	}
+
 	protected Set<Cell<N, D, EdgeFunction<V>>> endSummary(N sP, D d3) {
 		Table<N, D, EdgeFunction<V>> map = endSummary.get(sP, d3);
 		if(map==null) return Collections.emptySet();
 		return map.cellSet();
 	}
 
-	private void addEndSummary(N sP, D d1, N eP, D d2, EdgeFunction<V> f) {
+	protected void addEndSummary(N sP, D d1, N eP, D d2, EdgeFunction<V> f) {
 		Table<N, D, EdgeFunction<V>> summaries = endSummary.get(sP, d1);
 		if(summaries==null) {
 			summaries = HashBasedTable.create();
@@ -830,6 +945,37 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 			set.add(d2);
 		}
 	}	
+
+	/**
+	 * Registers the incoming edge from <n,d2> into <sP,d3> and returns the end summaries
+	 * already computed for <sP,d3>. Both happen atomically with respect to
+	 * {@link #addEndSummaryAndGetIncoming(Object, Object, Object, Object, EdgeFunction)}.
+	 * The returned set may be iterated without locking.
+	 */
+	protected Set<Cell<N, D, EdgeFunction<V>>> addIncomingAndGetEndSummaries(N sP, D d3, N n, D d2) {
+		synchronized (incoming) {
+			addIncoming(sP,d3,n,d2);
+			//copy to avoid concurrent modification exceptions by other threads
+			return new HashSet<Table.Cell<N,D,EdgeFunction<V>>>(endSummary(sP, d3));
+		}
+	}
+
+	/**
+	 * Registers the end summary from <sP,d1> to <eP,d2> and returns the incoming edges
+	 * already registered for <sP,d1>. Both happen atomically with respect to
+	 * {@link #addIncomingAndGetEndSummaries(Object, Object, Object, Object)}.
+	 * The returned map may be iterated without locking.
+	 */
+	protected Map<N, Set<D>> addEndSummaryAndGetIncoming(N sP, D d1, N eP, D d2, EdgeFunction<V> f) {
+		synchronized (incoming) {
+			addEndSummary(sP, d1, eP, d2, f);
+			//copy to avoid concurrent modification exceptions by other threads
+			Map<N, Set<D>> inc = new HashMap<N, Set<D>>();
+			for (Entry<N, Set<D>> entry : incoming(d1, sP).entrySet())
+				inc.put(entry.getKey(), new HashSet<D>(entry.getValue()));
+			return inc;
+		}
+	}
 	
 	/**
 	 * Returns the V-type result for the given value at the given statement.
@@ -856,6 +1002,13 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		});
 	}
 	
+	/**
+	 * Factory method for this solver's jump functions.
+	 */
+	protected JumpFunctions<N,D,V> createJumpFunctions() {
+		return new JumpFunctions<N,D,V>(allTop);
+	}
+	
 	/**
 	 * Factory method for this solver's thread-pool executor.
 	 */
@@ -871,6 +1024,24 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 		return "";
 	}
 
+	/**
+	 * Returns the combined statistics of the flow function caches, or <code>null</code> if
+	 * flow functions are not cached. The statistics are only recorded if the caches were built
+	 * with {@link CacheBuilder#recordStats()}, e.g., by {@link #functionCacheBuilder(long)}.
+	 */
+	public CacheStats getFlowFunctionCacheStats() {
+		return ffCache == null ? null : ffCache.getStats();
+	}
+
+	/**
+	 * Returns the combined statistics of the edge function caches, or <code>null</code> if
+	 * edge functions are not cached.
+	 * @see #getFlowFunctionCacheStats()
+	 */
+	public CacheStats getEdgeFunctionCacheStats() {
+		return efCache == null ? null : efCache.getStats();
+	}
+
 	public void printStats() {
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
@@ -926,32 +1097,42 @@ public class IDESolver<N,D,M,V,I extends InterproceduralCFG<N, M>> {
 	}
 	
 	private class ValueComputationTask implements Runnable {
-		private final N[] values;
-		final int num;
+		private final M method;
+		private final List<N> nodes;
 
-		public ValueComputationTask(N[] values, int num) {
-			this.values = values;
-			this.num = num;
+		public ValueComputationTask(M method, List<N> nodes) {
+			this.method = method;
+			this.nodes = nodes;
 		}
 
 		public void run() {
-			int sectionSize = (int) Math.floor(values.length / numThreads) + numThreads;
-			for(int i = sectionSize * num; i < Math.min(sectionSize * (num+1),values.length); i++) {
-				N n = values[i];
-				for(N sP: icfg.getStartPointsOf(icfg.getMethodOf(n))) {					
-					Set<Cell<D, D, EdgeFunction<V>>> lookupByTarget;
-					lookupByTarget = jumpFn.lookupByTarget(n);
-					for(Cell<D, D, EdgeFunction<V>> sourceValTargetValAndFunction : lookupByTarget) {
+			//compute all values of the method locally, then publish them at once
+			Map<N, Map<D, V>> values = new HashMap<N, Map<D, V>>();
+			for(N sP: icfg.getStartPointsOf(method)) {
+				Map<D, V> startValues = new HashMap<D, V>();
+				for(N n : nodes) {
+					for(Cell<D, D, EdgeFunction<V>> sourceValTargetValAndFunction : jumpFn.lookupByTarget(n)) {
 						D dPrime = sourceValTargetValAndFunction.getRowKey();
 						D d = sourceValTargetValAndFunction.getColumnKey();
 						EdgeFunction<V> fPrime = sourceValTargetValAndFunction.getValue();
-						synchronized (val) {
-							setVal(n,d,valueLattice.join(val(n,d),fPrime.computeTarget(val(sP,dPrime))));
+						V startValue = startValues.get(dPrime);
+						if(startValue==null) {
+							startValue = val(sP,dPrime);
+							startValues.put(dPrime, startValue);
+						}
+						Map<D, V> valuesAtN = values.get(n);
+						if(valuesAtN==null) {
+							valuesAtN = new HashMap<D, V>();
+							values.put(n, valuesAtN);
 						}
+						V current = valuesAtN.get(d);
+						if(current==null) current = valueLattice.topElement();
+						valuesAtN.put(d, joinValueAt(n, d, current, fPrime.computeTarget(startValue)));
 						flowFunctionApplicationCount++;
 					}
 				}
 			}
+			joinVals(values);
 		}
 	}
 
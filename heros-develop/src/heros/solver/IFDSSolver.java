@@ -26,6 +26,8 @@ import heros.edgefunc.EdgeIdentity;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.cache.CacheBuilder;
+
 /**
  * A solver for an {@link IFDSTabulationProblem}. This solver in effect uses the {@link IDESolver}
  * to solve the problem, as any IFDS problem can be intepreted as a special case of an IDE problem.
@@ -52,6 +54,16 @@ public class IFDSSolver<N,D,M,I extends InterproceduralCFG<N, M>> extends IDESol
 		super(createIDETabulationProblem(ifdsProblem));
 	}
 
+	/**
+	 * Creates a solver for the given problem, constructing flow-function and edge-function
+	 * caches with the given {@link CacheBuilder}. The solver must then be started by calling
+	 * {@link #solve()}.
+	 * @param cacheBuilder A valid {@link CacheBuilder} or <code>null</code> if no caching is to be used.
+	 */
+	public IFDSSolver(final IFDSTabulationProblem<N,D,M,I> ifdsProblem, @SuppressWarnings("rawtypes") CacheBuilder cacheBuilder) {
+		super(createIDETabulationProblem(ifdsProblem), cacheBuilder, cacheBuilder);
+	}
+
 	static <N, D, M, I extends InterproceduralCFG<N, M>> IDETabulationProblem<N, D, M, BinaryDomain, I> createIDETabulationProblem(
 			final IFDSTabulationProblem<N, D, M, I> ifdsProblem) {
 		return new IDETabulationProblem<N,D,M,BinaryDomain,I>() {
@@ -95,6 +95,19 @@ public class JumpFunctions<N,D,L> {
 		table.put(sourceVal, targetVal, function);
 	}
 	
+	/**
+	 * Returns the jump function from sourceVal to targetVal at target, or
+	 * <code>null</code> if there is none.
+	 */
+	public synchronized EdgeFunction<L> getFunction(D sourceVal, N target, D targetVal) {
+		assert sourceVal!=null;
+		assert target!=null;
+		assert targetVal!=null;
+		Map<D,EdgeFunction<L>> targetValToFunc = nonEmptyForwardLookup.get(sourceVal, target);
+		if(targetValToFunc==null) return null;
+		return targetValToFunc.get(targetVal);
+	}
+	
 	/**
      * Returns, for a given target statement and value all associated
      * source values, and for each the associated edge function.
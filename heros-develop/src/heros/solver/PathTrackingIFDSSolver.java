@@ -16,6 +16,7 @@ import heros.InterproceduralCFG;
 
 import java.util.Map;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 
 /**
@@ -34,6 +35,10 @@ public class PathTrackingIFDSSolver<N, D extends LinkedNode<D>, M, I extends Int
 		super(ifdsProblem);
 	}
 
+	public PathTrackingIFDSSolver(IFDSTabulationProblem<N, D, M, I> ifdsProblem, @SuppressWarnings("rawtypes") CacheBuilder cacheBuilder) {
+		super(ifdsProblem, cacheBuilder);
+	}
+
 	protected final Map<CacheEntry, LinkedNode<D>> cache = Maps.newHashMap();
 	
 	@Override
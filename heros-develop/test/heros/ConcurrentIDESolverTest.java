@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros;
+
+import heros.solver.ConcurrentIDESolver;
+import heros.solver.IDESolver;
+
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Runs all tests of {@link IDESolverTest} on the {@link ConcurrentIDESolver} with several
+ * worker threads, repeating each test {@link #REPETITIONS} times.
+ */
+public class ConcurrentIDESolverTest extends IDESolverTest {
+
+	private static final int REPETITIONS = 50;
+
+	@Rule
+	public TestRule repeat = new TestRule() {
+		@Override
+		public Statement apply(final Statement base, Description description) {
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					for (int i = 0; i < REPETITIONS; i++)
+						base.evaluate();
+				}
+			};
+		}
+	};
+
+	@Override
+	protected int numThreads() {
+		return 4;
+	}
+
+	@Override
+	protected IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> createSolver(
+			IDETabulationProblem<String, String, String, Integer, InterproceduralCFG<String, String>> problem,
+			final Recorder recorder) {
+		return new ConcurrentIDESolver<String, String, String, Integer, InterproceduralCFG<String, String>>(problem) {
+			@Override
+			protected Integer joinValueAt(String unit, String fact, Integer curr, Integer newVal) {
+				recorder.joinedAt.add(unit);
+				return super.joinValueAt(unit, fact, curr, newVal);
+			}
+
+			@Override
+			protected void joinVals(Map<String, Map<String, Integer>> values) {
+				recorder.batches.add(Sets.newHashSet(values.keySet()));
+				super.joinVals(values);
+			}
+		};
+	}
+
+}
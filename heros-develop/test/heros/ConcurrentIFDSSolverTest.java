@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros;
+
+import heros.utilities.TestHelper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Runs all tests of {@link IFDSSolverTest} on the {@link heros.solver.ConcurrentIFDSSolver}
+ * with several worker threads. Each test is repeated {@link #REPETITIONS} times so that
+ * different interleavings get a chance to show up.
+ */
+public class ConcurrentIFDSSolverTest extends IFDSSolverTest {
+
+	private static final int NUM_THREADS = 4;
+	private static final int REPETITIONS = 50;
+
+	@Rule
+	public TestRule repeat = new TestRule() {
+		@Override
+		public Statement apply(final Statement base, Description description) {
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					for (int i = 0; i < REPETITIONS; i++) {
+						// the rule wraps @Before, so each run starts with a fresh helper
+						base.evaluate();
+					}
+				}
+			};
+		}
+	};
+
+	@Before
+	@Override
+	public void before() {
+		helper = new TestHelper(true, NUM_THREADS);
+	}
+
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import heros.edgefunc.EdgeIdentity;
+import heros.solver.IDESolver;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Tests the bounded flow and edge function caches built by
+ * {@link IDESolver#functionCacheBuilder(long)}.
+ */
+public class FunctionCacheTest {
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final FlowFunctions<String, String, String> flowFunctions = new FlowFunctions<String, String, String>() {
+		@Override
+		public FlowFunction<String> getNormalFlowFunction(String curr, String succ) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<String> getCallFlowFunction(String callStmt, String destinationMethod) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<String> getReturnFlowFunction(String callSite, String calleeMethod, String exitStmt, String returnSite) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<String> getCallToReturnFlowFunction(String callSite, String returnSite) {
+			return create();
+		}
+
+		private FlowFunction<String> create() {
+			created.incrementAndGet();
+			return new FlowFunction<String>() {
+				@Override
+				public Set<String> computeTargets(String source) {
+					return Collections.singleton(source);
+				}
+			};
+		}
+	};
+
+	private final EdgeFunctions<String, String, String, Integer> edgeFunctions = new EdgeFunctions<String, String, String, Integer>() {
+		@Override
+		public EdgeFunction<Integer> getNormalEdgeFunction(String curr, String currNode, String succ, String succNode) {
+			created.incrementAndGet();
+			return EdgeIdentity.v();
+		}
+
+		@Override
+		public EdgeFunction<Integer> getCallEdgeFunction(String callStmt, String srcNode, String destinationMethod, String destNode) {
+			created.incrementAndGet();
+			return EdgeIdentity.v();
+		}
+
+		@Override
+		public EdgeFunction<Integer> getReturnEdgeFunction(String callSite, String calleeMethod, String exitStmt, String exitNode,
+				String returnSite, String retNode) {
+			created.incrementAndGet();
+			return EdgeIdentity.v();
+		}
+
+		@Override
+		public EdgeFunction<Integer> getCallToReturnEdgeFunction(String callSite, String callNode, String returnSite, String returnSideNode) {
+			created.incrementAndGet();
+			return EdgeIdentity.v();
+		}
+	};
+
+	@Test
+	public void repeatedRequestsHitTheCache() {
+		FlowFunctionCache<String, String, String> cache =
+				new FlowFunctionCache<String, String, String>(flowFunctions, IDESolver.functionCacheBuilder(100));
+
+		FlowFunction<String> normal = cache.getNormalFlowFunction("a", "b");
+		assertSame(normal, cache.getNormalFlowFunction("a", "b"));
+		cache.getCallFlowFunction("c", "foo");
+		cache.getCallFlowFunction("c", "foo");
+		cache.getReturnFlowFunction("c", "foo", "e", "d");
+		cache.getCallToReturnFlowFunction("c", "d");
+
+		assertEquals(4, created.get());
+		CacheStats stats = cache.getStats();
+		assertEquals(6, stats.requestCount());
+		assertEquals(2, stats.hitCount());
+		assertEquals(4, stats.missCount());
+	}
+
+	@Test
+	public void cacheIsBoundedByEntries() {
+		FlowFunctionCache<String, String, String> cache =
+				new FlowFunctionCache<String, String, String>(flowFunctions, IDESolver.functionCacheBuilder(10));
+
+		for (int i = 0; i < 1000; i++)
+			cache.getNormalFlowFunction("n" + i, "n" + (i + 1));
+
+		assertTrue(String.valueOf(cache.normalCache.size()), cache.normalCache.size() <= 10);
+		CacheStats stats = cache.getStats();
+		assertEquals(1000, stats.missCount());
+		assertEquals(1000 - cache.normalCache.size(), stats.evictionCount());
+	}
+
+	@Test
+	public void cacheIsBoundedByWeight() {
+		Weigher<Object, Object> weigher = new Weigher<Object, Object>() {
+			@Override
+			public int weigh(Object key, Object value) {
+				return 5;
+			}
+		};
+		FlowFunctionCache<String, String, String> cache =
+				new FlowFunctionCache<String, String, String>(flowFunctions, IDESolver.functionCacheBuilder(50, weigher));
+
+		for (int i = 0; i < 1000; i++)
+			cache.getCallToReturnFlowFunction("n" + i, "n" + (i + 1));
+
+		assertTrue(String.valueOf(cache.callToReturnCache.size()), cache.callToReturnCache.size() <= 10);
+		assertTrue(cache.getStats().evictionCount() >= 990);
+	}
+
+	@Test
+	public void edgeFunctionCacheStats() {
+		EdgeFunctionCache<String, String, String, Integer> cache =
+				new EdgeFunctionCache<String, String, String, Integer>(edgeFunctions, IDESolver.functionCacheBuilder(100));
+
+		cache.getNormalEdgeFunction("a", "x", "b", "x");
+		cache.getNormalEdgeFunction("a", "x", "b", "x");
+		cache.getCallEdgeFunction("c", "x", "foo", "p");
+		cache.getReturnEdgeFunction("c", "foo", "e", "r", "d", "y");
+		cache.getCallToReturnEdgeFunction("c", "x", "d", "x");
+		cache.getCallToReturnEdgeFunction("c", "x", "d", "x");
+
+		assertEquals(4, created.get());
+		CacheStats stats = cache.getStats();
+		assertEquals(6, stats.requestCount());
+		assertEquals(2, stats.hitCount());
+	}
+
+	@Test
+	public void statisticsAreOnlyRecordedOnRequest() {
+		FlowFunctionCache<String, String, String> cache =
+				new FlowFunctionCache<String, String, String>(flowFunctions, CacheBuilder.newBuilder());
+
+		cache.getNormalFlowFunction("a", "b");
+		cache.getNormalFlowFunction("a", "b");
+
+		assertEquals(1, created.get());
+		assertEquals(0, cache.getStats().requestCount());
+	}
+
+}
@@ -0,0 +1,628 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import heros.edgefunc.AllTop;
+import heros.edgefunc.EdgeIdentity;
+import heros.flowfunc.Identity;
+import heros.solver.IDESolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Runs a linear constant propagation on a small hand-written program and checks the
+ * values the {@link IDESolver} computes in phase II. The expected values are those of
+ * the original solver, so these tests pin its results across changes to the solver.
+ */
+public class IDESolverTest {
+
+	protected static final Integer TOP = Integer.MAX_VALUE;
+	protected static final Integer BOTTOM = Integer.MIN_VALUE;
+	protected static final String ZERO = "0";
+
+	private static final JoinLattice<Integer> LATTICE = new JoinLattice<Integer>() {
+		@Override
+		public Integer topElement() {
+			return TOP;
+		}
+
+		@Override
+		public Integer bottomElement() {
+			return BOTTOM;
+		}
+
+		@Override
+		public Integer join(Integer left, Integer right) {
+			if (left.equals(TOP))
+				return right;
+			if (right.equals(TOP) || left.equals(right))
+				return left;
+			return BOTTOM;
+		}
+	};
+
+	protected Program program;
+
+	@Before
+	public void before() {
+		program = new Program();
+		// main: x = 1; y = x + 2; z = inc(y); w = inc(z); if (*) v = 1 else v = 2; q = rec(x)
+		program.method("main", null, null);
+		program.assign("a", "x", null, 1).succ("b");
+		program.assign("b", "y", "x", 2).succ("c");
+		program.call("c", "z", "inc", "y").succ("d");
+		program.call("d", "w", "inc", "z").succ("e");
+		program.nop("e").succ("f", "g");
+		program.assign("f", "v", null, 1).succ("h");
+		program.assign("g", "v", null, 2).succ("h");
+		program.call("h", "q", "rec", "x").succ("k");
+		program.nop("k");
+		// inc(p): r = p + 1; return r
+		program.method("inc", "p", "r");
+		program.assign("i", "r", "p", 1).succ("j");
+		program.nop("j");
+		// rec(s): if (*) t = rec(s) else t = s + 1; return t
+		program.method("rec", "s", "t");
+		program.nop("r1").succ("r2", "r3");
+		program.call("r2", "t", "rec", "s").succ("r4");
+		program.assign("r3", "t", "s", 1).succ("r4");
+		program.nop("r4");
+	}
+
+	protected int numThreads() {
+		return 1;
+	}
+
+	protected IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> createSolver(
+			IDETabulationProblem<String, String, String, Integer, InterproceduralCFG<String, String>> problem,
+			final Recorder recorder) {
+		return new IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>>(problem) {
+			@Override
+			protected Integer joinValueAt(String unit, String fact, Integer curr, Integer newVal) {
+				recorder.joinedAt.add(unit);
+				return super.joinValueAt(unit, fact, curr, newVal);
+			}
+
+			@Override
+			protected void joinVals(Map<String, Map<String, Integer>> values) {
+				recorder.batches.add(Sets.newHashSet(values.keySet()));
+				super.joinVals(values);
+			}
+		};
+	}
+
+	private IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solve(Recorder recorder,
+			String... valueQueryNodes) {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver =
+				createSolver(new LinearConstantPropagation(program, numThreads()), recorder);
+		if (valueQueryNodes.length == 0)
+			solver.solve();
+		else
+			solver.solve(Arrays.asList(valueQueryNodes));
+		return solver;
+	}
+
+	@Test
+	public void linearConstants() {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver =
+				solve(new Recorder());
+
+		Map<String, Integer> atD = ImmutableMap.of("x", 1, "y", 3, "z", 4);
+		Map<String, Integer> atE = ImmutableMap.of("x", 1, "y", 3, "z", 4, "w", 5);
+		assertEquals(Collections.emptyMap(), solver.resultsAt("a"));
+		assertEquals(ImmutableMap.of("x", 1), solver.resultsAt("b"));
+		assertEquals(ImmutableMap.of("x", 1, "y", 3), solver.resultsAt("c"));
+		assertEquals(atD, solver.resultsAt("d"));
+		assertEquals(atE, solver.resultsAt("e"));
+		assertEquals(atE, solver.resultsAt("f"));
+		assertEquals(atE, solver.resultsAt("g"));
+		assertEquals(ImmutableMap.builder().putAll(atE).put("v", BOTTOM).build(), solver.resultsAt("h"));
+		assertEquals(ImmutableMap.builder().putAll(atE).put("v", BOTTOM).put("q", 2).build(), solver.resultsAt("k"));
+	}
+
+	@Test
+	public void calleeValuesJoinAllCallingContexts() {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver =
+				solve(new Recorder());
+
+		// inc is called with 3 and 4, but each caller still receives its own result
+		assertEquals(ImmutableMap.of("p", BOTTOM), solver.resultsAt("i"));
+		assertEquals(ImmutableMap.of("p", BOTTOM, "r", BOTTOM), solver.resultsAt("j"));
+		assertNull(solver.resultAt("j", "x"));
+	}
+
+	@Test
+	public void recursiveSummary() {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver =
+				solve(new Recorder());
+
+		assertEquals(ImmutableMap.of("s", 1), solver.resultsAt("r1"));
+		assertEquals(ImmutableMap.of("s", 1), solver.resultsAt("r2"));
+		assertEquals(ImmutableMap.of("s", 1), solver.resultsAt("r3"));
+		assertEquals(ImmutableMap.of("s", 1, "t", 2), solver.resultsAt("r4"));
+	}
+
+	@Test
+	public void joinValueAtIsUsedInBothPhases() {
+		Recorder recorder = new Recorder();
+		solve(recorder);
+		Set<String> joinedAt = recorder.joinedAt;
+
+		// call sites and callee start points receive their values in phase II(i),
+		// all other nodes in phase II(ii)
+		assertTrue(joinedAt.toString(), joinedAt.containsAll(Sets.newHashSet("c", "i", "r1")));
+		assertTrue(joinedAt.toString(), joinedAt.containsAll(Sets.newHashSet("b", "j", "k", "r4")));
+	}
+
+	@Test
+	public void functionCachesRecordStatistics() {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver = solve(new Recorder());
+
+		assertTrue(solver.getFlowFunctionCacheStats().requestCount() > 0);
+		assertTrue(solver.getFlowFunctionCacheStats().hitCount() > 0);
+		assertTrue(solver.getEdgeFunctionCacheStats().requestCount() > 0);
+	}
+
+	@Test
+	public void valuesAreComputedOnceForEachMethod() {
+		Recorder recorder = new Recorder();
+		solve(recorder);
+
+		Set<String> methods = Sets.newHashSet();
+		Set<String> nodes = Sets.newHashSet();
+		for (Set<String> batch : recorder.batches) {
+			Set<String> methodsOfBatch = Sets.newHashSet();
+			for (String n : batch)
+				methodsOfBatch.add(program.getMethodOf(n));
+			assertEquals(batch.toString(), 1, methodsOfBatch.size());
+			assertTrue(batch.toString(), methods.addAll(methodsOfBatch));
+			nodes.addAll(batch);
+		}
+		assertEquals(Sets.newHashSet("main", "inc", "rec"), methods);
+		assertEquals(program.allNonCallStartNodes(), nodes);
+	}
+
+	@Test
+	public void valueQueryMatchesFullSolve() {
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> full = solve(new Recorder());
+		for (String n : program.stmts.keySet()) {
+			IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> queried = solve(new Recorder(), n);
+			assertEquals(n, full.resultsAt(n), queried.resultsAt(n));
+		}
+	}
+
+	@Test
+	public void valueQuerySkipsUnaffectedMethods() {
+		Recorder recorder = new Recorder();
+		IDESolver<String, String, String, Integer, InterproceduralCFG<String, String>> solver = solve(recorder, "j", "b");
+
+		assertEquals(ImmutableMap.of("p", BOTTOM, "r", BOTTOM), solver.resultsAt("j"));
+		assertEquals(ImmutableMap.of("x", 1), solver.resultsAt("b"));
+		// rec neither contains a queried node nor calls a method that does
+		assertEquals(Collections.emptyMap(), solver.resultsAt("r1"));
+		assertEquals(Collections.emptyMap(), solver.resultsAt("r4"));
+		List<Set<String>> batches = sortedBatches(recorder);
+		assertEquals(batches.toString(), 2, batches.size());
+		assertEquals(Collections.singleton("b"), batches.get(0));
+		assertEquals(Collections.singleton("j"), batches.get(1));
+	}
+
+	private static List<Set<String>> sortedBatches(Recorder recorder) {
+		List<Set<String>> batches = Lists.newArrayList(recorder.batches);
+		Collections.sort(batches, new Comparator<Set<String>>() {
+			@Override
+			public int compare(Set<String> o1, Set<String> o2) {
+				return o1.toString().compareTo(o2.toString());
+			}
+		});
+		return batches;
+	}
+
+	/**
+	 * Records the nodes the solver joins values at, and the batches of values it publishes
+	 * in phase II(ii).
+	 */
+	protected static class Recorder {
+		final Set<String> joinedAt = Collections.synchronizedSet(new LinkedHashSet<String>());
+		final List<Set<String>> batches = Collections.synchronizedList(new ArrayList<Set<String>>());
+	}
+
+	/**
+	 * A tiny three-address language: every statement either assigns {@code lhs = rhs + k},
+	 * assigns the constant {@code lhs = k}, calls {@code lhs = callee(arg)} or does nothing.
+	 * The last statement of a method returns the method's return variable.
+	 */
+	protected static class Program implements InterproceduralCFG<String, String> {
+
+		private final Map<String, Stmt> stmts = new LinkedHashMap<String, Stmt>();
+		private final Map<String, String> startPoints = new HashMap<String, String>();
+		private final Map<String, String> params = new HashMap<String, String>();
+		private final Map<String, String> returns = new HashMap<String, String>();
+		private String currentMethod;
+
+		public void method(String name, String param, String ret) {
+			currentMethod = name;
+			params.put(name, param);
+			returns.put(name, ret);
+		}
+
+		public Stmt assign(String name, String lhs, String rhs, int k) {
+			Stmt s = nop(name);
+			s.lhs = lhs;
+			s.rhs = rhs;
+			s.k = k;
+			return s;
+		}
+
+		public Stmt call(String name, String lhs, String callee, String arg) {
+			Stmt s = nop(name);
+			s.lhs = lhs;
+			s.callee = callee;
+			s.arg = arg;
+			return s;
+		}
+
+		public Stmt nop(String name) {
+			Stmt s = new Stmt(name, currentMethod);
+			stmts.put(name, s);
+			if (!startPoints.containsKey(currentMethod))
+				startPoints.put(currentMethod, name);
+			return s;
+		}
+
+		private Stmt stmt(String name) {
+			return stmts.get(name);
+		}
+
+		@Override
+		public String getMethodOf(String n) {
+			return stmt(n).method;
+		}
+
+		@Override
+		public List<String> getPredsOf(String u) {
+			List<String> preds = Lists.newArrayList();
+			for (Stmt s : stmts.values())
+				if (s.succs.contains(u))
+					preds.add(s.name);
+			return preds;
+		}
+
+		@Override
+		public List<String> getSuccsOf(String n) {
+			return stmt(n).succs;
+		}
+
+		@Override
+		public Collection<String> getCalleesOfCallAt(String n) {
+			return Collections.singleton(stmt(n).callee);
+		}
+
+		@Override
+		public Collection<String> getCallersOf(String m) {
+			List<String> callers = Lists.newArrayList();
+			for (Stmt s : stmts.values())
+				if (m.equals(s.callee))
+					callers.add(s.name);
+			return callers;
+		}
+
+		@Override
+		public Set<String> getCallsFromWithin(String m) {
+			Set<String> calls = new LinkedHashSet<String>();
+			for (Stmt s : stmts.values())
+				if (s.method.equals(m) && s.callee != null)
+					calls.add(s.name);
+			return calls;
+		}
+
+		@Override
+		public Collection<String> getStartPointsOf(String m) {
+			return Collections.singleton(startPoints.get(m));
+		}
+
+		@Override
+		public Collection<String> getReturnSitesOfCallAt(String n) {
+			return stmt(n).succs;
+		}
+
+		@Override
+		public boolean isCallStmt(String stmt) {
+			return stmt(stmt).callee != null;
+		}
+
+		@Override
+		public boolean isExitStmt(String stmt) {
+			return stmt(stmt).succs.isEmpty();
+		}
+
+		@Override
+		public boolean isStartPoint(String stmt) {
+			return startPoints.containsValue(stmt);
+		}
+
+		@Override
+		public Set<String> allNonCallStartNodes() {
+			Set<String> nodes = new LinkedHashSet<String>();
+			for (Stmt s : stmts.values())
+				if (s.callee == null && !isStartPoint(s.name))
+					nodes.add(s.name);
+			return nodes;
+		}
+
+		@Override
+		public boolean isFallThroughSuccessor(String stmt, String succ) {
+			return stmt(stmt).succs.indexOf(succ) == 0;
+		}
+
+		@Override
+		public boolean isBranchTarget(String stmt, String succ) {
+			return stmt(stmt).succs.indexOf(succ) > 0;
+		}
+
+		protected class Stmt {
+			final String name;
+			final String method;
+			final List<String> succs = Lists.newArrayList();
+			String lhs;
+			String rhs;
+			int k;
+			String callee;
+			String arg;
+
+			Stmt(String name, String method) {
+				this.name = name;
+				this.method = method;
+			}
+
+			public Stmt succ(String... succs) {
+				this.succs.addAll(Lists.newArrayList(succs));
+				return this;
+			}
+		}
+
+	}
+
+	private static class LinearConstantPropagation implements IDETabulationProblem<String, String, String, Integer, InterproceduralCFG<String, String>> {
+
+		private final Program program;
+		private final int numThreads;
+
+		public LinearConstantPropagation(Program program, int numThreads) {
+			this.program = program;
+			this.numThreads = numThreads;
+		}
+
+		@Override
+		public FlowFunctions<String, String, String> flowFunctions() {
+			return new FlowFunctions<String, String, String>() {
+				@Override
+				public FlowFunction<String> getNormalFlowFunction(String curr, String succ) {
+					final Program.Stmt s = program.stmt(curr);
+					if (s.lhs == null)
+						return Identity.v();
+					return new FlowFunction<String>() {
+						@Override
+						public Set<String> computeTargets(String source) {
+							Set<String> targets = new LinkedHashSet<String>();
+							if (!source.equals(s.lhs))
+								targets.add(source);
+							if (source.equals(s.rhs == null ? ZERO : s.rhs))
+								targets.add(s.lhs);
+							return targets;
+						}
+					};
+				}
+
+				@Override
+				public FlowFunction<String> getCallFlowFunction(String callStmt, final String destinationMethod) {
+					final Program.Stmt s = program.stmt(callStmt);
+					return new FlowFunction<String>() {
+						@Override
+						public Set<String> computeTargets(String source) {
+							if (source.equals(ZERO))
+								return Collections.singleton(ZERO);
+							if (source.equals(s.arg))
+								return Collections.singleton(program.params.get(destinationMethod));
+							return Collections.emptySet();
+						}
+					};
+				}
+
+				@Override
+				public FlowFunction<String> getReturnFlowFunction(String callSite, final String calleeMethod, String exitStmt, String returnSite) {
+					final Program.Stmt s = program.stmt(callSite);
+					return new FlowFunction<String>() {
+						@Override
+						public Set<String> computeTargets(String source) {
+							if (source.equals(ZERO))
+								return Collections.singleton(ZERO);
+							if (source.equals(program.returns.get(calleeMethod)))
+								return Collections.singleton(s.lhs);
+							return Collections.emptySet();
+						}
+					};
+				}
+
+				@Override
+				public FlowFunction<String> getCallToReturnFlowFunction(String callSite, String returnSite) {
+					final Program.Stmt s = program.stmt(callSite);
+					return new FlowFunction<String>() {
+						@Override
+						public Set<String> computeTargets(String source) {
+							if (source.equals(s.lhs))
+								return Collections.emptySet();
+							return Collections.singleton(source);
+						}
+					};
+				}
+			};
+		}
+
+		@Override
+		public EdgeFunctions<String, String, String, Integer> edgeFunctions() {
+			return new EdgeFunctions<String, String, String, Integer>() {
+				@Override
+				public EdgeFunction<Integer> getNormalEdgeFunction(String curr, String currNode, String succ, String succNode) {
+					Program.Stmt s = program.stmt(curr);
+					if (s.lhs != null && succNode.equals(s.lhs))
+						return new Linear(s.rhs == null, s.k);
+					return EdgeIdentity.v();
+				}
+
+				@Override
+				public EdgeFunction<Integer> getCallEdgeFunction(String callStmt, String srcNode, String destinationMethod, String destNode) {
+					return EdgeIdentity.v();
+				}
+
+				@Override
+				public EdgeFunction<Integer> getReturnEdgeFunction(String callSite, String calleeMethod, String exitStmt, String exitNode,
+						String returnSite, String retNode) {
+					return EdgeIdentity.v();
+				}
+
+				@Override
+				public EdgeFunction<Integer> getCallToReturnEdgeFunction(String callSite, String callNode, String returnSite, String returnSideNode) {
+					return EdgeIdentity.v();
+				}
+			};
+		}
+
+		@Override
+		public JoinLattice<Integer> joinLattice() {
+			return LATTICE;
+		}
+
+		@Override
+		public EdgeFunction<Integer> allTopFunction() {
+			return new AllTop<Integer>(TOP);
+		}
+
+		@Override
+		public InterproceduralCFG<String, String> interproceduralCFG() {
+			return program;
+		}
+
+		@Override
+		public Map<String, Set<String>> initialSeeds() {
+			return Collections.singletonMap("a", Collections.singleton(ZERO));
+		}
+
+		@Override
+		public String zeroValue() {
+			return ZERO;
+		}
+
+		@Override
+		public boolean followReturnsPastSeeds() {
+			return false;
+		}
+
+		@Override
+		public boolean autoAddZero() {
+			return true;
+		}
+
+		@Override
+		public int numThreads() {
+			return numThreads;
+		}
+
+		@Override
+		public boolean computeValues() {
+			return true;
+		}
+
+		@Override
+		public boolean recordEdges() {
+			return false;
+		}
+	}
+
+	/**
+	 * Maps x to x + k, or to the constant k if {@link #constant} is set. Top and bottom are
+	 * left unchanged by the addition, and the constant bottom doubles as the all-bottom function.
+	 */
+	private static class Linear implements EdgeFunction<Integer> {
+
+		private final boolean constant;
+		private final int k;
+
+		Linear(boolean constant, int k) {
+			this.constant = constant;
+			this.k = k;
+		}
+
+		private static Integer add(Integer v, int k) {
+			if (v.equals(TOP) || v.equals(BOTTOM))
+				return v;
+			return v + k;
+		}
+
+		@Override
+		public Integer computeTarget(Integer source) {
+			return constant ? k : add(source, k);
+		}
+
+		@Override
+		public EdgeFunction<Integer> composeWith(EdgeFunction<Integer> secondFunction) {
+			if (secondFunction instanceof Linear) {
+				Linear second = (Linear) secondFunction;
+				if (second.constant)
+					return second;
+				return new Linear(constant, constant ? add(k, second.k) : k + second.k);
+			}
+			if (secondFunction instanceof EdgeIdentity)
+				return this;
+			return secondFunction;
+		}
+
+		@Override
+		public EdgeFunction<Integer> joinWith(EdgeFunction<Integer> otherFunction) {
+			if (otherFunction instanceof AllTop || equalTo(otherFunction))
+				return this;
+			if (otherFunction instanceof EdgeIdentity && !constant && k == 0)
+				return this;
+			return new Linear(true, BOTTOM);
+		}
+
+		@Override
+		public boolean equalTo(EdgeFunction<Integer> other) {
+			if (!(other instanceof Linear))
+				return false;
+			Linear linear = (Linear) other;
+			return constant == linear.constant && k == linear.k;
+		}
+
+		@Override
+		public String toString() {
+			return constant ? "const " + k : "+" + k;
+		}
+	}
+
+}
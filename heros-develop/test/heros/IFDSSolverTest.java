@@ -19,7 +19,7 @@ import static heros.utilities.TestHelper.*;
 
 public class IFDSSolverTest {
 
-	private TestHelper helper;
+	protected TestHelper helper;
 
 	@Before
 	public void before() {
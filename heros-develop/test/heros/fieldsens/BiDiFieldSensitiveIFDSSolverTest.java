@@ -40,10 +40,10 @@ import com.google.common.collect.Lists;
 @RunWith(Parameterized.class)
 public class BiDiFieldSensitiveIFDSSolverTest {
 
-	private FieldSensitiveTestHelper forwardHelper;
-	private FieldSensitiveTestHelper backwardHelper;
+	protected FieldSensitiveTestHelper forwardHelper;
+	protected FieldSensitiveTestHelper backwardHelper;
 	private TabulationProblemExchange exchange;
-	private TestDebugger<String, TestFact, Statement, TestMethod> debugger;
+	protected TestDebugger<String, TestFact, Statement, TestMethod> debugger;
 	
 	public BiDiFieldSensitiveIFDSSolverTest(TabulationProblemExchange exchange) {
 		this.exchange = exchange;
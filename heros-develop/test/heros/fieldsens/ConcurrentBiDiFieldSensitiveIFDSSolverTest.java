@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Johannes Lerch.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.fieldsens;
+
+import heros.utilities.FieldSensitiveTestHelper;
+import heros.utilities.FieldSensitiveTestHelper.TabulationProblemExchange;
+
+/**
+ * Runs all tests of {@link BiDiFieldSensitiveIFDSSolverTest} with a {@link ConcurrentScheduler}.
+ */
+public class ConcurrentBiDiFieldSensitiveIFDSSolverTest extends BiDiFieldSensitiveIFDSSolverTest {
+
+	public ConcurrentBiDiFieldSensitiveIFDSSolverTest(TabulationProblemExchange exchange) {
+		super(exchange);
+		forwardHelper = new FieldSensitiveTestHelper(debugger, 4);
+		backwardHelper = new FieldSensitiveTestHelper(debugger, 4);
+	}
+
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Johannes Lerch.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.fieldsens;
+
+import heros.utilities.FieldSensitiveTestHelper;
+import heros.utilities.Statement;
+import heros.utilities.TestDebugger;
+import heros.utilities.TestFact;
+import heros.utilities.TestMethod;
+
+import org.junit.Before;
+
+/**
+ * Runs all tests of {@link FieldSensitiveIFDSSolverTest} with a {@link ConcurrentScheduler}.
+ */
+public class ConcurrentFieldSensitiveIFDSSolverTest extends FieldSensitiveIFDSSolverTest {
+
+	@Before
+	@Override
+	public void before() {
+		debugger = new TestDebugger<String, TestFact, Statement, TestMethod>();
+		helper = new FieldSensitiveTestHelper(debugger, 4);
+	}
+
+}
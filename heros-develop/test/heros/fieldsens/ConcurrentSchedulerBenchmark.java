@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Johannes Lerch.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.fieldsens;
+
+import heros.InterproceduralCFG;
+import heros.fieldsens.FlowFunction.ConstrainedFact;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Solves a synthetic field-sensitive problem with the {@link Scheduler} and the
+ * {@link ConcurrentScheduler} for a number of thread counts and reports the time
+ * taken and the number of jobs processed by each run.
+ *
+ * Usage: ConcurrentSchedulerBenchmark methods statements work threads[,threads...]
+ *
+ * The program consists of the given number of methods with the given number of
+ * statements each. Every fourth statement calls two other methods. Facts are
+ * written to and read from a field, so constraints must be resolved across calls.
+ * Each flow function application spins for the given amount of work to simulate
+ * expensive flow functions.
+ */
+public class ConcurrentSchedulerBenchmark {
+
+	private static final String ZERO = "0";
+	private static final String[] FACTS = { "a", "b", "c" };
+
+	public static void main(String[] args) {
+		if(args.length < 4) {
+			System.err.println("Usage: ConcurrentSchedulerBenchmark methods statements work threads[,threads...]");
+			System.exit(1);
+		}
+		int numMethods = Integer.parseInt(args[0]);
+		int numStmts = Integer.parseInt(args[1]);
+		int work = Integer.parseInt(args[2]);
+		SyntheticICFG icfg = new SyntheticICFG(numMethods, numStmts);
+
+		System.out.println(String.format("%-12s %8s %12s %12s", "Scheduler", "Threads", "Time (ms)", "Jobs"));
+		for(String threads : args[3].split(",")) {
+			int numThreads = Integer.parseInt(threads);
+			Scheduler scheduler = numThreads > 1 ? new ConcurrentScheduler(numThreads) : new Scheduler();
+			JobCounter debugger = new JobCounter();
+			long before = System.nanoTime();
+			new FieldSensitiveIFDSSolver<String, String, Integer, Integer, SyntheticICFG>(
+					createProblem(icfg, work), new NoMerge(), debugger, scheduler);
+			scheduler.runAndAwaitCompletion();
+			long time = (System.nanoTime() - before) / 1000000;
+			System.out.println(String.format("%-12s %8d %12d %12d", numThreads > 1 ? "concurrent" : "sequential",
+					numThreads, time, debugger.jobs.get()));
+		}
+	}
+
+	private static IFDSTabulationProblem<Integer, String, String, Integer, SyntheticICFG> createProblem(final SyntheticICFG icfg, final int work) {
+		final FlowFunctions<Integer, String, String, Integer> flowFunctions = new FlowFunctions<Integer, String, String, Integer>() {
+			@Override
+			public FlowFunction<String, String, Integer, Integer> getNormalFlowFunction(final Integer curr) {
+				return new FlowFunction<String, String, Integer, Integer>() {
+					@Override
+					public Set<ConstrainedFact<String, String, Integer, Integer>> computeTargets(String source,
+							AccessPathHandler<String, String, Integer, Integer> accPathHandler) {
+						spin(work);
+						Set<ConstrainedFact<String, String, Integer, Integer>> result = Sets.newHashSet();
+						int index = icfg.indexOf(curr);
+						if(source.equals(ZERO)) {
+							result.add(accPathHandler.generate(source));
+							if(index == 0) {
+								for(String fact : FACTS)
+									result.add(accPathHandler.generate(fact));
+							}
+						}
+						else if(index == 1)
+							result.add(accPathHandler.prepend("f").generate(source));
+						else if(index == icfg.numStmts - 2 && accPathHandler.mayCanRead("f"))
+							result.add(accPathHandler.read("f").generate(source));
+						else
+							result.add(accPathHandler.generate(source));
+						return result;
+					}
+				};
+			}
+
+			@Override
+			public FlowFunction<String, String, Integer, Integer> getCallFlowFunction(Integer callStmt, Integer destinationMethod) {
+				return identity(work);
+			}
+
+			@Override
+			public FlowFunction<String, String, Integer, Integer> getReturnFlowFunction(Integer callSite, Integer calleeMethod,
+					Integer exitStmt, Integer returnSite) {
+				return identity(work);
+			}
+
+			@Override
+			public FlowFunction<String, String, Integer, Integer> getCallToReturnFlowFunction(Integer callSite, Integer returnSite) {
+				return identity(work);
+			}
+		};
+
+		return new IFDSTabulationProblem<Integer, String, String, Integer, SyntheticICFG>() {
+			@Override
+			public boolean followReturnsPastSeeds() {
+				return false;
+			}
+
+			@Override
+			public boolean autoAddZero() {
+				return false;
+			}
+
+			@Override
+			public int numThreads() {
+				return 1;
+			}
+
+			@Override
+			public boolean computeValues() {
+				return false;
+			}
+
+			@Override
+			public boolean recordEdges() {
+				return false;
+			}
+
+			@Override
+			public FlowFunctions<Integer, String, String, Integer> flowFunctions() {
+				return flowFunctions;
+			}
+
+			@Override
+			public SyntheticICFG interproceduralCFG() {
+				return icfg;
+			}
+
+			@Override
+			public Map<Integer, Set<String>> initialSeeds() {
+				Map<Integer, Set<String>> seeds = Maps.newHashMap();
+				seeds.put(icfg.stmt(0, 0), Collections.singleton(ZERO));
+				return seeds;
+			}
+
+			@Override
+			public String zeroValue() {
+				return ZERO;
+			}
+
+			@Override
+			public ZeroHandler<String> zeroHandler() {
+				return new ZeroHandler<String>() {
+					@Override
+					public boolean shouldGenerateAccessPath(AccessPath<String> accPath) {
+						return false;
+					}
+				};
+			}
+		};
+	}
+
+	private static FlowFunction<String, String, Integer, Integer> identity(final int work) {
+		return new FlowFunction<String, String, Integer, Integer>() {
+			@Override
+			public Set<ConstrainedFact<String, String, Integer, Integer>> computeTargets(String source,
+					AccessPathHandler<String, String, Integer, Integer> accPathHandler) {
+				spin(work);
+				return Collections.singleton(accPathHandler.generate(source));
+			}
+		};
+	}
+
+	private static volatile int sink;
+
+	private static void spin(int work) {
+		int x = 0;
+		for(int i = 0; i < work; i++)
+			x = x * 31 + i;
+		sink = x;
+	}
+
+	private static class NoMerge implements FactMergeHandler<String> {
+		@Override
+		public void merge(String previousFact, String currentFact) {
+		}
+
+		@Override
+		public void restoreCallingContext(String factAtReturnSite, String factAtCallSite) {
+		}
+	}
+
+	private static class JobCounter extends Debugger.NullDebugger<String, String, Integer, Integer> {
+		private final AtomicLong jobs = new AtomicLong();
+
+		@Override
+		public void jobStarted(PerAccessPathMethodAnalyzer<String, String, Integer, Integer> analyzer,
+				heros.fieldsens.structs.WrappedFactAtStatement<String, String, Integer, Integer> factAtStmt) {
+			jobs.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Methods are numbered from 0 to numMethods-1, statement j of method i is numbered
+	 * i*numStmts+j. Statement j of a method calls two other methods if j%4==2, the
+	 * following statement is its return site.
+	 */
+	private static class SyntheticICFG implements InterproceduralCFG<Integer, Integer> {
+
+		private final int numMethods;
+		private final int numStmts;
+		private final List<List<Integer>> callers = Lists.newArrayList();
+
+		SyntheticICFG(int numMethods, int numStmts) {
+			if(numStmts < 4)
+				throw new IllegalArgumentException("Methods need at least 4 statements");
+			this.numMethods = numMethods;
+			this.numStmts = numStmts;
+			for(int m = 0; m < numMethods; m++)
+				callers.add(Lists.<Integer> newArrayList());
+			for(int m = 0; m < numMethods; m++)
+				for(int j = 0; j < numStmts - 1; j++)
+					if(isCallIndex(j))
+						for(Integer callee : callees(m, j))
+							callers.get(callee).add(stmt(m, j));
+		}
+
+		Integer stmt(int method, int index) {
+			return method * numStmts + index;
+		}
+
+		int indexOf(Integer stmt) {
+			return stmt % numStmts;
+		}
+
+		private boolean isCallIndex(int index) {
+			return index % 4 == 2 && index < numStmts - 1;
+		}
+
+		private List<Integer> callees(int method, int index) {
+			return Lists.newArrayList((method * 7 + index + 1) % numMethods, (method * 13 + index * 3 + 2) % numMethods);
+		}
+
+		@Override
+		public Integer getMethodOf(Integer n) {
+			return n / numStmts;
+		}
+
+		@Override
+		public List<Integer> getPredsOf(Integer u) {
+			return indexOf(u) == 0 ? Collections.<Integer> emptyList() : Collections.singletonList(u - 1);
+		}
+
+		@Override
+		public List<Integer> getSuccsOf(Integer n) {
+			return indexOf(n) == numStmts - 1 ? Collections.<Integer> emptyList() : Collections.singletonList(n + 1);
+		}
+
+		@Override
+		public Collection<Integer> getCalleesOfCallAt(Integer n) {
+			return isCallStmt(n) ? callees(getMethodOf(n), indexOf(n)) : Collections.<Integer> emptyList();
+		}
+
+		@Override
+		public Collection<Integer> getCallersOf(Integer m) {
+			return callers.get(m);
+		}
+
+		@Override
+		public Set<Integer> getCallsFromWithin(Integer m) {
+			Set<Integer> calls = Sets.newHashSet();
+			for(int j = 0; j < numStmts; j++)
+				if(isCallIndex(j))
+					calls.add(stmt(m, j));
+			return calls;
+		}
+
+		@Override
+		public Collection<Integer> getStartPointsOf(Integer m) {
+			return Collections.singleton(stmt(m, 0));
+		}
+
+		@Override
+		public Collection<Integer> getReturnSitesOfCallAt(Integer n) {
+			return Collections.singleton(n + 1);
+		}
+
+		@Override
+		public boolean isCallStmt(Integer stmt) {
+			return isCallIndex(indexOf(stmt));
+		}
+
+		@Override
+		public boolean isExitStmt(Integer stmt) {
+			return indexOf(stmt) == numStmts - 1;
+		}
+
+		@Override
+		public boolean isStartPoint(Integer stmt) {
+			return indexOf(stmt) == 0;
+		}
+
+		@Override
+		public Set<Integer> allNonCallStartNodes() {
+			Set<Integer> result = Sets.newHashSet();
+			for(int n = 0; n < numMethods * numStmts; n++)
+				if(!isCallStmt(n) && !isStartPoint(n))
+					result.add(n);
+			return result;
+		}
+
+		@Override
+		public boolean isFallThroughSuccessor(Integer stmt, Integer succ) {
+			return succ == stmt + 1;
+		}
+
+		@Override
+		public boolean isBranchTarget(Integer stmt, Integer succ) {
+			return false;
+		}
+	}
+}
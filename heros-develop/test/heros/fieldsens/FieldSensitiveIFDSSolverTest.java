@@ -29,8 +29,8 @@ import static heros.utilities.FieldSensitiveTestHelper.*;
 
 public class FieldSensitiveIFDSSolverTest {
 
-	private FieldSensitiveTestHelper helper;
-	private TestDebugger<String, TestFact, Statement, TestMethod> debugger;
+	protected FieldSensitiveTestHelper helper;
+	protected TestDebugger<String, TestFact, Statement, TestMethod> debugger;
 
 	@Before
 	public void before() {
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Eric Bodden.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ ******************************************************************************/
+package heros.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import heros.EdgeFunction;
+import heros.edgefunc.AllBottom;
+import heros.edgefunc.AllTop;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table.Cell;
+
+public class CompactJumpFunctionsTest {
+
+	private static final int NODES = 7;
+	private static final int FACTS = 5;
+
+	private EdgeFunction<Integer> allTop;
+	private JumpFunctions<String, String, Integer> expected;
+	private CompactJumpFunctions<String, String, Integer> actual;
+
+	@Before
+	public void before() {
+		allTop = new AllTop<Integer>(Integer.MAX_VALUE);
+		expected = new JumpFunctions<String, String, Integer>(allTop);
+		actual = new CompactJumpFunctions<String, String, Integer>(allTop);
+	}
+
+	@Test
+	public void allTopIsNotStored() {
+		actual.addFunction("a", "n", "b", allTop);
+		assertNull(actual.getFunction("a", "n", "b"));
+		assertTrue(actual.forwardLookup("a", "n").isEmpty());
+		assertTrue(actual.lookupByTarget("n").isEmpty());
+	}
+
+	@Test
+	public void addReplacesFunction() {
+		EdgeFunction<Integer> f = new AllBottom<Integer>(1);
+		EdgeFunction<Integer> g = new AllBottom<Integer>(2);
+		actual.addFunction("a", "n", "b", f);
+		actual.addFunction("a", "n", "b", g);
+		assertEquals(g, actual.getFunction("a", "n", "b"));
+		assertEquals(1, actual.forwardLookup("a", "n").size());
+		assertEquals(1, actual.reverseLookup("n", "b").size());
+		assertEquals(1, actual.lookupByTarget("n").size());
+		assertEquals(1, actual.size());
+	}
+
+	@Test
+	public void lookupsReflectLaterChanges() {
+		actual.addFunction("a", "n", "b", new AllBottom<Integer>(1));
+		Map<String, EdgeFunction<Integer>> forward = actual.forwardLookup("a", "n");
+		actual.addFunction("a", "n", "c", new AllBottom<Integer>(2));
+		assertEquals(Sets.newHashSet("b", "c"), forward.keySet());
+		actual.removeFunction("a", "n", "b");
+		assertEquals(Sets.newHashSet("c"), forward.keySet());
+		assertFalse(forward.containsKey("b"));
+	}
+
+	@Test
+	public void randomOperationsMatchJumpFunctions() {
+		Random random = new Random(42);
+		for(int i = 0; i < 20000; i++) {
+			String source = fact(random);
+			String target = node(random);
+			String targetVal = fact(random);
+			switch(random.nextInt(10)) {
+			case 0:
+			case 1:
+			case 2:
+				assertEquals(expected.removeFunction(source, target, targetVal), actual.removeFunction(source, target, targetVal));
+				break;
+			case 3:
+				if(random.nextInt(500)==0) {
+					expected.clear();
+					actual.clear();
+				}
+				break;
+			default:
+				EdgeFunction<Integer> f = random.nextInt(10)==0 ? allTop : new AllBottom<Integer>(random.nextInt(3));
+				expected.addFunction(source, target, targetVal, f);
+				actual.addFunction(source, target, targetVal, f);
+			}
+			if(i % 100 == 0)
+				assertSameContents();
+		}
+		assertSameContents();
+	}
+
+	private void assertSameContents() {
+		int size = 0;
+		for(int n = 0; n < NODES; n++) {
+			String node = "n" + n;
+			size += expected.lookupByTarget(node).size();
+			assertEquals(cells(expected.lookupByTarget(node)), cells(actual.lookupByTarget(node)));
+			for(int d = 0; d < FACTS; d++) {
+				String fact = "d" + d;
+				assertEquals(Maps.newHashMap(expected.forwardLookup(fact, node)), Maps.newHashMap(actual.forwardLookup(fact, node)));
+				assertEquals(Maps.newHashMap(expected.reverseLookup(node, fact)), Maps.newHashMap(actual.reverseLookup(node, fact)));
+				for(int d2 = 0; d2 < FACTS; d2++) {
+					String fact2 = "d" + d2;
+					assertEquals(expected.getFunction(fact, node, fact2), actual.getFunction(fact, node, fact2));
+					assertEquals(expected.reverseLookup(node, fact2).get(fact), actual.reverseLookup(node, fact2).get(fact));
+				}
+			}
+		}
+		assertEquals(size, actual.size());
+	}
+
+	private static Set<Cell<String, String, EdgeFunction<Integer>>> cells(Set<Cell<String, String, EdgeFunction<Integer>>> cells) {
+		return Sets.newHashSet(cells);
+	}
+
+	private static String node(Random random) {
+		return "n" + random.nextInt(NODES);
+	}
+
+	private static String fact(Random random) {
+		return "d" + random.nextInt(FACTS);
+	}
+
+}
@@ -23,6 +23,7 @@ import heros.utilities.EdgeBuilder.NormalStmtBuilder;
 import heros.fieldsens.AccessPath;
 import heros.fieldsens.AccessPathHandler;
 import heros.fieldsens.BiDiFieldSensitiveIFDSSolver;
+import heros.fieldsens.ConcurrentScheduler;
 import heros.fieldsens.FactMergeHandler;
 import heros.fieldsens.FieldSensitiveIFDSSolver;
 import heros.fieldsens.FlowFunction;
@@ -40,8 +41,8 @@ import java.util.Set;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -57,11 +58,20 @@ public class FieldSensitiveTestHelper {
 	private List<Call2ReturnEdge> call2retEdges = Lists.newLinkedList();
 	private List<ReturnEdge> returnEdges = Lists.newLinkedList();
 	private Map<Statement, TestMethod> stmt2method = Maps.newHashMap();
-	private Multiset<ExpectedFlowFunction> remainingFlowFunctions = HashMultiset.create();
+	private Multiset<ExpectedFlowFunction> remainingFlowFunctions = ConcurrentHashMultiset.create();
 	private TestDebugger<String, TestFact, Statement, TestMethod> debugger;
+	private int numThreads;
 
 	public FieldSensitiveTestHelper(TestDebugger<String, TestFact, Statement, TestMethod> debugger) {
+		this(debugger, 1);
+	}
+
+	/**
+	 * @param numThreads If greater than 1, the solvers are run by a {@link ConcurrentScheduler} with that many threads.
+	 */
+	public FieldSensitiveTestHelper(TestDebugger<String, TestFact, Statement, TestMethod> debugger, int numThreads) {
 		this.debugger = debugger;
+		this.numThreads = numThreads;
 	}
 
 	public MethodHelper method(String methodName, Statement[] startingPoints, EdgeBuilder... edgeBuilders) {
@@ -495,8 +505,12 @@ public class FieldSensitiveTestHelper {
 		};
 	}
 
+	private Scheduler createScheduler() {
+		return numThreads > 1 ? new ConcurrentScheduler(numThreads) : new Scheduler();
+	}
+
 	public void runSolver(final boolean followReturnsPastSeeds, final String...initialSeeds) {
-		Scheduler scheduler = new Scheduler();
+		Scheduler scheduler = createScheduler();
 		FieldSensitiveIFDSSolver<String, TestFact, Statement, TestMethod, InterproceduralCFG<Statement,TestMethod>> solver = new FieldSensitiveIFDSSolver<String ,TestFact, Statement, TestMethod, InterproceduralCFG<Statement,TestMethod>>(
 				createTabulationProblem(followReturnsPastSeeds, initialSeeds), new FactMergeHandler<TestFact>() {
 					@Override
@@ -608,7 +622,7 @@ public class FieldSensitiveTestHelper {
 			}
 			
 		};
-		Scheduler scheduler = new Scheduler();
+		Scheduler scheduler = createScheduler();
 		BiDiFieldSensitiveIFDSSolver<String, TestFact, Statement, TestMethod, InterproceduralCFG<Statement, TestMethod>> solver =
 				direction == TabulationProblemExchange.AsSpecified ? 
 				new BiDiFieldSensitiveIFDSSolver<String, TestFact, Statement, TestMethod, InterproceduralCFG<Statement, TestMethod>>(
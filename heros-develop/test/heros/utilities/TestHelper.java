@@ -18,6 +18,7 @@ import heros.InterproceduralCFG;
 import heros.fieldsens.AccessPathHandler;
 import heros.fieldsens.FlowFunction.ConstrainedFact;
 import heros.solver.BiDiIFDSSolver;
+import heros.solver.ConcurrentIFDSSolver;
 import heros.solver.IFDSSolver;
 import heros.utilities.Edge.Call2ReturnEdge;
 import heros.utilities.Edge.CallEdge;
@@ -35,7 +36,7 @@ import java.util.Set;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -51,7 +52,31 @@ public class TestHelper {
 	private List<Call2ReturnEdge> call2retEdges = Lists.newLinkedList();
 	private List<ReturnEdge> returnEdges = Lists.newLinkedList();
 	private Map<Statement, TestMethod> stmt2method = Maps.newHashMap();
-	private Multiset<ExpectedFlowFunction<JoinableFact>> remainingFlowFunctions = HashMultiset.create();
+	private Multiset<ExpectedFlowFunction<JoinableFact>> remainingFlowFunctions = ConcurrentHashMultiset.create();
+	private final boolean concurrentSolver;
+	private final int numThreads;
+
+	public TestHelper() {
+		this(false);
+	}
+
+	/**
+	 * @param concurrentSolver if true, {@link #runSolver(boolean, String...)} uses the
+	 * {@link ConcurrentIFDSSolver} instead of the {@link IFDSSolver}
+	 */
+	public TestHelper(boolean concurrentSolver) {
+		this(concurrentSolver, 1);
+	}
+
+	/**
+	 * @param concurrentSolver if true, {@link #runSolver(boolean, String...)} uses the
+	 * {@link ConcurrentIFDSSolver} instead of the {@link IFDSSolver}
+	 * @param numThreads the number of threads the solver may use
+	 */
+	public TestHelper(boolean concurrentSolver, int numThreads) {
+		this.concurrentSolver = concurrentSolver;
+		this.numThreads = numThreads;
+	}
 
 	public MethodHelper method(String methodName, Statement[] startingPoints, EdgeBuilder... edgeBuilders) {
 		MethodHelper methodHelper = new MethodHelper(new TestMethod(methodName));
@@ -399,11 +424,17 @@ public class TestHelper {
 	}
 
 	public void runSolver(final boolean followReturnsPastSeeds, final String...initialSeeds) {
-		IFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>> solver =
-				new IFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>>(
-				createTabulationProblem(followReturnsPastSeeds, initialSeeds));
-
-		solver.solve();
+		if (concurrentSolver) {
+			ConcurrentIFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>> solver =
+					new ConcurrentIFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>>(
+					createTabulationProblem(followReturnsPastSeeds, initialSeeds));
+			solver.solve();
+		} else {
+			IFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>> solver =
+					new IFDSSolver<Statement, JoinableFact, TestMethod, InterproceduralCFG<Statement, TestMethod>>(
+					createTabulationProblem(followReturnsPastSeeds, initialSeeds));
+			solver.solve();
+		}
 		assertAllFlowFunctionsUsed();
 	}
 	
@@ -440,7 +471,7 @@ public class TestHelper {
 
 			@Override
 			public int numThreads() {
-				return 1;
+				return numThreads;
 			}
 
 			@Override
@@ -2263,6 +2263,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "none", "Disable propagation" )
                 
+                +padVal( "parallel", "Multi-threaded worklist algorithm" )
+                
                 +padOpt( "set-impl", "Select points-to set implementation" )
                 +padVal( "hash", "Use Java HashSet" )
                 
@@ -2278,6 +2280,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "double (default)", "Double set representation for incremental propagation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padOpt( "double-set-old", "Select implementation of points-to set for old part of double set" )
                 +padVal( "hash", "Use Java HashSet" )
                 
@@ -2291,6 +2295,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "sharedlist", "Shared list representation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padOpt( "double-set-new", "Select implementation of points-to set for new part of double set" )
                 +padVal( "hash", "Use Java HashSet" )
                 
@@ -2304,6 +2310,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "sharedlist", "Shared list representation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padOpt( "dump-html (false)", "Dump pointer assignment graph to HTML for debugging" )
                 +padOpt( "dump-pag (false)", "Dump pointer assignment graph for other solvers" )
                 +padOpt( "dump-solution (false)", "Dump final solution for comparison with other solvers" )
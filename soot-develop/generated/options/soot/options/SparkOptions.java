@@ -570,6 +570,7 @@ public class SparkOptions
     public static final int propagator_merge = 4;
     public static final int propagator_alias = 5;
     public static final int propagator_none = 6;
+    public static final int propagator_parallel = 7;
     /** Propagator --
     
      * Select propagation algorithm.
@@ -598,6 +599,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "none" ) )
             return propagator_none;
         
+        if( s.equalsIgnoreCase( "parallel" ) )
+            return propagator_parallel;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option propagator" );
     }
     
@@ -608,6 +612,7 @@ public class SparkOptions
     public static final int set_impl_heintze = 5;
     public static final int set_impl_sharedlist = 6;
     public static final int set_impl_double = 7;
+    public static final int set_impl_roaring = 8;
     /** Set Implementation --
     
      * Select points-to set implementation.
@@ -638,6 +643,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "double" ) )
             return set_impl_double;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return set_impl_roaring;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option set-impl" );
     }
     
@@ -647,6 +655,7 @@ public class SparkOptions
     public static final int double_set_old_array = 4;
     public static final int double_set_old_heintze = 5;
     public static final int double_set_old_sharedlist = 6;
+    public static final int double_set_old_roaring = 7;
     /** Double Set Old --
     
      * Select implementation of points-to set for old part of double 
@@ -677,6 +686,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "sharedlist" ) )
             return double_set_old_sharedlist;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return double_set_old_roaring;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option double-set-old" );
     }
     
@@ -686,6 +698,7 @@ public class SparkOptions
     public static final int double_set_new_array = 4;
     public static final int double_set_new_heintze = 5;
     public static final int double_set_new_sharedlist = 6;
+    public static final int double_set_new_roaring = 7;
     /** Double Set New --
     
      * Select implementation of points-to set for new part of double 
@@ -716,6 +729,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "sharedlist" ) )
             return double_set_new_sharedlist;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return double_set_new_roaring;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option double-set-new" );
     }
     
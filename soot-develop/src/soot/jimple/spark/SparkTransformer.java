@@ -53,6 +53,7 @@ import soot.jimple.spark.solver.PropAlias;
 import soot.jimple.spark.solver.PropCycle;
 import soot.jimple.spark.solver.PropIter;
 import soot.jimple.spark.solver.PropMerge;
+import soot.jimple.spark.solver.PropParallel;
 import soot.jimple.spark.solver.PropWorklist;
 import soot.jimple.spark.solver.Propagator;
 import soot.jimple.spark.solver.SCCCollapser;
@@ -144,6 +145,15 @@ public class SparkTransformer extends SceneTransformer
             case SparkOptions.propagator_alias:
                 propagator[0] = new PropAlias( pag );
                 break;
+            case SparkOptions.propagator_parallel:
+                if( supportsParallelPropagation( opts ) ) {
+                    propagator[0] = new PropParallel( pag );
+                } else {
+                    G.v().out.println( "[Spark] Parallel propagation requires "
+                            +"unshared double sets, falling back to worklist" );
+                    propagator[0] = new PropWorklist( pag );
+                }
+                break;
             case SparkOptions.propagator_none:
                 break;
             default:
@@ -245,6 +255,22 @@ public class SparkTransformer extends SceneTransformer
         long time = end.getTime()-start.getTime();
         G.v().out.println( "[Spark] "+desc+" in "+time/1000+"."+(time/100)%10+" seconds." );
     }
+    /** PropParallel locks each node's own points-to set, so it cannot
+     * work with set implementations that share data between nodes. */
+    protected static boolean supportsParallelPropagation( SparkOptions opts ) {
+        if( opts.set_impl() != SparkOptions.set_impl_double ) return false;
+        switch( opts.double_set_old() ) {
+            case SparkOptions.double_set_old_heintze:
+            case SparkOptions.double_set_old_sharedlist:
+                return false;
+        }
+        switch( opts.double_set_new() ) {
+            case SparkOptions.double_set_new_heintze:
+            case SparkOptions.double_set_new_sharedlist:
+                return false;
+        }
+        return true;
+    }
     protected static void doGC() {
         // Do 5 times because the garbage collector doesn't seem to always collect
         // everything on the first try.
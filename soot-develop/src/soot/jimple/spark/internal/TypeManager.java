@@ -77,8 +77,12 @@ public final class TypeManager {
         SootClass cl = rt.getSootClass();
         return cl.resolvingLevel() < SootClass.HIERARCHY;
     }
-    final public BitVector get( Type type ) {
-        if( type == null ) return null;
+    /** Brings the type masks up to date with all allocation nodes that
+     * have been created so far. Once this has been called and no new
+     * allocation nodes are created, get() no longer modifies the masks
+     * and may be called from multiple threads. */
+    final public void update() {
+        if( allocNodeListener == null ) return;
         while(allocNodeListener.hasNext()) {
             AllocNode n = allocNodeListener.next();
             for( final Type t : Scene.v().getTypeNumberer()) {
@@ -100,7 +104,11 @@ public final class TypeManager {
                 }
             }
         }
-        BitVector ret = (BitVector) typeMask.get( type );
+    }
+    final public BitVector get( Type type ) {
+        if( type == null ) return null;
+        update();
+        BitVector ret = typeMask.get( type );
         if( ret == null && fh != null ) {
         	// If we have a phantom class and have no type mask, we assume that
         	// it is not cast-compatible to anything
@@ -264,7 +272,7 @@ public final class TypeManager {
         Collection<SootClass> implementers = fh.getAllImplementersOfInterface(interf);
             
         for (SootClass impl : implementers) {
-            BitVector other = (BitVector)typeMask.get(impl.getType());
+            BitVector other = typeMask.get(impl.getType());
             if (other == null) other = makeClassTypeMask(impl);
             ret.or(other);          
         }
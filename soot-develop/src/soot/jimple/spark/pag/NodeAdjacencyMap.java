@@ -0,0 +1,180 @@
+package soot.jimple.spark.pag;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import soot.util.ArrayNumberer;
+
+/** Stores the targets of one kind of PAG edge for every source node. The
+ * source nodes are indexed by their number, so neither lookups nor
+ * insertions hash the source or box anything. The targets of a node are
+ * kept in a growable array. Long target arrays get an additional hash set
+ * to keep insertions from scanning the array. Once the graph is complete,
+ * {@link #compact()} trims all arrays to their exact size. From then on,
+ * the few edges that are still added, e.g., by the on-the-fly call graph,
+ * grow the arrays by exactly one element, so that {@link #get(Node)} can
+ * always return the stored array without allocating or modifying the map.
+ */
+public final class NodeAdjacencyMap<K extends Node> {
+    public NodeAdjacencyMap( ArrayNumberer<K> numberer ) {
+        this.numberer = numberer;
+    }
+
+    /** Adds an edge from key to value, returns true if it was new. */
+    public boolean add( K key, Node value ) {
+        int n = key.getNumber();
+        ensureCapacity( n );
+        Node[] ar = targets[n];
+        int size = sizes[n];
+        if( ar == null ) {
+            targets[n] = ar = new Node[4];
+            numKeys++;
+        } else if( size > LINEAR_SCAN_LIMIT ) {
+            Set<Node> index = indices[n];
+            if( index == null ) {
+                indices[n] = index = new HashSet<Node>( size * 2 );
+                for( int i = 0; i < size; i++ ) index.add( ar[i] );
+            }
+            if( !index.add( value ) ) return false;
+        } else {
+            for( int i = 0; i < size; i++ ) {
+                if( ar[i] == value ) return false;
+            }
+        }
+        if( size == ar.length ) {
+            targets[n] = ar = Arrays.copyOf( ar, compacted ? size + 1 : size * 2 );
+        }
+        ar[size] = value;
+        sizes[n] = size + 1;
+        return true;
+    }
+
+    /** Returns the targets of key, or null if key has no entry. The array
+     * has exactly one element per target; it must not be modified by the
+     * caller. Before {@link #compact()} has been called, this returns a
+     * copy. */
+    public Node[] get( K key ) {
+        int n = key.getNumber();
+        if( n >= targets.length ) return null;
+        Node[] ar = targets[n];
+        if( ar == null || ar.length == sizes[n] ) return ar;
+        return Arrays.copyOf( ar, sizes[n] );
+    }
+
+    /** Replaces the targets of key by values. */
+    public void put( K key, Node[] values ) {
+        int n = key.getNumber();
+        ensureCapacity( n );
+        if( targets[n] == null ) numKeys++;
+        targets[n] = values;
+        sizes[n] = values.length;
+        indices[n] = null;
+    }
+
+    /** Removes the entry of key. */
+    public void remove( Node key ) {
+        if( !containsKey( key ) ) return;
+        int n = key.getNumber();
+        targets[n] = null;
+        sizes[n] = 0;
+        indices[n] = null;
+        numKeys--;
+    }
+
+    /** Returns true if key has an entry in this map. Nodes of other kinds
+     * may have the same number as some key, so the node itself is checked. */
+    public boolean containsKey( Node key ) {
+        int n = key.getNumber();
+        if( n == 0 || n >= targets.length || targets[n] == null ) return false;
+        return numberer.get( n ) == key;
+    }
+
+    /** Returns a view of all nodes that have an entry in this map, in the
+     * order of their numbers. */
+    public Set<K> keySet() {
+        return keySet;
+    }
+
+    public void clear() {
+        Arrays.fill( targets, null );
+        Arrays.fill( sizes, 0 );
+        Arrays.fill( indices, null );
+        numKeys = 0;
+    }
+
+    /** Trims all target arrays to their exact size and drops the hash sets
+     * used while building the graph. Later additions keep the arrays
+     * trimmed. */
+    public void compact() {
+        compacted = true;
+        for( int n = 0; n < targets.length; n++ ) {
+            Node[] ar = targets[n];
+            if( ar != null && ar.length != sizes[n] ) {
+                targets[n] = Arrays.copyOf( ar, sizes[n] );
+            }
+        }
+        Arrays.fill( indices, null );
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    private void ensureCapacity( int n ) {
+        if( n < targets.length ) return;
+        int newLength = Math.max( n + 1, targets.length * 2 );
+        targets = Arrays.copyOf( targets, newLength );
+        sizes = Arrays.copyOf( sizes, newLength );
+        indices = Arrays.copyOf( indices, newLength );
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        public Iterator<K> iterator() {
+            return new Iterator<K>() {
+                private int next = advance( 1 );
+
+                private int advance( int from ) {
+                    while( from < targets.length && targets[from] == null ) from++;
+                    return from;
+                }
+                public boolean hasNext() {
+                    return next < targets.length;
+                }
+                public K next() {
+                    if( !hasNext() ) throw new NoSuchElementException();
+                    K ret = numberer.get( next );
+                    next = advance( next + 1 );
+                    return ret;
+                }
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        public int size() {
+            return numKeys;
+        }
+        public boolean contains( Object o ) {
+            return o instanceof Node && containsKey( (Node) o );
+        }
+    }
+
+    /** Target arrays longer than this get a hash set for duplicate checks. */
+    private static final int LINEAR_SCAN_LIMIT = 16;
+
+    private final ArrayNumberer<K> numberer;
+    private final Set<K> keySet = new KeySet();
+    private Node[][] targets = new Node[64][];
+    private int[] sizes = new int[64];
+    private Set<Node>[] indices = newIndexArray( 64 );
+    private int numKeys = 0;
+    private boolean compacted = false;
+
+    @SuppressWarnings("unchecked")
+    private static Set<Node>[] newIndexArray( int length ) {
+        return (Set<Node>[]) new Set<?>[length];
+    }
+}
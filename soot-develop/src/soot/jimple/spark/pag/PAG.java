@@ -65,6 +65,7 @@ import soot.jimple.spark.sets.HashPointsToSet;
 import soot.jimple.spark.sets.HybridPointsToSet;
 import soot.jimple.spark.sets.P2SetFactory;
 import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.RoaringPointsToSet;
 import soot.jimple.spark.sets.PointsToSetInternal;
 import soot.jimple.spark.sets.SharedHybridSet;
 import soot.jimple.spark.sets.SharedListSet;
@@ -123,6 +124,9 @@ public class PAG implements PointsToAnalysis {
 		case SparkOptions.set_impl_bit:
 			setFactory = BitPointsToSet.getFactory();
 			break;
+		case SparkOptions.set_impl_roaring:
+			setFactory = RoaringPointsToSet.getFactory();
+			break;
 		case SparkOptions.set_impl_double:
 			P2SetFactory oldF;
 			P2SetFactory newF;
@@ -145,6 +149,9 @@ public class PAG implements PointsToAnalysis {
 			case SparkOptions.double_set_old_bit:
 				oldF = BitPointsToSet.getFactory();
 				break;
+			case SparkOptions.double_set_old_roaring:
+				oldF = RoaringPointsToSet.getFactory();
+				break;
 			default:
 				throw new RuntimeException();
 			}
@@ -167,6 +174,9 @@ public class PAG implements PointsToAnalysis {
 			case SparkOptions.double_set_new_bit:
 				newF = BitPointsToSet.getFactory();
 				break;
+			case SparkOptions.double_set_new_roaring:
+				newF = RoaringPointsToSet.getFactory();
+				break;
 			default:
 				throw new RuntimeException();
 			}
@@ -255,10 +265,11 @@ public class PAG implements PointsToAnalysis {
 		return setFactory;
 	}
 
-	private <K extends Node> void lookupInMap(Map<K, Object> map) {
+	private <K extends Node> void lookupInMap(NodeAdjacencyMap<K> map) {
 		for (K object : map.keySet()) {
 			lookup(map, object);
 		}
+		map.compact();
 	}
 
 	public void cleanUpMerges() {
@@ -313,71 +324,44 @@ public class PAG implements PointsToAnalysis {
 		if (ofcg() != null)
 			ofcg().mergedWith(n1, n2);
 
-		Map[] maps = { simple, alloc, store, load, simpleInv, allocInv, storeInv, loadInv };
-		for (Map<Node, Object> m : maps) {
-			if (!m.keySet().contains(n2))
-				continue;
+		mergeEntries(simple, n1, n2);
+		mergeEntries(alloc, n1, n2);
+		mergeEntries(store, n1, n2);
+		mergeEntries(load, n1, n2);
+		mergeEntries(simpleInv, n1, n2);
+		mergeEntries(allocInv, n1, n2);
+		mergeEntries(storeInv, n1, n2);
+		mergeEntries(loadInv, n1, n2);
+	}
 
-			Object[] os = { m.get(n1), m.get(n2) };
-			int size1 = getSize(os[0]);
-			int size2 = getSize(os[1]);
-			if (size1 == 0) {
-				if (os[1] != null)
-					m.put(n1, os[1]);
-			} else if (size2 == 0) {
-				// nothing needed
-			} else if (os[0] instanceof HashSet) {
-				if (os[1] instanceof HashSet) {
-					((HashSet) os[0]).addAll((HashSet) os[1]);
-				} else {
-					Node[] ar = (Node[]) os[1];
-					for (Node element0 : ar) {
-						((HashSet<Node>) os[0]).add(element0);
-					}
-				}
-			} else if (os[1] instanceof HashSet) {
-				Node[] ar = (Node[]) os[0];
-				for (Node element0 : ar) {
-					((HashSet<Node>) os[1]).add(element0);
-				}
-				m.put(n1, os[1]);
-			} else if (size1 * size2 < 1000) {
-				Node[] a1 = (Node[]) os[0];
-				Node[] a2 = (Node[]) os[1];
-				Node[] ret = new Node[size1 + size2];
-				System.arraycopy(a1, 0, ret, 0, a1.length);
-				int j = a1.length;
-				outer: for (Node rep : a2) {
-					for (int k = 0; k < j; k++)
-						if (rep == ret[k])
-							continue outer;
-					ret[j++] = rep;
-				}
-				Node[] newArray = new Node[j];
-				System.arraycopy(ret, 0, newArray, 0, j);
-				m.put(n1, ret = newArray);
-			} else {
-				HashSet<Node> s = new HashSet<Node>(size1 + size2);
-				for (Object o : os) {
-					if (o == null)
-						continue;
-					if (o instanceof Set) {
-						s.addAll((Set<Node>) o);
-					} else {
-						Node[] ar = (Node[]) o;
-						for (Node element1 : ar) {
-							s.add(element1);
-						}
-					}
-				}
-				m.put(n1, s);
-			}
-			m.remove(n2);
-		}
+	/** Moves the edges of n2 in the given map over to n1. */
+	@SuppressWarnings("unchecked")
+	private <K extends Node> void mergeEntries(NodeAdjacencyMap<K> m, Node n1, Node n2) {
+		if (!m.containsKey(n2))
+			return;
+
+		// containsKey checks that n2 is one of the map's keys, and merged
+		// nodes are of the same kind
+		for (Node n : m.get((K) n2))
+			m.add((K) n1, n);
+		m.remove(n2);
 	}
 
 	protected final static Node[] EMPTY_NODE_ARRAY = new Node[0];
 
+	protected <K extends Node> Node[] lookup(NodeAdjacencyMap<K> m, K key) {
+		Node[] ret = m.get(key);
+		if (ret == null) {
+			return EMPTY_NODE_ARRAY;
+		}
+		if (somethingMerged) {
+			Node[] replaced = replaceMerged(key, ret);
+			if (replaced != ret)
+				m.put(key, ret = replaced);
+		}
+		return ret;
+	}
+
 	protected <K extends Node> Node[] lookup(Map<K, Object> m, K key) {
 		Object valueList = m.get(key);
 		if (valueList == null) {
@@ -395,39 +379,49 @@ public class PAG implements PointsToAnalysis {
 		}
 		Node[] ret = (Node[]) valueList;
 		if (somethingMerged) {
-			for (int i = 0; i < ret.length; i++) {
-				Node reti = ret[i];
-				Node rep = reti.getReplacement();
-				if (rep != reti || rep == key) {
-					Set<Node> s;
-					if (ret.length <= 75) {
-						int j = i;
-						outer: for (; i < ret.length; i++) {
-							reti = ret[i];
-							rep = reti.getReplacement();
-							if (rep == key)
-								continue;
-							for (int k = 0; k < j; k++)
-								if (rep == ret[k])
-									continue outer;
-							ret[j++] = rep;
-						}
-						Node[] newArray = new Node[j];
-						System.arraycopy(ret, 0, newArray, 0, j);
-						m.put(key, ret = newArray);
-					} else {
-						s = new HashSet<Node>(ret.length * 2);
-						for (int j = 0; j < i; j++)
-							s.add(ret[j]);
-						for (int j = i; j < ret.length; j++) {
-							rep = ret[j].getReplacement();
-							if (rep != key) {
-								s.add(rep);
-							}
+			Node[] replaced = replaceMerged(key, ret);
+			if (replaced != ret)
+				m.put(key, ret = replaced);
+		}
+		return ret;
+	}
+
+	/**
+	 * Replaces merged nodes in ret by their representatives and removes
+	 * duplicates and edges to key itself. Returns ret if nothing changed.
+	 */
+	private Node[] replaceMerged(Node key, Node[] ret) {
+		for (int i = 0; i < ret.length; i++) {
+			Node reti = ret[i];
+			Node rep = reti.getReplacement();
+			if (rep != reti || rep == key) {
+				Set<Node> s;
+				if (ret.length <= 75) {
+					int j = i;
+					outer: for (; i < ret.length; i++) {
+						reti = ret[i];
+						rep = reti.getReplacement();
+						if (rep == key)
+							continue;
+						for (int k = 0; k < j; k++)
+							if (rep == ret[k])
+								continue outer;
+						ret[j++] = rep;
+					}
+					Node[] newArray = new Node[j];
+					System.arraycopy(ret, 0, newArray, 0, j);
+					return newArray;
+				} else {
+					s = new HashSet<Node>(ret.length * 2);
+					for (int j = 0; j < i; j++)
+						s.add(ret[j]);
+					for (int j = i; j < ret.length; j++) {
+						rep = ret[j].getReplacement();
+						if (rep != key) {
+							s.add(rep);
 						}
-						m.put(key, ret = s.toArray(EMPTY_NODE_ARRAY));
 					}
-					break;
+					return s.toArray(EMPTY_NODE_ARRAY);
 				}
 			}
 		}
@@ -546,15 +540,6 @@ public class PAG implements PointsToAnalysis {
 		return loadInv.keySet().iterator();
 	}
 
-	static private int getSize(Object set) {
-		if (set instanceof Set)
-			return ((Set<?>) set).size();
-		else if (set == null)
-			return 0;
-		else
-			return ((Object[]) set).length;
-	}
-
 	protected P2SetFactory setFactory;
 	protected boolean somethingMerged = false;
 
@@ -1395,20 +1380,25 @@ public class PAG implements PointsToAnalysis {
 	protected CGOptions cgOpts;
 	protected ClientAccessibilityOracle accessibilityOracle = Scene.v().getClientAccessibilityOracle();
 
-	protected Map<VarNode, Object> simple = new HashMap<VarNode, Object>();
-	protected Map<FieldRefNode, Object> load = new HashMap<FieldRefNode, Object>();
-	protected Map<VarNode, Object> store = new HashMap<VarNode, Object>();
-	protected Map<AllocNode, Object> alloc = new HashMap<AllocNode, Object>();
+	protected NodeAdjacencyMap<VarNode> simple = new NodeAdjacencyMap<VarNode>(varNodeNumberer);
+	protected NodeAdjacencyMap<FieldRefNode> load = new NodeAdjacencyMap<FieldRefNode>(fieldRefNodeNumberer);
+	protected NodeAdjacencyMap<VarNode> store = new NodeAdjacencyMap<VarNode>(varNodeNumberer);
+	protected NodeAdjacencyMap<AllocNode> alloc = new NodeAdjacencyMap<AllocNode>(allocNodeNumberer);
+	// NewInstanceNodes are not numbered, so these edges stay in hash maps
 	protected Map<VarNode, Object> newInstance = new HashMap<VarNode, Object>();
 	protected Map<NewInstanceNode, Object> assignInstance = new HashMap<NewInstanceNode, Object>();
 
-	protected Map<VarNode, Object> simpleInv = new HashMap<VarNode, Object>();
-	protected Map<VarNode, Object> loadInv = new HashMap<VarNode, Object>();
-	protected Map<FieldRefNode, Object> storeInv = new HashMap<FieldRefNode, Object>();
-	protected Map<VarNode, Object> allocInv = new HashMap<VarNode, Object>();
+	protected NodeAdjacencyMap<VarNode> simpleInv = new NodeAdjacencyMap<VarNode>(varNodeNumberer);
+	protected NodeAdjacencyMap<VarNode> loadInv = new NodeAdjacencyMap<VarNode>(varNodeNumberer);
+	protected NodeAdjacencyMap<FieldRefNode> storeInv = new NodeAdjacencyMap<FieldRefNode>(fieldRefNodeNumberer);
+	protected NodeAdjacencyMap<VarNode> allocInv = new NodeAdjacencyMap<VarNode>(varNodeNumberer);
 	protected Map<NewInstanceNode, Object> newInstanceInv = new HashMap<NewInstanceNode, Object>();
 	protected Map<VarNode, Object> assignInstanceInv = new HashMap<VarNode, Object>();
 
+	protected <K extends Node> boolean addToMap(NodeAdjacencyMap<K> m, K key, Node value) {
+		return m.add(key, value);
+	}
+
 	protected <K extends Node> boolean addToMap(Map<K, Object> m, K key, Node value) {
 		Object valueList = m.get(key);
 
@@ -0,0 +1,90 @@
+package soot.jimple.spark.sets;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.internal.*;
+import soot.util.*;
+import soot.PointsToSet;
+import soot.Type;
+
+/** Implementation of points-to set using a compressed bitmap, see
+ * {@link RoaringBitSet}. Unlike BitPointsToSet, small sets only take
+ * memory for the objects they contain, and unlike SortedArraySet, large
+ * sets are combined word by word.
+ */
+public final class RoaringPointsToSet extends PointsToSetInternal {
+    public RoaringPointsToSet( Type type, PAG pag ) {
+        super( type );
+        this.pag = pag;
+    }
+    /** Returns true if this set contains no run-time objects. */
+    public final boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    private final boolean nativeAddAll( RoaringPointsToSet other, RoaringPointsToSet exclude ) {
+        BitVector mask = null;
+        TypeManager typeManager = pag.getTypeManager();
+        if( !typeManager.castNeverFails( other.getType(), this.getType() ) ) {
+            mask = typeManager.get( this.getType() );
+        }
+        RoaringBitSet ebits = ( exclude==null ? null : exclude.bits );
+        return bits.orAndAndNot( other.bits, mask, ebits );
+    }
+
+    /** Adds contents of other into this set, returns true if this set
+     * changed. */
+    public final boolean addAll( PointsToSetInternal other,
+            PointsToSetInternal exclude ) {
+        if( other != null && !(other instanceof RoaringPointsToSet) )
+            return super.addAll( other, exclude );
+        if( exclude != null && !(exclude instanceof RoaringPointsToSet) )
+            return super.addAll( other, exclude );
+        return nativeAddAll( (RoaringPointsToSet) other, (RoaringPointsToSet) exclude );
+    }
+    /** Returns true if this set shares some objects with other. */
+    public final boolean hasNonEmptyIntersection( PointsToSet other ) {
+        if( other instanceof RoaringPointsToSet ) {
+            return bits.intersects( ((RoaringPointsToSet) other).bits );
+        }
+        return super.hasNonEmptyIntersection( other );
+    }
+    /** Calls v's visit method on all nodes in this set. */
+    public final boolean forall( P2SetVisitor v ) {
+        for( RoaringBitSet.Iterator it = bits.iterator(); it.hasNext(); ) {
+            v.visit( (Node) pag.getAllocNodeNumberer().get( it.next() ) );
+        }
+        return v.getReturnValue();
+    }
+    /** Adds n to this set, returns true if n was not already in this set. */
+    public final boolean add( Node n ) {
+        if( pag.getTypeManager().castNeverFails( n.getType(), type ) ) {
+            return bits.set( n.getNumber() );
+        }
+        return false;
+    }
+    /** Returns true iff the set contains n. */
+    public final boolean contains( Node n ) {
+        return bits.get( n.getNumber() );
+    }
+    /** Returns the number of objects in this set. */
+    public final int size() {
+        return bits.cardinality();
+    }
+    /** Returns an estimate of the memory used by this set, in bytes. */
+    public final long sizeInBytes() {
+        return bits.sizeInBytes();
+    }
+    public static P2SetFactory getFactory() {
+        return new P2SetFactory() {
+            public PointsToSetInternal newSet( Type type, PAG pag ) {
+                return new RoaringPointsToSet( type, pag );
+            }
+        };
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    private final RoaringBitSet bits = new RoaringBitSet();
+    private PAG pag = null;
+}
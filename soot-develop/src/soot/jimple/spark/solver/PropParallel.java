@@ -0,0 +1,488 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 2002 - 2006 Ondrej Lhotak
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.solver;
+
+import heros.solver.CountingThreadPoolExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import soot.FastHierarchy;
+import soot.G;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.Type;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.ClassConstantNode;
+import soot.jimple.spark.pag.FieldRefNode;
+import soot.jimple.spark.pag.NewInstanceNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.SparkField;
+import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.util.Chain;
+import soot.util.queue.QueueReader;
+
+/**
+ * Propagates points-to sets along pointer assignment graph using a worklist
+ * that is processed in rounds by several threads.
+ *
+ * In each round, all nodes on the worklist are first handled sequentially as
+ * in {@link PropWorklist}, except that the propagation along simple
+ * assignment edges is only recorded. This covers the on-the-fly call graph
+ * and all field references, which create new nodes and edges in the PAG.
+ * The recorded simple edges are then propagated in parallel. Every target
+ * node is locked while its points-to set is updated. The new points-to sets
+ * of the sources are detached from their nodes before the parallel phase, so
+ * they do not change while they are read. The fixed point is the same as the
+ * one computed by {@link PropWorklist}.
+ *
+ * This propagator requires double points-to sets whose old and new sets are
+ * not shared between nodes.
+ *
+ * @author Ondrej Lhotak
+ */
+
+public final class PropParallel extends Propagator {
+	protected final Set<VarNode> varNodeWorkList = new TreeSet<VarNode>();
+
+	public PropParallel(PAG pag) {
+		this(pag, Runtime.getRuntime().availableProcessors());
+	}
+
+	public PropParallel(PAG pag, int numThreads) {
+		this(pag, numThreads, MIN_PARALLEL_ROUND_SIZE);
+	}
+
+	PropParallel(PAG pag, int numThreads, int minParallelRoundSize) {
+		this.pag = pag;
+		this.numThreads = Math.max(1, numThreads);
+		this.minParallelRoundSize = minParallelRoundSize;
+	}
+
+	/** Actually does the propagation. */
+	public final void propagate() {
+		ofcg = pag.getOnFlyCallGraph();
+		new TopoSorter(pag, false).sort();
+		for (AllocNode object : pag.allocSources()) {
+			handleAllocNode(object);
+		}
+
+		executor = new CountingThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		try {
+			boolean verbose = pag.getOpts().verbose();
+			do {
+				if (verbose) {
+					G.v().out.println("Worklist has " + varNodeWorkList.size() + " nodes.");
+				}
+				while (!varNodeWorkList.isEmpty()) {
+					List<VarNode> round = new ArrayList<VarNode>(varNodeWorkList);
+					varNodeWorkList.clear();
+					List<SimplePropagation> simpleEdges = new ArrayList<SimplePropagation>(round.size());
+					for (VarNode src : round) {
+						handleVarNode(src, simpleEdges);
+					}
+					propagateSimpleEdges(simpleEdges);
+				}
+				if (verbose) {
+					G.v().out.println("Now handling field references");
+				}
+				for (Object object : pag.storeSources()) {
+					final VarNode src = (VarNode) object;
+					Node[] targets = pag.storeLookup(src);
+					for (Node element0 : targets) {
+						final FieldRefNode target = (FieldRefNode) element0;
+						target.getBase().makeP2Set().forall(new P2SetVisitor() {
+							public final void visit(Node n) {
+								AllocDotField nDotF = pag.makeAllocDotField((AllocNode) n, target.getField());
+								if (ofcg != null) {
+									ofcg.updatedFieldRef(nDotF, src.getP2Set());
+								}
+								nDotF.makeP2Set().addAll(src.getP2Set(), null);
+							}
+						});
+					}
+				}
+				HashSet<Object[]> edgesToPropagate = new HashSet<Object[]>();
+				for (Object object : pag.loadSources()) {
+					handleFieldRefNode((FieldRefNode) object, edgesToPropagate);
+				}
+				Set<PointsToSetInternal> nodesToFlush = Collections
+						.newSetFromMap(new IdentityHashMap<PointsToSetInternal, Boolean>());
+				for (Object[] pair : edgesToPropagate) {
+					PointsToSetInternal nDotF = (PointsToSetInternal) pair[0];
+					PointsToSetInternal newP2Set = nDotF.getNewSet();
+					VarNode loadTarget = (VarNode) pair[1];
+					if (loadTarget.makeP2Set().addAll(newP2Set, null)) {
+						varNodeWorkList.add(loadTarget);
+					}
+					nodesToFlush.add(nDotF);
+				}
+				for (PointsToSetInternal nDotF : nodesToFlush) {
+					nDotF.flushNew();
+				}
+			} while (!varNodeWorkList.isEmpty());
+		} finally {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	/* End of public methods. */
+	/* End of package methods. */
+
+	/**
+	 * New points-to information of a node that still has to be propagated
+	 * along its simple assignment edges.
+	 */
+	protected static final class SimplePropagation {
+		final PointsToSetInternal newP2Set;
+		final Node[] targets;
+
+		SimplePropagation(PointsToSetInternal newP2Set, Node[] targets) {
+			this.newP2Set = newP2Set;
+			this.targets = targets;
+		}
+	}
+
+	/**
+	 * Propagates the recorded points-to information along simple assignment
+	 * edges using all worker threads. Nodes whose points-to sets changed are
+	 * added to the worklist.
+	 */
+	protected final void propagateSimpleEdges(List<SimplePropagation> simpleEdges) {
+		if (simpleEdges.isEmpty())
+			return;
+
+		// All allocation nodes of this round exist by now. Bring the type
+		// masks up to date, so that the workers only read them.
+		pag.getTypeManager().update();
+
+		final Set<VarNode> changed = Collections.newSetFromMap(new ConcurrentHashMap<VarNode, Boolean>());
+		if (numThreads == 1 || simpleEdges.size() < minParallelRoundSize) {
+			// Not worth the synchronization with the workers
+			propagateChunk(simpleEdges, changed);
+			varNodeWorkList.addAll(changed);
+			return;
+		}
+
+		prepareHierarchy();
+
+		int chunkSize = (simpleEdges.size() + numThreads - 1) / numThreads;
+		for (int from = 0; from < simpleEdges.size(); from += chunkSize) {
+			final List<SimplePropagation> chunk = simpleEdges.subList(from,
+					Math.min(from + chunkSize, simpleEdges.size()));
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					propagateChunk(chunk, changed);
+				}
+
+			});
+		}
+
+		try {
+			executor.awaitCompletion();
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Could not wait for propagation threads to finish: " + e.getMessage(), e);
+		}
+		if (executor.getException() != null)
+			throw new RuntimeException("Parallel propagation failed", executor.getException());
+
+		varNodeWorkList.addAll(changed);
+	}
+
+	/**
+	 * The workers check whether objects can be stored in the target sets.
+	 * The FastHierarchy computes the implementers and subinterfaces of an
+	 * interface lazily on the first such check, and a concurrent check could
+	 * see a half-filled entry. We therefore compute them for all interfaces
+	 * before the workers start. Only classes loaded since the last round
+	 * need to be considered, since all other entries are already filled.
+	 */
+	protected final void prepareHierarchy() {
+		FastHierarchy fh = pag.getTypeManager().getFastHierarchy();
+		if (fh == null)
+			return;
+		Chain<SootClass> classes = Scene.v().getClasses();
+		if (classes.size() == preparedClasses)
+			return;
+		preparedClasses = classes.size();
+		for (SootClass sc : classes) {
+			if (sc.isInterface() && sc.resolvingLevel() >= SootClass.HIERARCHY) {
+				fh.getAllSubinterfaces(sc);
+				fh.getAllImplementersOfInterface(sc);
+			}
+		}
+	}
+
+	/**
+	 * Propagates the given points-to information along simple assignment
+	 * edges and records the targets that changed. May be called by several
+	 * threads at once.
+	 */
+	protected final void propagateChunk(List<SimplePropagation> simpleEdges, Set<VarNode> changed) {
+		for (SimplePropagation p : simpleEdges) {
+			for (Node element : p.targets) {
+				final PointsToSetInternal p2set = element.getP2Set();
+				boolean added;
+				synchronized (p2set) {
+					added = p2set.addAll(p.newP2Set, null);
+				}
+				if (added)
+					changed.add((VarNode) element);
+			}
+		}
+	}
+
+	/**
+	 * Propagates new points-to information of node src to all its successors.
+	 */
+	protected final boolean handleAllocNode(AllocNode src) {
+		boolean ret = false;
+		Node[] targets = pag.allocLookup(src);
+		for (Node element : targets) {
+			if (element.makeP2Set().add(src)) {
+				varNodeWorkList.add((VarNode) element);
+				ret = true;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Propagates new points-to information of node src to all its successors,
+	 * except along simple assignment edges. These are recorded in simpleEdges
+	 * instead.
+	 */
+	protected final boolean handleVarNode(final VarNode src, List<SimplePropagation> simpleEdges) {
+		boolean ret = false;
+		boolean flush = true;
+
+		if (src.getReplacement() != src)
+			throw new RuntimeException("Got bad node " + src + " with rep " + src.getReplacement());
+
+		final PointsToSetInternal newP2Set = src.getP2Set().getNewSet();
+		if (newP2Set.isEmpty())
+			return false;
+
+		if (ofcg != null) {
+			QueueReader<Node> addedEdges = pag.edgeReader();
+			ofcg.updatedNode(src);
+			ofcg.build();
+
+			while (addedEdges.hasNext()) {
+				Node addedSrc = addedEdges.next();
+				Node addedTgt = addedEdges.next();
+				ret = true;
+				if (addedSrc instanceof VarNode) {
+					VarNode edgeSrc = (VarNode) addedSrc.getReplacement();
+					if (addedTgt instanceof VarNode) {
+						VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+
+						if (edgeTgt.makeP2Set().addAll(edgeSrc.getP2Set(), null)) {
+							varNodeWorkList.add(edgeTgt);
+							if (edgeTgt == src)
+								flush = false;
+						}
+					} else if (addedTgt instanceof NewInstanceNode) {
+						NewInstanceNode edgeTgt = (NewInstanceNode) addedTgt.getReplacement();
+						if (edgeTgt.makeP2Set().addAll(edgeSrc.getP2Set(), null)) {
+							for (Node element : pag.assignInstanceLookup(edgeTgt)) {
+								varNodeWorkList.add((VarNode) element);
+								if (element == src)
+									flush = false;
+							}
+						}
+					}
+				} else if (addedSrc instanceof AllocNode) {
+					VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+					if (edgeTgt.makeP2Set().add(addedSrc)) {
+						varNodeWorkList.add(edgeTgt);
+						if (edgeTgt == src)
+							flush = false;
+					}
+				} else if (addedSrc instanceof NewInstanceNode && addedTgt instanceof VarNode) {
+					final NewInstanceNode edgeSrc = (NewInstanceNode) addedSrc.getReplacement();
+					final VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+					addedSrc.getP2Set().forall(new P2SetVisitor() {
+
+						@Override
+						public void visit(Node n) {
+							if (n instanceof ClassConstantNode) {
+								ClassConstantNode ccn = (ClassConstantNode) n;
+								Type ccnType = ccn.getClassConstant().toSootType();
+
+								// If the referenced class has not been loaded,
+								// we do this now
+								SootClass targetClass = ((RefType) ccnType).getSootClass();
+								if (targetClass.resolvingLevel() == SootClass.DANGLING)
+									Scene.v().forceResolve(targetClass.getName(), SootClass.SIGNATURES);
+
+								// We can only create alloc nodes for types that
+								// we know
+								edgeTgt.makeP2Set()
+										.add(pag.makeAllocNode(edgeSrc.getValue(), ccnType, ccn.getMethod()));
+								varNodeWorkList.add(edgeTgt);
+							}
+						}
+
+					});
+					if (edgeTgt.makeP2Set().add(addedSrc)) {
+						if (edgeTgt == src)
+							flush = false;
+					}
+				}
+			}
+		}
+
+		Node[] simpleTargets = pag.simpleLookup(src);
+
+		Node[] storeTargets = pag.storeLookup(src);
+		for (Node element : storeTargets) {
+			final FieldRefNode fr = (FieldRefNode) element;
+			final SparkField f = fr.getField();
+			ret = fr.getBase().getP2Set().forall(new P2SetVisitor() {
+				public final void visit(Node n) {
+					AllocDotField nDotF = pag.makeAllocDotField((AllocNode) n, f);
+					if (nDotF.makeP2Set().addAll(newP2Set, null)) {
+						returnValue = true;
+					}
+				}
+			}) | ret;
+		}
+
+		final HashSet<Node[]> storesToPropagate = new HashSet<Node[]>();
+		final HashSet<Node[]> loadsToPropagate = new HashSet<Node[]>();
+		for (final FieldRefNode fr : src.getAllFieldRefs()) {
+			final SparkField field = fr.getField();
+			final Node[] storeSources = pag.storeInvLookup(fr);
+			if (storeSources.length > 0) {
+				newP2Set.forall(new P2SetVisitor() {
+					public final void visit(Node n) {
+						AllocDotField nDotF = pag.makeAllocDotField((AllocNode) n, field);
+						for (Node element : storeSources) {
+							Node[] pair = { element, nDotF.getReplacement() };
+							storesToPropagate.add(pair);
+						}
+					}
+				});
+			}
+
+			final Node[] loadTargets = pag.loadLookup(fr);
+			if (loadTargets.length > 0) {
+				newP2Set.forall(new P2SetVisitor() {
+					public final void visit(Node n) {
+						AllocDotField nDotF = pag.makeAllocDotField((AllocNode) n, field);
+						if (nDotF != null) {
+							for (Node element : loadTargets) {
+								Node[] pair = { nDotF.getReplacement(), element };
+								loadsToPropagate.add(pair);
+							}
+						}
+					}
+				});
+			}
+		}
+		if (simpleTargets.length > 0) {
+			// After flushing, newP2Set is no longer referenced by src and
+			// stays unchanged. Otherwise, src may still receive objects in
+			// the parallel phase, so we propagate a copy.
+			PointsToSetInternal snapshot = newP2Set;
+			if (!flush) {
+				snapshot = G.v().newSetFactory.newSet(src.getType(), pag);
+				snapshot.addAll(newP2Set, null);
+			}
+			// The workers must not create points-to sets concurrently
+			for (Node element : simpleTargets)
+				element.makeP2Set();
+			simpleEdges.add(new SimplePropagation(snapshot, simpleTargets));
+			ret = true;
+		}
+		if (flush)
+			src.getP2Set().flushNew();
+		for (Node[] p : storesToPropagate) {
+			VarNode storeSource = (VarNode) p[0];
+			AllocDotField nDotF = (AllocDotField) p[1];
+			if (nDotF.makeP2Set().addAll(storeSource.getP2Set(), null)) {
+				ret = true;
+			}
+		}
+		for (Node[] p : loadsToPropagate) {
+			AllocDotField nDotF = (AllocDotField) p[0];
+			VarNode loadTarget = (VarNode) p[1];
+			if (loadTarget.makeP2Set().addAll(nDotF.getP2Set(), null)) {
+				varNodeWorkList.add(loadTarget);
+				ret = true;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Propagates new points-to information of node src to all its successors.
+	 */
+	protected final void handleFieldRefNode(FieldRefNode src, final HashSet<Object[]> edgesToPropagate) {
+		final Node[] loadTargets = pag.loadLookup(src);
+		if (loadTargets.length == 0)
+			return;
+		final SparkField field = src.getField();
+
+		src.getBase().getP2Set().forall(new P2SetVisitor() {
+
+			public final void visit(Node n) {
+				AllocDotField nDotF = pag.makeAllocDotField((AllocNode) n, field);
+				if (nDotF != null) {
+					PointsToSetInternal p2Set = nDotF.getP2Set();
+					if (!p2Set.getNewSet().isEmpty()) {
+						for (Node element : loadTargets) {
+							Object[] pair = { p2Set, element };
+							edgesToPropagate.add(pair);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	protected PAG pag;
+	protected OnFlyCallGraph ofcg;
+	protected final int numThreads;
+	/** Rounds with fewer simple propagations are done by the calling thread. */
+	protected static final int MIN_PARALLEL_ROUND_SIZE = 64;
+	protected final int minParallelRoundSize;
+	/** Number of classes in the scene when the hierarchy was last prepared */
+	protected int preparedClasses = -1;
+	protected CountingThreadPoolExecutor executor;
+}
@@ -0,0 +1,307 @@
+package soot.jimple.toolkits.callgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import soot.MethodOrMethodContext;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.util.HashNumberer;
+import soot.util.queue.QueueReader;
+
+/** A compact representation of a call graph. Instead of threading linked
+ * lists through the edges and keeping one hash map per lookup direction,
+ * the edges are stored in a single array and three compressed-sparse-row
+ * indices map the numbers of source units, source methods and target
+ * methods to slices of that array. Nodes are numbered by equals() and
+ * hashCode(), so a method context is found no matter which instance is
+ * used for the query.
+ *
+ * The index is frozen. Edges that are added or removed afterwards are
+ * recorded in two small change sets, and the index is rebuilt from scratch
+ * by the next query. The graph is therefore meant to be built once and
+ * modified rarely and in batches, e.g., when a transformer swaps or
+ * removes a few call sites. Queries may be issued concurrently from
+ * multiple threads, but not concurrently with modifications.
+ */
+public class CompactCallGraph extends CallGraph
+{
+    /** The frozen edge index. Replaced as a whole when it is rebuilt */
+    private volatile Index index;
+    private volatile boolean dirty = false;
+
+    /** Edges that have been added since the index was last built */
+    private final Set<Edge> addedEdges = new LinkedHashSet<Edge>();
+    /** Indexed edges that have been removed since the index was last built */
+    private final Set<Edge> removedEdges = new HashSet<Edge>();
+
+    /** Creates a compact copy of the given call graph. Later changes to cg
+     * are not reflected in the copy. */
+    public CompactCallGraph( CallGraph cg ) {
+        // The listener also returns edges that have been removed in the
+        // meantime, so we only need to filter if there were removals
+        List<Edge> allEdges = new ArrayList<Edge>( cg.size() );
+        for( QueueReader<Edge> rdr = cg.listener(); rdr.hasNext(); )
+            allEdges.add( rdr.next() );
+        if( allEdges.size() != cg.size() ) {
+            Set<Edge> liveEdges = new HashSet<Edge>( cg.size() );
+            for( Edge e : cg ) liveEdges.add( e );
+            allEdges.retainAll( liveEdges );
+        }
+        index = new Index( allEdges );
+
+        // Keep the listener semantics of the original graph
+        for( Edge e : index.edgeArray ) stream.add( e );
+    }
+
+    /** Returns the current index, rebuilding it first if the graph has
+     * been modified since it was last built. */
+    private Index index() {
+        if( dirty ) {
+            synchronized( this ) {
+                if( dirty ) {
+                    Index old = index;
+                    List<Edge> liveEdges = new ArrayList<Edge>( old.edgeArray.length
+                            + addedEdges.size() - removedEdges.size() );
+                    for( Edge e : old.edgeArray )
+                        if( removedEdges.isEmpty() || !removedEdges.contains( e ) )
+                            liveEdges.add( e );
+                    liveEdges.addAll( addedEdges );
+                    addedEdges.clear();
+                    removedEdges.clear();
+                    index = new Index( liveEdges );
+                    dirty = false;
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public synchronized boolean addEdge( Edge e ) {
+        if( removedEdges.remove( e ) ) {
+            // The edge is still in the index, we only need to revive it
+        } else if( index.contains( e ) || !addedEdges.add( e ) )
+            return false;
+        stream.add( e );
+        dirty = true;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeEdge( Edge e ) {
+        if( !addedEdges.remove( e ) ) {
+            if( !index.contains( e ) || !removedEdges.add( e ) )
+                return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeAllEdgesOutOf( Unit u ) {
+        boolean hasRemoved = false;
+        for( Edge e : toList( edgesOutOf( u ) ) )
+            hasRemoved |= removeEdge( e );
+        return hasRemoved;
+    }
+
+    @Override
+    public synchronized boolean swapEdgesOutOf( Stmt out, Stmt in ) {
+        boolean hasSwapped = false;
+        for( Edge e : toList( edgesOutOf( out ) ) ) {
+            // Unlike CallGraph, we keep the kind of the original edge
+            // instead of deriving it from the new statement
+            removeEdge( e );
+            addEdge( new Edge( e.getSrc(), in, e.getTgt(), e.kind() ) );
+            hasSwapped = true;
+        }
+        return hasSwapped;
+    }
+
+    private static List<Edge> toList( Iterator<Edge> it ) {
+        List<Edge> ret = new ArrayList<Edge>();
+        while( it.hasNext() ) ret.add( it.next() );
+        return ret;
+    }
+
+    @Override
+    public boolean isEntryMethod( SootMethod method ) {
+        Index idx = index();
+        int n = idx.methodNumberer.find( method );
+        return n == 0 || idx.tgtOffsets[n] == idx.tgtOffsets[n + 1];
+    }
+
+    @Override
+    public Edge findEdge( Unit u, SootMethod callee ) {
+        Index idx = index();
+        int n = idx.unitNumberer.find( u );
+        if( n == 0 ) return null;
+        for( int i = idx.unitOffsets[n]; i < idx.unitOffsets[n + 1]; i++ ) {
+            Edge e = idx.edgeArray[idx.unitEdges[i]];
+            if( e.tgt() == callee ) return e;
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<MethodOrMethodContext> sourceMethods() {
+        final Index idx = index();
+        return new Iterator<MethodOrMethodContext>() {
+            private int next = advance( 1 );
+            private int advance( int n ) {
+                while( n <= idx.methodNumberer.size() && idx.srcOffsets[n] == idx.srcOffsets[n + 1] ) n++;
+                return n;
+            }
+            public boolean hasNext() {
+                return next <= idx.methodNumberer.size();
+            }
+            public MethodOrMethodContext next() {
+                if( !hasNext() ) throw new NoSuchElementException();
+                MethodOrMethodContext ret = idx.methodNumberer.get( next );
+                next = advance( next + 1 );
+                return ret;
+            }
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Edge> edgesOutOf( Unit u ) {
+        if( u == null ) throw new RuntimeException();
+        Index idx = index();
+        return idx.slice( idx.unitEdges, idx.unitOffsets, idx.unitNumberer.find( u ) );
+    }
+
+    @Override
+    public Iterator<Edge> edgesOutOf( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        Index idx = index();
+        return idx.slice( idx.srcEdges, idx.srcOffsets, idx.methodNumberer.find( m ) );
+    }
+
+    @Override
+    public Iterator<Edge> edgesInto( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        Index idx = index();
+        return idx.slice( idx.tgtEdges, idx.tgtOffsets, idx.methodNumberer.find( m ) );
+    }
+
+    /** Returns the number of edges that have u as their source unit. */
+    public int numEdgesOutOf( Unit u ) {
+        Index idx = index();
+        int n = idx.unitNumberer.find( u );
+        return n == 0 ? 0 : idx.unitOffsets[n + 1] - idx.unitOffsets[n];
+    }
+
+    /** Returns the number of edges that have m as their target method. */
+    public int numEdgesInto( MethodOrMethodContext m ) {
+        Index idx = index();
+        int n = idx.methodNumberer.find( m );
+        return n == 0 ? 0 : idx.tgtOffsets[n + 1] - idx.tgtOffsets[n];
+    }
+
+    @Override
+    public int size() {
+        return index().edgeArray.length;
+    }
+
+    @Override
+    public Iterator<Edge> iterator() {
+        return Arrays.asList( index().edgeArray ).iterator();
+    }
+
+    /** An immutable snapshot of the edges and their CSR indices */
+    private static final class Index {
+        private final Edge[] edgeArray;
+
+        private final HashNumberer<Unit> unitNumberer;
+        private final HashNumberer<MethodOrMethodContext> methodNumberer;
+
+        private final int[] unitOffsets;
+        private final int[] unitEdges;
+        private final int[] srcOffsets;
+        private final int[] srcEdges;
+        private final int[] tgtOffsets;
+        private final int[] tgtEdges;
+
+        private Index( List<Edge> edges ) {
+            int size = edges.size();
+            edgeArray = edges.toArray( new Edge[size] );
+            unitNumberer = new HashNumberer<Unit>( size );
+            methodNumberer = new HashNumberer<MethodOrMethodContext>( size / 4 );
+
+            // Number all nodes, keeping the order in which the edges were added
+            int[] edgeUnit = new int[size];
+            int[] edgeSrc = new int[size];
+            int[] edgeTgt = new int[size];
+            for( int i = 0; i < size; i++ ) {
+                Edge e = edgeArray[i];
+                edgeUnit[i] = unitNumberer.findOrAdd( e.srcUnit() );
+                edgeSrc[i] = methodNumberer.findOrAdd( e.getSrc() );
+                edgeTgt[i] = methodNumberer.findOrAdd( e.getTgt() );
+            }
+            unitNumberer.trimToSize();
+            methodNumberer.trimToSize();
+
+            unitOffsets = new int[unitNumberer.size() + 2];
+            unitEdges = buildIndex( edgeUnit, unitOffsets );
+            srcOffsets = new int[methodNumberer.size() + 2];
+            srcEdges = buildIndex( edgeSrc, srcOffsets );
+            tgtOffsets = new int[methodNumberer.size() + 2];
+            tgtEdges = buildIndex( edgeTgt, tgtOffsets );
+        }
+
+        /** Counting sort of the edge indices by node number. After the call,
+         * the edges of node n are found in the returned array between
+         * offsets[n] (inclusive) and offsets[n+1] (exclusive). Node number 0
+         * stands for null and is kept, so that the offsets array has one
+         * slot per number plus a sentinel. */
+        private static int[] buildIndex( int[] nodeOfEdge, int[] offsets ) {
+            for( int node : nodeOfEdge ) offsets[node + 1]++;
+            for( int i = 1; i < offsets.length; i++ ) offsets[i] += offsets[i - 1];
+            int[] fill = Arrays.copyOf( offsets, offsets.length - 1 );
+            int[] ret = new int[nodeOfEdge.length];
+            for( int edge = 0; edge < nodeOfEdge.length; edge++ )
+                ret[fill[nodeOfEdge[edge]]++] = edge;
+            return ret;
+        }
+
+        /** Returns true iff the index contains an edge equal to e. Every
+         * edge has a target, so we search the target's slice. */
+        private boolean contains( Edge e ) {
+            int n = methodNumberer.find( e.getTgt() );
+            if( n == 0 ) return false;
+            for( int i = tgtOffsets[n]; i < tgtOffsets[n + 1]; i++ )
+                if( edgeArray[tgtEdges[i]].equals( e ) ) return true;
+            return false;
+        }
+
+        private Iterator<Edge> slice( final int[] index, int[] offsets, int node ) {
+            final int start = node == 0 ? 0 : offsets[node];
+            final int end = node == 0 ? 0 : offsets[node + 1];
+            return new Iterator<Edge>() {
+                private int pos = start;
+                public boolean hasNext() {
+                    return pos < end;
+                }
+                public Edge next() {
+                    if( pos >= end ) throw new NoSuchElementException();
+                    return edgeArray[index[pos++]];
+                }
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
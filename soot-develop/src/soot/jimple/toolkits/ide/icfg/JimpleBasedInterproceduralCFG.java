@@ -36,6 +36,7 @@ import soot.Scene;
 import soot.SootMethod;
 import soot.Unit;
 import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.CompactCallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
 import soot.jimple.toolkits.callgraph.EdgePredicate;
 import soot.jimple.toolkits.callgraph.Filter;
@@ -130,10 +131,25 @@ public class JimpleBasedInterproceduralCFG extends AbstractJimpleBasedICFG {
 	
 	public JimpleBasedInterproceduralCFG(boolean enableExceptions,
 			boolean includeReflectiveCalls) {
+		this(Scene.v().getCallGraph(), enableExceptions, includeReflectiveCalls);
+	}
+	
+	/**
+	 * Creates a new interprocedural CFG on top of the given call graph. Pass
+	 * a {@link CompactCallGraph} to have the callee and caller caches
+	 * populated from its array-based edge index.
+	 * @param cg The call graph from which to take the call edges
+	 * @param enableExceptions True if exceptional control flow shall be
+	 * considered, otherwise false
+	 * @param includeReflectiveCalls True if reflective call edges shall be
+	 * included, otherwise false
+	 */
+	public JimpleBasedInterproceduralCFG(CallGraph cg, boolean enableExceptions,
+			boolean includeReflectiveCalls) {
 		super(enableExceptions);
 		this.includeReflectiveCalls = includeReflectiveCalls;
 		
-		cg = Scene.v().getCallGraph();
+		this.cg = cg;
 		initializeUnitToOwner();
 	}
 
@@ -0,0 +1,440 @@
+package soot.jimple.toolkits.ide.icfg;
+
+import heros.DontSynchronize;
+import heros.ThreadSafe;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.toolkits.graph.DirectedGraph;
+import soot.util.IdentityNumberer;
+
+/**
+ * Immutable snapshot of another {@link BiDiInterproceduralCFG}. All units of
+ * the given methods are numbered densely upon construction, and the answers
+ * of the source ICFG for successors, predecessors, return sites and callees
+ * are copied into flat arrays that are indexed by unit number. Queries are
+ * then answered without hashing into caches, without locking and without
+ * any recomputation after garbage collection.
+ *
+ * The snapshot reflects the state of the program at construction time. It
+ * must thus only be created after all transformations on the method bodies
+ * have been applied. Units and methods that are not part of the snapshot are
+ * passed on to the source ICFG.
+ */
+@ThreadSafe
+public class PrecomputedInterproceduralCFG implements BiDiInterproceduralCFG<Unit,SootMethod> {
+
+	@DontSynchronize("readonly")
+	protected final BiDiInterproceduralCFG<Unit,SootMethod> source;
+
+	private final IdentityNumberer<Unit> unitNumberer;
+	private final IdentityNumberer<SootMethod> methodNumberer;
+
+	// Unit-indexed tables
+	private final int[] unitToMethod;
+	private final BitSet callStmts = new BitSet();
+	private final BitSet exitStmts = new BitSet();
+	private final BitSet startPoints = new BitSet();
+	private final BitSet returnSites = new BitSet();
+	private final int[] succOffsets;
+	private final Unit[] succs;
+	private final int[] predOffsets;
+	private final Unit[] preds;
+	private final int[] returnSiteOffsets;
+	private final Unit[] returnSiteTable;
+	private final int[] predOfCallOffsets;
+	private final Unit[] predsOfCall;
+	private final int[] calleeOffsets;
+	private final SootMethod[] callees;
+
+	// Method-indexed tables
+	private final int[] callerOffsets;
+	private final Unit[] callers;
+	private final List<Unit>[] methodStartPoints;
+	private final List<Unit>[] methodEndPoints;
+	private final Set<Unit>[] callsFromWithin;
+	private final DirectedGraph<Unit>[] unitGraphs;
+	private final List<Value>[] parameterRefs;
+
+	/**
+	 * Creates a snapshot of the given ICFG for all methods that are reachable
+	 * according to the current call graph
+	 * @param source The ICFG from which to take the control flow
+	 */
+	public PrecomputedInterproceduralCFG(BiDiInterproceduralCFG<Unit,SootMethod> source) {
+		this(source, getReachableMethods());
+	}
+
+	/**
+	 * Creates a snapshot of the given ICFG for the given methods
+	 * @param source The ICFG from which to take the control flow
+	 * @param methods The methods to include in the snapshot. Methods without
+	 * an active body are ignored.
+	 */
+	@SuppressWarnings("unchecked")
+	public PrecomputedInterproceduralCFG(BiDiInterproceduralCFG<Unit,SootMethod> source,
+			Collection<SootMethod> methods) {
+		this.source = source;
+
+		// Number the methods and their units
+		int unitCount = 0;
+		methodNumberer = new IdentityNumberer<SootMethod>(methods.size());
+		for (SootMethod m : methods)
+			if (m.hasActiveBody()) {
+				methodNumberer.add(m);
+				unitCount += m.getActiveBody().getUnits().size();
+			}
+		methodNumberer.trimToSize();
+		unitNumberer = new IdentityNumberer<Unit>(unitCount);
+		for (SootMethod m : methodNumberer)
+			for (Unit u : m.getActiveBody().getUnits())
+				unitNumberer.add(u);
+		unitNumberer.trimToSize();
+
+		// Copy the per-unit information
+		final int numUnits = unitNumberer.size() + 1;
+		unitToMethod = new int[numUnits];
+		TableBuilder<Unit> succBuilder = new TableBuilder<Unit>(numUnits);
+		TableBuilder<Unit> predBuilder = new TableBuilder<Unit>(numUnits);
+		TableBuilder<Unit> returnSiteBuilder = new TableBuilder<Unit>(numUnits);
+		TableBuilder<Unit> predOfCallBuilder = new TableBuilder<Unit>(numUnits);
+		TableBuilder<SootMethod> calleeBuilder = new TableBuilder<SootMethod>(numUnits);
+		for (int n = 1; n < numUnits; n++) {
+			Unit u = unitNumberer.get(n);
+			unitToMethod[n] = methodNumberer.find(source.getMethodOf(u));
+			succBuilder.add(n, source.getSuccsOf(u));
+			predBuilder.add(n, source.getPredsOf(u));
+			if (source.isExitStmt(u))
+				exitStmts.set(n);
+			if (source.isStartPoint(u))
+				startPoints.set(n);
+			if (source.isReturnSite(u))
+				returnSites.set(n);
+			if (source.isCallStmt(u)) {
+				callStmts.set(n);
+				returnSiteBuilder.add(n, source.getReturnSitesOfCallAt(u));
+				predOfCallBuilder.add(n, source.getPredsOfCallAt(u));
+				calleeBuilder.add(n, source.getCalleesOfCallAt(u));
+			}
+		}
+		succs = succBuilder.toArray(new Unit[0]);
+		succOffsets = succBuilder.offsets;
+		preds = predBuilder.toArray(new Unit[0]);
+		predOffsets = predBuilder.offsets;
+		returnSiteTable = returnSiteBuilder.toArray(new Unit[0]);
+		returnSiteOffsets = returnSiteBuilder.offsets;
+		predsOfCall = predOfCallBuilder.toArray(new Unit[0]);
+		predOfCallOffsets = predOfCallBuilder.offsets;
+		callees = calleeBuilder.toArray(new SootMethod[0]);
+		calleeOffsets = calleeBuilder.offsets;
+
+		// Copy the per-method information
+		final int numMethods = methodNumberer.size() + 1;
+		TableBuilder<Unit> callerBuilder = new TableBuilder<Unit>(numMethods);
+		methodStartPoints = newArray(List.class, numMethods);
+		methodEndPoints = newArray(List.class, numMethods);
+		callsFromWithin = newArray(Set.class, numMethods);
+		unitGraphs = newArray(DirectedGraph.class, numMethods);
+		parameterRefs = newArray(List.class, numMethods);
+		for (int n = 1; n < numMethods; n++) {
+			SootMethod m = methodNumberer.get(n);
+			callerBuilder.add(n, source.getCallersOf(m));
+			methodStartPoints[n] = copyOf(source.getStartPointsOf(m));
+			methodEndPoints[n] = copyOf(source.getEndPointsOf(m));
+			Set<Unit> calls = source.getCallsFromWithin(m);
+			callsFromWithin[n] = calls.isEmpty() ? Collections.<Unit>emptySet()
+					: Collections.unmodifiableSet(new LinkedHashSet<Unit>(calls));
+			unitGraphs[n] = source.getOrCreateUnitGraph(m);
+			parameterRefs[n] = copyOf(source.getParameterRefs(m));
+		}
+		callers = callerBuilder.toArray(new Unit[0]);
+		callerOffsets = callerBuilder.offsets;
+	}
+
+	private static Collection<SootMethod> getReachableMethods() {
+		List<SootMethod> methods = new ArrayList<SootMethod>();
+		for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext(); )
+			methods.add(iter.next().method());
+		return methods;
+	}
+
+	/**
+	 * Creates an array of a generic type. The caller must make sure that
+	 * the given component type is the erasure of T's component type.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T[] newArray(Class<?> componentType, int length) {
+		return (T[]) Array.newInstance(componentType, length);
+	}
+
+	private static <T> List<T> copyOf(Collection<T> c) {
+		if (c.isEmpty())
+			return Collections.emptyList();
+		return Collections.unmodifiableList(new ArrayList<T>(c));
+	}
+
+	/**
+	 * Collects per-node lists into one flat table with offsets. Nodes must
+	 * be added in ascending order.
+	 */
+	private static class TableBuilder<T> {
+
+		final int[] offsets;
+		final List<T> entries = new ArrayList<T>();
+		private int lastNode = 0;
+
+		TableBuilder(int numNodes) {
+			offsets = new int[numNodes + 1];
+		}
+
+		void add(int node, Collection<? extends T> nodeEntries) {
+			fillUpTo(node);
+			entries.addAll(nodeEntries);
+			lastNode = node;
+		}
+
+		private void fillUpTo(int node) {
+			for (int i = lastNode + 1; i <= node; i++)
+				offsets[i] = entries.size();
+		}
+
+		T[] toArray(T[] a) {
+			fillUpTo(offsets.length - 1);
+			lastNode = offsets.length - 1;
+			return entries.toArray(a);
+		}
+
+	}
+
+	/**
+	 * Read-only list view on a slice of one of the flat tables
+	 */
+	private static final class ArraySlice<T> extends AbstractList<T> implements RandomAccess {
+
+		private final T[] table;
+		private final int from;
+		private final int to;
+
+		ArraySlice(T[] table, int from, int to) {
+			this.table = table;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || from + index >= to)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			return table[from + index];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+	}
+
+	private static <T> List<T> slice(T[] table, int[] offsets, int n) {
+		int from = offsets[n];
+		int to = offsets[n + 1];
+		if (from == to)
+			return Collections.emptyList();
+		return new ArraySlice<T>(table, from, to);
+	}
+
+	/**
+	 * Gets the number of units in this snapshot
+	 * @return The number of units in this snapshot
+	 */
+	public int getUnitCount() {
+		return unitNumberer.size();
+	}
+
+	/**
+	 * Gets the dense number that this snapshot has assigned to the given unit
+	 * @param u The unit for which to get the number
+	 * @return The number of the given unit between 1 and
+	 * {@link #getUnitCount()}, or 0 if the unit is not part of this snapshot
+	 */
+	public int getUnitNumber(Unit u) {
+		return unitNumberer.find(u);
+	}
+
+	@Override
+	public SootMethod getMethodOf(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.getMethodOf(u);
+		return methodNumberer.get(unitToMethod[n]);
+	}
+
+	@Override
+	public List<Unit> getPredsOf(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.getPredsOf(u);
+		return slice(preds, predOffsets, n);
+	}
+
+	@Override
+	public List<Unit> getSuccsOf(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.getSuccsOf(u);
+		return slice(succs, succOffsets, n);
+	}
+
+	@Override
+	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.getCalleesOfCallAt(u);
+		return slice(callees, calleeOffsets, n);
+	}
+
+	@Override
+	public Collection<Unit> getCallersOf(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getCallersOf(m);
+		return slice(callers, callerOffsets, n);
+	}
+
+	@Override
+	public Set<Unit> getCallsFromWithin(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getCallsFromWithin(m);
+		return callsFromWithin[n];
+	}
+
+	@Override
+	public Collection<Unit> getStartPointsOf(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getStartPointsOf(m);
+		return methodStartPoints[n];
+	}
+
+	@Override
+	public Collection<Unit> getReturnSitesOfCallAt(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0 || !callStmts.get(n))
+			return source.getReturnSitesOfCallAt(u);
+		return slice(returnSiteTable, returnSiteOffsets, n);
+	}
+
+	@Override
+	public boolean isCallStmt(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.isCallStmt(u);
+		return callStmts.get(n);
+	}
+
+	@Override
+	public boolean isExitStmt(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.isExitStmt(u);
+		return exitStmts.get(n);
+	}
+
+	@Override
+	public boolean isStartPoint(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.isStartPoint(u);
+		return startPoints.get(n);
+	}
+
+	@Override
+	public Set<Unit> allNonCallStartNodes() {
+		Set<Unit> res = new LinkedHashSet<Unit>(unitNumberer.size());
+		for (int n = 1; n <= unitNumberer.size(); n++)
+			if (!startPoints.get(n) && !callStmts.get(n))
+				res.add(unitNumberer.get(n));
+		return res;
+	}
+
+	@Override
+	public Set<Unit> allNonCallEndNodes() {
+		Set<Unit> res = new LinkedHashSet<Unit>(unitNumberer.size());
+		for (int n = 1; n <= unitNumberer.size(); n++)
+			if (!exitStmts.get(n) && !callStmts.get(n))
+				res.add(unitNumberer.get(n));
+		return res;
+	}
+
+	@Override
+	public boolean isFallThroughSuccessor(Unit stmt, Unit succ) {
+		return source.isFallThroughSuccessor(stmt, succ);
+	}
+
+	@Override
+	public boolean isBranchTarget(Unit stmt, Unit succ) {
+		return source.isBranchTarget(stmt, succ);
+	}
+
+	@Override
+	public Collection<Unit> getEndPointsOf(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getEndPointsOf(m);
+		return methodEndPoints[n];
+	}
+
+	@Override
+	public List<Unit> getPredsOfCallAt(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0 || !callStmts.get(n))
+			return source.getPredsOfCallAt(u);
+		return slice(predsOfCall, predOfCallOffsets, n);
+	}
+
+	@Override
+	public DirectedGraph<Unit> getOrCreateUnitGraph(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getOrCreateUnitGraph(m);
+		return unitGraphs[n];
+	}
+
+	@Override
+	public List<Value> getParameterRefs(SootMethod m) {
+		int n = methodNumberer.find(m);
+		if (n == 0)
+			return source.getParameterRefs(m);
+		return parameterRefs[n];
+	}
+
+	@Override
+	public boolean isReturnSite(Unit u) {
+		int n = unitNumberer.find(u);
+		if (n == 0)
+			return source.isReturnSite(u);
+		return returnSites.get(n);
+	}
+
+	@Override
+	public boolean isReachable(Unit u) {
+		return unitNumberer.contains(u) || source.isReachable(u);
+	}
+
+}
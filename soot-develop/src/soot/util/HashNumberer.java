@@ -0,0 +1,148 @@
+package soot.util;
+import java.util.*;
+
+/** A numberer that assigns dense numbers to arbitrary objects based on
+ * their equals() and hashCode() methods. Unlike MapNumberer, it neither
+ * boxes the numbers nor allocates an entry object per key: keys and
+ * numbers are kept in two parallel open-addressing arrays. As with the
+ * other numberers, the number 0 is reserved for null and the first object
+ * gets the number 1.
+ *
+ * Adding objects is not thread-safe. Once all objects have been added,
+ * concurrent lookups are safe.
+ */
+public class HashNumberer<E> implements IterableNumberer<E> {
+    private Object[] keys;
+    private int[] numbers;
+    private Object[] numberToObj;
+    private int lastNumber = 0;
+
+    public HashNumberer() {
+        this( 16 );
+    }
+
+    public HashNumberer( int expectedSize ) {
+        int capacity = 16;
+        while( capacity * 2 < expectedSize * 3 ) capacity <<= 1;
+        keys = new Object[capacity];
+        numbers = new int[capacity];
+        numberToObj = new Object[expectedSize + 1];
+    }
+
+    /** Returns the hash code under which o is stored. */
+    protected int hash( Object o ) {
+        return o.hashCode();
+    }
+
+    /** Returns true iff the stored key and the given object denote the
+     * same element. */
+    protected boolean same( Object key, Object o ) {
+        return key == o || key.equals( o );
+    }
+
+    public void add( E o ) {
+        findOrAdd( o );
+    }
+
+    /** Returns the number of o, assigning a new number if o has not been
+     * seen before. */
+    public int findOrAdd( E o ) {
+        if( o == null ) return 0;
+        int pos = findPosition( o );
+        if( keys[pos] != null ) return numbers[pos];
+
+        ++lastNumber;
+        if( lastNumber >= numberToObj.length ) {
+            numberToObj = Arrays.copyOf( numberToObj, numberToObj.length * 2 );
+        }
+        numberToObj[lastNumber] = o;
+        keys[pos] = o;
+        numbers[pos] = lastNumber;
+        if( lastNumber * 3 > keys.length * 2 ) doubleSize();
+        return lastNumber;
+    }
+
+    public long get( E o ) {
+        if( o == null ) return 0;
+        int ret = find( o );
+        if( ret == 0 ) throw new RuntimeException( "unnumbered: "+o );
+        return ret;
+    }
+
+    /** Returns the number of o, or 0 if o has never been added. */
+    public int find( Object o ) {
+        if( o == null ) return 0;
+        int pos = findPosition( o );
+        return keys[pos] != null ? numbers[pos] : 0;
+    }
+
+    /** Returns true iff o has been assigned a number. */
+    public boolean contains( Object o ) {
+        return find( o ) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get( long number ) {
+        if( number == 0 ) return null;
+        if( number > lastNumber ) throw new RuntimeException( "no object with number "+number );
+        return (E) numberToObj[(int) number];
+    }
+
+    public int size() {
+        return lastNumber;
+    }
+
+    /** Releases the spare capacity of the reverse mapping. Should be called
+     * once no more objects will be added. */
+    public void trimToSize() {
+        if( numberToObj.length > lastNumber + 1 )
+            numberToObj = Arrays.copyOf( numberToObj, lastNumber + 1 );
+    }
+
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int cur = 1;
+            public final boolean hasNext() {
+                return cur <= lastNumber;
+            }
+            @SuppressWarnings("unchecked")
+            public final E next() {
+                if( !hasNext() ) throw new NoSuchElementException();
+                return (E) numberToObj[cur++];
+            }
+            public final void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /** Returns the slot that holds o, or the empty slot at which o would
+     * have to be inserted. */
+    private int findPosition( Object o ) {
+        int mask = keys.length - 1;
+        int pos = mix( hash( o ) ) & mask;
+        while( true ) {
+            Object key = keys[pos];
+            if( key == null || same( key, o ) ) return pos;
+            pos = ( pos + 1 ) & mask;
+        }
+    }
+
+    private static int mix( int h ) {
+        h *= 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+
+    private void doubleSize() {
+        Object[] oldKeys = keys;
+        int[] oldNumbers = numbers;
+        keys = new Object[oldKeys.length * 2];
+        numbers = new int[oldKeys.length * 2];
+        for( int i = 0; i < oldKeys.length; i++ ) {
+            if( oldKeys[i] == null ) continue;
+            int pos = findPosition( oldKeys[i] );
+            keys[pos] = oldKeys[i];
+            numbers[pos] = oldNumbers[i];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package soot.util;
+
+/** A numberer that assigns dense numbers to arbitrary objects based on
+ * their identity, ignoring any equals() and hashCode() overrides. Use it
+ * for objects such as units and methods that are only ever compared by
+ * reference.
+ *
+ * Adding objects is not thread-safe. Once all objects have been added,
+ * concurrent lookups are safe.
+ */
+public final class IdentityNumberer<E> extends HashNumberer<E> {
+
+    public IdentityNumberer() {
+        super();
+    }
+
+    public IdentityNumberer( int expectedSize ) {
+        super( expectedSize );
+    }
+
+    @Override
+    protected int hash( Object o ) {
+        return System.identityHashCode( o );
+    }
+
+    @Override
+    protected boolean same( Object key, Object o ) {
+        return key == o;
+    }
+}
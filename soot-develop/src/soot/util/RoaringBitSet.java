@@ -0,0 +1,817 @@
+package soot.util;
+
+import java.util.NoSuchElementException;
+
+/** A compressed set of non-negative integers in the style of Roaring
+ * bitmaps. The integers are split into chunks of 65536 values by their
+ * upper 16 bits. Each chunk is kept in one of three containers: a sorted
+ * array for sparse chunks, a bitmap for dense chunks, and a list of runs
+ * for chunks made of long consecutive ranges. Unions, intersections and
+ * differences are computed chunk by chunk, so sparse sets cost memory
+ * proportional to their size and dense sets can be combined word by word.
+ */
+public final class RoaringBitSet {
+    public RoaringBitSet() {
+    }
+
+    /** Copy constructor. */
+    public RoaringBitSet( RoaringBitSet other ) {
+        keys = new char[other.size];
+        containers = new Container[other.size];
+        System.arraycopy( other.keys, 0, keys, 0, other.size );
+        for( int i = 0; i < other.size; i++ ) {
+            containers[i] = other.containers[i].copy();
+        }
+        size = other.size;
+    }
+
+    /** Returns true if the set contains no elements. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the number of elements in the set. */
+    public int cardinality() {
+        int ret = 0;
+        for( int i = 0; i < size; i++ ) ret += containers[i].card;
+        return ret;
+    }
+
+    public boolean get( int bit ) {
+        int i = indexOf( high( bit ) );
+        if( i < 0 ) return false;
+        return containers[i].contains( low( bit ) );
+    }
+
+    /** Adds bit to the set, returns true if it was not in the set before. */
+    public boolean set( int bit ) {
+        if( bit < 0 ) throw new IllegalArgumentException( "Negative element "+bit );
+        char hb = high( bit );
+        int i = indexOf( hb );
+        if( i < 0 ) {
+            ArrayContainer c = new ArrayContainer( 4 );
+            c.add( low( bit ) );
+            insertAt( -i-1, hb, c );
+            return true;
+        }
+        Container c = containers[i];
+        int before = c.card;
+        c = containers[i] = c.add( low( bit ) );
+        return c.card != before;
+    }
+
+    /** Removes bit from the set, returns true if it was in the set before. */
+    public boolean clear( int bit ) {
+        int i = indexOf( high( bit ) );
+        if( i < 0 ) return false;
+        Container c = containers[i];
+        if( !c.contains( low( bit ) ) ) return false;
+        ArrayContainer single = new ArrayContainer( 1 );
+        single.add( low( bit ) );
+        replaceAt( i, c.andNot( single ) );
+        return true;
+    }
+
+    /** Adds all elements of other to this set, returns true if this set
+     * changed. */
+    public boolean or( RoaringBitSet other ) {
+        return orAndAndNot( other, null, null );
+    }
+
+    /** Adds all elements of orset that are also in andset and not in
+     * andnotset to this set, returns true if this set changed. The
+     * arguments andset and andnotset may be null. This mirrors
+     * {@link BitVector#orAndAndNot(BitVector, BitVector, BitVector)}. */
+    public boolean orAndAndNot( RoaringBitSet orset, BitVector andset, RoaringBitSet andnotset ) {
+        if( orset == null || orset == this ) return false;
+        if( andset != null ) {
+            boolean ret = false;
+            for( Iterator it = orset.iterator(); it.hasNext(); ) {
+                int bit = it.next();
+                if( !andset.get( bit ) ) continue;
+                if( andnotset != null && andnotset.get( bit ) ) continue;
+                ret = set( bit ) | ret;
+            }
+            return ret;
+        }
+        boolean ret = false;
+        int i = 0;
+        for( int j = 0; j < orset.size; j++ ) {
+            char hb = orset.keys[j];
+            Container c = orset.containers[j];
+            boolean owned = false;
+            if( andnotset != null ) {
+                int k = andnotset.indexOf( hb );
+                if( k >= 0 ) {
+                    c = c.andNot( andnotset.containers[k] );
+                    if( c.card == 0 ) continue;
+                    owned = true;
+                }
+            }
+            while( i < size && keys[i] < hb ) i++;
+            if( i < size && keys[i] == hb ) {
+                Container mine = containers[i];
+                int before = mine.card;
+                mine = containers[i] = mine.or( c );
+                if( mine.card != before ) ret = true;
+            } else {
+                insertAt( i, hb, owned ? c : c.copy() );
+                ret = true;
+            }
+            i++;
+        }
+        return ret;
+    }
+
+    /** Removes all elements that are not in other from this set. */
+    public void and( RoaringBitSet other ) {
+        if( other == this ) return;
+        int n = 0;
+        int j = 0;
+        for( int i = 0; i < size; i++ ) {
+            char hb = keys[i];
+            while( j < other.size && other.keys[j] < hb ) j++;
+            if( j == other.size || other.keys[j] != hb ) continue;
+            Container c = containers[i].and( other.containers[j] );
+            if( c.card == 0 ) continue;
+            keys[n] = hb;
+            containers[n] = c;
+            n++;
+        }
+        truncate( n );
+    }
+
+    /** Removes all elements that are in other from this set. */
+    public void andNot( RoaringBitSet other ) {
+        if( other == this ) {
+            truncate( 0 );
+            return;
+        }
+        int n = 0;
+        int j = 0;
+        for( int i = 0; i < size; i++ ) {
+            char hb = keys[i];
+            Container c = containers[i];
+            while( j < other.size && other.keys[j] < hb ) j++;
+            if( j < other.size && other.keys[j] == hb ) {
+                c = c.andNot( other.containers[j] );
+                if( c.card == 0 ) continue;
+            }
+            keys[n] = hb;
+            containers[n] = c;
+            n++;
+        }
+        truncate( n );
+    }
+
+    /** Returns true if this set and other have at least one element in
+     * common. */
+    public boolean intersects( RoaringBitSet other ) {
+        int i = 0;
+        int j = 0;
+        while( i < size && j < other.size ) {
+            if( keys[i] < other.keys[j] ) i++;
+            else if( keys[i] > other.keys[j] ) j++;
+            else {
+                if( containers[i].intersects( other.containers[j] ) ) return true;
+                i++;
+                j++;
+            }
+        }
+        return false;
+    }
+
+    /** Returns a new set containing the elements that are in both sets. */
+    public static RoaringBitSet and( RoaringBitSet set1, RoaringBitSet set2 ) {
+        RoaringBitSet ret = new RoaringBitSet( set1 );
+        ret.and( set2 );
+        return ret;
+    }
+
+    /** Returns a new set containing the elements that are in either set. */
+    public static RoaringBitSet or( RoaringBitSet set1, RoaringBitSet set2 ) {
+        RoaringBitSet ret = new RoaringBitSet( set1 );
+        ret.or( set2 );
+        return ret;
+    }
+
+    /** Converts every container to its smallest representation, including
+     * run containers. Sets that are not going to change any more should be
+     * optimized this way. */
+    public void runOptimize() {
+        for( int i = 0; i < size; i++ ) {
+            containers[i] = containers[i].runOptimize();
+        }
+    }
+
+    /** Returns an estimate of the memory used by this set, in bytes. */
+    public long sizeInBytes() {
+        long ret = 16 + 2L * keys.length + 4L * containers.length;
+        for( int i = 0; i < size; i++ ) ret += containers[i].sizeInBytes();
+        return ret;
+    }
+
+    public boolean equals( Object o ) {
+        if( !(o instanceof RoaringBitSet) ) return false;
+        RoaringBitSet other = (RoaringBitSet) o;
+        if( size != other.size ) return false;
+        for( int i = 0; i < size; i++ ) {
+            if( keys[i] != other.keys[i] ) return false;
+            Container c = containers[i];
+            Container oc = other.containers[i];
+            if( c.card != oc.card ) return false;
+            if( c.and( oc ).card != c.card ) return false;
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        int ret = 0;
+        for( Iterator it = iterator(); it.hasNext(); ) ret = 31 * ret + it.next();
+        return ret;
+    }
+
+    public String toString() {
+        StringBuffer s = new StringBuffer( "{" );
+        boolean comma = false;
+        for( Iterator it = iterator(); it.hasNext(); ) {
+            if( comma ) s.append( ", " );
+            s.append( it.next() );
+            comma = true;
+        }
+        s.append( "}" );
+        return s.toString();
+    }
+
+    /** Returns an iterator over the elements in ascending order. The set
+     * must not be changed while it is being iterated. */
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    /** Iterates over the elements of a RoaringBitSet in ascending order.
+     * Like BitSetIterator, this does not implement java.util.Iterator
+     * because next returns an int. */
+    public final class Iterator {
+        private int index = 0;
+        private int next = -1;
+
+        Iterator() {
+            advance( 0 );
+        }
+
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        public int next() {
+            if( next < 0 ) throw new NoSuchElementException();
+            int ret = ( keys[index] << 16 ) | next;
+            advance( next + 1 );
+            return ret;
+        }
+
+        private void advance( int from ) {
+            while( index < size ) {
+                next = from <= 0xFFFF ? containers[index].nextValue( from ) : -1;
+                if( next >= 0 ) return;
+                index++;
+                from = 0;
+            }
+            next = -1;
+        }
+    }
+
+    /* End of public methods. */
+
+    private static char high( int bit ) {
+        return (char) ( bit >>> 16 );
+    }
+    private static char low( int bit ) {
+        return (char) bit;
+    }
+
+    private int indexOf( char hb ) {
+        // Sets are usually made of few chunks, the last one being the
+        // most recently allocated objects
+        if( size > 0 && keys[size-1] == hb ) return size-1;
+        int lo = 0;
+        int hi = size - 1;
+        while( lo <= hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            char k = keys[mid];
+            if( k < hb ) lo = mid + 1;
+            else if( k > hb ) hi = mid - 1;
+            else return mid;
+        }
+        return -( lo + 1 );
+    }
+
+    private void insertAt( int i, char hb, Container c ) {
+        if( size == keys.length ) {
+            int newLength = size == 0 ? 1 : 2 * size;
+            char[] newKeys = new char[newLength];
+            Container[] newContainers = new Container[newLength];
+            System.arraycopy( keys, 0, newKeys, 0, size );
+            System.arraycopy( containers, 0, newContainers, 0, size );
+            keys = newKeys;
+            containers = newContainers;
+        }
+        System.arraycopy( keys, i, keys, i+1, size-i );
+        System.arraycopy( containers, i, containers, i+1, size-i );
+        keys[i] = hb;
+        containers[i] = c;
+        size++;
+    }
+
+    private void replaceAt( int i, Container c ) {
+        if( c.card > 0 ) {
+            containers[i] = c;
+            return;
+        }
+        System.arraycopy( keys, i+1, keys, i, size-i-1 );
+        System.arraycopy( containers, i+1, containers, i, size-i-1 );
+        size--;
+        containers[size] = null;
+    }
+
+    private void truncate( int n ) {
+        for( int i = n; i < size; i++ ) containers[i] = null;
+        size = n;
+    }
+
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final Container[] EMPTY_CONTAINERS = new Container[0];
+
+    /** Arrays larger than this are converted to bitmaps. */
+    static final int MAX_ARRAY_SIZE = 4096;
+    static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = EMPTY_KEYS;
+    private Container[] containers = EMPTY_CONTAINERS;
+    private int size = 0;
+
+    /** The 16-bit elements of one chunk. Operations that may change the
+     * representation return the resulting container. */
+    static abstract class Container {
+        int card;
+
+        abstract boolean contains( char x );
+        /** Adds x, possibly in place. */
+        abstract Container add( char x );
+        /** Adds all elements of other, possibly in place. other is not
+         * modified and not shared with the result. */
+        abstract Container or( Container other );
+        /** Returns a new container with the common elements. */
+        abstract Container and( Container other );
+        /** Returns a new container with the elements not in other. */
+        abstract Container andNot( Container other );
+        abstract boolean intersects( Container other );
+        /** Returns the smallest element >= from, or -1. */
+        abstract int nextValue( int from );
+        abstract Container copy();
+        abstract BitmapContainer toBitmap();
+        abstract int numberOfRuns();
+        abstract long sizeInBytes();
+
+        /** Returns the smallest of the array, bitmap and run
+         * representations of this container. */
+        Container runOptimize() {
+            int runs = numberOfRuns();
+            long runSize = RunContainer.sizeInBytes( runs );
+            long arraySize = ArrayContainer.sizeInBytes( card );
+            long bitmapSize = BitmapContainer.BYTES;
+            if( runSize < arraySize && runSize < bitmapSize ) {
+                return this instanceof RunContainer ? this : RunContainer.from( this, runs );
+            }
+            return toEfficient();
+        }
+
+        /** Returns an array or bitmap container, whichever suits the
+         * cardinality. */
+        Container toEfficient() {
+            if( card <= MAX_ARRAY_SIZE ) {
+                return this instanceof ArrayContainer ? this : ArrayContainer.from( this );
+            }
+            return this instanceof BitmapContainer ? this : toBitmap();
+        }
+    }
+
+    /** A sorted array of at most MAX_ARRAY_SIZE elements. */
+    static final class ArrayContainer extends Container {
+        char[] content;
+
+        ArrayContainer( int capacity ) {
+            content = new char[capacity];
+        }
+
+        static ArrayContainer from( Container c ) {
+            ArrayContainer ret = new ArrayContainer( Math.max( 1, c.card ) );
+            for( int v = c.nextValue( 0 ); v >= 0; v = c.nextValue( v + 1 ) ) {
+                ret.content[ret.card++] = (char) v;
+            }
+            return ret;
+        }
+
+        static long sizeInBytes( int card ) {
+            return 24 + 2L * card;
+        }
+
+        private int search( char x ) {
+            int lo = 0;
+            int hi = card - 1;
+            while( lo <= hi ) {
+                int mid = ( lo + hi ) >>> 1;
+                char v = content[mid];
+                if( v < x ) lo = mid + 1;
+                else if( v > x ) hi = mid - 1;
+                else return mid;
+            }
+            return -( lo + 1 );
+        }
+
+        boolean contains( char x ) {
+            return search( x ) >= 0;
+        }
+
+        Container add( char x ) {
+            // Objects are mostly added in allocation order
+            int i = ( card == 0 || content[card-1] < x ) ? -( card + 1 ) : search( x );
+            if( i >= 0 ) return this;
+            if( card >= MAX_ARRAY_SIZE ) return toBitmap().add( x );
+            i = -i - 1;
+            if( card == content.length ) {
+                char[] newContent = new char[Math.min( MAX_ARRAY_SIZE, Math.max( 4, 2 * card ) )];
+                System.arraycopy( content, 0, newContent, 0, i );
+                System.arraycopy( content, i, newContent, i+1, card-i );
+                content = newContent;
+            } else {
+                System.arraycopy( content, i, content, i+1, card-i );
+            }
+            content[i] = x;
+            card++;
+            return this;
+        }
+
+        Container or( Container other ) {
+            if( other instanceof ArrayContainer ) {
+                ArrayContainer o = (ArrayContainer) other;
+                if( o.card == 0 ) return this;
+                if( card + o.card > MAX_ARRAY_SIZE ) return toBitmap().or( other );
+                char[] merged = new char[card + o.card];
+                int i = 0, j = 0, n = 0;
+                while( i < card && j < o.card ) {
+                    char a = content[i];
+                    char b = o.content[j];
+                    if( a < b ) { merged[n++] = a; i++; }
+                    else if( a > b ) { merged[n++] = b; j++; }
+                    else { merged[n++] = a; i++; j++; }
+                }
+                while( i < card ) merged[n++] = content[i++];
+                while( j < o.card ) merged[n++] = o.content[j++];
+                if( n == card ) return this;
+                content = merged;
+                card = n;
+                return this;
+            }
+            Container ret = other.toBitmap();
+            if( ret == other ) ret = other.copy();
+            for( int i = 0; i < card; i++ ) ret = ret.add( content[i] );
+            return ret.toEfficient();
+        }
+
+        Container and( Container other ) {
+            ArrayContainer ret = new ArrayContainer( Math.max( 1, card ) );
+            for( int i = 0; i < card; i++ ) {
+                if( other.contains( content[i] ) ) ret.content[ret.card++] = content[i];
+            }
+            return ret;
+        }
+
+        Container andNot( Container other ) {
+            ArrayContainer ret = new ArrayContainer( Math.max( 1, card ) );
+            for( int i = 0; i < card; i++ ) {
+                if( !other.contains( content[i] ) ) ret.content[ret.card++] = content[i];
+            }
+            return ret;
+        }
+
+        boolean intersects( Container other ) {
+            for( int i = 0; i < card; i++ ) {
+                if( other.contains( content[i] ) ) return true;
+            }
+            return false;
+        }
+
+        int nextValue( int from ) {
+            if( from > 0xFFFF ) return -1;
+            int i = search( (char) from );
+            if( i < 0 ) i = -i - 1;
+            return i < card ? content[i] : -1;
+        }
+
+        Container copy() {
+            ArrayContainer ret = new ArrayContainer( Math.max( 1, card ) );
+            System.arraycopy( content, 0, ret.content, 0, card );
+            ret.card = card;
+            return ret;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer ret = new BitmapContainer();
+            for( int i = 0; i < card; i++ ) ret.add( content[i] );
+            return ret;
+        }
+
+        int numberOfRuns() {
+            if( card == 0 ) return 0;
+            int runs = 1;
+            for( int i = 1; i < card; i++ ) {
+                if( content[i] != content[i-1] + 1 ) runs++;
+            }
+            return runs;
+        }
+
+        long sizeInBytes() {
+            return 24 + 2L * content.length;
+        }
+    }
+
+    /** A bitmap of all 65536 possible elements. */
+    static final class BitmapContainer extends Container {
+        final long[] words = new long[BITMAP_WORDS];
+
+        static final long BYTES = 24 + 8L * BITMAP_WORDS;
+
+        boolean contains( char x ) {
+            return ( words[x >>> 6] & ( 1L << x ) ) != 0L;
+        }
+
+        Container add( char x ) {
+            long before = words[x >>> 6];
+            long after = before | ( 1L << x );
+            if( before != after ) {
+                words[x >>> 6] = after;
+                card++;
+            }
+            return this;
+        }
+
+        Container or( Container other ) {
+            if( other instanceof BitmapContainer ) {
+                long[] ow = ( (BitmapContainer) other ).words;
+                int n = 0;
+                for( int i = 0; i < BITMAP_WORDS; i++ ) {
+                    long w = words[i] | ow[i];
+                    words[i] = w;
+                    n += Long.bitCount( w );
+                }
+                card = n;
+            } else {
+                for( int v = other.nextValue( 0 ); v >= 0; v = other.nextValue( v + 1 ) ) {
+                    add( (char) v );
+                }
+            }
+            // Dense chunks are often long ranges of allocation sites
+            if( card == 0x10000 || numberOfRuns() < 64 ) return runOptimize();
+            return this;
+        }
+
+        Container and( Container other ) {
+            if( !( other instanceof BitmapContainer ) ) return other.and( this );
+            long[] ow = ( (BitmapContainer) other ).words;
+            BitmapContainer ret = new BitmapContainer();
+            int n = 0;
+            for( int i = 0; i < BITMAP_WORDS; i++ ) {
+                long w = words[i] & ow[i];
+                ret.words[i] = w;
+                n += Long.bitCount( w );
+            }
+            ret.card = n;
+            return ret.toEfficient();
+        }
+
+        Container andNot( Container other ) {
+            BitmapContainer ret = new BitmapContainer();
+            if( other instanceof BitmapContainer ) {
+                long[] ow = ( (BitmapContainer) other ).words;
+                int n = 0;
+                for( int i = 0; i < BITMAP_WORDS; i++ ) {
+                    long w = words[i] & ~ow[i];
+                    ret.words[i] = w;
+                    n += Long.bitCount( w );
+                }
+                ret.card = n;
+            } else {
+                System.arraycopy( words, 0, ret.words, 0, BITMAP_WORDS );
+                ret.card = card;
+                for( int v = other.nextValue( 0 ); v >= 0; v = other.nextValue( v + 1 ) ) {
+                    long before = ret.words[v >>> 6];
+                    long after = before & ~( 1L << v );
+                    if( before != after ) {
+                        ret.words[v >>> 6] = after;
+                        ret.card--;
+                    }
+                }
+            }
+            return ret.toEfficient();
+        }
+
+        boolean intersects( Container other ) {
+            if( !( other instanceof BitmapContainer ) ) return other.intersects( this );
+            long[] ow = ( (BitmapContainer) other ).words;
+            for( int i = 0; i < BITMAP_WORDS; i++ ) {
+                if( ( words[i] & ow[i] ) != 0L ) return true;
+            }
+            return false;
+        }
+
+        int nextValue( int from ) {
+            if( from > 0xFFFF ) return -1;
+            int i = from >>> 6;
+            long w = words[i] & ( -1L << from );
+            while( true ) {
+                if( w != 0L ) return ( i << 6 ) + Long.numberOfTrailingZeros( w );
+                if( ++i == BITMAP_WORDS ) return -1;
+                w = words[i];
+            }
+        }
+
+        Container copy() {
+            BitmapContainer ret = new BitmapContainer();
+            System.arraycopy( words, 0, ret.words, 0, BITMAP_WORDS );
+            ret.card = card;
+            return ret;
+        }
+
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        int numberOfRuns() {
+            int runs = 0;
+            long carry = 0L;
+            for( int i = 0; i < BITMAP_WORDS; i++ ) {
+                long w = words[i];
+                // A run starts at every set bit whose predecessor is clear
+                runs += Long.bitCount( w & ~( ( w << 1 ) | carry ) );
+                carry = w >>> 63;
+            }
+            return runs;
+        }
+
+        long sizeInBytes() {
+            return BYTES;
+        }
+    }
+
+    /** A sorted list of disjoint, non-adjacent ranges of elements. Run i
+     * covers starts[i] to starts[i] + lengths[i], inclusively. */
+    static final class RunContainer extends Container {
+        char[] starts;
+        char[] lengths;
+        int runs;
+
+        RunContainer( int capacity ) {
+            starts = new char[capacity];
+            lengths = new char[capacity];
+        }
+
+        static RunContainer from( Container c, int numRuns ) {
+            RunContainer ret = new RunContainer( Math.max( 1, numRuns ) );
+            int v = c.nextValue( 0 );
+            while( v >= 0 ) {
+                int end = v;
+                int next;
+                while( ( next = c.nextValue( end + 1 ) ) == end + 1 ) end = next;
+                ret.starts[ret.runs] = (char) v;
+                ret.lengths[ret.runs] = (char) ( end - v );
+                ret.runs++;
+                ret.card += end - v + 1;
+                v = next;
+            }
+            return ret;
+        }
+
+        static long sizeInBytes( int runs ) {
+            return 48 + 4L * runs;
+        }
+
+        /** Returns the index of the last run starting at or before x, or -1. */
+        private int runBefore( int x ) {
+            int lo = 0;
+            int hi = runs - 1;
+            while( lo <= hi ) {
+                int mid = ( lo + hi ) >>> 1;
+                if( starts[mid] <= x ) lo = mid + 1;
+                else hi = mid - 1;
+            }
+            return hi;
+        }
+
+        boolean contains( char x ) {
+            int i = runBefore( x );
+            return i >= 0 && x <= starts[i] + lengths[i];
+        }
+
+        Container add( char x ) {
+            int i = runBefore( x );
+            if( i >= 0 && x <= starts[i] + lengths[i] ) return this;
+            card++;
+            boolean extendsPrev = i >= 0 && starts[i] + lengths[i] + 1 == x;
+            boolean extendsNext = i + 1 < runs && starts[i+1] == x + 1;
+            if( extendsPrev && extendsNext ) {
+                lengths[i] = (char) ( lengths[i] + lengths[i+1] + 2 );
+                System.arraycopy( starts, i+2, starts, i+1, runs-i-2 );
+                System.arraycopy( lengths, i+2, lengths, i+1, runs-i-2 );
+                runs--;
+            } else if( extendsPrev ) {
+                lengths[i]++;
+            } else if( extendsNext ) {
+                starts[i+1] = x;
+                lengths[i+1]++;
+            } else {
+                if( runs == starts.length ) {
+                    char[] newStarts = new char[2 * runs];
+                    char[] newLengths = new char[2 * runs];
+                    System.arraycopy( starts, 0, newStarts, 0, runs );
+                    System.arraycopy( lengths, 0, newLengths, 0, runs );
+                    starts = newStarts;
+                    lengths = newLengths;
+                }
+                System.arraycopy( starts, i+1, starts, i+2, runs-i-1 );
+                System.arraycopy( lengths, i+1, lengths, i+2, runs-i-1 );
+                starts[i+1] = x;
+                lengths[i+1] = 0;
+                runs++;
+                // Scattered additions make runs a poor choice
+                if( sizeInBytes( runs ) > ArrayContainer.sizeInBytes( card ) ) return toEfficient();
+            }
+            return this;
+        }
+
+        Container or( Container other ) {
+            return toBitmap().or( other );
+        }
+
+        Container and( Container other ) {
+            if( other instanceof ArrayContainer ) return other.and( this );
+            return toBitmap().and( other );
+        }
+
+        Container andNot( Container other ) {
+            return toBitmap().andNot( other ).runOptimize();
+        }
+
+        boolean intersects( Container other ) {
+            if( other instanceof ArrayContainer ) return other.intersects( this );
+            for( int i = 0; i < runs; i++ ) {
+                int v = other.nextValue( starts[i] );
+                if( v >= 0 && v <= starts[i] + lengths[i] ) return true;
+            }
+            return false;
+        }
+
+        int nextValue( int from ) {
+            if( from > 0xFFFF ) return -1;
+            int i = runBefore( from );
+            if( i >= 0 && from <= starts[i] + lengths[i] ) return from;
+            return i + 1 < runs ? starts[i+1] : -1;
+        }
+
+        Container copy() {
+            RunContainer ret = new RunContainer( Math.max( 1, runs ) );
+            System.arraycopy( starts, 0, ret.starts, 0, runs );
+            System.arraycopy( lengths, 0, ret.lengths, 0, runs );
+            ret.runs = runs;
+            ret.card = card;
+            return ret;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer ret = new BitmapContainer();
+            for( int i = 0; i < runs; i++ ) {
+                int start = starts[i];
+                int end = start + lengths[i];
+                int firstWord = start >>> 6;
+                int lastWord = end >>> 6;
+                for( int w = firstWord; w <= lastWord; w++ ) {
+                    long mask = -1L;
+                    if( w == firstWord ) mask &= -1L << start;
+                    if( w == lastWord ) mask &= -1L >>> ( 63 - ( end & 63 ) );
+                    ret.words[w] |= mask;
+                }
+            }
+            ret.card = card;
+            return ret;
+        }
+
+        int numberOfRuns() {
+            return runs;
+        }
+
+        long sizeInBytes() {
+            return 48 + 4L * starts.length;
+        }
+    }
+}
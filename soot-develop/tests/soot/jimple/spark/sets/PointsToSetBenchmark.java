@@ -0,0 +1,92 @@
+package soot.jimple.spark.sets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.VarNode;
+import soot.options.Options;
+
+/**
+ * Runs Spark once per points-to set implementation on the same program and
+ * reports the propagation time, the heap used by the analysis results and
+ * the total number of points-to set elements.
+ *
+ * Usage: PointsToSetBenchmark impl[,impl...] soot-arguments...
+ *
+ * An implementation is one of the values of the set-impl option, or
+ * double:old:new for double sets, e.g. "double:hybrid:hybrid,roaring".
+ * The Soot arguments select the program, e.g. "-cp rt.jar:app.jar
+ * -main-class Main Main" for a DaCapo-like benchmark, or "-src-prec apk
+ * -android-jars platforms -process-dir app.apk -p cg all-reachable:true"
+ * for an APK without a generated dummy main method.
+ */
+public class PointsToSetBenchmark {
+
+	private static final Pattern PROPAGATION_TIME = Pattern
+			.compile("\\[Spark\\] Propagation in ([0-9]+\\.[0-9]) seconds");
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: PointsToSetBenchmark impl[,impl...] soot-arguments...");
+			System.exit(1);
+		}
+		String[] sootArgs = Arrays.copyOfRange(args, 1, args.length);
+
+		System.out.println(String.format("%-28s %12s %12s %14s", "Set implementation", "Propagation",
+				"Heap (MB)", "Set elements"));
+		for (String impl : args[0].split(",")) {
+			runOnce(impl, sootArgs);
+		}
+	}
+
+	private static void runOnce(String impl, String[] sootArgs) {
+		G.reset();
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		G.v().out = new PrintStream(log);
+
+		if (!Options.v().parse(sootArgs))
+			throw new RuntimeException("Could not parse Soot arguments");
+		Options.v().set_whole_program(true);
+		Options.v().set_output_format(Options.output_format_none);
+		Options.v().setPhaseOption("cg.spark", "on");
+		String[] parts = impl.split(":");
+		Options.v().setPhaseOption("cg.spark", "set-impl:" + parts[0]);
+		if (parts.length == 3) {
+			Options.v().setPhaseOption("cg.spark", "double-set-old:" + parts[1]);
+			Options.v().setPhaseOption("cg.spark", "double-set-new:" + parts[2]);
+		}
+		Scene.v().loadNecessaryClasses();
+
+		long heapBefore = usedHeap();
+		PackManager.v().getPack("cg").apply();
+		PAG pag = (PAG) Scene.v().getPointsToAnalysis();
+		long heapAfter = usedHeap();
+
+		long elements = 0;
+		for (VarNode vn : pag.getVarNodeNumberer())
+			elements += vn.getP2Set().size();
+		for (AllocDotField adf : pag.getAllocDotFieldNodeNumberer())
+			elements += adf.getP2Set().size();
+
+		Matcher m = PROPAGATION_TIME.matcher(log.toString());
+		String propagation = m.find() ? m.group(1) + " s" : "n/a";
+		System.out.println(String.format("%-28s %12s %12d %14d", impl, propagation,
+				(heapAfter - heapBefore) >> 20, elements));
+	}
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+}
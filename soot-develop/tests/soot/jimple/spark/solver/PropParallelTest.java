@@ -0,0 +1,130 @@
+package soot.jimple.spark.solver;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.ArrayElement;
+import soot.jimple.spark.pag.ClassConstantNode;
+import soot.jimple.spark.pag.LocalVarNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.SparkField;
+import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+
+/**
+ * Checks that the parallel propagator computes the same points-to sets and
+ * call graph as the sequential worklist propagator.
+ */
+public class PropParallelTest {
+
+	private static final String TARGET_CLASS = "soot.jimple.spark.solver.targets.PropagationTarget";
+
+	/**
+	 * Builds the pointer assignment graph for the target program without
+	 * propagating it
+	 */
+	private static PAG buildPAG() throws Exception {
+		G.reset();
+		File targetDir = new File(PropParallelTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		Options.v().set_soot_classpath(targetDir.getPath());
+		Options.v().set_prepend_classpath(true);
+		Options.v().set_whole_program(true);
+		Options.v().set_allow_phantom_refs(true);
+		Options.v().set_no_bodies_for_excluded(true);
+		Options.v().set_exclude(Arrays.asList("java.*", "javax.*", "sun.*", "jdk.*"));
+		Options.v().set_output_format(Options.output_format_none);
+		Options.v().setPhaseOption("cg.spark", "on");
+		Options.v().setPhaseOption("cg.spark", "propagator:none");
+
+		Scene.v().addBasicClass(TARGET_CLASS, SootClass.BODIES);
+		Scene.v().loadNecessaryClasses();
+		SootClass target = Scene.v().getSootClass(TARGET_CLASS);
+		target.setApplicationClass();
+		Scene.v().setMainClass(target);
+
+		PackManager.v().getPack("cg").apply();
+		return (PAG) Scene.v().getPointsToAnalysis();
+	}
+
+	private static String key(AllocNode n) {
+		return n.getNewExpr() + " in " + n.getMethod();
+	}
+
+	private static String key(VarNode n) {
+		if (n instanceof LocalVarNode)
+			return n.getVariable() + " in " + ((LocalVarNode) n).getMethod();
+		if (n.getVariable() instanceof ClassConstantNode)
+			return ((ClassConstantNode) n.getVariable()).getClassConstant().toString();
+		return n.getVariable().toString();
+	}
+
+	private static String key(SparkField f) {
+		return f instanceof ArrayElement ? "[]" : f.toString();
+	}
+
+	private static Set<String> keys(PointsToSetInternal p2Set) {
+		final Set<String> res = new TreeSet<String>();
+		if (p2Set != null) {
+			p2Set.forall(new P2SetVisitor() {
+
+				@Override
+				public void visit(Node n) {
+					res.add(key((AllocNode) n));
+				}
+
+			});
+		}
+		return res;
+	}
+
+	/**
+	 * Propagates with the given propagator and returns the points-to sets of
+	 * all variables and fields of heap objects, as well as the call graph
+	 */
+	private static Map<String, Set<String>> solve(boolean parallel) throws Exception {
+		PAG pag = buildPAG();
+		Propagator propagator = parallel ? new PropParallel(pag, 4, 1) : new PropWorklist(pag);
+		propagator.propagate();
+
+		Map<String, Set<String>> res = new HashMap<String, Set<String>>();
+		for (VarNode vn : pag.getVarNodeNumberer())
+			if (vn.getReplacement() == vn)
+				res.put(key(vn), keys(vn.getP2Set()));
+		for (AllocDotField adf : pag.getAllocDotFieldNodeNumberer())
+			res.put(key(adf.getBase()) + "." + key(adf.getField()), keys(adf.getP2Set()));
+
+		Set<String> edges = new TreeSet<String>();
+		for (Edge e : Scene.v().getCallGraph())
+			edges.add(e.toString());
+		res.put("<call graph>", edges);
+		return res;
+	}
+
+	@Test(timeout = 300000)
+	public void sameResultsAsWorklist() throws Exception {
+		Map<String, Set<String>> expected = solve(false);
+		Assert.assertTrue(expected.get("<call graph>").size() > 10);
+
+		// Races between the workers only show up occasionally
+		for (int i = 0; i < 5; i++)
+			Assert.assertEquals(expected, solve(true));
+	}
+
+}
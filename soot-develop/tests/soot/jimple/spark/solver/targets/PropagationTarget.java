@@ -0,0 +1,104 @@
+package soot.jimple.spark.solver.targets;
+
+/**
+ * Small program for the points-to propagators. It uses interfaces with
+ * several implementers, casts, arrays, fields and virtual calls, so that the
+ * type filters and the on-the-fly call graph are exercised.
+ */
+public class PropagationTarget {
+
+	interface Shape {
+		Shape next();
+	}
+
+	interface Named extends Shape {
+		Object name();
+	}
+
+	interface Scaled {
+		Shape scale(Shape s);
+	}
+
+	static class Circle implements Shape {
+		Shape link;
+
+		public Shape next() {
+			return link;
+		}
+	}
+
+	static class Square implements Named, Scaled {
+		Object label = new StringBuilder();
+		Shape inner;
+
+		public Shape next() {
+			return inner;
+		}
+
+		public Object name() {
+			return label;
+		}
+
+		public Shape scale(Shape s) {
+			inner = s;
+			return this;
+		}
+	}
+
+	static class Box extends Square {
+		Shape[] contents = new Shape[4];
+
+		Box(Shape first) {
+			contents[0] = first;
+		}
+
+		public Shape next() {
+			return contents[0];
+		}
+
+		public Shape scale(Shape s) {
+			contents[1] = s;
+			return new Circle();
+		}
+	}
+
+	static Shape registry;
+	static Object[] objects = new Object[8];
+
+	static Shape pick(Shape a, Shape b, int i) {
+		Shape res = i > 0 ? a : b;
+		registry = res;
+		return res;
+	}
+
+	static Shape chain(Shape s, int depth) {
+		if (depth == 0)
+			return s;
+		Circle c = new Circle();
+		c.link = s;
+		return chain(c, depth - 1);
+	}
+
+	public static void main(String[] args) {
+		Shape[] shapes = { new Circle(), new Square(), new Box(new Circle()) };
+		for (int i = 0; i < shapes.length; i++) {
+			Shape s = pick(shapes[i], shapes[shapes.length - 1 - i], i);
+			Shape t = chain(s, i);
+			objects[i] = t.next();
+			if (t instanceof Named) {
+				Named n = (Named) t;
+				objects[i + 3] = n.name();
+			}
+			if (s instanceof Scaled) {
+				Scaled sc = (Scaled) s;
+				registry = sc.scale(t);
+			}
+		}
+		Object o = objects[args.length];
+		if (o instanceof Shape)
+			registry = ((Shape) o).next();
+		Named named = (Named) registry;
+		objects[7] = named.next();
+	}
+
+}
@@ -0,0 +1,201 @@
+package soot.jimple.toolkits.callgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.Context;
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.util.queue.QueueReader;
+
+public class CompactCallGraphTest {
+
+	private static SootMethod method(String name) {
+		return new SootMethod(name, Collections.<Type>emptyList(), VoidType.v());
+	}
+
+	private static Set<Edge> toSet(Iterator<Edge> it) {
+		Set<Edge> res = new HashSet<Edge>();
+		while (it.hasNext())
+			res.add(it.next());
+		return res;
+	}
+
+	@Test
+	public void testSameEdgesAsCallGraph() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		Unit u1 = Jimple.v().newNopStmt();
+		Unit u2 = Jimple.v().newNopStmt();
+		Unit u3 = Jimple.v().newNopStmt();
+
+		CallGraph cg = new CallGraph();
+		cg.addEdge(new Edge(a, u1, b, Kind.STATIC));
+		cg.addEdge(new Edge(a, u1, c, Kind.STATIC));
+		cg.addEdge(new Edge(a, u2, c, Kind.STATIC));
+		cg.addEdge(new Edge(b, u3, c, Kind.VIRTUAL));
+		cg.addEdge(new Edge(null, null, a, Kind.CLINIT));
+
+		CompactCallGraph ccg = new CompactCallGraph(cg);
+		Assert.assertEquals(cg.size(), ccg.size());
+		for (Unit u : new Unit[] { u1, u2, u3 })
+			Assert.assertEquals(toSet(cg.edgesOutOf(u)), toSet(ccg.edgesOutOf(u)));
+		for (SootMethod m : new SootMethod[] { a, b, c }) {
+			Assert.assertEquals(toSet(cg.edgesOutOf(m)), toSet(ccg.edgesOutOf(m)));
+			Assert.assertEquals(toSet(cg.edgesInto(m)), toSet(ccg.edgesInto(m)));
+			Assert.assertEquals(cg.isEntryMethod(m), ccg.isEntryMethod(m));
+		}
+		Assert.assertEquals(2, ccg.numEdgesOutOf(u1));
+		Assert.assertEquals(3, ccg.numEdgesInto(c));
+		Assert.assertSame(cg.findEdge(u1, c), ccg.findEdge(u1, c));
+		Assert.assertNull(ccg.findEdge(u3, b));
+	}
+
+	@Test
+	public void testRemovedEdgesAreDropped() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		Unit u1 = Jimple.v().newNopStmt();
+		Unit u2 = Jimple.v().newNopStmt();
+
+		CallGraph cg = new CallGraph();
+		Edge e1 = new Edge(a, u1, b, Kind.STATIC);
+		Edge e2 = new Edge(a, u2, b, Kind.STATIC);
+		cg.addEdge(e1);
+		cg.addEdge(e2);
+		cg.removeEdge(e1);
+
+		CompactCallGraph ccg = new CompactCallGraph(cg);
+		Assert.assertEquals(1, ccg.size());
+		Assert.assertFalse(ccg.edgesOutOf(u1).hasNext());
+		Assert.assertEquals(Collections.singleton(e2), toSet(ccg.edgesInto(b)));
+
+		List<Edge> listened = new ArrayList<Edge>();
+		for (Iterator<Edge> it = ccg.listener(); it.hasNext();)
+			listened.add(it.next());
+		Assert.assertEquals(Collections.singletonList(e2), listened);
+
+		List<Object> sources = new ArrayList<Object>();
+		for (Iterator<?> it = ccg.sourceMethods(); it.hasNext();)
+			sources.add(it.next());
+		Assert.assertEquals(Collections.<Object>singletonList(a), sources);
+	}
+
+	@Test
+	public void testModifications() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		Stmt u1 = Jimple.v().newNopStmt();
+		Stmt u2 = Jimple.v().newNopStmt();
+		Stmt u3 = Jimple.v().newNopStmt();
+
+		CallGraph cg = new CallGraph();
+		cg.addEdge(new Edge(a, u1, b, Kind.STATIC));
+		cg.addEdge(new Edge(a, u2, c, Kind.STATIC));
+		CompactCallGraph ccg = new CompactCallGraph(cg);
+		QueueReader<Edge> newEdges = ccg.newListener();
+
+		// Duplicates are rejected, new edges are indexed on the next query
+		Assert.assertFalse(ccg.addEdge(new Edge(a, u1, b, Kind.STATIC)));
+		Edge e3 = new Edge(b, u3, c, Kind.VIRTUAL);
+		Assert.assertTrue(ccg.addEdge(e3));
+		Assert.assertFalse(ccg.addEdge(e3));
+		Assert.assertTrue(newEdges.hasNext());
+		Assert.assertSame(e3, newEdges.next());
+		Assert.assertEquals(3, ccg.size());
+		Assert.assertEquals(2, ccg.numEdgesInto(c));
+		Assert.assertSame(e3, ccg.findEdge(u3, c));
+
+		// Removal works with equal edge objects
+		Assert.assertTrue(ccg.removeEdge(new Edge(a, u1, b, Kind.STATIC)));
+		Assert.assertFalse(ccg.removeEdge(new Edge(a, u1, b, Kind.STATIC)));
+		Assert.assertFalse(ccg.edgesOutOf(u1).hasNext());
+		Assert.assertTrue(ccg.isEntryMethod(b));
+
+		// Removed edges can be added again
+		Assert.assertTrue(ccg.addEdge(new Edge(a, u1, b, Kind.STATIC)));
+		Assert.assertFalse(ccg.isEntryMethod(b));
+		Assert.assertEquals(1, ccg.numEdgesOutOf(u1));
+
+		Assert.assertTrue(ccg.swapEdgesOutOf(u2, u1));
+		Assert.assertFalse(ccg.edgesOutOf(u2).hasNext());
+		Assert.assertEquals(2, ccg.numEdgesOutOf(u1));
+		Assert.assertNotNull(ccg.findEdge(u1, c));
+
+		Assert.assertTrue(ccg.removeAllEdgesOutOf(u1));
+		Assert.assertFalse(ccg.removeAllEdgesOutOf(u1));
+		Assert.assertEquals(Collections.singleton(e3), toSet(ccg.iterator()));
+		Assert.assertTrue(ccg.isEntryMethod(b));
+		Assert.assertEquals(1, ccg.size());
+	}
+
+	@Test
+	public void testValueBasedMethodLookup() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		Unit u1 = Jimple.v().newNopStmt();
+
+		CallGraph cg = new CallGraph();
+		Edge e = new Edge(new ValueContext(a, "ctx"), u1, new ValueContext(b, "ctx"), Kind.STATIC);
+		cg.addEdge(e);
+		CompactCallGraph ccg = new CompactCallGraph(cg);
+
+		// Contexts that are equal, but not identical, must find the same edges
+		Assert.assertEquals(Collections.singleton(e), toSet(ccg.edgesInto(new ValueContext(b, "ctx"))));
+		Assert.assertEquals(Collections.singleton(e), toSet(ccg.edgesOutOf(new ValueContext(a, "ctx"))));
+		Assert.assertFalse(ccg.edgesInto(new ValueContext(b, "other")).hasNext());
+		Assert.assertEquals(1, ccg.numEdgesInto(new ValueContext(b, "ctx")));
+	}
+
+	/**
+	 * Method context that, unlike {@link soot.MethodContext}, is not interned
+	 */
+	private static class ValueContext implements MethodOrMethodContext, Context {
+		private final SootMethod method;
+		private final String name;
+
+		ValueContext(SootMethod method, String name) {
+			this.method = method;
+			this.name = name;
+		}
+
+		@Override
+		public SootMethod method() {
+			return method;
+		}
+
+		@Override
+		public Context context() {
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * method.hashCode() + name.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ValueContext))
+				return false;
+			ValueContext other = (ValueContext) obj;
+			return method == other.method && name.equals(other.name);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package soot.jimple.toolkits.ide;
+
+import heros.FlowFunctions;
+import heros.IFDSTabulationProblem;
+import heros.InterproceduralCFG;
+import heros.solver.ConcurrentIFDSSolver;
+import heros.solver.IFDSSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.G;
+import soot.MethodOrMethodContext;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.exampleproblems.IFDSPossibleTypes;
+import soot.jimple.toolkits.ide.exampleproblems.IFDSReachingDefinitions;
+import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
+import soot.options.Options;
+
+/**
+ * Solves an example IFDS problem with the {@link IFDSSolver} and the
+ * {@link ConcurrentIFDSSolver} for a number of thread counts and reports the
+ * time taken and the total number of facts computed by each run.
+ *
+ * Usage: IFDSSolverScalingBenchmark problem threads[,threads...] soot-arguments...
+ *
+ * The problem is either "reachingdefs" or "possibletypes". The Soot
+ * arguments select the program, e.g. "-cp rt.jar:app.jar -main-class Main
+ * Main". The call graph is built with CHA unless the arguments enable Spark.
+ */
+public class IFDSSolverScalingBenchmark {
+
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.err.println("Usage: IFDSSolverScalingBenchmark problem threads[,threads...] soot-arguments...");
+			System.exit(1);
+		}
+		String problem = args[0];
+		String[] sootArgs = Arrays.copyOfRange(args, 2, args.length);
+
+		G.reset();
+		if (!Options.v().parse(sootArgs))
+			throw new RuntimeException("Could not parse Soot arguments");
+		Options.v().set_whole_program(true);
+		Options.v().set_output_format(Options.output_format_none);
+		Scene.v().loadNecessaryClasses();
+		PackManager.v().getPack("cg").apply();
+		JimpleBasedInterproceduralCFG icfg = new JimpleBasedInterproceduralCFG();
+
+		System.out.println(String.format("%-12s %8s %12s %12s", "Solver", "Threads", "Time (ms)", "Facts"));
+		for (String threads : args[1].split(",")) {
+			int numThreads = Integer.parseInt(threads);
+			for (boolean concurrent : new boolean[] { false, true }) {
+				IFDSTabulationProblem<Unit, ?, SootMethod, InterproceduralCFG<Unit, SootMethod>> p = createProblem(
+						problem, icfg);
+				runOnce(withThreads(p, numThreads), concurrent, numThreads);
+			}
+		}
+	}
+
+	private static IFDSTabulationProblem<Unit, ?, SootMethod, InterproceduralCFG<Unit, SootMethod>> createProblem(
+			String name, InterproceduralCFG<Unit, SootMethod> icfg) {
+		if (name.equals("reachingdefs"))
+			return new IFDSReachingDefinitions(icfg);
+		if (name.equals("possibletypes"))
+			return new IFDSPossibleTypes(icfg);
+		throw new IllegalArgumentException("Unknown problem " + name);
+	}
+
+	private static <D> void runOnce(IFDSTabulationProblem<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>> p,
+			boolean concurrent, int numThreads) {
+		long before = System.nanoTime();
+		long time;
+		long facts = 0;
+		if (concurrent) {
+			ConcurrentIFDSSolver<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>> solver = new ConcurrentIFDSSolver<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>>(
+					p);
+			solver.solve();
+			time = (System.nanoTime() - before) / 1000000;
+			for (Unit u : reachableUnits())
+				facts += solver.ifdsResultsAt(u).size();
+		} else {
+			IFDSSolver<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>> solver = new IFDSSolver<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>>(
+					p);
+			solver.solve();
+			time = (System.nanoTime() - before) / 1000000;
+			for (Unit u : reachableUnits())
+				facts += solver.ifdsResultsAt(u).size();
+		}
+		System.out.println(String.format("%-12s %8d %12d %12d", concurrent ? "concurrent" : "default", numThreads,
+				time, facts));
+	}
+
+	private static Iterable<Unit> reachableUnits() {
+		List<Unit> units = new ArrayList<Unit>();
+		for (Iterator<MethodOrMethodContext> it = Scene.v().getReachableMethods().listener(); it.hasNext();) {
+			SootMethod m = it.next().method();
+			if (m.hasActiveBody())
+				units.addAll(m.getActiveBody().getUnits());
+		}
+		return units;
+	}
+
+	/**
+	 * Returns a view of the given problem that uses the given number of threads.
+	 */
+	private static <D> IFDSTabulationProblem<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>> withThreads(
+			final IFDSTabulationProblem<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>> p,
+			final int numThreads) {
+		return new IFDSTabulationProblem<Unit, D, SootMethod, InterproceduralCFG<Unit, SootMethod>>() {
+			public FlowFunctions<Unit, D, SootMethod> flowFunctions() {
+				return p.flowFunctions();
+			}
+
+			public InterproceduralCFG<Unit, SootMethod> interproceduralCFG() {
+				return p.interproceduralCFG();
+			}
+
+			public Map<Unit, Set<D>> initialSeeds() {
+				return p.initialSeeds();
+			}
+
+			public D zeroValue() {
+				return p.zeroValue();
+			}
+
+			public boolean followReturnsPastSeeds() {
+				return p.followReturnsPastSeeds();
+			}
+
+			public boolean autoAddZero() {
+				return p.autoAddZero();
+			}
+
+			public int numThreads() {
+				return numThreads;
+			}
+
+			public boolean computeValues() {
+				return p.computeValues();
+			}
+
+			public boolean recordEdges() {
+				return p.recordEdges();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,160 @@
+package soot.util;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RoaringBitSetTest {
+
+	private static void assertSameElements(BitSet expected, RoaringBitSet actual) {
+		Assert.assertEquals(expected.cardinality(), actual.cardinality());
+		Assert.assertEquals(expected.isEmpty(), actual.isEmpty());
+		RoaringBitSet.Iterator it = actual.iterator();
+		for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+			Assert.assertTrue(it.hasNext());
+			Assert.assertEquals(i, it.next());
+		}
+		Assert.assertFalse(it.hasNext());
+	}
+
+	/** Fills both sets with a mix of sparse elements, dense chunks and long
+	 * runs, so that all container kinds show up. */
+	private static void fill(Random rnd, BitSet expected, RoaringBitSet actual) {
+		for (int i = 0; i < 2000; i++) {
+			int bit = rnd.nextInt(300000);
+			Assert.assertEquals(!expected.get(bit), actual.set(bit));
+			expected.set(bit);
+		}
+		int denseBase = 65536 * (1 + rnd.nextInt(3));
+		for (int i = 0; i < 10000; i++) {
+			int bit = denseBase + rnd.nextInt(20000);
+			Assert.assertEquals(!expected.get(bit), actual.set(bit));
+			expected.set(bit);
+		}
+		int runStart = rnd.nextInt(250000);
+		for (int bit = runStart; bit < runStart + 30000; bit++) {
+			Assert.assertEquals(!expected.get(bit), actual.set(bit));
+			expected.set(bit);
+		}
+	}
+
+	@Test
+	public void testSetAndGet() {
+		RoaringBitSet s = new RoaringBitSet();
+		Assert.assertTrue(s.isEmpty());
+		Assert.assertTrue(s.set(5));
+		Assert.assertFalse(s.set(5));
+		Assert.assertTrue(s.set(70000));
+		Assert.assertTrue(s.get(5));
+		Assert.assertTrue(s.get(70000));
+		Assert.assertFalse(s.get(6));
+		Assert.assertFalse(s.get(65541));
+		Assert.assertEquals(2, s.cardinality());
+		Assert.assertTrue(s.clear(5));
+		Assert.assertFalse(s.clear(5));
+		Assert.assertFalse(s.get(5));
+		Assert.assertEquals("{70000}", s.toString());
+	}
+
+	@Test
+	public void testFullChunk() {
+		BitSet expected = new BitSet();
+		RoaringBitSet s = new RoaringBitSet();
+		for (int bit = 65536; bit < 2 * 65536; bit++) {
+			expected.set(bit);
+			s.set(bit);
+		}
+		s.runOptimize();
+		assertSameElements(expected, s);
+		Assert.assertTrue(s.sizeInBytes() < 1024);
+		Assert.assertTrue(s.set(42));
+		Assert.assertTrue(s.clear(65536 + 100));
+		expected.set(42);
+		expected.clear(65536 + 100);
+		assertSameElements(expected, s);
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random rnd = new Random(4711);
+		for (int round = 0; round < 20; round++) {
+			BitSet ea = new BitSet();
+			BitSet eb = new BitSet();
+			RoaringBitSet a = new RoaringBitSet();
+			RoaringBitSet b = new RoaringBitSet();
+			fill(rnd, ea, a);
+			fill(rnd, eb, b);
+			if (rnd.nextBoolean())
+				a.runOptimize();
+			if (rnd.nextBoolean())
+				b.runOptimize();
+			assertSameElements(ea, a);
+			assertSameElements(eb, b);
+			Assert.assertEquals(ea.intersects(eb), a.intersects(b));
+
+			BitSet and = (BitSet) ea.clone();
+			and.and(eb);
+			assertSameElements(and, RoaringBitSet.and(a, b));
+
+			BitSet andNot = (BitSet) ea.clone();
+			andNot.andNot(eb);
+			RoaringBitSet rAndNot = new RoaringBitSet(a);
+			rAndNot.andNot(b);
+			assertSameElements(andNot, rAndNot);
+
+			BitSet or = (BitSet) ea.clone();
+			or.or(eb);
+			RoaringBitSet rOr = new RoaringBitSet(a);
+			Assert.assertEquals(!or.equals(ea), rOr.or(b));
+			assertSameElements(or, rOr);
+			Assert.assertFalse(rOr.or(b));
+
+			// The arguments must not be changed or shared
+			assertSameElements(ea, a);
+			assertSameElements(eb, b);
+			rOr.set(1 << 20);
+			Assert.assertFalse(a.get(1 << 20));
+			Assert.assertFalse(b.get(1 << 20));
+		}
+	}
+
+	@Test
+	public void testOrAndAndNot() {
+		Random rnd = new Random(42);
+		for (int round = 0; round < 10; round++) {
+			BitSet eOr = new BitSet();
+			BitSet eExclude = new BitSet();
+			RoaringBitSet rOr = new RoaringBitSet();
+			RoaringBitSet rExclude = new RoaringBitSet();
+			fill(rnd, eOr, rOr);
+			fill(rnd, eExclude, rExclude);
+			BitVector mask = new BitVector();
+			BitSet eMask = new BitSet();
+			for (int i = 0; i < 100000; i++) {
+				int bit = rnd.nextInt(300000);
+				mask.set(bit);
+				eMask.set(bit);
+			}
+
+			BitSet expected = new BitSet();
+			RoaringBitSet actual = new RoaringBitSet();
+			fill(rnd, expected, actual);
+
+			BitSet added = (BitSet) eOr.clone();
+			added.andNot(eExclude);
+			BitSet before = (BitSet) expected.clone();
+			expected.or(added);
+			Assert.assertEquals(!before.equals(expected), actual.orAndAndNot(rOr, null, rExclude));
+			assertSameElements(expected, actual);
+
+			added = (BitSet) eOr.clone();
+			added.and(eMask);
+			RoaringBitSet masked = new RoaringBitSet();
+			masked.orAndAndNot(rOr, mask, null);
+			assertSameElements(added, masked);
+		}
+	}
+
+}
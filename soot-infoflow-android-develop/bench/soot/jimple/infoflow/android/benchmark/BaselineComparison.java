@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares benchmark runs against a baseline. For every app and configuration
+ * profile, the medians of the runs are compared. A run is considered a
+ * regression if the analysis fails where it succeeded in the baseline, if the
+ * number of results changes, or if the wall time, the peak heap or the number
+ * of propagated edges grows by more than the given threshold.
+ */
+public class BaselineComparison {
+	
+	private static final String[] GUARDED_MEASUREMENTS = { RunResult.WALL_TIME, RunResult.PEAK_HEAP,
+		RunResult.FORWARD_PROPAGATIONS, RunResult.BACKWARD_PROPAGATIONS };
+	
+	private final double threshold;
+	
+	/**
+	 * Creates a new comparison
+	 * @param threshold The relative increase of a measurement over the
+	 * baseline that is still accepted, e.g. 0.1 for 10%
+	 */
+	public BaselineComparison(double threshold) {
+		this.threshold = threshold;
+	}
+	
+	/**
+	 * Compares the given runs against the given baseline
+	 * @param runs The runs to check
+	 * @param baseline The runs of the baseline
+	 * @return A description of every regression that was found. If there are
+	 * no regressions, an empty list is returned.
+	 */
+	public List<String> compare(List<RunResult> runs, List<RunResult> baseline) {
+		Map<String, List<RunResult>> currentByKey = groupByKey(runs);
+		Map<String, List<RunResult>> baselineByKey = groupByKey(baseline);
+		
+		List<String> regressions = new ArrayList<>();
+		for (Map.Entry<String, List<RunResult>> entry : currentByKey.entrySet()) {
+			String key = entry.getKey();
+			List<RunResult> baselineRuns = baselineByKey.get(key);
+			if (baselineRuns == null)
+				continue;
+			
+			List<RunResult> currentRuns = entry.getValue();
+			boolean currentOk = allOk(currentRuns);
+			if (!allOk(baselineRuns))
+				continue;
+			if (!currentOk) {
+				regressions.add(key + ": analysis did not finish normally");
+				continue;
+			}
+			
+			Long baseResults = median(baselineRuns, RunResult.RESULTS);
+			Long currentResults = median(currentRuns, RunResult.RESULTS);
+			if (baseResults != null && currentResults != null && !baseResults.equals(currentResults))
+				regressions.add(String.format("%s: number of results changed from %d to %d",
+						key, baseResults, currentResults));
+			
+			for (String measurement : GUARDED_MEASUREMENTS) {
+				Long baseValue = median(baselineRuns, measurement);
+				Long currentValue = median(currentRuns, measurement);
+				if (baseValue == null || currentValue == null)
+					continue;
+				if (currentValue > baseValue * (1 + threshold))
+					regressions.add(String.format("%s: %s increased from %d to %d (%+.1f%%)",
+							key, measurement, baseValue, currentValue,
+							baseValue == 0 ? 100.0 : (currentValue - baseValue) * 100.0 / baseValue));
+			}
+		}
+		return regressions;
+	}
+	
+	private static Map<String, List<RunResult>> groupByKey(List<RunResult> runs) {
+		Map<String, List<RunResult>> byKey = new LinkedHashMap<>();
+		for (RunResult run : runs) {
+			List<RunResult> keyRuns = byKey.get(run.getKey());
+			if (keyRuns == null) {
+				keyRuns = new ArrayList<>();
+				byKey.put(run.getKey(), keyRuns);
+			}
+			keyRuns.add(run);
+		}
+		return byKey;
+	}
+	
+	private static boolean allOk(List<RunResult> runs) {
+		for (RunResult run : runs)
+			if (run.getStatus() != RunResult.Status.Ok)
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Gets the median of a measurement over the given runs
+	 * @param runs The runs
+	 * @param measurement The name of the measurement
+	 * @return The median of the measurement, or null if none of the runs has
+	 * recorded the measurement
+	 */
+	static Long median(List<RunResult> runs, String measurement) {
+		List<Long> values = new ArrayList<>();
+		for (RunResult run : runs) {
+			Long value = run.getValue(measurement);
+			if (value != null)
+				values.add(value);
+		}
+		if (values.isEmpty())
+			return null;
+		Collections.sort(values);
+		return values.get(values.size() / 2);
+	}
+	
+}
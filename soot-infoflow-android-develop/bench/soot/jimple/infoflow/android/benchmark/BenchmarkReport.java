@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the results of the {@link MacroBenchmarkRunner} as CSV and JSON files
+ * and reads them back from CSV files, e.g., to compare them against a
+ * baseline. There is one line or object per run. Measurements that have not
+ * been recorded, e.g. for phases that were not run, are left empty.
+ */
+public class BenchmarkReport {
+	
+	private static final String[] KEY_COLUMNS = { "suite", "app", "profile", "run", "status" };
+	
+	/**
+	 * Writes the given runs to a CSV file
+	 * @param file The file to write
+	 * @param runs The runs to write
+	 * @throws IOException Thrown if the file could not be written
+	 */
+	public static void writeCsv(File file, List<RunResult> runs) throws IOException {
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			StringBuilder header = new StringBuilder();
+			for (String column : KEY_COLUMNS)
+				header.append(column).append(",");
+			for (String measurement : RunResult.MEASUREMENTS)
+				header.append(measurement).append(",");
+			writer.println(header.substring(0, header.length() - 1));
+			
+			for (RunResult run : runs) {
+				StringBuilder line = new StringBuilder();
+				line.append(escapeCsv(run.getSuite())).append(",");
+				line.append(escapeCsv(run.getApp())).append(",");
+				line.append(run.getProfile()).append(",");
+				line.append(run.getRun()).append(",");
+				line.append(run.getStatus());
+				for (String measurement : RunResult.MEASUREMENTS) {
+					Long value = run.getValue(measurement);
+					line.append(",");
+					if (value != null)
+						line.append(value);
+				}
+				writer.println(line);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the runs from a CSV file that has been written by
+	 * {@link #writeCsv(File, List)}
+	 * @param file The file to read
+	 * @return The runs in the given file
+	 * @throws IOException Thrown if the file could not be read or has an
+	 * invalid format
+	 */
+	public static List<RunResult> readCsv(File file) throws IOException {
+		List<RunResult> runs = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String headerLine = reader.readLine();
+			if (headerLine == null)
+				return runs;
+			List<String> header = splitCsv(headerLine);
+			
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				List<String> fields = splitCsv(line);
+				if (fields.size() != header.size())
+					throw new IOException("Invalid line in " + file + ": " + line);
+				
+				RunResult run = new RunResult(fields.get(0), fields.get(1),
+						ConfigurationProfile.valueOf(fields.get(2)), Integer.parseInt(fields.get(3)));
+				run.setStatus(RunResult.Status.valueOf(fields.get(4)));
+				for (int i = KEY_COLUMNS.length; i < fields.size(); i++)
+					if (!fields.get(i).isEmpty())
+						run.setValue(header.get(i), Long.parseLong(fields.get(i)));
+				runs.add(run);
+			}
+		}
+		catch (IllegalArgumentException ex) {
+			throw new IOException("Invalid benchmark results in " + file, ex);
+		}
+		return runs;
+	}
+	
+	/**
+	 * Writes the given runs to a JSON file
+	 * @param file The file to write
+	 * @param runs The runs to write
+	 * @throws IOException Thrown if the file could not be written
+	 */
+	public static void writeJson(File file, List<RunResult> runs) throws IOException {
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			writer.println("{");
+			writer.println("    \"javaVersion\" : " + quoteJson(System.getProperty("java.version")) + ",");
+			writer.println("    \"availableProcessors\" : " + Runtime.getRuntime().availableProcessors() + ",");
+			writer.println("    \"runs\" : [");
+			for (int i = 0; i < runs.size(); i++) {
+				RunResult run = runs.get(i);
+				writer.println("        {");
+				writer.println("            \"suite\" : " + quoteJson(run.getSuite()) + ",");
+				writer.println("            \"app\" : " + quoteJson(run.getApp()) + ",");
+				writer.println("            \"profile\" : " + quoteJson(run.getProfile().name()) + ",");
+				writer.println("            \"run\" : " + run.getRun() + ",");
+				writer.print("            \"status\" : " + quoteJson(run.getStatus().name()));
+				for (String measurement : RunResult.MEASUREMENTS) {
+					Long value = run.getValue(measurement);
+					if (value != null) {
+						writer.println(",");
+						writer.print("            " + quoteJson(measurement) + " : " + value);
+					}
+				}
+				writer.println();
+				writer.println(i < runs.size() - 1 ? "        }," : "        }");
+			}
+			writer.println("    ]");
+			writer.println("}");
+		}
+	}
+	
+	private static String escapeCsv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+			return value;
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+	
+	private static List<String> splitCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				}
+				else if (c == '"')
+					quoted = false;
+				else
+					field.append(c);
+			}
+			else if (c == '"')
+				quoted = true;
+			else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else
+				field.append(c);
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+	
+	private static String quoteJson(String value) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < 0x20)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append("\"").toString();
+	}
+	
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import soot.jimple.infoflow.InfoflowConfiguration.DataFlowSolver;
+import soot.jimple.infoflow.android.InfoflowAndroidConfiguration;
+import soot.jimple.infoflow.android.InfoflowAndroidConfiguration.CallbackAnalyzer;
+
+/**
+ * Named analysis configurations for the {@link MacroBenchmarkRunner}. Every
+ * profile starts from the default configuration and changes only the options
+ * that give the profile its name.
+ */
+public enum ConfigurationProfile {
+	
+	/**
+	 * The default configuration
+	 */
+	Default {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+		}
+	},
+	
+	/**
+	 * Only reports the sources and sinks of the leaks, but not the paths
+	 * between them
+	 */
+	NoPaths {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+			config.setComputeResultPaths(false);
+		}
+	},
+	
+	/**
+	 * Uses the context-sensitive, but flow-insensitive solver
+	 */
+	FlowInsensitive {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+			config.setDataFlowSolver(DataFlowSolver.FlowInsensitive);
+		}
+	},
+	
+	/**
+	 * Uses the fast callback analyzer
+	 */
+	FastCallbacks {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+			config.setCallbackAnalyzer(CallbackAnalyzer.Fast);
+		}
+	},
+	
+	/**
+	 * Additionally tracks implicit flows
+	 */
+	ImplicitFlows {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+			config.setEnableImplicitFlows(true);
+		}
+	},
+	
+	/**
+	 * Analyzes the components of the app one at a time
+	 */
+	OneComponentAtATime {
+		@Override
+		public void apply(InfoflowAndroidConfiguration config) {
+			config.setOneComponentAtATime(true);
+		}
+	};
+	
+	/**
+	 * Applies this profile to the given configuration
+	 * @param config The configuration to change
+	 */
+	public abstract void apply(InfoflowAndroidConfiguration config);
+	
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlpull.v1.XmlPullParserException;
+
+import soot.jimple.infoflow.android.test.droidBench.JUnitTests;
+import soot.jimple.infoflow.results.InfoflowResults;
+
+/**
+ * Runs the complete Android data flow analysis on selected DroidBench apps.
+ * Every invocation analyzes the app from scratch, so the measured time
+ * includes the entry point and call graph construction. Just like the
+ * DroidBench tests, the benchmark takes the DroidBench directory and the
+ * Android platform directory from the DROIDBENCH and ANDROID_JARS
+ * environment variables or system properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 3, jvmArgs = { "-Xmx8g" })
+public class DroidBenchBenchmark extends JUnitTests {
+	
+	/**
+	 * The app to analyze relative to the DroidBench directory
+	 */
+	@Param({ "Aliasing/Merge1.apk", "ArraysAndLists/HashMapAccess1.apk",
+		"Callbacks/Button5.apk", "FieldAndObjectSensitivity/FieldSensitivity3.apk",
+		"GeneralJava/VirtualDispatch2.apk", "Lifecycle/ActivityLifecycle3.apk" })
+	public String apk;
+	
+	@Benchmark
+	public int analyze() throws IOException, XmlPullParserException {
+		InfoflowResults res = analyzeAPKFile(apk);
+		if (res == null)
+			throw new RuntimeException("No results for app " + apk);
+		return res.size();
+	}
+	
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Properties;
+
+import soot.jimple.infoflow.android.SetupApplication;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Runs the data flow analysis once on a single app and writes the
+ * measurements to a properties file. The {@link MacroBenchmarkRunner} starts
+ * a new JVM with this class for every run, so that the runs do not influence
+ * each other.
+ * 
+ * Usage: MacroBenchmarkRun platformsDir apkFile profile resultFile
+ */
+public class MacroBenchmarkRun {
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("Usage: MacroBenchmarkRun platformsDir apkFile profile resultFile");
+			System.exit(1);
+		}
+		
+		RunResult result = new RunResult("", args[1], ConfigurationProfile.valueOf(args[2]), 0);
+		try {
+			run(args[0], args[1], result);
+		}
+		catch (Throwable t) {
+			t.printStackTrace();
+			result.setStatus(RunResult.Status.Failed);
+		}
+		
+		Properties properties = new Properties();
+		result.store(properties);
+		try (OutputStream out = new FileOutputStream(args[3])) {
+			properties.store(out, "Measurements of " + args[1] + " [" + args[2] + "]");
+		}
+		
+		// The analysis may leave non-daemon threads behind
+		System.exit(0);
+	}
+	
+	private static void run(String platformsDir, String apkFile, RunResult result) throws Exception {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			pool.resetPeakUsage();
+		long wallBefore = System.nanoTime();
+		long cpuBefore = getProcessCpuTime();
+		long gcBefore = getGcTime();
+		
+		SetupApplication app = new SetupApplication(platformsDir, apkFile);
+		File taintWrapperFile = new File("EasyTaintWrapperSource.txt");
+		if (!taintWrapperFile.exists())
+			taintWrapperFile = new File("../soot-infoflow/EasyTaintWrapperSource.txt");
+		app.setTaintWrapper(new EasyTaintWrapper(taintWrapperFile));
+		result.getProfile().apply(app.getConfig());
+		InfoflowResults res = app.runInfoflow("SourcesAndSinks.txt");
+		
+		result.setValue(RunResult.WALL_TIME, (System.nanoTime() - wallBefore) / 1000000);
+		long cpuAfter = getProcessCpuTime();
+		if (cpuBefore >= 0 && cpuAfter >= 0)
+			result.setValue(RunResult.CPU_TIME, (cpuAfter - cpuBefore) / 1000000);
+		result.setValue(RunResult.GC_TIME, getGcTime() - gcBefore);
+		result.setValue(RunResult.PEAK_HEAP, getPeakHeap());
+		result.setValue(RunResult.RESULTS, res == null ? 0 : res.size());
+		if (app.getPerformanceData() != null)
+			result.setPerformanceData(app.getPerformanceData());
+	}
+	
+	/**
+	 * Gets the sum of the peak usages of all heap memory pools. This is an
+	 * upper bound of the peak heap usage, since the pools need not have
+	 * reached their peaks at the same time.
+	 * @return The peak heap usage in bytes
+	 */
+	private static long getPeakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+	
+	private static long getProcessCpuTime() {
+		OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+		if (osBean instanceof com.sun.management.OperatingSystemMXBean)
+			return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+		return -1;
+	}
+	
+	private static long getGcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, gcBean.getCollectionTime());
+		return time;
+	}
+	
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs the Android data flow analysis on suites of APK files with a number of
+ * configuration profiles and records the time, memory and propagation counts
+ * of every run. Every run is executed in a new JVM. The results are written
+ * as CSV and JSON files and can be compared against a baseline CSV file
+ * written by an earlier invocation.
+ * 
+ * The predefined suites are "droidbench" (the DroidBench directory given by
+ * the DROIDBENCH environment variable or system property), "insecurebank"
+ * and "otherapks" (the APK files in testAPKs). Additional directories with
+ * APK files can be given with -apks. The runner must be started from the
+ * soot-infoflow-android directory.
+ */
+public class MacroBenchmarkRunner {
+	
+	private String platformsDir = null;
+	private final List<String> suites = new ArrayList<>();
+	private final List<File> apkDirs = new ArrayList<>();
+	private final List<ConfigurationProfile> profiles = new ArrayList<>();
+	private int runs = 3;
+	private String jvmArgs = "-Xmx8g";
+	private long timeout = 1800;
+	private String outputPrefix = "reports" + File.separator + "macrobench";
+	private File baselineFile = null;
+	private double threshold = 0.1;
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		MacroBenchmarkRunner runner = new MacroBenchmarkRunner();
+		if (!runner.parseArguments(args)) {
+			printUsage();
+			System.exit(1);
+		}
+		System.exit(runner.run() ? 0 : 2);
+	}
+	
+	private static void printUsage() {
+		System.out.println("Usage: MacroBenchmarkRunner [options]");
+		System.out.println("  -platforms <dir>      Android platforms directory (default: ANDROID_JARS)");
+		System.out.println("  -suites <s1,s2,...>   Suites to run: droidbench, insecurebank, otherapks");
+		System.out.println("                        (default: all suites that are available)");
+		System.out.println("  -apks <dir>           Additional directory with APK files, may be repeated");
+		System.out.println("  -profiles <p1,p2,...> Configuration profiles, default: Default. Available: "
+				+ Arrays.toString(ConfigurationProfile.values()));
+		System.out.println("  -runs <n>             Number of runs per app and profile (default: 3)");
+		System.out.println("  -jvmArgs <args>       Arguments for the JVMs that run the analysis (default: -Xmx8g)");
+		System.out.println("  -timeout <seconds>    Time limit for a single run (default: 1800)");
+		System.out.println("  -out <prefix>         Prefix of the CSV and JSON result files (default: reports/macrobench)");
+		System.out.println("  -baseline <csv>       Baseline to check the results against");
+		System.out.println("  -threshold <percent>  Accepted increase over the baseline (default: 10)");
+	}
+	
+	private boolean parseArguments(String[] args) {
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					return false;
+				String option = args[i];
+				String value = args[i + 1];
+				if (option.equals("-platforms"))
+					platformsDir = value;
+				else if (option.equals("-suites"))
+					suites.addAll(Arrays.asList(value.toLowerCase().split(",")));
+				else if (option.equals("-apks"))
+					apkDirs.add(new File(value));
+				else if (option.equals("-profiles")) {
+					for (String profile : value.split(","))
+						profiles.add(ConfigurationProfile.valueOf(profile));
+				}
+				else if (option.equals("-runs"))
+					runs = Integer.parseInt(value);
+				else if (option.equals("-jvmArgs"))
+					jvmArgs = value;
+				else if (option.equals("-timeout"))
+					timeout = Long.parseLong(value);
+				else if (option.equals("-out"))
+					outputPrefix = value;
+				else if (option.equals("-baseline"))
+					baselineFile = new File(value);
+				else if (option.equals("-threshold"))
+					threshold = Double.parseDouble(value) / 100;
+				else {
+					System.err.println("Unknown option " + option);
+					return false;
+				}
+			}
+		}
+		catch (IllegalArgumentException ex) {
+			System.err.println("Invalid option value: " + ex.getMessage());
+			return false;
+		}
+		
+		if (platformsDir == null)
+			platformsDir = getSetting("ANDROID_JARS");
+		if (platformsDir == null) {
+			System.err.println("Android platforms directory not set");
+			return false;
+		}
+		if (profiles.isEmpty())
+			profiles.add(ConfigurationProfile.Default);
+		return runs > 0;
+	}
+	
+	private static String getSetting(String name) {
+		String value = System.getenv(name);
+		if (value == null)
+			value = System.getProperty(name);
+		return value;
+	}
+	
+	/**
+	 * Runs all apps with all profiles, writes the results and checks them
+	 * against the baseline
+	 * @return True if all runs have finished normally and no regressions have
+	 * been found, otherwise false
+	 */
+	private boolean run() throws IOException, InterruptedException {
+		Map<String, Map<String, File>> apps = collectApps();
+		List<RunResult> results = new ArrayList<>();
+		File logDir = new File(outputPrefix + "-logs");
+		logDir.mkdirs();
+		
+		boolean success = true;
+		for (Map.Entry<String, Map<String, File>> suite : apps.entrySet())
+			for (Map.Entry<String, File> app : suite.getValue().entrySet())
+				for (ConfigurationProfile profile : profiles)
+					for (int run = 1; run <= runs; run++) {
+						RunResult result = new RunResult(suite.getKey(), app.getKey(), profile, run);
+						System.out.println("Running " + result.getKey() + ", run " + run + "/" + runs + "...");
+						File logFile = new File(logDir, results.size() + ".log");
+						runInNewJvm(app.getValue(), result, logFile);
+						if (result.getStatus() != RunResult.Status.Ok) {
+							System.out.println("Run ended with status " + result.getStatus()
+									+ ", see " + logFile);
+							success = false;
+						}
+						results.add(result);
+					}
+		
+		File csvFile = new File(outputPrefix + ".csv");
+		File jsonFile = new File(outputPrefix + ".json");
+		if (csvFile.getParentFile() != null)
+			csvFile.getParentFile().mkdirs();
+		BenchmarkReport.writeCsv(csvFile, results);
+		BenchmarkReport.writeJson(jsonFile, results);
+		printSummary(results);
+		System.out.println("Results written to " + csvFile + " and " + jsonFile);
+		
+		if (baselineFile != null) {
+			List<String> regressions = new BaselineComparison(threshold).compare(results,
+					BenchmarkReport.readCsv(baselineFile));
+			if (regressions.isEmpty())
+				System.out.println("No regressions against " + baselineFile);
+			else {
+				System.out.println(regressions.size() + " regression(s) against " + baselineFile + ":");
+				for (String regression : regressions)
+					System.out.println("  " + regression);
+				success = false;
+			}
+		}
+		return success;
+	}
+	
+	/**
+	 * Collects the APK files of all requested suites
+	 * @return A mapping from suite names to the apps of the suite, which in
+	 * turn map the app names to the APK files
+	 */
+	private Map<String, Map<String, File>> collectApps() {
+		Map<String, Map<String, File>> apps = new LinkedHashMap<>();
+		String droidBenchDir = getSetting("DROIDBENCH");
+		boolean allSuites = suites.isEmpty() && apkDirs.isEmpty();
+		
+		if (suites.contains("droidbench") || (allSuites && droidBenchDir != null)) {
+			if (droidBenchDir == null)
+				throw new RuntimeException("DroidBench dir not set");
+			apps.put("droidbench", collectApks(new File(droidBenchDir)));
+		}
+		if (suites.contains("insecurebank") || allSuites)
+			apps.put("insecurebank", Collections.singletonMap("InsecureBank.apk",
+					new File("insecureBank" + File.separator + "InsecureBank.apk")));
+		if (suites.contains("otherapks") || allSuites)
+			apps.put("otherapks", collectApks(new File("testAPKs")));
+		for (File dir : apkDirs)
+			apps.put(dir.getName(), collectApks(dir));
+		return apps;
+	}
+	
+	/**
+	 * Collects all APK files in the given directory and its subdirectories
+	 * @param dir The directory to search
+	 * @return A mapping from the paths of the APK files relative to the given
+	 * directory to the files
+	 */
+	private static Map<String, File> collectApks(File dir) {
+		if (!dir.isDirectory())
+			throw new RuntimeException("APK directory " + dir + " does not exist");
+		Map<String, File> apks = new LinkedHashMap<>();
+		collectApks(dir, "", apks);
+		return apks;
+	}
+	
+	private static void collectApks(File dir, String prefix, Map<String, File> apks) {
+		File[] files = dir.listFiles();
+		if (files == null)
+			return;
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory())
+				collectApks(file, prefix + file.getName() + "/", apks);
+			else if (file.getName().toLowerCase().endsWith(".apk"))
+				apks.put(prefix + file.getName(), file);
+		}
+	}
+	
+	/**
+	 * Runs the analysis on the given APK file in a new JVM and records the
+	 * measurements in the given result object
+	 * @param apk The APK file to analyze
+	 * @param result The result object to fill
+	 * @param logFile The file to which the output of the JVM is written
+	 */
+	private void runInNewJvm(File apk, RunResult result, File logFile)
+			throws IOException, InterruptedException {
+		File resultFile = File.createTempFile("macrobench", ".properties");
+		try {
+			List<String> command = new ArrayList<>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			if (!jvmArgs.trim().isEmpty())
+				command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(MacroBenchmarkRun.class.getName());
+			command.add(platformsDir);
+			command.add(apk.getPath());
+			command.add(result.getProfile().name());
+			command.add(resultFile.getPath());
+			
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(logFile);
+			Process process = builder.start();
+			
+			long deadline = System.currentTimeMillis() + timeout * 1000;
+			while (!hasTerminated(process)) {
+				if (System.currentTimeMillis() > deadline) {
+					process.destroy();
+					process.waitFor();
+					result.setStatus(RunResult.Status.Timeout);
+					return;
+				}
+				Thread.sleep(500);
+			}
+			
+			Properties properties = new Properties();
+			try (InputStream in = new FileInputStream(resultFile)) {
+				properties.load(in);
+			}
+			result.load(properties);
+			if (process.exitValue() != 0 || properties.isEmpty())
+				result.setStatus(RunResult.Status.Failed);
+		}
+		finally {
+			resultFile.delete();
+		}
+	}
+	
+	private static boolean hasTerminated(Process process) {
+		try {
+			process.exitValue();
+			return true;
+		}
+		catch (IllegalThreadStateException ex) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Prints the medians of the most important measurements for every app and
+	 * profile
+	 * @param results The results of all runs
+	 */
+	private static void printSummary(List<RunResult> results) {
+		Map<String, List<RunResult>> byKey = new LinkedHashMap<>();
+		for (RunResult result : results) {
+			List<RunResult> keyResults = byKey.get(result.getKey());
+			if (keyResults == null) {
+				keyResults = new ArrayList<>();
+				byKey.put(result.getKey(), keyResults);
+			}
+			keyResults.add(result);
+		}
+		
+		System.out.println(String.format("%-60s %8s %10s %10s %12s %12s", "App [profile]",
+				"Results", "Wall (s)", "Heap (MB)", "Forward", "Backward"));
+		for (Map.Entry<String, List<RunResult>> entry : byKey.entrySet()) {
+			List<RunResult> keyResults = entry.getValue();
+			Long wallTime = BaselineComparison.median(keyResults, RunResult.WALL_TIME);
+			Long peakHeap = BaselineComparison.median(keyResults, RunResult.PEAK_HEAP);
+			System.out.println(String.format("%-60s %8s %10s %10s %12s %12s", entry.getKey(),
+					format(BaselineComparison.median(keyResults, RunResult.RESULTS)),
+					wallTime == null ? "-" : String.format("%.1f", wallTime / 1000.0),
+					peakHeap == null ? "-" : String.valueOf(peakHeap / 1024 / 1024),
+					format(BaselineComparison.median(keyResults, RunResult.FORWARD_PROPAGATIONS)),
+					format(BaselineComparison.median(keyResults, RunResult.BACKWARD_PROPAGATIONS))));
+		}
+	}
+	
+	private static String format(Long value) {
+		return value == null ? "-" : value.toString();
+	}
+	
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.android.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import soot.jimple.infoflow.results.InfoflowPerformanceData;
+import soot.jimple.infoflow.results.InfoflowPerformanceData.Phase;
+import soot.jimple.infoflow.results.InfoflowPerformanceData.PhaseData;
+
+/**
+ * The measurements of a single run of the data flow analysis on a single app
+ * with a single configuration profile. All times are in milliseconds, all
+ * memory sizes in bytes.
+ */
+public class RunResult {
+	
+	/**
+	 * The outcome of a run
+	 */
+	public enum Status {
+		/**
+		 * The analysis has finished normally
+		 */
+		Ok,
+		/**
+		 * The analysis has thrown an exception or the JVM has died
+		 */
+		Failed,
+		/**
+		 * The analysis did not finish within the time limit
+		 */
+		Timeout
+	}
+	
+	public static final String RESULTS = "results";
+	public static final String WALL_TIME = "wallTime";
+	public static final String CPU_TIME = "cpuTime";
+	public static final String GC_TIME = "gcTime";
+	public static final String PEAK_HEAP = "peakHeap";
+	public static final String FORWARD_PROPAGATIONS = "forwardPropagations";
+	public static final String BACKWARD_PROPAGATIONS = "backwardPropagations";
+	
+	/**
+	 * The names of all measurements in the order in which they are reported
+	 */
+	public static final List<String> MEASUREMENTS;
+	
+	static {
+		List<String> measurements = new ArrayList<>();
+		measurements.add(RESULTS);
+		measurements.add(WALL_TIME);
+		measurements.add(CPU_TIME);
+		measurements.add(GC_TIME);
+		measurements.add(PEAK_HEAP);
+		measurements.add(FORWARD_PROPAGATIONS);
+		measurements.add(BACKWARD_PROPAGATIONS);
+		for (Phase phase : Phase.values()) {
+			measurements.add(phaseMeasurement(phase, WALL_TIME));
+			measurements.add(phaseMeasurement(phase, CPU_TIME));
+			measurements.add(phaseMeasurement(phase, GC_TIME));
+		}
+		MEASUREMENTS = Collections.unmodifiableList(measurements);
+	}
+	
+	private final String suite;
+	private final String app;
+	private final ConfigurationProfile profile;
+	private final int run;
+	private Status status = Status.Ok;
+	private final Map<String, Long> values = new LinkedHashMap<>();
+	
+	public RunResult(String suite, String app, ConfigurationProfile profile, int run) {
+		this.suite = suite;
+		this.app = app;
+		this.profile = profile;
+		this.run = run;
+	}
+	
+	/**
+	 * Gets the name of a measurement for a single phase of the analysis
+	 * @param phase The phase of the analysis
+	 * @param measurement The measurement, e.g. the wall time
+	 * @return The name of the measurement for the given phase
+	 */
+	public static String phaseMeasurement(Phase phase, String measurement) {
+		return Character.toLowerCase(phase.name().charAt(0)) + phase.name().substring(1)
+				+ Character.toUpperCase(measurement.charAt(0)) + measurement.substring(1);
+	}
+	
+	/**
+	 * Records the time spent in the individual phases and the propagation
+	 * counts of the given performance data
+	 * @param data The performance data of the analysis
+	 */
+	public void setPerformanceData(InfoflowPerformanceData data) {
+		for (Map.Entry<Phase, PhaseData> entry : data.getPhases().entrySet()) {
+			PhaseData phaseData = entry.getValue();
+			setValue(phaseMeasurement(entry.getKey(), WALL_TIME), phaseData.getWallTime() / 1000000);
+			if (phaseData.getCpuTime() >= 0)
+				setValue(phaseMeasurement(entry.getKey(), CPU_TIME), phaseData.getCpuTime() / 1000000);
+			setValue(phaseMeasurement(entry.getKey(), GC_TIME), phaseData.getGcTime());
+		}
+		setValue(FORWARD_PROPAGATIONS, data.getForwardPropagationCount());
+		setValue(BACKWARD_PROPAGATIONS, data.getBackwardPropagationCount());
+	}
+	
+	/**
+	 * Stores the measurements in the given properties object, which is used to
+	 * pass them from the JVM that runs the analysis to the benchmark runner
+	 * @param properties The properties object to write to
+	 */
+	public void store(Properties properties) {
+		properties.setProperty("status", status.name());
+		for (Map.Entry<String, Long> entry : values.entrySet())
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+	}
+	
+	/**
+	 * Loads the measurements from the given properties object
+	 * @param properties The properties object to read from
+	 */
+	public void load(Properties properties) {
+		String statusName = properties.getProperty("status");
+		if (statusName != null)
+			status = Status.valueOf(statusName);
+		for (String measurement : MEASUREMENTS) {
+			String value = properties.getProperty(measurement);
+			if (value != null)
+				values.put(measurement, Long.valueOf(value));
+		}
+	}
+	
+	public String getSuite() {
+		return this.suite;
+	}
+	
+	public String getApp() {
+		return this.app;
+	}
+	
+	public ConfigurationProfile getProfile() {
+		return this.profile;
+	}
+	
+	public int getRun() {
+		return this.run;
+	}
+	
+	/**
+	 * Gets the key that identifies the app and the configuration of this run
+	 * independent of the run number
+	 * @return The key of this run
+	 */
+	public String getKey() {
+		return suite + "/" + app + " [" + profile + "]";
+	}
+	
+	public Status getStatus() {
+		return this.status;
+	}
+	
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+	
+	/**
+	 * Gets the value of a measurement
+	 * @param measurement The name of the measurement
+	 * @return The value of the measurement, or null if it has not been
+	 * recorded
+	 */
+	public Long getValue(String measurement) {
+		return values.get(measurement);
+	}
+	
+	public void setValue(String measurement, long value) {
+		values.put(measurement, value);
+	}
+	
+}
@@ -75,6 +75,8 @@ import soot.jimple.infoflow.ipc.IIPCManager;
 import soot.jimple.infoflow.memory.FlowDroidMemoryWatcher;
 import soot.jimple.infoflow.memory.FlowDroidTimeoutWatcher;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
+import soot.jimple.infoflow.results.InfoflowPerformanceData;
+import soot.jimple.infoflow.results.InfoflowPerformanceData.Phase;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.rifl.RIFLSourceSinkDefinitionProvider;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
@@ -120,6 +122,7 @@ public class SetupApplication {
 	private IIPCManager ipcManager = null;
 	
 	private long maxMemoryConsumption = -1;
+	private InfoflowPerformanceData performanceData = null;
 	
 	private Set<Stmt> collectedSources = null;
 	private Set<Stmt> collectedSinks = null;
@@ -1137,6 +1140,7 @@ public class SetupApplication {
 		this.collectedSources = config.getLogSourcesAndSinks() ? new HashSet<Stmt>() : null;
 		this.collectedSinks = config.getLogSourcesAndSinks() ? new HashSet<Stmt>() : null;
 		this.maxMemoryConsumption = 0;
+		this.performanceData = new InfoflowPerformanceData();
 		this.sourceSinkProvider = sourcesAndSinks;
 		this.dummyMainMethod = null;
 
@@ -1154,7 +1158,9 @@ public class SetupApplication {
 
         // Perform basic app parsing
         try {
+        	performanceData.startPhase(Phase.ResourceParsing);
 			parseAppResources();
+			performanceData.endPhase(Phase.ResourceParsing);
 		}
         catch (IOException | XmlPullParserException e) {
 			logger.error("Callgraph construction failed: " + e.getMessage());
@@ -1183,10 +1189,12 @@ public class SetupApplication {
 			
 	        // Perform basic app parsing
 	        try {
+	        	performanceData.startPhase(Phase.CallbackCollection);
 	        	if (config.getOneComponentAtATime())
 	        		calculateCallbacks(sourcesAndSinks, entrypoint);
 	        	else
 	        		calculateCallbacks(sourcesAndSinks);
+	        	performanceData.endPhase(Phase.CallbackCollection);
 			}
 	        catch (IOException | XmlPullParserException e) {
 				logger.error("Callgraph construction failed: " + e.getMessage());
@@ -1207,13 +1215,16 @@ public class SetupApplication {
 	        // analyze all components together, we do not need a new callgraph,
 	        // but can reuse the one from the callback collection phase.
 	        if (config.getOneComponentAtATime()) {
+	        	performanceData.startPhase(Phase.CallgraphConstruction);
 	        	createMainMethod(entrypoint);
 	        	constructCallgraphInternal();
+	        	performanceData.endPhase(Phase.CallgraphConstruction);
 	        }
 			info.runAnalysis(sourceSinkManager, dummyMainMethod);
 			
 			// Update the statistics
 			this.maxMemoryConsumption = Math.max(this.maxMemoryConsumption, info.getMaxMemoryConsumption());
+			this.performanceData.add(info.getPerformanceData());
 			if (config.getLogSourcesAndSinks() && info.getCollectedSources() != null)
 				this.collectedSources.addAll(info.getCollectedSources());
 			if (config.getLogSourcesAndSinks() && info.getCollectedSinks() != null)
@@ -1394,6 +1405,16 @@ public class SetupApplication {
 		return this.maxMemoryConsumption;
 	}
 	
+	/**
+	 * Gets the time spent in the individual phases of the last analysis run and the number of edges propagated by
+	 * the solvers. If the components have been analyzed one at a time, the values of all components are added up.
+	 * 
+	 * @return The performance data of the last analysis run, or null if no analysis has been run yet
+	 */
+	public InfoflowPerformanceData getPerformanceData() {
+		return this.performanceData;
+	}
+	
 	/**
 	 * Gets the data flow configuration
 	 * @return The current data flow configuration
@@ -431,6 +431,18 @@ public class Test {
 				config.setMaxThreadNum(Integer.valueOf(args[i+1]));
 				i += 2;
 			}
+			else if (args[i].equalsIgnoreCase("--forwardthreads")){
+				config.setForwardSolverThreads(Integer.valueOf(args[i+1]));
+				i += 2;
+			}
+			else if (args[i].equalsIgnoreCase("--aliasthreads")){
+				config.setAliasSolverThreads(Integer.valueOf(args[i+1]));
+				i += 2;
+			}
+			else if (args[i].equalsIgnoreCase("--paththreads")){
+				config.setPathReconstructionThreads(Integer.valueOf(args[i+1]));
+				i += 2;
+			}
 			else if (args[i].equalsIgnoreCase("--arraysizetainting")) {
 				config.setEnableArraySizeTainting(true);
 				i++;
@@ -618,6 +630,9 @@ public class Test {
 				config.getLogSourcesAndSinks() ? "--logsourcesandsinks" : "",
 				"--callbackanalyzer", callbackAlgorithmToString(config.getCallbackAnalyzer()),
 				"--maxthreadnum", Integer.toString(config.getMaxThreadNum()),
+				"--forwardthreads", Integer.toString(config.getForwardSolverThreads()),
+				"--aliasthreads", Integer.toString(config.getAliasSolverThreads()),
+				"--paththreads", Integer.toString(config.getPathReconstructionThreads()),
 				config.getEnableArraySizeTainting() ? "--arraysizetainting" : "",
 				config.getEnableArraySizeTainting() ? "--arraysizetainting" : "",
 				config.isIccEnabled() ? "--iccmodel " + config.getIccModel() : "",
@@ -952,6 +967,9 @@ public class Test {
 		System.out.println("\t--LOGSOURCESANDSINKS Print out concrete source/sink instances");
 		System.out.println("\t--CALLBACKANALYZER x Uses callback analysis algorithm x");
 		System.out.println("\t--MAXTHREADNUM x Sets the maximum number of threads to be used by the analysis to x");
+		System.out.println("\t--FORWARDTHREADS x Uses x threads for the forward data flow solver");
+		System.out.println("\t--ALIASTHREADS x Uses x threads for the backward alias solver");
+		System.out.println("\t--PATHTHREADS x Uses x threads for the path reconstruction");
 		System.out.println("\t--ONECOMPONENTATATIME Analyze one component at a time");
 		System.out.println("\t--ONESOURCEATATIME Analyze one source at a time");
 		System.out.println("\t--ALIASALGO x Use the aliasing algorithm x");
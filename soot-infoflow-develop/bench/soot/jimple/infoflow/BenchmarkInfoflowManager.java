@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow;
+
+import soot.Scene;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+
+/**
+ * Creates {@link InfoflowManager} objects for benchmarks that exercise single
+ * components without running a full data flow analysis. This class lives in
+ * the same package as the manager to have access to its constructor.
+ */
+public class BenchmarkInfoflowManager {
+	
+	/**
+	 * Creates a new data flow manager without solver, interprocedural CFG and
+	 * source/sink manager
+	 * @param config The configuration of the data flow analysis
+	 * @param taintWrapper The taint wrapper to register with the manager
+	 * @return The new data flow manager
+	 */
+	public static InfoflowManager create(InfoflowConfiguration config,
+			ITaintPropagationWrapper taintWrapper) {
+		return new InfoflowManager(config, null, null, null, taintWrapper,
+				Scene.v().getOrMakeFastHierarchy(), new AccessPathFactory(config));
+	}
+	
+}
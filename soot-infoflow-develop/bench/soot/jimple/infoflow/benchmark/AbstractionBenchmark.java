@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.Local;
+import soot.SootField;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+
+/**
+ * Measures the derivation of new abstractions from existing ones as it
+ * happens in every flow function of the taint propagation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class AbstractionBenchmark {
+	
+	private Stmt sourceStmt;
+	private Stmt currentStmt;
+	
+	private AccessPath sourcePath;
+	private AccessPath derivedPath;
+	
+	private Abstraction source;
+	private Abstraction derived;
+	private Abstraction equalDerived;
+	
+	@Setup
+	public void setup() {
+		BenchmarkScene.initialize();
+		AccessPathFactory factory = new AccessPathFactory(new InfoflowConfiguration());
+		
+		Local base = BenchmarkScene.newLocal("n", BenchmarkScene.NODE_CLASS);
+		Local copy = BenchmarkScene.newLocal("m", BenchmarkScene.NODE_CLASS);
+		sourceStmt = Jimple.v().newNopStmt();
+		currentStmt = Jimple.v().newAssignStmt(copy, base);
+		
+		sourcePath = factory.createAccessPath(base, new SootField[] {
+				BenchmarkScene.getNodeField("data") }, true);
+		derivedPath = factory.createAccessPath(copy, new SootField[] {
+				BenchmarkScene.getNodeField("data") }, true);
+		
+		source = new Abstraction(sourcePath, sourceStmt, null, false, false);
+		derived = source.deriveNewAbstraction(derivedPath, currentStmt);
+		equalDerived = source.deriveNewAbstraction(derivedPath, currentStmt);
+	}
+	
+	@Benchmark
+	public Abstraction deriveNew() {
+		return source.deriveNewAbstraction(derivedPath, currentStmt);
+	}
+	
+	/**
+	 * Derives an abstraction that is identical to the original one, which
+	 * must not create a new object
+	 */
+	@Benchmark
+	public Abstraction deriveIdentical() {
+		return source.deriveNewAbstraction(sourcePath, sourceStmt);
+	}
+	
+	@Benchmark
+	public Abstraction deriveImplicit() {
+		return source.deriveNewAbstraction(derivedPath, currentStmt, true);
+	}
+	
+	@Benchmark
+	public boolean equalsDerived() {
+		return derived.equals(equalDerived);
+	}
+	
+}
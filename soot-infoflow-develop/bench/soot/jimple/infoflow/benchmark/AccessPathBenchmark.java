@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.Local;
+import soot.SootField;
+import soot.Value;
+import soot.jimple.Jimple;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+
+/**
+ * Measures the creation of access paths through the {@link AccessPathFactory}
+ * and the equality checks on access paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class AccessPathBenchmark {
+	
+	private AccessPathFactory factory;
+	
+	private Local base;
+	private Local otherBase;
+	private Value fieldRef;
+	private SootField[] fields;
+	private SootField[] recursiveFields;
+	
+	private AccessPath path;
+	private AccessPath equalPath;
+	private AccessPath differentPath;
+	
+	@Setup
+	public void setup() {
+		BenchmarkScene.initialize();
+		factory = new AccessPathFactory(new InfoflowConfiguration());
+		
+		base = BenchmarkScene.newLocal("n", BenchmarkScene.NODE_CLASS);
+		otherBase = BenchmarkScene.newLocal("m", BenchmarkScene.NODE_CLASS);
+		
+		SootField next = BenchmarkScene.getNodeField("next");
+		SootField data = BenchmarkScene.getNodeField("data");
+		fieldRef = Jimple.v().newInstanceFieldRef(base, next.makeRef());
+		fields = new SootField[] { next, data };
+		recursiveFields = new SootField[] { next, next, next, data };
+		
+		path = factory.createAccessPath(base, fields, true);
+		equalPath = factory.createAccessPath(base, fields, true);
+		differentPath = factory.createAccessPath(otherBase, fields, true);
+	}
+	
+	@Benchmark
+	public AccessPath createLocal() {
+		return factory.createAccessPath(base, true);
+	}
+	
+	@Benchmark
+	public AccessPath createFieldRef() {
+		return factory.createAccessPath(fieldRef, true);
+	}
+	
+	@Benchmark
+	public AccessPath createWithFields() {
+		return factory.createAccessPath(base, fields, true);
+	}
+	
+	/**
+	 * Creates an access path with a repeated field, which triggers the
+	 * reduction of recursive access paths
+	 */
+	@Benchmark
+	public AccessPath createRecursive() {
+		return factory.createAccessPath(base, recursiveFields, true);
+	}
+	
+	@Benchmark
+	public boolean equalsEqual() {
+		return path.equals(equalPath);
+	}
+	
+	@Benchmark
+	public boolean equalsDifferent() {
+		return path.equals(differentPath);
+	}
+	
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.io.File;
+
+import soot.G;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.jimple.Jimple;
+import soot.options.Options;
+
+/**
+ * Sets up a minimal Soot scene for the micro benchmarks. The library classes
+ * are loaded from the rt.jar of the running JVM with signatures only. The
+ * benchmarks additionally work on a synthetic class with a few fields.
+ */
+public class BenchmarkScene {
+	
+	/**
+	 * The name of the synthetic class on which the benchmarks operate
+	 */
+	public static final String NODE_CLASS = "soot.jimple.infoflow.benchmark.Node";
+	
+	private static final String[] LIBRARY_CLASSES = new String[] {
+		"java.lang.String",
+		"java.lang.StringBuilder",
+		"java.util.ArrayList",
+		"java.util.HashMap",
+		"java.util.LinkedList" };
+	
+	/**
+	 * Resets Soot and loads the library classes the micro benchmarks need
+	 */
+	public static void initialize() {
+		G.reset();
+		Options.v().set_soot_classpath(System.getProperty("java.home")
+				+ File.separator + "lib" + File.separator + "rt.jar");
+		Options.v().set_allow_phantom_refs(true);
+		Options.v().set_whole_program(true);
+		for (String className : LIBRARY_CLASSES)
+			Scene.v().addBasicClass(className, SootClass.SIGNATURES);
+		Scene.v().loadNecessaryClasses();
+		
+		// Create the synthetic class with a recursive field, a string field
+		// and a collection field
+		SootClass nodeClass = new SootClass(NODE_CLASS, Modifier.PUBLIC);
+		nodeClass.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+		Scene.v().addClass(nodeClass);
+		nodeClass.setApplicationClass();
+		nodeClass.addField(new SootField("next", nodeClass.getType()));
+		nodeClass.addField(new SootField("data", RefType.v("java.lang.String")));
+		nodeClass.addField(new SootField("items", RefType.v("java.util.ArrayList")));
+	}
+	
+	/**
+	 * Gets the synthetic class on which the benchmarks operate
+	 * @return The synthetic benchmark class
+	 */
+	public static SootClass getNodeClass() {
+		return Scene.v().getSootClass(NODE_CLASS);
+	}
+	
+	/**
+	 * Gets a field of the synthetic benchmark class
+	 * @param name The name of the field
+	 * @return The field with the given name
+	 */
+	public static SootField getNodeField(String name) {
+		return getNodeClass().getFieldByName(name);
+	}
+	
+	/**
+	 * Creates a new local of the given type
+	 * @param name The name of the local
+	 * @param className The name of the class that is the type of the new local
+	 * @return The new local
+	 */
+	public static Local newLocal(String name, String className) {
+		return Jimple.v().newLocal(name, RefType.v(className));
+	}
+	
+}
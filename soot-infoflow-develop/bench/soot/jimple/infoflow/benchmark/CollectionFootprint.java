@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.Map;
+import java.util.Set;
+
+import soot.jimple.infoflow.collect.ConcurrentHashSet;
+import soot.jimple.infoflow.collect.ConcurrentIdentityHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashSet;
+import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+
+/**
+ * Measures the heap memory that the concurrent maps and sets need per
+ * instance and per entry. The keys are allocated up front and shared by all
+ * collections, so only the memory of the collections themselves is counted.
+ * The measurement is based on the used heap after garbage collection and is
+ * therefore only approximate. Run with a fixed heap size, e.g. -Xmx2g -Xms2g.
+ * 
+ * Usage: CollectionFootprint [entries,entries,...]
+ */
+public class CollectionFootprint {
+	
+	private static final String[] IMPLEMENTATIONS = { "MyConcurrentHashMap", "ConcurrentIdentityHashMap",
+			"ConcurrentOpenHashMap", "ConcurrentOpenHashMapIdentity", "ConcurrentHashSet", "ConcurrentOpenHashSet" };
+	
+	/**
+	 * The total number of entries to create per measurement
+	 */
+	private static final int TOTAL_ENTRIES = 1000000;
+	
+	public static void main(String[] args) throws InterruptedException {
+		String[] sizes = (args.length > 0 ? args[0] : "0,1,8,100,100000").split(",");
+		Integer[] keys = new Integer[TOTAL_ENTRIES];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = Integer.valueOf(i);
+		
+		System.out.println(String.format("%-30s %10s %16s %16s", "Collection", "Entries", "Bytes/collection",
+				"Bytes/entry"));
+		for (String implementation : IMPLEMENTATIONS)
+			for (String size : sizes) {
+				int entries = Integer.parseInt(size);
+				int instances = Math.max(100, TOTAL_ENTRIES / Math.max(entries, 1));
+				double bytes = measure(implementation, entries, instances, keys);
+				System.out.println(String.format("%-30s %10d %16.1f %16s", implementation, entries, bytes,
+						entries == 0 ? "-" : String.format("%.1f", bytes / entries)));
+			}
+	}
+	
+	private static double measure(String implementation, int entries, int instances, Integer[] keys)
+			throws InterruptedException {
+		Object[] collections = new Object[instances];
+		long before = usedMemory();
+		for (int i = 0; i < instances; i++)
+			collections[i] = create(implementation, entries, keys);
+		long after = usedMemory();
+		
+		// Keep the collections reachable until the measurement is done
+		if (collections[instances - 1] == null)
+			throw new RuntimeException("Collection was not created");
+		return (after - before) / (double) instances;
+	}
+	
+	private static Object create(String implementation, int entries, Integer[] keys) {
+		if (implementation.endsWith("Set")) {
+			Set<Integer> set = implementation.equals("ConcurrentHashSet")
+					? new ConcurrentHashSet<Integer>() : new ConcurrentOpenHashSet<Integer>();
+			for (int i = 0; i < entries; i++)
+				set.add(keys[i]);
+			return set;
+		}
+		
+		Map<Integer, Integer> map;
+		if (implementation.equals("MyConcurrentHashMap"))
+			map = new MyConcurrentHashMap<Integer, Integer>();
+		else if (implementation.equals("ConcurrentIdentityHashMap"))
+			map = new ConcurrentIdentityHashMap<Integer, Integer>();
+		else if (implementation.equals("ConcurrentOpenHashMap"))
+			map = new ConcurrentOpenHashMap<Integer, Integer>();
+		else if (implementation.equals("ConcurrentOpenHashMapIdentity"))
+			map = new ConcurrentOpenHashMap<Integer, Integer>(true);
+		else
+			throw new IllegalArgumentException("Unknown implementation " + implementation);
+		for (int i = 0; i < entries; i++)
+			map.put(keys[i], keys[i]);
+		return map;
+	}
+	
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
+import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+
+/**
+ * Compares the {@link ConcurrentOpenHashMap} to the
+ * {@link MyConcurrentHashMap} for lookups and putIfAbsent() calls on keys
+ * that are already present, which is the common case for the jump functions
+ * of the solvers, and for filling a new map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ConcurrentOpenHashMapBenchmark {
+	
+	@Param({ "MyConcurrentHashMap", "ConcurrentOpenHashMap", "ConcurrentOpenHashMapIdentity" })
+	public String implementation;
+	
+	@Param({ "1024", "65536" })
+	public int size;
+	
+	private ConcurrentMap<Integer, Integer> map;
+	private Integer[] keys;
+	
+	/**
+	 * The position of a thread in the key array
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		
+		private int index = 0;
+		
+		private int next(int size) {
+			index = (index + 1) & (size - 1);
+			return index;
+		}
+		
+	}
+	
+	@Setup
+	public void setup() {
+		if (Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("Size must be a power of two");
+		
+		keys = new Integer[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = Integer.valueOf(i * 31);
+		
+		// Access the keys in random order, the solvers do not look up their
+		// keys in hash order either
+		Collections.shuffle(Arrays.asList(keys), new Random(42));
+		map = fill();
+	}
+	
+	private ConcurrentMap<Integer, Integer> createMap() {
+		if (implementation.equals("MyConcurrentHashMap"))
+			return new MyConcurrentHashMap<Integer, Integer>();
+		if (implementation.equals("ConcurrentOpenHashMap"))
+			return new ConcurrentOpenHashMap<Integer, Integer>();
+		if (implementation.equals("ConcurrentOpenHashMapIdentity"))
+			return new ConcurrentOpenHashMap<Integer, Integer>(true);
+		throw new IllegalArgumentException("Unknown implementation " + implementation);
+	}
+	
+	@Benchmark
+	public Integer get(Cursor cursor) {
+		return map.get(keys[cursor.next(size)]);
+	}
+	
+	@Benchmark
+	public Integer existingKey(Cursor cursor) {
+		Integer key = keys[cursor.next(size)];
+		return map.putIfAbsent(key, key);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public Integer existingKeyContended(Cursor cursor) {
+		Integer key = keys[cursor.next(size)];
+		return map.putIfAbsent(key, key);
+	}
+	
+	/**
+	 * Creates a new map and adds all keys, including the cost of growing the
+	 * map
+	 */
+	@Benchmark
+	public ConcurrentMap<Integer, Integer> fill() {
+		ConcurrentMap<Integer, Integer> newMap = createMap();
+		for (Integer key : keys)
+			newMap.putIfAbsent(key, key);
+		return newMap;
+	}
+	
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.collect.ConcurrentHashSet;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashSet;
+
+/**
+ * Compares the {@link ConcurrentOpenHashSet} to the {@link ConcurrentHashSet}
+ * for adding elements that are already present, for lookups and for filling
+ * small sets, which is what the end summaries of the solvers do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ConcurrentOpenHashSetBenchmark {
+	
+	@Param({ "ConcurrentHashSet", "ConcurrentOpenHashSet" })
+	public String implementation;
+	
+	@Param({ "8", "1024" })
+	public int size;
+	
+	private Set<Integer> set;
+	private Integer[] elements;
+	private int index = 0;
+	
+	@Setup
+	public void setup() {
+		if (Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("Size must be a power of two");
+		
+		elements = new Integer[size];
+		for (int i = 0; i < size; i++)
+			elements[i] = Integer.valueOf(i * 31);
+		
+		// Access the keys in random order, the solvers do not look up their
+		// keys in hash order either
+		Collections.shuffle(Arrays.asList(elements), new Random(42));
+		set = fill();
+	}
+	
+	private Set<Integer> createSet() {
+		if (implementation.equals("ConcurrentHashSet"))
+			return new ConcurrentHashSet<Integer>();
+		if (implementation.equals("ConcurrentOpenHashSet"))
+			return new ConcurrentOpenHashSet<Integer>();
+		throw new IllegalArgumentException("Unknown implementation " + implementation);
+	}
+	
+	@Benchmark
+	public boolean contains() {
+		index = (index + 1) & (size - 1);
+		return set.contains(elements[index]);
+	}
+	
+	@Benchmark
+	public boolean existingElement() {
+		index = (index + 1) & (size - 1);
+		return set.add(elements[index]);
+	}
+	
+	/**
+	 * Creates a new set and adds all elements, including the cost of growing
+	 * the set
+	 */
+	@Benchmark
+	public Set<Integer> fill() {
+		Set<Integer> newSet = createSet();
+		for (Integer element : elements)
+			newSet.add(element);
+		return newSet;
+	}
+	
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.Local;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Value;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.BenchmarkInfoflowManager;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Measures the lookups the {@link EasyTaintWrapper} performs for every call
+ * to a library method. The wrapper is loaded from the default
+ * EasyTaintWrapperSource.txt file in the working directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class EasyTaintWrapperBenchmark {
+	
+	private EasyTaintWrapper wrapper;
+	
+	private Stmt listAddStmt;
+	private Stmt listGetStmt;
+	private Stmt appendStmt;
+	private Stmt unrelatedStmt;
+	
+	private AccessPath taintedString;
+	private AccessPath taintedList;
+	
+	@Setup
+	public void setup() throws IOException {
+		BenchmarkScene.initialize();
+		
+		InfoflowConfiguration config = new InfoflowConfiguration();
+		wrapper = new EasyTaintWrapper(new File("EasyTaintWrapperSource.txt"));
+		InfoflowManager manager = BenchmarkInfoflowManager.create(config, wrapper);
+		wrapper.initialize(manager);
+		
+		Local list = BenchmarkScene.newLocal("list", "java.util.ArrayList");
+		Local builder = BenchmarkScene.newLocal("sb", "java.lang.StringBuilder");
+		Local map = BenchmarkScene.newLocal("map", "java.util.HashMap");
+		Local string = BenchmarkScene.newLocal("s", "java.lang.String");
+		Local object = BenchmarkScene.newLocal("o", "java.lang.Object");
+		
+		// list.add(s)
+		listAddStmt = Jimple.v().newInvokeStmt(Jimple.v().newVirtualInvokeExpr(list,
+				method("<java.util.ArrayList: boolean add(java.lang.Object)>").makeRef(),
+				string));
+		
+		// o = list.get(0)
+		listGetStmt = Jimple.v().newAssignStmt(object, Jimple.v().newVirtualInvokeExpr(list,
+				method("<java.util.ArrayList: java.lang.Object get(int)>").makeRef(),
+				IntConstant.v(0)));
+		
+		// sb = sb.append(s)
+		appendStmt = Jimple.v().newAssignStmt(builder, Jimple.v().newVirtualInvokeExpr(builder,
+				method("<java.lang.StringBuilder: java.lang.StringBuilder append(java.lang.String)>").makeRef(),
+				string));
+		
+		// map.clear()
+		unrelatedStmt = Jimple.v().newInvokeStmt(Jimple.v().newVirtualInvokeExpr(map,
+				method("<java.util.HashMap: void clear()>").makeRef(),
+				Collections.<Value>emptyList()));
+		
+		taintedString = manager.getAccessPathFactory().createAccessPath(string, true);
+		taintedList = manager.getAccessPathFactory().createAccessPath(list, true);
+	}
+	
+	private static SootMethod method(String signature) {
+		return Scene.v().getMethod(signature);
+	}
+	
+	@Benchmark
+	public Set<AccessPath> taintArgumentIntoBase() {
+		return wrapper.getTaintsForMethodInternal(listAddStmt, taintedString);
+	}
+	
+	@Benchmark
+	public Set<AccessPath> taintBaseIntoResult() {
+		return wrapper.getTaintsForMethodInternal(listGetStmt, taintedList);
+	}
+	
+	@Benchmark
+	public Set<AccessPath> taintArgumentIntoResult() {
+		return wrapper.getTaintsForMethodInternal(appendStmt, taintedString);
+	}
+	
+	@Benchmark
+	public Set<AccessPath> unrelatedCall() {
+		return wrapper.getTaintsForMethodInternal(unrelatedStmt, taintedString);
+	}
+	
+	@Benchmark
+	public boolean isExclusive() {
+		return wrapper.isExclusiveInternal(listAddStmt, taintedString);
+	}
+	
+	@Benchmark
+	public boolean supportsCallee() {
+		return wrapper.supportsCallee(appendStmt);
+	}
+	
+}
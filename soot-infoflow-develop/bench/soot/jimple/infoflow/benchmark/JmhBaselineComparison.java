@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JMH results in reports/jmh-result.json against the baseline in
+ * bench/baseline/jmh-baseline.json. Benchmarks are matched by their name and
+ * parameters. A benchmark is reported as a regression if its score is worse
+ * than the baseline by more than the given threshold and the confidence
+ * intervals of both measurements do not overlap. Benchmarks whose error is
+ * larger than their score in either file are reported as too noisy to
+ * compare. Only the scores are read, so host specific fields such as the path
+ * of the JVM do not matter.
+ *
+ * Usage: JmhBaselineComparison result.json baseline.json [threshold]
+ *
+ * The threshold is the relative change that is still accepted, e.g. 0.1 for
+ * 10%. The program exits with status 1 if a regression was found.
+ */
+public class JmhBaselineComparison {
+	
+	/**
+	 * The score of a single benchmark in a JMH result file
+	 */
+	static class Score {
+		
+		final String mode;
+		final double score;
+		final double error;
+		final String unit;
+		
+		Score(String mode, double score, double error, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+		}
+		
+		/**
+		 * Checks whether a higher score is better for this benchmark, i.e.,
+		 * whether the score is a throughput
+		 * @return True if a higher score is better, false if a lower score
+		 * is better
+		 */
+		boolean higherIsBetter() {
+			return "thrpt".equals(mode);
+		}
+		
+		boolean isNoisy() {
+			return Double.isNaN(error) || error > score;
+		}
+		
+	}
+	
+	private final double threshold;
+	
+	/**
+	 * Creates a new comparison
+	 * @param threshold The relative change of a score against the baseline
+	 * that is still accepted, e.g. 0.1 for 10%
+	 */
+	public JmhBaselineComparison(double threshold) {
+		this.threshold = threshold;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: JmhBaselineComparison result.json baseline.json [threshold]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+		Map<String, Score> results = readResults(new File(args[0]));
+		Map<String, Score> baseline = readResults(new File(args[1]));
+		
+		JmhBaselineComparison comparison = new JmhBaselineComparison(threshold);
+		System.out.println(String.format("%-90s %14s %14s %8s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Map.Entry<String, Score> entry : results.entrySet()) {
+			Score base = baseline.get(entry.getKey());
+			Score current = entry.getValue();
+			System.out.println(String.format("%-90s %14s %14s %8s", entry.getKey(),
+					base == null ? "-" : String.format("%.3f", base.score),
+					String.format("%.3f", current.score),
+					base == null ? "-" : String.format("%+.1f%%", relativeChange(base, current) * 100)));
+		}
+		
+		List<String> regressions = comparison.compare(results, baseline);
+		for (String regression : regressions)
+			System.out.println(regression);
+		if (!regressions.isEmpty())
+			System.exit(1);
+	}
+	
+	/**
+	 * Compares the given results against the given baseline
+	 * @param results The current results, indexed by benchmark
+	 * @param baseline The baseline results, indexed by benchmark
+	 * @return A description of every regression and every benchmark that is
+	 * too noisy to compare. If there are none, an empty list is returned.
+	 */
+	public List<String> compare(Map<String, Score> results, Map<String, Score> baseline) {
+		List<String> regressions = new ArrayList<>();
+		for (Map.Entry<String, Score> entry : results.entrySet()) {
+			String key = entry.getKey();
+			Score base = baseline.get(key);
+			if (base == null)
+				continue;
+			
+			Score current = entry.getValue();
+			if (!base.mode.equals(current.mode) || !base.unit.equals(current.unit)) {
+				regressions.add(key + ": mode or unit differs from the baseline");
+				continue;
+			}
+			if (base.isNoisy() || current.isNoisy()) {
+				regressions.add(String.format("%s: too noisy to compare (baseline %.3f +- %.3f, current %.3f +- %.3f)",
+						key, base.score, base.error, current.score, current.error));
+				continue;
+			}
+			
+			double change = relativeChange(base, current);
+			boolean worse = base.higherIsBetter() ? change < -threshold : change > threshold;
+			boolean overlapping = current.score - current.error <= base.score + base.error
+					&& base.score - base.error <= current.score + current.error;
+			if (worse && !overlapping)
+				regressions.add(String.format("%s: %.3f +- %.3f %s -> %.3f +- %.3f %s (%+.1f%%)",
+						key, base.score, base.error, base.unit, current.score, current.error, current.unit,
+						change * 100));
+		}
+		return regressions;
+	}
+	
+	private static double relativeChange(Score base, Score current) {
+		return base.score == 0 ? 0 : (current.score - base.score) / base.score;
+	}
+	
+	/**
+	 * Reads the scores from a JMH result file in JSON format
+	 * @param file The file to read
+	 * @return The scores in the given file, indexed by the name of the
+	 * benchmark followed by its parameters
+	 * @throws IOException Thrown if the file could not be read or is not a
+	 * valid JMH result file
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Score> readResults(File file) throws IOException {
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		Object root = new JsonReader(json).read();
+		if (!(root instanceof List))
+			throw new IOException("Not a JMH result file: " + file);
+		
+		Map<String, Score> scores = new LinkedHashMap<>();
+		for (Object item : (List<Object>) root) {
+			Map<String, Object> run = (Map<String, Object>) item;
+			StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+			Map<String, Object> params = (Map<String, Object>) run.get("params");
+			if (params != null)
+				for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet())
+					key.append(":").append(param.getKey()).append("=").append(param.getValue());
+			
+			Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+			scores.put(key.toString(), new Score((String) run.get("mode"), toDouble(metric.get("score")),
+					toDouble(metric.get("scoreError")), (String) metric.get("scoreUnit")));
+		}
+		return scores;
+	}
+	
+	private static double toDouble(Object value) {
+		// JMH writes NaN as a string
+		if (value instanceof Number)
+			return ((Number) value).doubleValue();
+		return Double.NaN;
+	}
+	
+	/**
+	 * A minimal reader for the JSON files that JMH writes. Objects are
+	 * returned as maps, arrays as lists, and numbers as doubles.
+	 */
+	static class JsonReader {
+		
+		private final String json;
+		private int pos = 0;
+		
+		JsonReader(String json) {
+			this.json = json;
+		}
+		
+		Object read() throws IOException {
+			Object value = readValue();
+			skipWhitespace();
+			if (pos != json.length())
+				throw error("Trailing characters");
+			return value;
+		}
+		
+		private Object readValue() throws IOException {
+			skipWhitespace();
+			if (pos >= json.length())
+				throw error("Unexpected end of input");
+			char c = json.charAt(pos);
+			switch (c) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			default:
+				if (json.startsWith("true", pos)) {
+					pos += 4;
+					return Boolean.TRUE;
+				}
+				if (json.startsWith("false", pos)) {
+					pos += 5;
+					return Boolean.FALSE;
+				}
+				if (json.startsWith("null", pos)) {
+					pos += 4;
+					return null;
+				}
+				return readNumber();
+			}
+		}
+		
+		private Map<String, Object> readObject() throws IOException {
+			Map<String, Object> object = new LinkedHashMap<>();
+			pos++;
+			skipWhitespace();
+			if (consume('}'))
+				return object;
+			do {
+				skipWhitespace();
+				String name = readString();
+				skipWhitespace();
+				if (!consume(':'))
+					throw error("Expected ':'");
+				object.put(name, readValue());
+				skipWhitespace();
+			} while (consume(','));
+			if (!consume('}'))
+				throw error("Expected '}'");
+			return object;
+		}
+		
+		private List<Object> readArray() throws IOException {
+			List<Object> array = new ArrayList<>();
+			pos++;
+			skipWhitespace();
+			if (consume(']'))
+				return array;
+			do {
+				array.add(readValue());
+				skipWhitespace();
+			} while (consume(','));
+			if (!consume(']'))
+				throw error("Expected ']'");
+			return array;
+		}
+		
+		private String readString() throws IOException {
+			if (!consume('"'))
+				throw error("Expected '\"'");
+			StringBuilder sb = new StringBuilder();
+			while (pos < json.length()) {
+				char c = json.charAt(pos++);
+				if (c == '"')
+					return sb.toString();
+				if (c == '\\') {
+					if (pos >= json.length())
+						break;
+					char escaped = json.charAt(pos++);
+					switch (escaped) {
+					case 'n': sb.append('\n'); break;
+					case 'r': sb.append('\r'); break;
+					case 't': sb.append('\t'); break;
+					case 'b': sb.append('\b'); break;
+					case 'f': sb.append('\f'); break;
+					case 'u':
+						if (pos + 4 > json.length())
+							throw error("Invalid escape sequence");
+						sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+						pos += 4;
+						break;
+					default: sb.append(escaped);
+					}
+				}
+				else
+					sb.append(c);
+			}
+			throw error("Unterminated string");
+		}
+		
+		private Double readNumber() throws IOException {
+			int start = pos;
+			while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0)
+				pos++;
+			try {
+				return Double.valueOf(json.substring(start, pos));
+			}
+			catch (NumberFormatException ex) {
+				throw error("Invalid number");
+			}
+		}
+		
+		private boolean consume(char c) {
+			if (pos < json.length() && json.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+		
+		private void skipWhitespace() {
+			while (pos < json.length() && Character.isWhitespace(json.charAt(pos)))
+				pos++;
+		}
+		
+		private IOException error(String message) {
+			return new IOException(message + " at position " + pos);
+		}
+		
+	}
+	
+}
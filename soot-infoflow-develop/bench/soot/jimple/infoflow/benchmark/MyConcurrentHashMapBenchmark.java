@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+
+/**
+ * Measures {@link MyConcurrentHashMap#putIfAbsentElseGet(Object, Object)}
+ * for keys that are already present and for new keys, both with a single
+ * thread and with several threads accessing the same map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class MyConcurrentHashMapBenchmark {
+	
+	@Param({ "1024", "65536" })
+	public int size;
+	
+	private MyConcurrentHashMap<Integer, Integer> map;
+	private Integer[] keys;
+	private Integer[] missingKeys;
+	
+	/**
+	 * The position of a thread in the key arrays
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		
+		private int index = 0;
+		
+		private int next(int size) {
+			index = (index + 1) & (size - 1);
+			return index;
+		}
+		
+	}
+	
+	@Setup
+	public void setup() {
+		if (Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("Size must be a power of two");
+		
+		map = new MyConcurrentHashMap<Integer, Integer>();
+		keys = new Integer[size];
+		missingKeys = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = Integer.valueOf(i * 31);
+			missingKeys[i] = Integer.valueOf(-i * 31 - 1);
+			map.put(keys[i], keys[i]);
+		}
+	}
+	
+	@Benchmark
+	public Integer existingKey(Cursor cursor) {
+		Integer key = keys[cursor.next(size)];
+		return map.putIfAbsentElseGet(key, key);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public Integer existingKeyContended(Cursor cursor) {
+		Integer key = keys[cursor.next(size)];
+		return map.putIfAbsentElseGet(key, key);
+	}
+	
+	/**
+	 * Adds a key that is not yet in the map. The key is removed again
+	 * afterwards to keep the map size stable, so this includes the cost of
+	 * the removal.
+	 */
+	@Benchmark
+	public Integer newKey(Cursor cursor) {
+		Integer key = missingKeys[cursor.next(size)];
+		Integer value = map.putIfAbsentElseGet(key, key);
+		map.remove(key);
+		return value;
+	}
+	
+}
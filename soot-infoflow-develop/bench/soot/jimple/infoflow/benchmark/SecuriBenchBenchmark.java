@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.test.securibench.JUnitTests;
+
+/**
+ * Runs the complete data flow analysis on selected SecuriBench Micro test
+ * cases. Every invocation resets Soot and analyzes the test case from
+ * scratch, so the measured time includes the call graph construction. The
+ * benchmark must be run from the soot-infoflow directory with the compiled
+ * test classes in build/testclasses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 3, jvmArgs = { "-Xmx4g" })
+public class SecuriBenchBenchmark extends JUnitTests {
+	
+	/**
+	 * The test case to analyze, given as the name of the class relative to
+	 * the securibench.micro package
+	 */
+	@Param({ "basic.Basic1", "aliasing.Aliasing1", "collections.Collections1",
+		"datastructures.Datastructures1", "inter.Inter1", "session.Session1" })
+	public String testCase;
+	
+	@Setup
+	public void setupPaths() throws IOException {
+		setUp();
+		
+		// Only analyze the compiled test classes
+		appPath = new File("build" + File.separator + "testclasses").getCanonicalPath();
+	}
+	
+	@Setup(Level.Invocation)
+	public void resetSoot() throws IOException {
+		resetSootAndStream();
+	}
+	
+	@Benchmark
+	public int analyze() {
+		Infoflow infoflow = initInfoflow(Collections.singletonList("<securibench.micro."
+				+ testCase + ": void doGet(javax.servlet.http.HttpServletRequest,"
+				+ "javax.servlet.http.HttpServletResponse)>"));
+		infoflow.computeInfoflow(appPath, libPath, entryPointCreator, sources, sinks);
+		if (!infoflow.isResultAvailable())
+			throw new RuntimeException("No results for test case " + testCase);
+		return infoflow.getResults().size();
+	}
+	
+}
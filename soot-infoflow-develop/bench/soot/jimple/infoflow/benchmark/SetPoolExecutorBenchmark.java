@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmark;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
+
+/**
+ * Measures the submission of tasks to the {@link SetPoolExecutor} used by the
+ * IFDS solvers, including the time until all tasks have completed. Every
+ * invocation submits a batch of tasks, the reported times are per task. The
+ * executor is reset after every batch so that it accepts the next one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class SetPoolExecutorBenchmark {
+	
+	private static final int BATCH_SIZE = 1024;
+	
+	/**
+	 * The amount of work every task performs in JMH tokens
+	 */
+	private static final int TASK_WORK = 64;
+	
+	@Param({ "1", "4" })
+	public int threads;
+	
+	private SetPoolExecutor executor;
+	private Runnable[] tasks;
+	private Runnable sharedTask;
+	
+	@Setup
+	public void setup() {
+		executor = new SetPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		tasks = new Runnable[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++)
+			tasks[i] = new Task();
+		sharedTask = new Task();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void distinctTasks() throws InterruptedException {
+		for (Runnable task : tasks)
+			executor.execute(task);
+		executor.awaitCompletion();
+		executor.reset();
+	}
+	
+	/**
+	 * Submits the same task over and over again. The executor only enqueues
+	 * the task if it is not already waiting for execution.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void duplicateTasks() throws InterruptedException {
+		for (int i = 0; i < BATCH_SIZE; i++)
+			executor.execute(sharedTask);
+		executor.awaitCompletion();
+		executor.reset();
+	}
+	
+	private static class Task implements Runnable {
+		
+		@Override
+		public void run() {
+			Blackhole.consumeCPU(TASK_WORK);
+		}
+		
+	}
+	
+}
@@ -9,6 +9,15 @@
  ******************************************************************************/
 package soot.jimple.infoflow;
 
+import heros.FlowFunctionProfiler;
+import heros.FlowFunctionProfiler.Histogram;
+import heros.FlowFunctionProfiler.Kind;
+import heros.solver.IDESolver;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -16,10 +25,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,11 +54,14 @@ import soot.jimple.infoflow.aliasing.LazyAliasingStrategy;
 import soot.jimple.infoflow.aliasing.NullAliasStrategy;
 import soot.jimple.infoflow.aliasing.PtsBasedAliasStrategy;
 import soot.jimple.infoflow.cfg.BiDirICFGFactory;
+import soot.jimple.infoflow.cfg.DefaultBiDiICFGFactory;
 import soot.jimple.infoflow.codeOptimization.DeadCodeEliminator;
 import soot.jimple.infoflow.codeOptimization.ICodeOptimizer;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AbstractionPathCompactor;
 import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.data.AccountingMemoryManager;
 import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
 import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder;
@@ -56,13 +72,19 @@ import soot.jimple.infoflow.handlers.PostAnalysisHandler;
 import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
 import soot.jimple.infoflow.handlers.ResultsAvailableHandler2;
 import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.memory.DegradationPolicy;
 import soot.jimple.infoflow.memory.FlowDroidMemoryWatcher;
 import soot.jimple.infoflow.memory.FlowDroidTimeoutWatcher;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
+import soot.jimple.infoflow.problems.AbstractInfoflowProblem;
 import soot.jimple.infoflow.problems.BackwardsInfoflowProblem;
 import soot.jimple.infoflow.problems.InfoflowProblem;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.problems.TaintPropagationResults.OnTaintPropagationResultAdded;
+import soot.jimple.infoflow.problems.rules.NormalFlowMemoizer;
+import soot.jimple.infoflow.problems.rules.PropagationRuleManager;
+import soot.jimple.infoflow.results.InfoflowPerformanceData;
+import soot.jimple.infoflow.results.InfoflowPerformanceData.Phase;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.results.ResultSinkInfo;
 import soot.jimple.infoflow.results.ResultSourceInfo;
@@ -70,6 +92,8 @@ import soot.jimple.infoflow.solver.IInfoflowSolver;
 import soot.jimple.infoflow.solver.cfg.BackwardsInfoflowCFG;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
 import soot.jimple.infoflow.solver.cfg.InfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.MethodSummaries;
+import soot.jimple.infoflow.solver.executors.ExecutorGroup;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
 import soot.jimple.infoflow.solver.memory.DefaultMemoryManagerFactory;
@@ -99,6 +123,7 @@ public class Infoflow extends AbstractInfoflow {
     private IMemoryManagerFactory memoryManagerFactory = new DefaultMemoryManagerFactory();
 
     private long maxMemoryConsumption = -1;
+    private InfoflowPerformanceData performanceData = null;
     private FlowDroidMemoryWatcher memoryWatcher = null;
 
     private Set<Stmt> collectedSources = null;
@@ -230,6 +255,7 @@ public class Infoflow extends AbstractInfoflow {
 		try {
 		// Clear the data from previous runs
 		maxMemoryConsumption = -1;
+		performanceData = new InfoflowPerformanceData();
 		//results = null;
 		results = new InfoflowResults();
 
@@ -246,7 +272,9 @@ public class Infoflow extends AbstractInfoflow {
 		
 		// Build the callgraph
 		long beforeCallgraph = System.nanoTime();
+		performanceData.startPhase(Phase.CallgraphConstruction);
 		constructCallgraph();
+		performanceData.endPhase(Phase.CallgraphConstruction);
 		logger.info("Callgraph construction took " + (System.nanoTime() - beforeCallgraph) / 1E9
 				+ " seconds");
 
@@ -256,7 +284,9 @@ public class Infoflow extends AbstractInfoflow {
         // Perform constant propagation and remove dead code
         if (config.getCodeEliminationMode() != CodeEliminationMode.NoCodeElimination) {
 			long currentMillis = System.nanoTime();
+			performanceData.startPhase(Phase.CodeElimination);
 			eliminateDeadCode(sourcesSinks);
+			performanceData.endPhase(Phase.CodeElimination);
 			logger.info("Dead code elimination took " + (System.nanoTime() - currentMillis) / 1E9
 					+ " seconds");
         }
@@ -265,7 +295,9 @@ public class Infoflow extends AbstractInfoflow {
         // reflective method calls
         if (config.getEnableReflection()) {
         	releaseCallgraph();
+        	performanceData.startPhase(Phase.CallgraphConstruction);
         	constructCallgraph();
+        	performanceData.endPhase(Phase.CallgraphConstruction);
         }
 
         if (config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand)
@@ -275,6 +307,12 @@ public class Infoflow extends AbstractInfoflow {
 			return;
 		
 		logger.info("Starting Taint Analysis");
+		if (icfgFactory instanceof DefaultBiDiICFGFactory) {
+			((DefaultBiDiICFGFactory) icfgFactory).setPrecompute(config.getPrecomputeICFG()
+					&& config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand);
+			((DefaultBiDiICFGFactory) icfgFactory).setCompactCallGraph(config.getCompactCallGraph()
+					&& config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand);
+		}
         IInfoflowCFG iCfg = icfgFactory.buildBiDirICFG(config.getCallgraphAlgorithm(),
         		config.getEnableExceptionTracking());
         
@@ -295,19 +333,53 @@ public class Infoflow extends AbstractInfoflow {
         	if (oneSourceAtATime != null)
         		oneSourceAtATime.nextSource();
         	
-        	// Create the executor that takes care of the workers
-	        int numThreads = Runtime.getRuntime().availableProcessors();
-	        InterruptableExecutor executor = createExecutor(numThreads, true);
+        	// Create the executor that takes care of the workers. The alias
+        	// solver runs in its own executor in the same group, so that
+        	// both solvers only terminate once neither of them has work left.
+	        ExecutorGroup executorGroup = new ExecutorGroup();
+	        InterruptableExecutor executor = createExecutor("forward-solver",
+	        		config.getThreadNum(config.getForwardSolverThreads()), true);
+	        executor.setGroup(executorGroup);
+	        InterruptableExecutor resultExecutor = null;
 	
 			// Initialize the memory manager
 			IMemoryManager<Abstraction, Unit> memoryManager = createMemoryManager();
+			
+			// If requested, we sample the abstractions to find out how much
+			// memory their predecessor chains keep alive
+			AccountingMemoryManager accountingManager = null;
+			if (config.getMemoryAccountingInterval() > 0) {
+				accountingManager = new AccountingMemoryManager(memoryManager, iCfg,
+						config.getMemoryAccountingInterval());
+				memoryManager = accountingManager;
+				memoryWatcher.setAccountingManager(accountingManager);
+			}
+			
+			// If we shall not abort straight away when running out of time or
+			// memory, we need a policy for making the analysis cheaper
+			DegradationPolicy degradationPolicy = null;
+			if (!config.getDegradationSteps().isEmpty()) {
+				degradationPolicy = new DegradationPolicy(config, memoryManager);
+				memoryWatcher.setDegradationPolicy(degradationPolicy);
+			}
 	
 			// Initialize the data flow manager
 			manager = new InfoflowManager(config, null, iCfg, sourcesSinks,
 					taintWrapper, hierarchy, new AccessPathFactory(config));
+			
+			// The solvers query the side effects and static field uses of
+			// callees, so we summarize all methods bottom-up once instead of
+			// recursing per query. The summaries are kept across sources.
+			if (iCfg instanceof InfoflowCFG) {
+				MethodSummaries summaries = ((InfoflowCFG) iCfg).getMethodSummaries();
+				summaries.setSourceSinkManager(sourcesSinks, manager);
+				summaries.setTaintWrapper(taintWrapper);
+				if (config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand)
+					summaries.computeAll(config.getThreadNum(-1));
+			}
 
 			// Initialize the alias analysis
-			IAliasingStrategy aliasingStrategy = createAliasAnalysis(sourcesSinks, iCfg, executor, memoryManager);
+			IAliasingStrategy aliasingStrategy = createAliasAnalysis(sourcesSinks, iCfg, executorGroup, memoryManager);
 			
 			// Get the zero fact
 			Abstraction zeroValue = aliasingStrategy.getSolver() != null
@@ -321,6 +393,8 @@ public class Infoflow extends AbstractInfoflow {
 			// Initialize the data flow problem
 			InfoflowProblem forwardProblem  = new InfoflowProblem(manager,
 					aliasingStrategy, aliasing, zeroValue);
+			if (config.getFlowFunctionProfilingFile() != null)
+				forwardProblem.setFlowFunctionProfiling(FlowFunctionProfiler.DEFAULT_SAMPLE_INTERVAL);
 	
 			// We need to create the right data flow solver
 			IInfoflowSolver forwardSolver = createForwardSolver(executor, forwardProblem);
@@ -352,6 +426,9 @@ public class Infoflow extends AbstractInfoflow {
 				timeoutWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
 				if (aliasingStrategy.getSolver() != null)
 					timeoutWatcher.addSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
+				if (degradationPolicy != null)
+					timeoutWatcher.setDegradationPolicy(degradationPolicy,
+							config.getDegradationGracePeriod());
 				timeoutWatcher.start();
 			}
 			
@@ -404,7 +481,8 @@ public class Infoflow extends AbstractInfoflow {
 				
 				// Register the handler for interim results
 				TaintPropagationResults propagationResults = forwardProblem.getResults();
-				final InterruptableExecutor resultExecutor = createExecutor(numThreads, false);
+				resultExecutor = createExecutor("path-reconstruction",
+						config.getThreadNum(config.getPathReconstructionThreads()), false);
 				final IAbstractionPathBuilder builder = pathBuilderFactory.createPathBuilder(
 						config, resultExecutor, iCfg);
 				
@@ -413,6 +491,7 @@ public class Infoflow extends AbstractInfoflow {
 				if (config.getIncrementalResultReporting())
 					initializeIncrementalResultReporting(propagationResults, builder);
 				
+				performanceData.startPhase(Phase.TaintPropagation);
 				forwardSolver.solve();
 				maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
 				
@@ -435,6 +514,12 @@ public class Infoflow extends AbstractInfoflow {
 				}
 				if (executor.getActiveCount() != 0 || !executor.isTerminated())
 					logger.error("Executor did not terminate gracefully");
+				executorGroup.shutdown();
+				for (InterruptableExecutor groupExecutor : executorGroup.getExecutors())
+					logger.info("Executor statistics for {}", groupExecutor);
+				performanceData.endPhase(Phase.TaintPropagation);
+				performanceData.addPropagationCounts(forwardSolver.getPropagationCount(),
+						aliasingStrategy.getSolver() == null ? 0 : aliasingStrategy.getSolver().getPropagationCount());
 				
 				// Print taint wrapper statistics
 				if (taintWrapper != null) {
@@ -442,6 +527,27 @@ public class Infoflow extends AbstractInfoflow {
 					logger.info("Taint wrapper misses: " + taintWrapper.getWrapperMisses());
 				}
 				
+				// Print the flow function cache statistics
+				logFlowFunctionCacheStats("forward solver", forwardSolver);
+				if (aliasingStrategy.getSolver() != null)
+					logFlowFunctionCacheStats("alias solver", aliasingStrategy.getSolver());
+				
+				// Print the statistics of the propagation rules
+				PropagationRuleManager propagationRules = forwardProblem.getPropagationRules();
+				logger.info("Propagation rules: {} invocations, {} skipped",
+						propagationRules.getRuleInvocationCount(),
+						propagationRules.getSkippedRuleInvocationCount());
+				
+				// Print the statistics of the rule memoization
+				NormalFlowMemoizer normalFlowMemoizer = propagationRules.getNormalFlowMemoizer();
+				if (normalFlowMemoizer != null)
+					logger.info("Normal flow rule memoization: {}", normalFlowMemoizer);
+				
+				// Write the flow function profile
+				if (config.getFlowFunctionProfilingFile() != null)
+					writeFlowFunctionProfile(forwardProblem, aliasingStrategy.getSolver() == null ? null
+							: aliasingStrategy.getSolver().getTabulationProblem());
+				
 				// Get the result abstractions
 				Set<AbstractionAtSink> res = propagationResults.getResults();
 				propagationResults = null;
@@ -462,9 +568,23 @@ public class Infoflow extends AbstractInfoflow {
 				// results set, the other abstractions can be killed now.
 				maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
 				logger.info("Current memory consumption: " + (getUsedMemory() / 1000 / 1000) + " MB");
+				if (accountingManager != null) {
+					memoryWatcher.setAccountingManager(null);
+					logger.info("Abstraction memory accounting:\n{}", accountingManager.getReport());
+				}
 
 				if (timeoutWatcher != null)
 					timeoutWatcher.stop();
+				
+				// Record the precision we have traded for finishing the data
+				// flow analysis. The path reconstruction is not degraded.
+				if (degradationPolicy != null) {
+					memoryWatcher.setDegradationPolicy(null);
+					degradationPolicy.restore();
+					for (String step : degradationPolicy.getAppliedSteps())
+						results.addDegradationStep(step);
+				}
+				
 				memoryWatcher.removeSolver((IMemoryBoundedSolver) forwardSolver);
 				forwardSolver.cleanup();
 				forwardSolver = null;
@@ -477,6 +597,16 @@ public class Infoflow extends AbstractInfoflow {
 				aliasingStrategy.cleanup();
 				aliasingStrategy = null;
 				
+				// Collapse the predecessor chains, so that the intermediate
+				// abstractions become garbage together with the solvers
+				if (config.getCompactPaths() && !config.getIncrementalResultReporting()
+						&& res != null) {
+					AbstractionPathCompactor compactor = new AbstractionPathCompactor();
+					compactor.compact(res);
+					logger.info("Compacted taint paths into {} segments, replacing {} abstractions",
+							compactor.getSegmentCount(), compactor.getReplacedAbstractionCount());
+				}
+				
 				if (config.getIncrementalResultReporting())
 					res = null;
 				iCfg.purge();
@@ -486,6 +616,7 @@ public class Infoflow extends AbstractInfoflow {
 				logger.info("Memory consumption after cleanup: " + (getUsedMemory() / 1000 / 1000) + " MB");
 				
 				// Apply the timeout to path reconstruction
+				performanceData.startPhase(Phase.PathReconstruction);
 				if (config.getPathReconstructionTimeout() > 0) {
 					pathTimeoutWatcher = new FlowDroidTimeoutWatcher(
 							config.getPathReconstructionTimeout(), results);
@@ -526,6 +657,8 @@ public class Infoflow extends AbstractInfoflow {
 			   			this.results.addAll(builder.getResults());
 				}
 				resultExecutor.shutdown();
+				logger.info("Executor statistics for {}", resultExecutor);
+				performanceData.endPhase(Phase.PathReconstruction);
 				
 				// If the path builder was aborted, we warn the user
 				if (builder.isKilled())
@@ -538,6 +671,14 @@ public class Infoflow extends AbstractInfoflow {
 					timeoutWatcher.stop();
 				if (pathTimeoutWatcher != null)
 					pathTimeoutWatcher.stop();
+				if (degradationPolicy != null)
+					degradationPolicy.restore();
+				
+				// The worker threads have been started eagerly, so we need
+				// to stop them even if we have aborted the analysis early
+				executorGroup.shutdown();
+				if (resultExecutor != null)
+					resultExecutor.shutdown();
 				
 				// Do we have any more sources?
 				hasMoreSources = oneSourceAtATime != null
@@ -588,6 +729,7 @@ public class Infoflow extends AbstractInfoflow {
 			PackManager.v().writeOutput();
 
 		maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
+		performanceData.updateMaxMemoryConsumption(maxMemoryConsumption);
 		System.out.println("Maximum memory consumption: " + maxMemoryConsumption / 1E6 + " MB");
 		}
 		catch (Exception ex){
@@ -676,11 +818,73 @@ public class Infoflow extends AbstractInfoflow {
 		}
 	}
 
+	/**
+	 * Creates the builder for the flow function caches of the data flow
+	 * solvers
+	 * @return The cache builder, or null if flow functions shall not be
+	 * cached
+	 */
+	private CacheBuilder<Object, Object> createFlowFunctionCacheBuilder() {
+		if (config.getFlowFunctionCacheSize() <= 0)
+			return null;
+		return IDESolver.functionCacheBuilder(config.getFlowFunctionCacheSize());
+	}
+	
+	/**
+	 * Logs the statistics of the flow function caches of the given solver
+	 * @param name The name of the solver to use in the log message
+	 * @param solver The solver whose cache statistics to log
+	 */
+	private void logFlowFunctionCacheStats(String name, IInfoflowSolver solver) {
+		CacheStats stats = solver.getFlowFunctionCacheStats();
+		if (stats == null || stats.requestCount() == 0)
+			return;
+		logger.info(String.format("Flow function cache of %s: %d requests, %.1f%% hits, %d evictions",
+				name, stats.requestCount(), stats.hitRate() * 100, stats.evictionCount()));
+	}
+	
+	/**
+	 * Writes the flow function profiles of the given problems to the file
+	 * configured in the data flow configuration
+	 * @param forwardProblem The forward data flow problem
+	 * @param backwardProblem The backward data flow problem for the alias
+	 * analysis, or null if there is none
+	 */
+	private void writeFlowFunctionProfile(AbstractInfoflowProblem forwardProblem,
+			AbstractInfoflowProblem backwardProblem) {
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(config.getFlowFunctionProfilingFile()));
+			FlowFunctionProfiler<Unit, Abstraction, SootMethod> profiler = forwardProblem.getFlowFunctionProfiler();
+			if (profiler != null) {
+				profiler.writeFoldedStacks(writer, "forward");
+				for (Entry<Kind, Histogram> entry : profiler.getHistogramsByKind().entrySet())
+					logger.info("Forward {} flow functions: {}", entry.getKey(), entry.getValue());
+			}
+			if (backwardProblem != null && backwardProblem.getFlowFunctionProfiler() != null)
+				backwardProblem.getFlowFunctionProfiler().writeFoldedStacks(writer, "backward");
+			logger.info("Flow function profile written to {}", config.getFlowFunctionProfilingFile());
+		}
+		catch (IOException ex) {
+			logger.error("Could not write flow function profile", ex);
+		}
+		finally {
+			if (writer != null)
+				try {
+					writer.close();
+				}
+				catch (IOException ex) {
+					logger.error("Could not close flow function profile", ex);
+				}
+		}
+	}
+	
 	/**
 	 * Initializes the alias analysis
 	 * @param sourcesSinks The set of sources and sinks
 	 * @param iCfg The interprocedural control flow graph
-	 * @param executor The executor in which to run concurrent tasks
+	 * @param executorGroup The group to which to add the executor of the alias
+	 * solver
 	 * @param memoryManager The memory manager for rducing the memory load
 	 * during IFDS propagation
 	 * @return The alias analysis implementation to use for the data flow
@@ -688,7 +892,7 @@ public class Infoflow extends AbstractInfoflow {
 	 */
 	@SuppressWarnings("deprecation")
 	private IAliasingStrategy createAliasAnalysis(final ISourceSinkManager sourcesSinks, IInfoflowCFG iCfg,
-			InterruptableExecutor executor, IMemoryManager<Abstraction, Unit> memoryManager) {
+			ExecutorGroup executorGroup, IMemoryManager<Abstraction, Unit> memoryManager) {
 		IAliasingStrategy aliasingStrategy;
 		IInfoflowSolver backSolver = null;
 		BackwardsInfoflowProblem backProblem = null;
@@ -696,20 +900,33 @@ public class Infoflow extends AbstractInfoflow {
 		switch (getConfig().getAliasingAlgorithm()) {
 			case FlowSensitive:
 				backwardsManager = new InfoflowManager(config, null,
-						new BackwardsInfoflowCFG(iCfg), sourcesSinks,
+						new BackwardsInfoflowCFG(iCfg, config.getPrecomputeICFG()
+								&& config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand),
+						sourcesSinks,
 						taintWrapper, hierarchy, manager.getAccessPathFactory());
 				backProblem = new BackwardsInfoflowProblem(backwardsManager);
+				if (config.getFlowFunctionProfilingFile() != null)
+					backProblem.setFlowFunctionProfiling(FlowFunctionProfiler.DEFAULT_SAMPLE_INTERVAL);
+				
+				// The alias solver gets its own threads, but must terminate
+				// together with the forward solver
+				InterruptableExecutor executor = createExecutor("alias-solver",
+						config.getThreadNum(config.getAliasSolverThreads()), true);
+				executor.setGroup(executorGroup);
 				
 				// We need to create the right data flow solver
 				switch (config.getDataFlowSolver()) {
 				case Heros:
-					backSolver = new soot.jimple.infoflow.solver.heros.InfoflowSolver(backProblem, executor);
+					backSolver = new soot.jimple.infoflow.solver.heros.InfoflowSolver(backProblem, executor,
+							createFlowFunctionCacheBuilder());
 					break;
 				case ContextFlowSensitive:
-					backSolver = new soot.jimple.infoflow.solver.fastSolver.InfoflowSolver(backProblem, executor);
+					backSolver = new soot.jimple.infoflow.solver.fastSolver.InfoflowSolver(backProblem, executor,
+							createFlowFunctionCacheBuilder());
 					break;
 				case FlowInsensitive:
-					backSolver = new soot.jimple.infoflow.solver.fastSolver.flowInsensitive.InfoflowSolver(backProblem, executor);
+					backSolver = new soot.jimple.infoflow.solver.fastSolver.flowInsensitive.InfoflowSolver(backProblem, executor,
+							createFlowFunctionCacheBuilder());
 					break;
 				default:
 						throw new RuntimeException("Unsupported data flow solver");
@@ -742,7 +959,8 @@ public class Infoflow extends AbstractInfoflow {
 			case Lazy:
 				backProblem = null;
 				backSolver = null;
-				aliasingStrategy = new LazyAliasingStrategy(manager);
+				aliasingStrategy = new LazyAliasingStrategy(manager, config.getAliasQueryCacheSize(),
+						config.getAliasRefinementBudget());
 				break;
 			default:
 				throw new RuntimeException("Unsupported aliasing algorithm");
@@ -781,15 +999,18 @@ public class Infoflow extends AbstractInfoflow {
 		switch (config.getDataFlowSolver()) {
 		case Heros:
 			logger.info("Using legacy Heros-based data flow solver");
-			forwardSolver = new soot.jimple.infoflow.solver.heros.InfoflowSolver(forwardProblem, executor);
+			forwardSolver = new soot.jimple.infoflow.solver.heros.InfoflowSolver(forwardProblem, executor,
+							createFlowFunctionCacheBuilder());
 			break;
 		case ContextFlowSensitive:
 			logger.info("Using context- and flow-sensitive solver");
-			forwardSolver = new soot.jimple.infoflow.solver.fastSolver.InfoflowSolver(forwardProblem, executor);
+			forwardSolver = new soot.jimple.infoflow.solver.fastSolver.InfoflowSolver(forwardProblem, executor,
+							createFlowFunctionCacheBuilder());
 			break;
 		case FlowInsensitive:
 			logger.info("Using context-sensitive, but flow-insensitive solver");
-			forwardSolver = new soot.jimple.infoflow.solver.fastSolver.flowInsensitive.InfoflowSolver(forwardProblem, executor);
+			forwardSolver = new soot.jimple.infoflow.solver.fastSolver.flowInsensitive.InfoflowSolver(forwardProblem, executor,
+							createFlowFunctionCacheBuilder());
 			break;
 		default:
 				throw new RuntimeException("Unsupported data flow solver");
@@ -827,25 +1048,28 @@ public class Infoflow extends AbstractInfoflow {
 	}
 
 	/**
-	 * Creates a new executor object for spawning worker threads
+	 * Creates a new executor object for spawning worker threads. All threads
+	 * are started immediately and are kept alive until the executor is shut
+	 * down.
+	 * @param name The name of the executor, used for its worker threads
 	 * @param numThreads The number of threads to use
 	 * @param allowSetSemantics True if the executor shall have thread semantics,
 	 * i.e., never schedule the same task twice
 	 * @return The generated executor
 	 */
-	private InterruptableExecutor createExecutor(int numThreads, boolean allowSetSemantics) {
+	private InterruptableExecutor createExecutor(String name, int numThreads, boolean allowSetSemantics) {
+		InterruptableExecutor executor;
 		if (allowSetSemantics) {
-			return new SetPoolExecutor(config.getMaxThreadNum() == -1 ? numThreads
-						: Math.min(config.getMaxThreadNum(), numThreads),
-					Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+			executor = new SetPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
 					new LinkedBlockingQueue<Runnable>());
 		}
 		else {
-			return new InterruptableExecutor(config.getMaxThreadNum() == -1 ? numThreads
-					: Math.min(config.getMaxThreadNum(), numThreads),
-				Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+			executor = new InterruptableExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
 				new LinkedBlockingQueue<Runnable>());
 		}
+		executor.setName(name);
+		executor.prestartAllCoreThreads();
+		return executor;
 	}
 	
 	private Collection<SootMethod> getMethodsForSeeds(IInfoflowCFG icfg) {
@@ -1011,6 +1235,16 @@ public class Infoflow extends AbstractInfoflow {
 		return this.maxMemoryConsumption;
 	}
 
+	/**
+	 * Gets the time spent in the individual phases of the last analysis run
+	 * and the number of edges propagated by the solvers
+	 * @return The performance data of the last analysis run, or null if no
+	 * analysis has been run yet
+	 */
+	public InfoflowPerformanceData getPerformanceData() {
+		return this.performanceData;
+	}
+
 	/**
 	 * Gets the concrete set of sources that have been collected in preparation
 	 * for the taint analysis. This method will return null if source and sink
@@ -1,5 +1,10 @@
 package soot.jimple.infoflow;
 
+import heros.solver.IDESolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,6 +99,29 @@ public class InfoflowConfiguration {
 		FlowInsensitive
 	}
 	
+	/**
+	 * Enumeration containing the steps by which the data flow analysis can
+	 * trade precision for finishing when it runs into its timeout or memory
+	 * limit
+	 */
+	public enum DegradationStep {
+		/**
+		 * Halve the maximum access path length for all taints created from
+		 * now on
+		 */
+		ReduceAccessPathLength,
+		/**
+		 * Erase all path tracking data from new abstractions. Sources and
+		 * sinks are still reported, but the paths between them can no longer
+		 * be reconstructed completely.
+		 */
+		ErasePathData,
+		/**
+		 * Stop creating new implicit taints
+		 */
+		DisableImplicitFlows
+	}
+	
 	private int accessPathLength = 5;
 	private boolean useRecursiveAccessPaths = true;
 	private boolean useThisChainReduction = true;
@@ -112,6 +140,9 @@ public class InfoflowConfiguration {
 	private boolean ignoreFlowsInSystemPackages = false;
 	private boolean excludeSootLibraryClasses = false;
 	private int maxThreadNum = -1;
+	private int forwardSolverThreads = -1;
+	private int aliasSolverThreads = -1;
+	private int pathReconstructionThreads = -1;
 	private boolean writeOutputFiles = false;
 	private boolean logSourcesAndSinks = false;
 	private boolean enableReflection = false;
@@ -131,14 +162,25 @@ public class InfoflowConfiguration {
 	
 	private CallgraphAlgorithm callgraphAlgorithm = CallgraphAlgorithm.AutomaticSelection;
 	private AliasingAlgorithm aliasingAlgorithm = AliasingAlgorithm.FlowSensitive;
+	private int aliasQueryCacheSize = 100000;
+	private int aliasRefinementBudget = 0;
 	private CodeEliminationMode codeEliminationMode = CodeEliminationMode.PropagateConstants;
 	private DataFlowSolver dataFlowSolver = DataFlowSolver.ContextFlowSensitive;
 
 	private boolean taintAnalysisEnabled = true;
 	private boolean incrementalResultReporting = false;
 	private long dataFlowTimeout = 0;
+	private List<DegradationStep> degradationSteps = new ArrayList<>();
+	private long degradationGracePeriod = 60;
+	private int memoryAccountingInterval = 0;
+	private boolean compactPaths = false;
+	private int normalFlowMemoizationCacheSize = 0;
 	private long pathReconstructionTimeout = 0;
 	private boolean oneSourceAtATime = false;
+	private boolean precomputeICFG = false;
+	private boolean compactCallGraph = false;
+	private String flowFunctionProfilingFile = null;
+	private long flowFunctionCacheSize = IDESolver.DEFAULT_FUNCTION_CACHE_SIZE;
 	
 	/**
 	 * Merges the given configuration options into this configuration object
@@ -160,6 +202,9 @@ public class InfoflowConfiguration {
 		this.ignoreFlowsInSystemPackages = config.ignoreFlowsInSystemPackages;
 		this.excludeSootLibraryClasses = config.excludeSootLibraryClasses;
 		this.maxThreadNum = config.maxThreadNum;
+		this.forwardSolverThreads = config.forwardSolverThreads;
+		this.aliasSolverThreads = config.aliasSolverThreads;
+		this.pathReconstructionThreads = config.pathReconstructionThreads;
 		this.writeOutputFiles = config.writeOutputFiles;
 		this.logSourcesAndSinks = config.logSourcesAndSinks;
 		this.enableReflection = config.enableReflection;
@@ -167,6 +212,8 @@ public class InfoflowConfiguration {
 		
 		this.callgraphAlgorithm = config.callgraphAlgorithm;
 		this.aliasingAlgorithm = config.aliasingAlgorithm;
+		this.aliasQueryCacheSize = config.aliasQueryCacheSize;
+		this.aliasRefinementBudget = config.aliasRefinementBudget;
 		this.codeEliminationMode = config.codeEliminationMode;		
 		
 		this.inspectSources = config.inspectSources;
@@ -185,8 +232,17 @@ public class InfoflowConfiguration {
 		this.taintAnalysisEnabled = config.writeOutputFiles;
 		this.incrementalResultReporting = config.incrementalResultReporting;
 		this.dataFlowTimeout = config.dataFlowTimeout;
+		this.degradationSteps = new ArrayList<>(config.degradationSteps);
+		this.degradationGracePeriod = config.degradationGracePeriod;
+		this.memoryAccountingInterval = config.memoryAccountingInterval;
+		this.compactPaths = config.compactPaths;
+		this.normalFlowMemoizationCacheSize = config.normalFlowMemoizationCacheSize;
 		this.pathReconstructionTimeout = config.pathReconstructionTimeout;
 		this.oneSourceAtATime = config.oneSourceAtATime;
+		this.precomputeICFG = config.precomputeICFG;
+		this.compactCallGraph = config.compactCallGraph;
+		this.flowFunctionProfilingFile = config.flowFunctionProfilingFile;
+		this.flowFunctionCacheSize = config.flowFunctionCacheSize;
 	}
 	
 	/**
@@ -517,6 +573,46 @@ public class InfoflowConfiguration {
 		return aliasingAlgorithm;
 	}
 	
+	/**
+	 * Sets the maximum number of alias queries whose results are cached by
+	 * the lazy aliasing strategy
+	 * @param aliasQueryCacheSize The maximum number of cached alias queries
+	 */
+	public void setAliasQueryCacheSize(int aliasQueryCacheSize) {
+		this.aliasQueryCacheSize = aliasQueryCacheSize;
+	}
+	
+	/**
+	 * Gets the maximum number of alias queries whose results are cached by
+	 * the lazy aliasing strategy
+	 * @return The maximum number of cached alias queries
+	 */
+	public int getAliasQueryCacheSize() {
+		return this.aliasQueryCacheSize;
+	}
+	
+	/**
+	 * Sets the budget for refining alias queries of the lazy aliasing strategy
+	 * with a demand-driven, context-sensitive points-to analysis. If the
+	 * budget is exceeded for a query, the result of the context-insensitive
+	 * analysis is used.
+	 * @param aliasRefinementBudget The maximum number of nodes traversed per
+	 * query, or 0 to disable the refinement
+	 */
+	public void setAliasRefinementBudget(int aliasRefinementBudget) {
+		this.aliasRefinementBudget = aliasRefinementBudget;
+	}
+	
+	/**
+	 * Gets the budget for refining alias queries of the lazy aliasing strategy
+	 * with a demand-driven, context-sensitive points-to analysis
+	 * @return The maximum number of nodes traversed per query, or 0 if the
+	 * refinement is disabled
+	 */
+	public int getAliasRefinementBudget() {
+		return this.aliasRefinementBudget;
+	}
+	
 	/**
 	 * Sets whether type checking shall be done on casts and method calls
 	 * @param enableTypeChecking True if type checking shall be performed,
@@ -598,6 +694,82 @@ public class InfoflowConfiguration {
 		return this.maxThreadNum;
 	}
 	
+	/**
+	 * Sets the number of threads used by the forward data flow solver. The
+	 * threads are started before the solver runs and are not shared with any
+	 * other phase of the analysis.
+	 * @param forwardSolverThreads The number of threads for the forward solver,
+	 * or -1 to use the maximum number of threads
+	 */
+	public void setForwardSolverThreads(int forwardSolverThreads) {
+		this.forwardSolverThreads = forwardSolverThreads;
+	}
+	
+	/**
+	 * Gets the number of threads used by the forward data flow solver
+	 * @return The number of threads for the forward solver, or -1 to use the
+	 * maximum number of threads
+	 */
+	public int getForwardSolverThreads() {
+		return this.forwardSolverThreads;
+	}
+	
+	/**
+	 * Sets the number of threads used by the backward alias solver. The
+	 * threads are started before the solver runs and are not shared with any
+	 * other phase of the analysis.
+	 * @param aliasSolverThreads The number of threads for the alias solver, or
+	 * -1 to use the maximum number of threads
+	 */
+	public void setAliasSolverThreads(int aliasSolverThreads) {
+		this.aliasSolverThreads = aliasSolverThreads;
+	}
+	
+	/**
+	 * Gets the number of threads used by the backward alias solver
+	 * @return The number of threads for the alias solver, or -1 to use the
+	 * maximum number of threads
+	 */
+	public int getAliasSolverThreads() {
+		return this.aliasSolverThreads;
+	}
+	
+	/**
+	 * Sets the number of threads used for reconstructing the paths between
+	 * sources and sinks
+	 * @param pathReconstructionThreads The number of threads for the path
+	 * builder, or -1 to use the maximum number of threads
+	 */
+	public void setPathReconstructionThreads(int pathReconstructionThreads) {
+		this.pathReconstructionThreads = pathReconstructionThreads;
+	}
+	
+	/**
+	 * Gets the number of threads used for reconstructing the paths between
+	 * sources and sinks
+	 * @return The number of threads for the path builder, or -1 to use the
+	 * maximum number of threads
+	 */
+	public int getPathReconstructionThreads() {
+		return this.pathReconstructionThreads;
+	}
+	
+	/**
+	 * Gets the number of threads to use for a phase of the analysis. Explicit
+	 * thread budgets take precedence, otherwise there will be as many threads as
+	 * there are CPU cores on the machine, but no more than the maximum number
+	 * of threads.
+	 * @param phaseThreads The number of threads configured for the phase, or -1
+	 * if no explicit thread budget has been set
+	 * @return The number of threads to use for the phase
+	 */
+	public int getThreadNum(int phaseThreads) {
+		if (phaseThreads > 0)
+			return phaseThreads;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		return maxThreadNum == -1 ? numThreads : Math.min(maxThreadNum, numThreads);
+	}
+	
 	/**
 	 * Gets whether FlowDroid shall write the Jimple files to disk after the
 	 * data flow analysis
@@ -771,6 +943,116 @@ public class InfoflowConfiguration {
 		this.dataFlowTimeout = timeout;
 	}
 	
+	/**
+	 * Gets the steps that are applied one after the other when the data flow
+	 * analysis reaches its timeout or memory limit. The solvers are only
+	 * terminated once all steps have been applied.
+	 * @return The list of degradation steps to apply before terminating the
+	 * data flow analysis
+	 */
+	public List<DegradationStep> getDegradationSteps() {
+		return this.degradationSteps;
+	}
+	
+	/**
+	 * Sets the steps that are applied one after the other when the data flow
+	 * analysis reaches its timeout or memory limit. Steps may occur more than
+	 * once. An empty list terminates the solvers immediately.
+	 * @param degradationSteps The list of degradation steps to apply before
+	 * terminating the data flow analysis
+	 */
+	public void setDegradationSteps(List<DegradationStep> degradationSteps) {
+		this.degradationSteps = degradationSteps;
+	}
+	
+	/**
+	 * Gets the time in seconds by which the data flow timeout is extended
+	 * after each degradation step
+	 * @return The time in seconds the data flow analysis may continue after
+	 * a degradation step
+	 */
+	public long getDegradationGracePeriod() {
+		return this.degradationGracePeriod;
+	}
+	
+	/**
+	 * Sets the time in seconds by which the data flow timeout is extended
+	 * after each degradation step
+	 * @param degradationGracePeriod The time in seconds the data flow
+	 * analysis may continue after a degradation step
+	 */
+	public void setDegradationGracePeriod(long degradationGracePeriod) {
+		this.degradationGracePeriod = degradationGracePeriod;
+	}
+	
+	/**
+	 * Gets the interval at which abstractions are sampled to estimate the
+	 * memory kept alive by their predecessor chains
+	 * @return The number of abstractions between two samples, or 0 if memory
+	 * accounting is disabled
+	 */
+	public int getMemoryAccountingInterval() {
+		return this.memoryAccountingInterval;
+	}
+	
+	/**
+	 * Sets the interval at which abstractions are sampled to estimate the
+	 * memory kept alive by their predecessor chains. The statistics are
+	 * logged once a minute while the data flow analysis is running, whenever
+	 * a memory threshold is reached, and once the data flow analysis has
+	 * completed.
+	 * @param memoryAccountingInterval The number of abstractions between two
+	 * samples, or 0 to disable memory accounting
+	 */
+	public void setMemoryAccountingInterval(int memoryAccountingInterval) {
+		this.memoryAccountingInterval = memoryAccountingInterval;
+	}
+	
+	/**
+	 * Gets whether the predecessor chains of the abstractions that have
+	 * reached a sink shall be compacted before the paths are reconstructed
+	 * @return True if the predecessor chains shall be compacted, otherwise
+	 * false
+	 */
+	public boolean getCompactPaths() {
+		return this.compactPaths;
+	}
+	
+	/**
+	 * Sets whether the predecessor chains of the abstractions that have
+	 * reached a sink shall be compacted before the paths are reconstructed.
+	 * Runs of intermediate abstractions are then replaced by path segments
+	 * that only keep the statements and access paths needed for reporting.
+	 * This option has no effect when using incremental result reporting.
+	 * @param compactPaths True if the predecessor chains shall be compacted,
+	 * otherwise false
+	 */
+	public void setCompactPaths(boolean compactPaths) {
+		this.compactPaths = compactPaths;
+	}
+	
+	/**
+	 * Gets the maximum number of outcomes of the normal flow propagation rules
+	 * that are memoized per statement and abstraction shape
+	 * @return The maximum number of memoized rule outcomes, or 0 if rule
+	 * outcomes are not memoized
+	 */
+	public int getNormalFlowMemoizationCacheSize() {
+		return this.normalFlowMemoizationCacheSize;
+	}
+	
+	/**
+	 * Sets the maximum number of outcomes of the normal flow propagation rules
+	 * that are memoized per statement and abstraction shape. Abstractions
+	 * that only differ in their context or predecessor then skip the rule
+	 * evaluation at statements at which the rules have no side effects.
+	 * @param normalFlowMemoizationCacheSize The maximum number of memoized
+	 * rule outcomes, or 0 to disable the memoization
+	 */
+	public void setNormalFlowMemoizationCacheSize(int normalFlowMemoizationCacheSize) {
+		this.normalFlowMemoizationCacheSize = normalFlowMemoizationCacheSize;
+	}
+	
 	/**
 	 * Gets the timeout in seconds after which path reconstruction shall be
 	 * aborted. This timeout is applied after the data flow analysis has been
@@ -902,6 +1184,94 @@ public class InfoflowConfiguration {
 		this.oneSourceAtATime = oneSourceAtATime;
 	}
 
+	/**
+	 * Gets whether the interprocedural control flow graph shall be precomputed
+	 * into an immutable, array-based snapshot before the data flow analysis
+	 * is started
+	 * @return True if the interprocedural CFG shall be precomputed, false if
+	 * it shall be computed and cached on demand
+	 */
+	public boolean getPrecomputeICFG() {
+		return this.precomputeICFG;
+	}
+	
+	/**
+	 * Sets whether the interprocedural control flow graph shall be
+	 * precomputed into an immutable, array-based snapshot before the data flow
+	 * analysis is started. This takes more time upfront, but avoids cache
+	 * lookups and recomputations during the analysis.
+	 * @param precomputeICFG True if the interprocedural CFG shall be
+	 * precomputed, false if it shall be computed and cached on demand
+	 */
+	public void setPrecomputeICFG(boolean precomputeICFG) {
+		this.precomputeICFG = precomputeICFG;
+	}
+	
+	/**
+	 * Gets whether the callgraph shall be converted into a compact,
+	 * array-based representation before the interprocedural CFG is built
+	 * @return True if the callgraph shall be compacted, otherwise false
+	 */
+	public boolean getCompactCallGraph() {
+		return this.compactCallGraph;
+	}
+	
+	/**
+	 * Sets whether the callgraph shall be converted into a compact,
+	 * array-based representation before the interprocedural CFG is built.
+	 * The compact callgraph replaces the one in the Soot scene and backs the
+	 * callee and caller lookups of the interprocedural CFG. It needs less
+	 * memory than the default callgraph, but rebuilds its index whenever it
+	 * is modified.
+	 * @param compactCallGraph True if the callgraph shall be compacted,
+	 * otherwise false
+	 */
+	public void setCompactCallGraph(boolean compactCallGraph) {
+		this.compactCallGraph = compactCallGraph;
+	}
+
+	/**
+	 * Gets the file to which the flow function profile shall be written
+	 * @return The file to which the flow function profile shall be written, or
+	 * null if flow functions shall not be profiled
+	 */
+	public String getFlowFunctionProfilingFile() {
+		return this.flowFunctionProfilingFile;
+	}
+	
+	/**
+	 * Sets the file to which the flow function profile shall be written. If a
+	 * file is set, the time spent in the flow functions of the data flow and
+	 * alias solvers is sampled and written as folded stacks that can be
+	 * rendered as a flame graph.
+	 * @param flowFunctionProfilingFile The file to which the flow function
+	 * profile shall be written, or null to disable flow function profiling
+	 */
+	public void setFlowFunctionProfilingFile(String flowFunctionProfilingFile) {
+		this.flowFunctionProfilingFile = flowFunctionProfilingFile;
+	}
+
+	/**
+	 * Gets the maximum number of entries in each of the flow function caches
+	 * of the data flow solvers
+	 * @return The maximum number of cached flow functions per cache, or 0 if
+	 * flow functions are not cached
+	 */
+	public long getFlowFunctionCacheSize() {
+		return this.flowFunctionCacheSize;
+	}
+	
+	/**
+	 * Sets the maximum number of entries in each of the flow function caches
+	 * of the data flow solvers. Once a cache is full, the least recently used
+	 * flow functions are evicted.
+	 * @param flowFunctionCacheSize The maximum number of cached flow functions
+	 * per cache, or 0 to disable flow function caching
+	 */
+	public void setFlowFunctionCacheSize(long flowFunctionCacheSize) {
+		this.flowFunctionCacheSize = flowFunctionCacheSize;
+	}
+
 	/**
 	 * Prints a summary of this data flow configuration
 	 */
@@ -930,7 +1300,28 @@ public class InfoflowConfiguration {
 		logger.info("Taint analysis enabled: " + taintAnalysisEnabled);
 		if (oneSourceAtATime)
 			logger.info("Running with one source at a time");
+		if (precomputeICFG)
+			logger.info("Using a precomputed interprocedural CFG");
+		if (compactCallGraph)
+			logger.info("Using a compact callgraph");
+		if (flowFunctionCacheSize <= 0)
+			logger.info("Flow function caching is disabled");
+		if (flowFunctionProfilingFile != null)
+			logger.info("Writing a flow function profile to {}", flowFunctionProfilingFile);
+		logger.info("Using {} forward solver threads, {} alias solver threads and {} "
+				+ "path reconstruction threads", getThreadNum(forwardSolverThreads),
+				getThreadNum(aliasSolverThreads), getThreadNum(pathReconstructionThreads));
 		logger.info("Using alias algorithm " + aliasingAlgorithm);
+		if (aliasingAlgorithm == AliasingAlgorithm.Lazy && aliasRefinementBudget > 0)
+			logger.info("Refining alias queries with a budget of {} nodes", aliasRefinementBudget);
+		if (!degradationSteps.isEmpty())
+			logger.info("Degrading the analysis with {} on timeout or memory shortage", degradationSteps);
+		if (memoryAccountingInterval > 0)
+			logger.info("Sampling every {}. abstraction for memory accounting", memoryAccountingInterval);
+		if (compactPaths)
+			logger.info("Compacting taint paths before path reconstruction");
+		if (normalFlowMemoizationCacheSize > 0)
+			logger.info("Memoizing up to {} normal flow rule outcomes", normalFlowMemoizationCacheSize);
 	}
 	
 }
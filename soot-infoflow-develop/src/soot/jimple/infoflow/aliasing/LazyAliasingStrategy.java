@@ -1,5 +1,18 @@
 package soot.jimple.infoflow.aliasing;
 
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+import heros.solver.Pair;
+import soot.Local;
+import soot.PointsToAnalysis;
 import soot.PointsToSet;
 import soot.Scene;
 import soot.SootMethod;
@@ -8,18 +21,87 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.solver.IInfoflowSolver;
+import soot.jimple.spark.ondemand.DemandCSPointsTo;
+import soot.jimple.spark.pag.PAG;
 
 /**
  * Aliasing strategy that relies on taints being propagated everywhere for true
- * lazy alias checking
+ * lazy alias checking. Alias queries only depend on the base and the first
+ * field of the access paths, so their results are cached on these canonical
+ * keys. Optionally, queries on locals for which the context-insensitive
+ * points-to sets intersect are refined with a demand-driven, context-sensitive
+ * analysis.
  * 
  * @author Steven Arzt
  *
  */
 public class LazyAliasingStrategy extends AbstractInteractiveAliasStrategy {
 
+	private static final int DEFAULT_CACHE_SIZE = 100000;
+	private static final int REFINEMENT_PASSES = 10;
+	
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	private final PointsToAnalysis demandPointsTo;
+	
+	private final LoadingCache<Object, PointsToSet> pointsToSets;
+	private final LoadingCache<Pair<Object, Object>, Boolean> aliasQueries;
+	
 	public LazyAliasingStrategy(InfoflowManager manager) {
+		this(manager, DEFAULT_CACHE_SIZE, 0);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link LazyAliasingStrategy} class
+	 * @param manager The data flow manager for interacting with the solver
+	 * @param cacheSize The maximum number of alias queries and points-to sets
+	 * to cache
+	 * @param refinementBudget The maximum number of nodes traversed by the
+	 * demand-driven points-to analysis per query, or 0 to only use the
+	 * context-insensitive points-to analysis
+	 */
+	public LazyAliasingStrategy(InfoflowManager manager, int cacheSize, int refinementBudget) {
 		super(manager);
+		this.demandPointsTo = createDemandPointsTo(refinementBudget);
+		
+		this.pointsToSets = CacheBuilder.newBuilder().maximumSize(cacheSize)
+				.build(new CacheLoader<Object, PointsToSet>() {
+					
+					@Override
+					public PointsToSet load(Object key) throws Exception {
+						return MethodAliasIndex.getPointsToSet(Scene.v().getPointsToAnalysis(), key);
+					}
+					
+				});
+		this.aliasQueries = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats()
+				.build(new CacheLoader<Pair<Object, Object>, Boolean>() {
+					
+					@Override
+					public Boolean load(Pair<Object, Object> query) throws Exception {
+						return computeMayAlias(query.getO1(), query.getO2());
+					}
+					
+				});
+	}
+	
+	/**
+	 * Creates the demand-driven points-to analysis for refining alias queries
+	 * @param refinementBudget The maximum number of nodes traversed per query
+	 * @return The demand-driven points-to analysis, or null if no refinement
+	 * shall or can be done
+	 */
+	private PointsToAnalysis createDemandPointsTo(int refinementBudget) {
+		if (refinementBudget <= 0)
+			return null;
+		
+		// The demand-driven analysis works on top of Spark's pointer
+		// assignment graph
+		if (!(Scene.v().getPointsToAnalysis() instanceof PAG)) {
+			logger.warn("Alias refinement requires Spark, falling back to "
+					+ "context-insensitive alias queries");
+			return null;
+		}
+		return DemandCSPointsTo.makeWithBudget(refinementBudget, REFINEMENT_PASSES, true);
 	}
 
 	@Override
@@ -34,30 +116,55 @@ public class LazyAliasingStrategy extends AbstractInteractiveAliasStrategy {
 		if (ap1 == ap2 || ap1.equals(ap2))
 			return true;
 		
-		// Check the full access path for aliasing
-		PointsToSet ptaAP1 = getPointsToSet(ap1);
-		PointsToSet ptaAP2 = getPointsToSet(ap2);
-		if (ptaAP1.hasNonEmptyIntersection(ptaAP2))
-			return true;
+		// The points-to sets only depend on the base and the first field
+		Object key1 = MethodAliasIndex.getValueKey(ap1);
+		Object key2 = MethodAliasIndex.getValueKey(ap2);
 		
-		// No aliasing found
-		return false;
+		// The query is symmetric, so we normalize the order of the keys
+		Pair<Object, Object> query = key1.hashCode() <= key2.hashCode()
+				? new Pair<Object, Object>(key1, key2) : new Pair<Object, Object>(key2, key1);
+		try {
+			return aliasQueries.get(query);
+		}
+		catch (ExecutionException ex) {
+			throw new RuntimeException("Could not compute alias query", ex);
+		}
+	}
+	
+	/**
+	 * Checks whether the values with the given keys may alias
+	 * @param key1 The key of the first value
+	 * @param key2 The key of the second value
+	 * @return True if the two values may alias, otherwise false
+	 * @throws ExecutionException Thrown if the points-to set of one of the
+	 * values could not be computed
+	 */
+	private boolean computeMayAlias(Object key1, Object key2) throws ExecutionException {
+		// Check the context-insensitive points-to sets first
+		if (!pointsToSets.get(key1).hasNonEmptyIntersection(pointsToSets.get(key2)))
+			return false;
+		
+		// If we have a demand-driven analysis, we can try to refute the alias
+		// relationship with context information. This analysis only supports
+		// queries on locals. The refined points-to sets are backed by the
+		// analysis' internal state, so we must also hold the lock while
+		// intersecting them.
+		if (demandPointsTo != null && key1 instanceof Local && key2 instanceof Local) {
+			synchronized (demandPointsTo) {
+				PointsToSet refined1 = MethodAliasIndex.getPointsToSet(demandPointsTo, key1);
+				PointsToSet refined2 = MethodAliasIndex.getPointsToSet(demandPointsTo, key2);
+				return refined1.hasNonEmptyIntersection(refined2);
+			}
+		}
+		return true;
 	}
 
 	/**
-	 * Gets the points-to-set for the given access path
-	 * @param accessPath The access path for which to get the points-to-set
-	 * @return The points-to-set for the given access path
+	 * Gets the statistics of the alias query cache
+	 * @return The statistics of the alias query cache
 	 */
-	private PointsToSet getPointsToSet(AccessPath accessPath) {
-		if (accessPath.isLocal())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getPlainValue());
-		else if (accessPath.isInstanceFieldRef())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getPlainValue(), accessPath.getFirstField());
-		else if (accessPath.isStaticFieldRef())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getFirstField());
-		else
-			throw new RuntimeException("Unexepected access path type");
+	public CacheStats getQueryCacheStats() {
+		return aliasQueries.stats();
 	}
 
 	@Override
@@ -95,7 +202,9 @@ public class LazyAliasingStrategy extends AbstractInteractiveAliasStrategy {
 
 	@Override
 	public void cleanup() {
-		// nothing to do here
+		logger.debug("Alias query cache: {}", aliasQueries.stats());
+		pointsToSets.invalidateAll();
+		aliasQueries.invalidateAll();
 	}
 
 }
@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.aliasing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+import heros.solver.Pair;
+import soot.Local;
+import soot.PointsToAnalysis;
+import soot.PointsToSet;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.ArrayRef;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.spark.sets.EqualsSupportingPointsToSet;
+
+/**
+ * Index over the body of a single method for the points-to-based alias
+ * analysis. Every local and field reference in the method is mapped to a
+ * group of values with equal points-to sets, so that alias queries become
+ * lookups in bit sets over these groups. The index is built once per method,
+ * queries are synchronized on the index.
+ */
+class MethodAliasIndex {
+	
+	/**
+	 * Group id for values with an empty points-to set or for values that are
+	 * not supported by the points-to analysis
+	 */
+	static final int NO_GROUP = -1;
+	
+	private final Stmt[] units;
+	private final Map<Unit, Integer> unitPositions = new IdentityHashMap<>();
+	
+	private final Map<Object, Integer> valueGroups = new HashMap<>();
+	private final List<PointsToSet> groups = new ArrayList<>();
+	private final Map<PointsToSetKey, Integer> groupIds = new HashMap<>();
+	private BitSet[] groupAliases;
+	private final Map<Object, BitSet> valueAliases = new HashMap<>();
+	
+	private final int[] baseGroups;
+	private final int[][] argGroups;
+	private final int[] leftGroups;
+	private final int[] rightGroups;
+	
+	private final Map<Abstraction, Set<Abstraction>> incomingAbstractions = new HashMap<>();
+	
+	/**
+	 * Key for grouping equal points-to sets
+	 */
+	private static class PointsToSetKey {
+		
+		private final PointsToSet pts;
+		private final int hashCode;
+		
+		public PointsToSetKey(PointsToSet pts) {
+			this.pts = pts;
+			this.hashCode = pts instanceof EqualsSupportingPointsToSet
+					? ((EqualsSupportingPointsToSet) pts).pointsToSetHashCode()
+					: System.identityHashCode(pts);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof PointsToSetKey))
+				return false;
+			PointsToSetKey other = (PointsToSetKey) obj;
+			if (pts == other.pts)
+				return true;
+			return hashCode == other.hashCode
+					&& pts instanceof EqualsSupportingPointsToSet
+					&& ((EqualsSupportingPointsToSet) pts).pointsToSetEquals(other.pts);
+		}
+		
+	}
+	
+	/**
+	 * Builds the alias index for the given method
+	 * @param method The method for which to build the index
+	 */
+	public MethodAliasIndex(SootMethod method) {
+		int size = method.getActiveBody().getUnits().size();
+		this.units = new Stmt[size];
+		this.baseGroups = new int[size];
+		this.argGroups = new int[size][];
+		this.leftGroups = new int[size];
+		this.rightGroups = new int[size];
+		
+		int pos = 0;
+		for (Unit u : method.getActiveBody().getUnits()) {
+			Stmt stmt = (Stmt) u;
+			units[pos] = stmt;
+			unitPositions.put(stmt, pos);
+			baseGroups[pos] = NO_GROUP;
+			leftGroups[pos] = NO_GROUP;
+			rightGroups[pos] = NO_GROUP;
+			
+			if (stmt.containsInvokeExpr()) {
+				InvokeExpr invExpr = stmt.getInvokeExpr();
+				if (invExpr instanceof InstanceInvokeExpr)
+					baseGroups[pos] = getGroup(((InstanceInvokeExpr) invExpr).getBase());
+				
+				int[] args = new int[invExpr.getArgCount()];
+				for (int i = 0; i < args.length; i++) {
+					Value arg = invExpr.getArg(i);
+					args[i] = arg instanceof Local ? getGroup(arg) : NO_GROUP;
+				}
+				argGroups[pos] = args;
+			}
+			else if (stmt instanceof DefinitionStmt) {
+				DefinitionStmt defStmt = (DefinitionStmt) stmt;
+				if (isSupportedValue(defStmt.getLeftOp()))
+					leftGroups[pos] = getGroup(defStmt.getLeftOp());
+				if (isSupportedValue(defStmt.getRightOp()))
+					rightGroups[pos] = getGroup(defStmt.getRightOp());
+			}
+			pos++;
+		}
+		this.groupAliases = new BitSet[groups.size()];
+	}
+	
+	/**
+	 * Checks whether the given value can be looked up in the points-to
+	 * analysis
+	 * @param val The value to check
+	 * @return True if the value is a local, a field reference or an array
+	 * reference, otherwise false
+	 */
+	static boolean isSupportedValue(Value val) {
+		return val instanceof Local || val instanceof FieldRef || val instanceof ArrayRef;
+	}
+	
+	/**
+	 * Gets the key under which the points-to set of the given value is
+	 * indexed. Array references share the key of their base local.
+	 * @param val The value for which to get the key
+	 * @return The key for the given value
+	 */
+	private static Object getValueKey(Value val) {
+		if (val instanceof Local)
+			return val;
+		else if (val instanceof InstanceFieldRef) {
+			InstanceFieldRef iref = (InstanceFieldRef) val;
+			return new Pair<Value, SootField>(iref.getBase(), iref.getField());
+		}
+		else if (val instanceof StaticFieldRef)
+			return ((StaticFieldRef) val).getField();
+		else if (val instanceof ArrayRef)
+			return ((ArrayRef) val).getBase();
+		else
+			throw new RuntimeException("Unexpected value type for aliasing: " + val.getClass());
+	}
+	
+	/**
+	 * Gets the key under which the points-to set of the given access path is
+	 * indexed. Only the base and the first field are considered.
+	 * @param ap The access path for which to get the key
+	 * @return The key for the given access path
+	 */
+	static Object getValueKey(AccessPath ap) {
+		if (ap.isLocal())
+			return ap.getPlainValue();
+		else if (ap.isInstanceFieldRef())
+			return new Pair<Value, SootField>(ap.getPlainValue(), ap.getFirstField());
+		else if (ap.isStaticFieldRef())
+			return ap.getFirstField();
+		else
+			throw new RuntimeException("Unexepected access path type");
+	}
+	
+	/**
+	 * Gets the points-to set for the given key
+	 * @param key The key as created by getValueKey()
+	 * @return The points-to set for the given key
+	 */
+	private static PointsToSet getPointsToSet(Object key) {
+		return getPointsToSet(Scene.v().getPointsToAnalysis(), key);
+	}
+	
+	/**
+	 * Gets the points-to set for the given key from the given points-to
+	 * analysis
+	 * @param pta The points-to analysis to query
+	 * @param key The key as created by getValueKey()
+	 * @return The points-to set for the given key
+	 */
+	@SuppressWarnings("unchecked")
+	static PointsToSet getPointsToSet(PointsToAnalysis pta, Object key) {
+		synchronized (pta) {
+			if (key instanceof Local)
+				return pta.reachingObjects((Local) key);
+			else if (key instanceof SootField)
+				return pta.reachingObjects((SootField) key);
+			else {
+				Pair<Value, SootField> pair = (Pair<Value, SootField>) key;
+				return pta.reachingObjects((Local) pair.getO1(), pair.getO2());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the group of the given value, creating a new group if no other
+	 * value with an equal points-to set is known yet
+	 * @param val The value for which to get the group
+	 * @return The id of the group of the given value
+	 */
+	private int getGroup(Value val) {
+		Object key = getValueKey(val);
+		Integer group = valueGroups.get(key);
+		if (group != null)
+			return group;
+		
+		int newGroup = NO_GROUP;
+		PointsToSet pts = getPointsToSet(key);
+		if (!pts.isEmpty()) {
+			PointsToSetKey ptsKey = new PointsToSetKey(pts);
+			Integer existingGroup = groupIds.get(ptsKey);
+			if (existingGroup != null)
+				newGroup = existingGroup;
+			else {
+				newGroup = groups.size();
+				groups.add(pts);
+				groupIds.put(ptsKey, newGroup);
+			}
+		}
+		valueGroups.put(key, newGroup);
+		return newGroup;
+	}
+	
+	/**
+	 * Gets the groups whose points-to sets intersect with the one of the
+	 * given group
+	 * @param group The group for which to get the aliases
+	 * @return The ids of the groups that may alias with the given group
+	 */
+	private BitSet getGroupAliases(int group) {
+		BitSet aliases = groupAliases[group];
+		if (aliases == null) {
+			aliases = computeAliases(groups.get(group));
+			groupAliases[group] = aliases;
+		}
+		return aliases;
+	}
+	
+	private BitSet computeAliases(PointsToSet pts) {
+		BitSet aliases = new BitSet(groups.size());
+		if (!pts.isEmpty())
+			for (int i = 0; i < groups.size(); i++)
+				if (pts.hasNonEmptyIntersection(groups.get(i)))
+					aliases.set(i);
+		return aliases;
+	}
+	
+	/**
+	 * Gets the groups of values in this method that may alias with the given
+	 * access path. Only the base and the first field of the access path are
+	 * considered.
+	 * @param ap The access path for which to get the aliases
+	 * @return The ids of the groups that may alias with the given access path.
+	 * The returned set must not be modified.
+	 */
+	public synchronized BitSet getAliasedGroups(AccessPath ap) {
+		return getAliasedGroups(getValueKey(ap));
+	}
+	
+	/**
+	 * Gets the groups of values in this method that may alias with the given
+	 * value
+	 * @param val The value for which to get the aliases
+	 * @return The ids of the groups that may alias with the given value.
+	 * The returned set must not be modified.
+	 */
+	public synchronized BitSet getAliasedGroups(Value val) {
+		return getAliasedGroups(getValueKey(val));
+	}
+	
+	private BitSet getAliasedGroups(Object key) {
+		// Values from inside this method have already been grouped
+		Integer group = valueGroups.get(key);
+		if (group != null)
+			return group == NO_GROUP ? new BitSet() : getGroupAliases(group);
+		
+		// Values from other methods, e.g. static fields, need to be looked up
+		BitSet aliases = valueAliases.get(key);
+		if (aliases == null) {
+			aliases = computeAliases(getPointsToSet(key));
+			valueAliases.put(key, aliases);
+		}
+		return aliases;
+	}
+	
+	/**
+	 * Records that the given abstraction has reached this method in the given
+	 * context
+	 * @param abs The abstraction that has reached this method
+	 * @param d1 The context in which the abstraction has reached this method
+	 * @return True if the abstraction is new in the given context, false if
+	 * it has already been processed before
+	 */
+	public synchronized boolean addIncomingAbstraction(Abstraction abs, Abstraction d1) {
+		Set<Abstraction> d1s = incomingAbstractions.get(abs);
+		if (d1s == null) {
+			d1s = Sets.newIdentityHashSet();
+			incomingAbstractions.put(abs, d1s);
+		}
+		return d1s.add(d1);
+	}
+	
+	/**
+	 * Gets the number of statements in this method
+	 * @return The number of statements in this method
+	 */
+	public int size() {
+		return units.length;
+	}
+	
+	/**
+	 * Gets the statement at the given position
+	 * @param pos The position of the statement in the method body
+	 * @return The statement at the given position
+	 */
+	public Stmt getUnit(int pos) {
+		return units[pos];
+	}
+	
+	/**
+	 * Gets the position of the given statement in the method body
+	 * @param u The statement to look for
+	 * @return The position of the given statement, or -1 if the statement is
+	 * not part of the method
+	 */
+	public int getPosition(Unit u) {
+		Integer pos = unitPositions.get(u);
+		return pos == null ? -1 : pos;
+	}
+	
+	/**
+	 * Gets the group of the base object of the call at the given position
+	 * @param pos The position of the call in the method body
+	 * @return The group of the base object, or NO_GROUP if the statement at
+	 * the given position is no instance call
+	 */
+	public int getBaseGroup(int pos) {
+		return baseGroups[pos];
+	}
+	
+	/**
+	 * Gets the groups of the arguments of the call at the given position
+	 * @param pos The position of the call in the method body
+	 * @return The groups of the arguments, or null if the statement at the
+	 * given position is no call
+	 */
+	public int[] getArgGroups(int pos) {
+		return argGroups[pos];
+	}
+	
+	/**
+	 * Gets the group of the left side of the assignment at the given position
+	 * @param pos The position of the assignment in the method body
+	 * @return The group of the left side of the assignment
+	 */
+	public int getLeftGroup(int pos) {
+		return leftGroups[pos];
+	}
+	
+	/**
+	 * Gets the group of the right side of the assignment at the given position
+	 * @param pos The position of the assignment in the method body
+	 * @return The group of the right side of the assignment
+	 */
+	public int getRightGroup(int pos) {
+		return rightGroups[pos];
+	}
+	
+	/**
+	 * Checks whether the given group is contained in the given set of aliases
+	 * @param aliases The set of aliases as returned by getAliasedGroups()
+	 * @param group The group to check
+	 * @return True if the given group may alias, otherwise false
+	 */
+	public static boolean isAliased(BitSet aliases, int group) {
+		return group != NO_GROUP && aliases.get(group);
+	}
+	
+}
@@ -1,31 +1,20 @@
 package soot.jimple.infoflow.aliasing;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import heros.solver.PathEdge;
-import soot.Local;
-import soot.PointsToAnalysis;
-import soot.PointsToSet;
-import soot.Scene;
 import soot.SootField;
 import soot.SootMethod;
 import soot.Type;
 import soot.Unit;
 import soot.Value;
-import soot.jimple.ArrayRef;
 import soot.jimple.DefinitionStmt;
-import soot.jimple.FieldRef;
-import soot.jimple.InstanceFieldRef;
-import soot.jimple.InstanceInvokeExpr;
-import soot.jimple.InvokeExpr;
-import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.data.Abstraction;
@@ -39,7 +28,7 @@ import soot.jimple.infoflow.solver.IInfoflowSolver;
  */
 public class PtsBasedAliasStrategy extends AbstractBulkAliasStrategy {
 	
-	private final Table<SootMethod, Abstraction, Set<Abstraction>> aliases = HashBasedTable.create();
+	private final ConcurrentMap<SootMethod, MethodAliasIndex> aliasIndices = new ConcurrentHashMap<>();
 	
 	public PtsBasedAliasStrategy(InfoflowManager manager) {
 		super(manager);
@@ -56,19 +45,9 @@ public class PtsBasedAliasStrategy extends AbstractBulkAliasStrategy {
 			Abstraction newAbs, List<SootField> appendFields, List<Type> appendTypes,
 			boolean taintSubFields, Stmt actStmt) {
 		// Record the incoming abstraction
-		synchronized(aliases) {
-			if (aliases.contains(method, newAbs)) {
-				Set<Abstraction> d1s = aliases.get(method, newAbs);
-				if (d1s.contains(d1))
-					return;
-				d1s.add(d1);
-			}
-			else {
-				Set<Abstraction> d1s = Sets.newIdentityHashSet();
-				d1s.add(d1);
-				aliases.put(method, newAbs, d1s);
-			}
-		}
+		MethodAliasIndex index = getAliasIndex(method);
+		if (!index.addIncomingAbstraction(newAbs, d1))
+			return;
 		
 		// Also check for aliases for parts of the access path
 		final AccessPath ap = newAbs.getAccessPath();
@@ -87,135 +66,91 @@ public class PtsBasedAliasStrategy extends AbstractBulkAliasStrategy {
 		if (ap.getFieldCount() > 1)
 			return;
 		
-		PointsToSet ptsTaint = getPointsToSet(newAbs.getAccessPath());
+		BitSet taintAliases = index.getAliasedGroups(ap);
+		BitSet baseAliasesSet = ap.isStaticFieldRef() ? null
+				: index.getAliasedGroups(ap.getPlainValue());
 		SootField[] appendFieldsA = appendFields.toArray(new SootField[appendFields.size()]);
 		Type[] appendTypesA = appendTypes.toArray(new Type[appendTypes.size()]);
 		
 		// We run once per method and we are flow-insensitive anyway, so we
 		// can just say that every use of a variable aliased with a tainted
 		// one automatically taints the corresponding def set.
-		boolean beforeActUnit = method.getActiveBody().getUnits().contains(actStmt);
-		for (Unit u : method.getActiveBody().getUnits()) {
-			Stmt stmt = (Stmt) u;
-			if (stmt == actStmt)
-				beforeActUnit = false;
+		int actPos = index.getPosition(actStmt);
+		for (int pos = 0; pos < index.size(); pos++) {
+			Stmt stmt = index.getUnit(pos);
+			boolean beforeActUnit = pos < actPos;
 			
 			if (stmt.containsInvokeExpr()) {
 				// If we have a call, we must check whether the base or one of
 				// the parameter aliases with the given taint
-				InvokeExpr invExpr = (InvokeExpr) stmt.getInvokeExpr();
-				boolean baseAliases = false;
-				if (invExpr instanceof InstanceInvokeExpr && !newAbs.getAccessPath().isStaticFieldRef()) {
-					InstanceInvokeExpr iinvExpr = (InstanceInvokeExpr) invExpr;
-					PointsToSet ptsBase = getPointsToSet((Local) iinvExpr.getBase());
-					PointsToSet ptsBaseOrg = getPointsToSet(newAbs.getAccessPath().getPlainValue());
-					baseAliases = ptsBase.hasNonEmptyIntersection(ptsBaseOrg);
-				}
+				boolean baseAliases = baseAliasesSet != null
+						&& MethodAliasIndex.isAliased(baseAliasesSet, index.getBaseGroup(pos));
 				
 				boolean parameterAliases = false;
-				for (Value arg : invExpr.getArgs())
-					if (arg instanceof Local)
-						if (getPointsToSet(arg).hasNonEmptyIntersection(ptsTaint)) {
-							parameterAliases = true;
-							break;
-						}
-					
+				for (int argGroup : index.getArgGroups(pos))
+					if (MethodAliasIndex.isAliased(taintAliases, argGroup)) {
+						parameterAliases = true;
+						break;
+					}
+				
 				if (baseAliases || parameterAliases) {
 					AccessPath newAP = manager.getAccessPathFactory().appendFields
 							(newAbs.getAccessPath(), appendFieldsA, appendTypesA, taintSubFields);
 					Abstraction absCallee = newAbs.deriveNewAbstraction(newAP, stmt);
 					if (beforeActUnit)
 						absCallee = absCallee.deriveInactiveAbstraction(actStmt);
-					manager.getForwardSolver().processEdge(new PathEdge<Unit, Abstraction>(d1, u, absCallee));
+					manager.getForwardSolver().processEdge(new PathEdge<Unit, Abstraction>(d1, stmt, absCallee));
 				}
 			}
-			else if (u instanceof DefinitionStmt) {
-				DefinitionStmt assign = (DefinitionStmt) u;
+			else if (stmt instanceof DefinitionStmt) {
+				DefinitionStmt assign = (DefinitionStmt) stmt;
+				Value leftOp = assign.getLeftOp();
+				Value rightOp = assign.getRightOp();
 				
 				// If we have a = b and our taint is an alias to b, we must add
 				// a taint for a.
-				if (assign.getRightOp() instanceof FieldRef || assign.getRightOp() instanceof Local
-						|| assign.getRightOp() instanceof ArrayRef) {
-					if (isAliasedAtStmt(ptsTaint, assign.getRightOp())
-							&& (appendFields != null && appendFields.size() > 0)) {
-						Abstraction aliasAbsLeft = newAbs.deriveNewAbstraction(
-								manager.getAccessPathFactory().createAccessPath(assign.getLeftOp(),
-										appendFieldsA, taintSubFields), stmt);
-						if (beforeActUnit)
-							aliasAbsLeft = aliasAbsLeft.deriveInactiveAbstraction(actStmt);
-						
-						computeAliasTaints(d1, stmt, assign.getLeftOp(), Collections.<Abstraction>emptySet(),
-								method, aliasAbsLeft);
-					}
+				if (MethodAliasIndex.isAliased(taintAliases, index.getRightGroup(pos))
+						&& (appendFields != null && appendFields.size() > 0)) {
+					Abstraction aliasAbsLeft = newAbs.deriveNewAbstraction(
+							manager.getAccessPathFactory().createAccessPath(leftOp,
+									appendFieldsA, taintSubFields), stmt);
+					if (beforeActUnit)
+						aliasAbsLeft = aliasAbsLeft.deriveInactiveAbstraction(actStmt);
+					
+					computeAliasTaints(d1, stmt, leftOp, Collections.<Abstraction>emptySet(),
+							method, aliasAbsLeft);
 				}
-
+				
 				// If we have a = b and our taint is an alias to a, we must add
 				// a taint for b.
-				if (assign.getLeftOp() instanceof FieldRef
-						|| assign.getLeftOp() instanceof Local
-						|| assign.getLeftOp() instanceof ArrayRef)
-					if (assign.getRightOp() instanceof FieldRef
-							|| assign.getRightOp() instanceof Local
-							|| assign.getRightOp() instanceof ArrayRef) {
-						if (isAliasedAtStmt(ptsTaint, assign.getLeftOp())) {
-							Abstraction aliasAbsRight = newAbs.deriveNewAbstraction(
-									manager.getAccessPathFactory().createAccessPath(assign.getRightOp(),
-											appendFieldsA, taintSubFields), stmt);
-							if (beforeActUnit)
-								aliasAbsRight = aliasAbsRight.deriveInactiveAbstraction(actStmt);
-							manager.getForwardSolver().processEdge(new PathEdge<Unit, Abstraction>(d1, u, aliasAbsRight));
-						}
-					}
+				if (MethodAliasIndex.isSupportedValue(rightOp)
+						&& MethodAliasIndex.isAliased(taintAliases, index.getLeftGroup(pos))) {
+					Abstraction aliasAbsRight = newAbs.deriveNewAbstraction(
+							manager.getAccessPathFactory().createAccessPath(rightOp,
+									appendFieldsA, taintSubFields), stmt);
+					if (beforeActUnit)
+						aliasAbsRight = aliasAbsRight.deriveInactiveAbstraction(actStmt);
+					manager.getForwardSolver().processEdge(new PathEdge<Unit, Abstraction>(d1, stmt, aliasAbsRight));
+				}
 			}
 		}
 	}
 	
-	private boolean isAliasedAtStmt(PointsToSet ptsTaint, Value val) {
-		PointsToSet ptsRight = getPointsToSet(val);
-		return ptsTaint.hasNonEmptyIntersection(ptsRight);
-	}
-	
 	/**
-	 * Gets the points-to-set for the given value
-	 * @param targetValue The value for which to get the points-to-set
-	 * @return The points-to-set for the given value
+	 * Gets the alias index for the given method. If no such index exists yet,
+	 * it is built.
+	 * @param method The method for which to get the alias index
+	 * @return The alias index for the given method
 	 */
-	private PointsToSet getPointsToSet(Value targetValue) {
-		PointsToAnalysis pta = Scene.v().getPointsToAnalysis();
-		synchronized (pta) {			
-			if (targetValue instanceof Local)
-				return pta.reachingObjects((Local) targetValue);
-			else if (targetValue instanceof InstanceFieldRef) {
-				InstanceFieldRef iref = (InstanceFieldRef) targetValue;
-				return pta.reachingObjects((Local) iref.getBase(), iref.getField());
-			}
-			else if (targetValue instanceof StaticFieldRef) {
-				StaticFieldRef sref = (StaticFieldRef) targetValue;
-				return pta.reachingObjects(sref.getField());
-			}
-			else if (targetValue instanceof ArrayRef) {
-				ArrayRef aref = (ArrayRef) targetValue;
-				return pta.reachingObjects((Local) aref.getBase());
-			}
-			else
-				throw new RuntimeException("Unexpected value type for aliasing: " + targetValue.getClass());
+	private MethodAliasIndex getAliasIndex(SootMethod method) {
+		MethodAliasIndex index = aliasIndices.get(method);
+		if (index == null) {
+			index = new MethodAliasIndex(method);
+			MethodAliasIndex oldIndex = aliasIndices.putIfAbsent(method, index);
+			if (oldIndex != null)
+				index = oldIndex;
 		}
-	}
-
-	/**
-	 * Gets the points-to-set for the given access path
-	 * @param accessPath The access path for which to get the points-to-set
-	 * @return The points-to-set for the given access path
-	 */
-	private PointsToSet getPointsToSet(AccessPath accessPath) {
-		if (accessPath.isLocal())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getPlainValue());
-		else if (accessPath.isInstanceFieldRef())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getPlainValue(), accessPath.getFirstField());
-		else if (accessPath.isStaticFieldRef())
-			return Scene.v().getPointsToAnalysis().reachingObjects(accessPath.getFirstField());
-		else
-			throw new RuntimeException("Unexepected access path type");
+		return index;
 	}
 	
 	@Override
@@ -241,7 +176,7 @@ public class PtsBasedAliasStrategy extends AbstractBulkAliasStrategy {
 	
 	@Override
 	public void cleanup() {
-		aliases.clear();
+		aliasIndices.clear();
 	}
 
 }
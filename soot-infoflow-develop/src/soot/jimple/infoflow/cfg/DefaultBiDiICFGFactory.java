@@ -16,9 +16,12 @@ import soot.dexpler.DalvikThrowAnalysis;
 import soot.jimple.infoflow.InfoflowConfiguration.CallgraphAlgorithm;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
 import soot.jimple.infoflow.solver.cfg.InfoflowCFG;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.CompactCallGraph;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 import soot.jimple.toolkits.ide.icfg.OnTheFlyJimpleBasedICFG;
+import soot.jimple.toolkits.ide.icfg.PrecomputedInterproceduralCFG;
 import soot.toolkits.graph.BriefUnitGraph;
 import soot.toolkits.graph.DirectedGraph;
 import soot.toolkits.graph.ExceptionalUnitGraph;
@@ -34,6 +37,8 @@ public class DefaultBiDiICFGFactory implements BiDirICFGFactory {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     
     private boolean isAndroid = false;
+    private boolean precompute = false;
+    private boolean compactCallGraph = false;
     
     @Override
     public IInfoflowCFG buildBiDirICFG(CallgraphAlgorithm callgraphAlgorithm,
@@ -56,10 +61,18 @@ public class DefaultBiDiICFGFactory implements BiDirICFGFactory {
     		return cfg;
     	}
     	
+    	CallGraph cg = Scene.v().getCallGraph();
+    	if (compactCallGraph && !(cg instanceof CompactCallGraph)) {
+    		long beforeCompaction = System.nanoTime();
+    		cg = new CompactCallGraph(cg);
+    		Scene.v().setCallGraph(cg);
+    		logger.info("Callgraph compaction took {} seconds", (System.nanoTime() - beforeCompaction) / 1E9);
+    	}
+    	
     	// If we are running on Android, we need to use a different throw analysis
     	BiDiInterproceduralCFG<Unit, SootMethod> baseCFG = null;
     	if (isAndroid) {
-    		baseCFG = new JimpleBasedInterproceduralCFG(enableExceptions, true) {
+    		baseCFG = new JimpleBasedInterproceduralCFG(cg, enableExceptions, true) {
     			
     			protected DirectedGraph<Unit> makeGraph(Body body) {
     				return enableExceptions
@@ -70,7 +83,13 @@ public class DefaultBiDiICFGFactory implements BiDirICFGFactory {
     		};
     	}
     	else
-    		baseCFG = new JimpleBasedInterproceduralCFG(enableExceptions, true);
+    		baseCFG = new JimpleBasedInterproceduralCFG(cg, enableExceptions, true);
+    	
+    	if (precompute) {
+    		long beforeSnapshot = System.nanoTime();
+    		baseCFG = new PrecomputedInterproceduralCFG(baseCFG);
+    		logger.info("ICFG precomputation took {} seconds", (System.nanoTime() - beforeSnapshot) / 1E9);
+    	}
     	
         return new InfoflowCFG(baseCFG);
     }
@@ -84,4 +103,25 @@ public class DefaultBiDiICFGFactory implements BiDirICFGFactory {
     	this.isAndroid = isAndroid;
     }
     
+    /**
+     * Sets whether the interprocedural CFG shall be precomputed into an
+     * immutable snapshot. This is not supported for on-demand callgraphs.
+     * @param precompute True if the CFG shall be precomputed, false if it
+     * shall be computed and cached on demand
+     */
+    public void setPrecompute(boolean precompute) {
+    	this.precompute = precompute;
+    }
+    
+    /**
+     * Sets whether the callgraph in the Soot scene shall be replaced by a
+     * compact, array-based copy before the interprocedural CFG is built. This
+     * is not supported for on-demand callgraphs.
+     * @param compactCallGraph True if the callgraph shall be compacted,
+     * otherwise false
+     */
+    public void setCompactCallGraph(boolean compactCallGraph) {
+    	this.compactCallGraph = compactCallGraph;
+    }
+    
 }
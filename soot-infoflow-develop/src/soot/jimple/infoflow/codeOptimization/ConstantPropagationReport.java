@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.codeOptimization;
+
+/**
+ * Statistics collected by the {@link InterproceduralConstantValuePropagator},
+ * i.e., how many constants have been propagated, how many calls have been
+ * removed and how long the individual phases took.
+ */
+public class ConstantPropagationReport {
+	
+	private int rounds = 0;
+	private int methodsProcessed = 0;
+	private int parametersPropagated = 0;
+	private int returnValuesPropagated = 0;
+	private int callSitesReplaced = 0;
+	private int callEdgesRemoved = 0;
+	private int callSitesRemoved = 0;
+	private long propagationTime = 0;
+	private long removalTime = 0;
+	
+	void addRound(int methodsProcessed) {
+		this.rounds++;
+		this.methodsProcessed += methodsProcessed;
+	}
+	
+	void addParametersPropagated(int parametersPropagated) {
+		this.parametersPropagated += parametersPropagated;
+	}
+	
+	void addReturnValuePropagated(boolean callSiteReplaced) {
+		this.returnValuesPropagated++;
+		if (callSiteReplaced)
+			this.callSitesReplaced++;
+	}
+	
+	void addCallEdgeRemoved() {
+		this.callEdgesRemoved++;
+	}
+	
+	void addCallSiteRemoved() {
+		this.callSitesRemoved++;
+	}
+	
+	void setPropagationTime(long propagationTime) {
+		this.propagationTime = propagationTime;
+	}
+	
+	void setRemovalTime(long removalTime) {
+		this.removalTime = removalTime;
+	}
+	
+	/**
+	 * Gets the number of worklist rounds needed to reach the fixed point
+	 * @return The number of worklist rounds
+	 */
+	public int getRounds() {
+		return this.rounds;
+	}
+	
+	/**
+	 * Gets the number of methods taken from the worklist over all rounds
+	 * @return The number of processed methods
+	 */
+	public int getMethodsProcessed() {
+		return this.methodsProcessed;
+	}
+	
+	/**
+	 * Gets the number of constant arguments propagated into callees
+	 * @return The number of constant parameters
+	 */
+	public int getParametersPropagated() {
+		return this.parametersPropagated;
+	}
+	
+	/**
+	 * Gets the number of call sites into which a constant return value has
+	 * been propagated
+	 * @return The number of propagated return values
+	 */
+	public int getReturnValuesPropagated() {
+		return this.returnValuesPropagated;
+	}
+	
+	/**
+	 * Gets the number of calls to side-effect free methods that have been
+	 * replaced by their constant return value
+	 * @return The number of replaced call sites
+	 */
+	public int getCallSitesReplaced() {
+		return this.callSitesReplaced;
+	}
+	
+	/**
+	 * Gets the number of edges to side-effect free methods that have been
+	 * removed from the callgraph
+	 * @return The number of removed callgraph edges
+	 */
+	public int getCallEdgesRemoved() {
+		return this.callEdgesRemoved;
+	}
+	
+	/**
+	 * Gets the number of call sites that have been removed because all of
+	 * their callees are side-effect free
+	 * @return The number of removed call sites
+	 */
+	public int getCallSitesRemoved() {
+		return this.callSitesRemoved;
+	}
+	
+	/**
+	 * Gets the time spent propagating constants through the worklist
+	 * @return The propagation time in nanoseconds
+	 */
+	public long getPropagationTime() {
+		return this.propagationTime;
+	}
+	
+	/**
+	 * Gets the time spent removing calls to side-effect free methods
+	 * @return The removal time in nanoseconds
+	 */
+	public long getRemovalTime() {
+		return this.removalTime;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Constant propagation: %d rounds, %d methods, %d parameters, "
+				+ "%d return values (%d calls replaced), %.3f s%n"
+				+ "Call removal: %d call edges, %d call sites, %.3f s",
+				rounds, methodsProcessed, parametersPropagated, returnValuesPropagated,
+				callSitesReplaced, propagationTime / 1E9, callEdgesRemoved, callSitesRemoved,
+				removalTime / 1E9);
+	}
+	
+}
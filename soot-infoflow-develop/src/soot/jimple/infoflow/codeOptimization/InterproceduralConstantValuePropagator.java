@@ -3,6 +3,7 @@ package soot.jimple.infoflow.codeOptimization;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -32,22 +33,17 @@ import soot.Trap;
 import soot.Type;
 import soot.Unit;
 import soot.Value;
-import soot.ValueBox;
 import soot.VoidType;
 import soot.dexpler.DalvikThrowAnalysis;
 import soot.javaToJimple.LocalGenerator;
-import soot.jimple.ArrayRef;
 import soot.jimple.AssignStmt;
 import soot.jimple.Constant;
-import soot.jimple.DefinitionStmt;
-import soot.jimple.FieldRef;
 import soot.jimple.IdentityStmt;
 import soot.jimple.IfStmt;
 import soot.jimple.IntConstant;
 import soot.jimple.InvokeExpr;
 import soot.jimple.InvokeStmt;
 import soot.jimple.Jimple;
-import soot.jimple.NewExpr;
 import soot.jimple.ParameterRef;
 import soot.jimple.ReturnStmt;
 import soot.jimple.Stmt;
@@ -56,6 +52,8 @@ import soot.jimple.ThrowStmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.entryPointCreators.BaseEntryPointCreator;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
+import soot.jimple.infoflow.solver.cfg.InfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.MethodSummaries;
 import soot.jimple.infoflow.source.ISourceSinkManager;
 import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
 import soot.jimple.infoflow.util.SystemClassHandler;
@@ -80,15 +78,21 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	private boolean removeSideEffectFreeMethods = true;
 	private boolean excludeSystemClasses = true;
 	
-	protected final Map<SootMethod, Boolean> methodSideEffects = new ConcurrentHashMap<>();
-	protected final Map<SootMethod, Boolean> methodSinks = new ConcurrentHashMap<>();
+	private static final int SIDE_EFFECTS = MethodSummaries.FIELD_WRITE
+			| MethodSummaries.ARRAY_WRITE | MethodSummaries.TAINT_WRAPPED;
+	
 	protected final Map<SootMethod, Boolean> methodFieldReads = new ConcurrentHashMap<>();
 	
+	protected final MethodSummaries methodSummaries;
+	
 	protected SootClass exceptionClass = null;
 	protected final Map<SootClass, SootMethod> exceptionThrowers = new HashMap<>();
 	
-	private final List<SootMethod> propagationWorklist = new ArrayList<>();
+	private final Set<SootMethod> queuedMethods = new HashSet<>();
 	private final Set<Pair<SootMethod, Integer>> propagatedParameters = new HashSet<>();
+	private final Map<SootMethod, Integer> methodRanks = new HashMap<>();
+	
+	private ConstantPropagationReport report = new ConstantPropagationReport();
 	
 	/**
 	 * Creates a new instance of the {@link InterproceduralConstantValuePropagator}
@@ -100,6 +104,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		this.excludedMethods = null;
 		this.sourceSinkManager = null;
 		this.taintWrapper = null;
+		this.methodSummaries = getMethodSummaries(manager);
 	}
 	
 	/**
@@ -122,6 +127,20 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		this.excludedMethods = new HashSet<SootMethod>(excludedMethods);
 		this.sourceSinkManager = sourceSinkManager;
 		this.taintWrapper = taintWrapper;
+		this.methodSummaries = getMethodSummaries(manager);
+	}
+	
+	/**
+	 * Gets the method summaries of the interprocedural CFG of the given
+	 * manager, so that the side effects of every method are only computed
+	 * once. If the CFG does not have any summaries, new ones are created.
+	 * @param manager The data flow manager
+	 * @return The method summaries to use
+	 */
+	private static MethodSummaries getMethodSummaries(InfoflowManager manager) {
+		if (manager.getICFG() instanceof InfoflowCFG)
+			return ((InfoflowCFG) manager.getICFG()).getMethodSummaries();
+		return new MethodSummaries();
 	}
 	
 	/**
@@ -144,6 +163,14 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		this.excludeSystemClasses = excludeSystemClasses;
 	}
 	
+	/**
+	 * Gets the statistics of the last run of this transformer
+	 * @return The statistics of the last run of this transformer
+	 */
+	public ConstantPropagationReport getReport() {
+		return this.report;
+	}
+	
 	/**
 	 * Checks whether optimizations are possible for the given method and, if
 	 * so, adds it to the global worklist
@@ -160,10 +187,66 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 				&& SystemClassHandler.isClassInSystemPackage(sm.getDeclaringClass().getName()))
 			return;
 		
-		if (sm.getReturnType() != VoidType.v() || sm.getParameterCount() > 0) {
-			if (!propagationWorklist.contains(sm))
-				propagationWorklist.add(sm);
-		}
+		if (sm.getReturnType() != VoidType.v() || sm.getParameterCount() > 0)
+			queuedMethods.add(sm);
+	}
+	
+	/**
+	 * Adds all methods called by the given method to the worklist. This is
+	 * necessary whenever constants have been propagated inside the body of
+	 * the given method, because the call sites may now have new constant
+	 * arguments.
+	 * @param sm The method whose callees to add to the worklist
+	 */
+	private void checkAndAddCallees(SootMethod sm) {
+		for (Unit u : sm.getActiveBody().getUnits())
+			if (((Stmt) u).containsInvokeExpr())
+				for (SootMethod callee : manager.getICFG().getCalleesOfCallAt(u))
+					checkAndAddMethod(callee);
+	}
+	
+	/**
+	 * Orders all reachable methods such that callers come before their
+	 * callees. All methods in the same strongly connected component of the
+	 * callgraph share the same rank.
+	 */
+	private void computeMethodRanks() {
+		List<SootMethod> roots = new ArrayList<>();
+		for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener();
+				rdr.hasNext(); )
+			roots.add(rdr.next().method());
+		
+		// The components are ordered bottom-up, so we reverse them to get the
+		// callers first
+		List<List<SootMethod>> components = methodSummaries.getComponents(roots);
+		methodRanks.clear();
+		for (int i = 0; i < components.size(); i++)
+			for (SootMethod sm : components.get(i))
+				methodRanks.put(sm, components.size() - i);
+	}
+	
+	/**
+	 * Takes all methods from the worklist and sorts them such that callers
+	 * come before their callees
+	 * @return The methods that were on the worklist
+	 */
+	private List<SootMethod> pollWorklist() {
+		List<SootMethod> methods = new ArrayList<>(queuedMethods);
+		queuedMethods.removeAll(methods);
+		Collections.sort(methods, new Comparator<SootMethod>() {
+			
+			@Override
+			public int compare(SootMethod o1, SootMethod o2) {
+				return Integer.compare(getRank(o1), getRank(o2));
+			}
+			
+		});
+		return methods;
+	}
+	
+	private int getRank(SootMethod sm) {
+		Integer rank = methodRanks.get(sm);
+		return rank == null ? Integer.MAX_VALUE : rank;
 	}
 	
 	@Override
@@ -172,8 +255,14 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 				+ (removeSideEffectFreeMethods ? "enabled" : "disabled"));
 		
 		// Clear up any potential old state
-		propagationWorklist.clear();
+		queuedMethods.clear();
 		propagatedParameters.clear();
+		report = new ConstantPropagationReport();
+		methodSummaries.setSourceSinkManager(sourceSinkManager, manager);
+		methodSummaries.setTaintWrapper(taintWrapper);
+		
+		long beforePropagation = System.nanoTime();
+		computeMethodRanks();
 		
 		// Collect all application methods that take parameters or return values
 		// and place them in the initial worklist.
@@ -184,21 +273,27 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 			checkAndAddMethod(sm);
 		}
 		
-		while (!propagationWorklist.isEmpty()) {
-			SootMethod sm = propagationWorklist.remove(0);
+		while (!queuedMethods.isEmpty()) {
+			List<SootMethod> methods = pollWorklist();
+			report.addRound(methods.size());
 			
-			// Propagate constants from caller into callee
-			if (sm.getParameterCount() > 0)
-				propagateConstantsIntoCallee(sm);
+			// Propagate constants from callers into callees
+			propagateConstantsIntoCallees(methods);
 			
-			// Propagate constant return values from callee to caller
-			if (typeSupportsConstants(sm.getReturnType()))
-				propagateReturnValueIntoCallers(sm);
+			// Propagate constant return values from callees to callers. This
+			// modifies the callers and the callgraph, so we do it sequentially,
+			// starting at the bottom of the callgraph.
+			for (int i = methods.size() - 1; i >= 0; i--) {
+				SootMethod sm = methods.get(i);
+				if (typeSupportsConstants(sm.getReturnType()))
+					propagateReturnValueIntoCallers(sm);
+			}
 		}
+		report.setPropagationTime(System.nanoTime() - beforePropagation);
 		
 		// Check for calls we can remove altogether
 		if (removeSideEffectFreeMethods) {
-			int callEdgesRemoved = 0;
+			long beforeRemoval = System.nanoTime();
 			for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener();
 					rdr.hasNext(); ) {
 				MethodOrMethodContext mom = rdr.next();
@@ -245,7 +340,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 						
 						if (remove) {
 							Scene.v().getCallGraph().removeEdge(edge);
-							callEdgesRemoved++;
+							report.addCallEdgeRemoved();
 							
 							// If this callee threw an exception, we have to make
 							// up for it
@@ -257,12 +352,14 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 					
 					// If all call edges have been removed from a call site, we can
 					// kill the call site altogether
-					if (allCalleesRemoved && !isSourceSinkOrTaintWrapped(s))
-						removeCallSite(s, sm);
+					if (allCalleesRemoved && !isSourceSinkOrTaintWrapped(s)
+							&& removeCallSite(s, sm))
+						report.addCallSiteRemoved();
 				}
 			}
-			System.out.println("Removed " + callEdgesRemoved + " call edges");
+			report.setRemovalTime(System.nanoTime() - beforeRemoval);
 		}
+		logger.info(report.toString());
 		
 		// If we introduced a new class, we have to reset the hierarchy
 		if (exceptionClass != null) {
@@ -308,13 +405,13 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		// If this method is a sink, we must keep it as well
 		if (sourceSinkManager != null
 				&& sourceSinkManager.isSink((Stmt) callSite, manager, null)) {
-			methodSinks.put(method, true);
+			methodSummaries.addMethodFlags(method, MethodSummaries.CALLS_SINK);
 			return true;
 		}
 		
 		// If this method is wrapped, we need to keep it
 		if (taintWrapper != null && taintWrapper.supportsCallee(method)) {
-			methodSideEffects.put(method, true);
+			methodSummaries.addMethodFlags(method, MethodSummaries.TAINT_WRAPPED);
 			return true;
 		}
 		
@@ -325,15 +422,16 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	 * Removes a given call site
 	 * @param callSite The call site to be removed
 	 * @param caller The method containing the call site
+	 * @return True if the call site has been removed, otherwise false
 	 */
-	private void removeCallSite(Stmt callSite, SootMethod caller) {
+	private boolean removeCallSite(Stmt callSite, SootMethod caller) {
 		// Make sure that we don't access anything we have already removed
 		if (!caller.getActiveBody().getUnits().contains(callSite))
-			return;
+			return false;
 		
 		// Only remove actual call sites
 		if (!((Stmt) callSite).containsInvokeExpr())
-			return;
+			return false;
 		
 		// Remove the call
 		caller.getActiveBody().getUnits().remove(callSite);
@@ -341,6 +439,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		// Fix the callgraph
 		if (Scene.v().hasCallGraph())
 			Scene.v().getCallGraph().removeAllEdgesOutOf(callSite);
+		return true;
 	}
 
 	/**
@@ -416,7 +515,9 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 					// If the call has no side effects, we can remove it altogether,
 					// otherwise we can just propagate the return value
 					Unit assignConst = Jimple.v().newAssignStmt(assign.getLeftOp(), value);
-					if (!hasSideEffectsOrCallsSink(sm)) {
+					boolean removeCall = !hasSideEffectsOrCallsSink(sm);
+					report.addReturnValuePropagated(removeCall);
+					if (removeCall) {
 						// If this method threw an exception, we have to make up for it
 						fixExceptions(caller, callSite);
 						
@@ -426,6 +527,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 						if (excludedMethods == null || !excludedMethods.contains(caller)) {
 							ConstantPropagatorAndFolder.v().transform(caller.getActiveBody());
 							checkAndAddMethod(caller);
+							checkAndAddCallees(caller);
 						}
 						
 						// Fix the callgraph
@@ -439,6 +541,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 						if (excludedMethods == null || !excludedMethods.contains(caller)) {
 							ConstantPropagatorAndFolder.v().transform(caller.getActiveBody());
 							checkAndAddMethod(caller);
+							checkAndAddCallees(caller);
 						}
 						caller.getActiveBody().getUnits().remove(assignConst);
 						
@@ -539,217 +642,58 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	 * side-effects or calls a sink method, otherwise false.
 	 */
 	private boolean hasSideEffectsOrCallsSink(SootMethod method) {
-		return hasSideEffectsOrCallsSink(method, new HashSet<SootMethod>());
-	}
-	
-	/**
-	 * Checks whether the given method or one of its transitive callees has
-	 * side-effects or calls a sink method
-	 * @param method The method to check
-	 * @param runList A set to receive all methods that have already been
-	 * processed
-	 * @param cache The cache in which to store the results
-	 * @return True if the given method or one of its transitive callees has
-	 * side-effects or calls a sink method, otherwise false.
-	 */
-	private boolean hasSideEffectsOrCallsSink(SootMethod method,
-			Set<SootMethod> runList) {		
-		// Without a body, we cannot say much
-		if (!method.hasActiveBody())
-			return false;
-		
-		// Do we already have an entry?
-		Boolean hasSideEffects = methodSideEffects.get(method);
-		if (hasSideEffects != null)
-			return hasSideEffects;
-		
-		Boolean hasSink = methodSinks.get(method);
-		if (hasSink != null)
-			return hasSink;
-		
-		// Do not process the same method twice
-		if (!runList.add(method))
-			return false;
-				
-		// If this is an Android stub method that just throws a stub exception,
-		// this will never happen in practice and can be removed
-		if (methodIsAndroidStub(method)) {
-			methodSideEffects.put(method, false);
-			return false;
-		}
-		
-		// Scan for references to this variable
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				if (assign.getLeftOp() instanceof FieldRef
-						|| assign.getLeftOp() instanceof ArrayRef) {
-					methodSideEffects.put(method, true);
-					return true;
-				}
-			}
-			
-			Stmt s = (Stmt) u;
-			
-			// If this method calls another method for which we have a taint
-			// wrapper, we need to conservatively assume that the taint wrapper
-			// can do anything
-			if (taintWrapper != null && taintWrapper.supportsCallee(s)) {
-				methodSideEffects.put(method, true);
-				return true;
-			}
-			
-			if (s.containsInvokeExpr()) {
-				// If this method calls a sink, we need to keep it
-				if (sourceSinkManager != null
-						&& sourceSinkManager.isSink((Stmt) u, manager, null)) {
-					methodSinks.put(method, true);
-					return true;
-				}
-				
-				// Check the callees
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-						if (hasSideEffectsOrCallsSink(e.getTgt().method(), runList))
-							return true;
-				}
-			}
-		}
-		
-		// Variable is not read
-		methodSideEffects.put(method, false);
-		return false;
+		return methodSummaries.hasFlags(method, SIDE_EFFECTS | MethodSummaries.CALLS_SINK);
 	}
 	
 	/**
 	 * Checks whether the given method or one of its transitive callees has
-	 * side-effects or calls a sink method
+	 * side-effects or uses its "this" local
 	 * @param method The method to check
 	 * @return True if the given method or one of its transitive callees has
-	 * side-effects or calls a sink method, otherwise false.
+	 * side-effects or uses its "this" local, otherwise false.
 	 */
 	private boolean hasSideEffectsOrReadsThis(SootMethod method) {
-		return hasSideEffectsOrReadsThis(method, new HashSet<SootMethod>());
+		return methodSummaries.hasFlags(method, SIDE_EFFECTS | MethodSummaries.USES_THIS);
 	}
 	
 	/**
-	 * Checks whether the given method or one of its transitive callees has
-	 * side-effects or calls a sink method
-	 * @param method The method to check
-	 * @param runList A set to receive all methods that have already been
-	 * processed
-	 * @param cache The cache in which to store the results
-	 * @return True if the given method or one of its transitive callees has
-	 * side-effects or calls a sink method, otherwise false.
+	 * Propagates constant arguments into the given callees. The arguments are
+	 * collected for all callees before any method body is changed, so that
+	 * every callee sees the call sites as they were at the start of the round.
+	 * The bodies are transformed sequentially, because Soot's exception
+	 * analysis shares global state that is not thread-safe.
+	 * @param methods The methods for which to look for call sites
 	 */
-	private boolean hasSideEffectsOrReadsThis(SootMethod method,
-			Set<SootMethod> runList) {		
-		// Without a body, we cannot say much
-		if (!method.hasActiveBody())
-			return false;
-		
-		// Do we already have an entry?
-		Boolean hasSideEffects = methodSideEffects.get(method);
-		if (hasSideEffects != null)
-			return hasSideEffects;
-		
-		// Do not process the same method twice
-		if (!runList.add(method))
-			return false;
-		
-		// If this is an Android stub method that just throws a stub exception,
-		// this will never happen in practice and can be removed
-		if (methodIsAndroidStub(method)) {
-			methodSideEffects.put(method, false);
-			return false;
-		}
-		
-		// Scan for references to this variable
-		Local thisLocal = method.isStatic() ? null : method.getActiveBody().getThisLocal();
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				if (assign.getLeftOp() instanceof FieldRef
-						|| assign.getLeftOp() instanceof ArrayRef) {
-					methodSideEffects.put(method, true);
-					return true;
-				}
+	private void propagateConstantsIntoCallees(List<SootMethod> methods) {
+		// Collect the constant arguments
+		final Map<SootMethod, Constant[]> constantArgs = new HashMap<>();
+		for (SootMethod sm : methods)
+			if (sm.getParameterCount() > 0) {
+				Constant[] values = getConstantArguments(sm);
+				if (values != null)
+					constantArgs.put(sm, values);
 			}
-			
-			Stmt s = (Stmt) u;
-			
-			// If this statement uses the "this" local, we have to
-			// conservatively assume that is can read data
-			if (thisLocal != null)
-				for (ValueBox vb : s.getUseBoxes())
-					if (vb.getValue() == thisLocal)
-						return true;
-			
-			if (s.containsInvokeExpr()) {
-				// Check the callees
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-					if (hasSideEffectsOrReadsThis(e.getTgt().method(), runList))
-						return true;
-				}
-			}
-		}
 		
-		// Variable is not read
-		methodSideEffects.put(method, false);
-		return false;
-	}
-	
-	/**
-	 * Checks whether the given method is a library stub method
-	 * @param method The method to check
-	 * @return True if the given method is an Android library stub, false
-	 * otherwise
-	 */
-	private boolean methodIsAndroidStub(SootMethod method) {		
-		if (!(Options.v().src_prec() == Options.src_prec_apk
-				&& method.getDeclaringClass().isLibraryClass()
-				&& SystemClassHandler.isClassInSystemPackage(
-						method.getDeclaringClass().getName())))
-			return false;
-		
-		// Check whether there is only a single throw statement
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof DefinitionStmt) {
-				DefinitionStmt defStmt = (DefinitionStmt) u;
-				if (!(defStmt.getRightOp() instanceof ThisRef)
-						&& !(defStmt.getRightOp() instanceof ParameterRef)
-						&& !(defStmt.getRightOp() instanceof NewExpr))
-					return false;
-			}
-			else if (u instanceof InvokeStmt) {
-				InvokeStmt stmt = (InvokeStmt) u;
-				
-				// Check for exception constructor invocations
-				SootMethod callee = stmt.getInvokeExpr().getMethod();
-				if (!callee.getSubSignature().equals("void <init>(java.lang.String)"))
-					// Check for super class constructor invocation
-					if (!(method.getDeclaringClass().hasSuperclass()
-							&& callee.getDeclaringClass() == method.getDeclaringClass().getSuperclass()
-							&& callee.getName().equals("<init>")))
-						return false;
-			}
-			else if (!(u instanceof ThrowStmt))
-				return false;
+		// Propagate the constants into the callees
+		for (SootMethod sm : methods) {
+			Constant[] values = constantArgs.get(sm);
+			if (values != null)
+				applyConstantArguments(sm, values);
 		}
-		return true;
 	}
-
+	
 	/**
 	 * Checks whether all call sites for a specific callee agree on the same
-	 * constant value for one or more arguments. If so, these constant values
-	 * are propagated into the callee.
+	 * constant value for one or more arguments
 	 * @param sm The method for which to look for call sites.
+	 * @return An array with the constant value of each argument, or null for
+	 * arguments that are not constant. If the method has no call sites at all,
+	 * null is returned.
 	 */
-	private void propagateConstantsIntoCallee(SootMethod sm) {		
+	private Constant[] getConstantArguments(SootMethod sm) {
 		Collection<Unit> callSites = manager.getICFG().getCallersOf(sm);
 		if (callSites.isEmpty())
-			return;
+			return null;
 		
 		boolean[] isConstant = new boolean[sm.getParameterCount()];
 		Constant[] values = new Constant[sm.getParameterCount()];
@@ -795,35 +739,48 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 			}
 		}
 		
-		if (hasCallSites) {
-			// Get the constant parameters
-			List<Unit> inserted = null;
-			for (int i = 0; i < isConstant.length; i++) {
-				if (isConstant[i] && propagatedParameters.add(new Pair<>(sm, i))) {
-					// Propagate the constant into the callee
-					Local paramLocal = sm.getActiveBody().getParameterLocal(i);
-					Unit point = getFirstNonIdentityStmt(sm);
-					Unit assignConst = Jimple.v().newAssignStmt(paramLocal, values[i]);
-					sm.getActiveBody().getUnits().insertBefore(assignConst, point);
-					
-					if (inserted == null)
-						inserted = new ArrayList<Unit>();
-					inserted.add(assignConst);
-				}
-			}
-			
-			// Propagate the constant inside the callee
-			if (inserted != null) {
-				ConstantPropagatorAndFolder.v().transform(sm.getActiveBody());
-				for (Unit u : inserted)
-					sm.getActiveBody().getUnits().remove(u);
+		if (!hasCallSites)
+			return null;
+		for (int i = 0; i < isConstant.length; i++)
+			if (!isConstant[i])
+				values[i] = null;
+		return values;
+	}
+	
+	/**
+	 * Propagates the given constant argument values into the given callee.
+	 * This only modifies the body of the callee.
+	 * @param sm The method into which to propagate the constants
+	 * @param values The constant value of each argument, or null for
+	 * arguments that are not constant
+	 */
+	private void applyConstantArguments(SootMethod sm, Constant[] values) {
+		// Get the constant parameters
+		List<Unit> inserted = null;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && propagatedParameters.add(new Pair<>(sm, i))) {
+				// Propagate the constant into the callee
+				Local paramLocal = sm.getActiveBody().getParameterLocal(i);
+				Unit point = getFirstNonIdentityStmt(sm);
+				Unit assignConst = Jimple.v().newAssignStmt(paramLocal, values[i]);
+				sm.getActiveBody().getUnits().insertBefore(assignConst, point);
 				
-				// This might lead to more opportunities of constant propagation
-				for (Unit u : sm.getActiveBody().getUnits())
-					for (SootMethod callee : manager.getICFG().getCalleesOfCallAt(u))
-						checkAndAddMethod(callee);
+				if (inserted == null)
+					inserted = new ArrayList<Unit>();
+				inserted.add(assignConst);
 			}
 		}
+		
+		// Propagate the constant inside the callee
+		if (inserted != null) {
+			report.addParametersPropagated(inserted.size());
+			ConstantPropagatorAndFolder.v().transform(sm.getActiveBody());
+			for (Unit u : inserted)
+				sm.getActiveBody().getUnits().remove(u);
+			
+			// This might lead to more opportunities of constant propagation
+			checkAndAddCallees(sm);
+		}
 	}
 	
 	/**
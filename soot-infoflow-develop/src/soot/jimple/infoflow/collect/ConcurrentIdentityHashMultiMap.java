@@ -40,7 +40,7 @@ public class ConcurrentIdentityHashMultiMap<K,V> extends AbstractMultiMap<K, V>
 
 	private static final long serialVersionUID = -6721251660349964507L;
 	
-	Map<K,ConcurrentMap<V, V>> m = new ConcurrentIdentityHashMap<K,ConcurrentMap<V, V>>();
+	ConcurrentOpenHashMap<K,ConcurrentMap<V, V>> m = new ConcurrentOpenHashMap<K,ConcurrentMap<V, V>>(true);
 
     public ConcurrentIdentityHashMultiMap() {}
     
@@ -71,17 +71,8 @@ public class ConcurrentIdentityHashMultiMap<K,V> extends AbstractMultiMap<K, V>
     
     private ConcurrentMap<V, V> findSet( K key ) {
     	ConcurrentMap<V, V> s = m.get( key );
-        if( s == null ) {
-        	synchronized (this) {
-        		// Better check twice, another thread may have created a set in
-        		// the meantime
-        		s = m.get( key );
-                if( s == null ) {
-                	s = newSet();
-                	m.put( key, s );
-                }
-			}
-        }
+        if( s == null )
+        	s = m.putIfAbsentElseGet( key, newSet() );
         return s;
     }
 
@@ -0,0 +1,692 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.collect;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free concurrent hash map with open addressing. Keys and values are
+ * stored next to each other in a single array, so the map does not allocate
+ * an entry object per mapping and lookups and
+ * {@link #putIfAbsentElseGet(Object, Object)} calls for existing keys do not
+ * allocate at all.
+ * 
+ * When the table fills up, a larger table is created and the entries are
+ * copied over. Threads that touch an entry while the copy is in progress help
+ * with copying this entry, so no thread ever blocks on another one. Removed
+ * keys keep their slot in the table until the map is cleared, so this map is
+ * best suited for maps that mainly grow, such as the jump functions and
+ * summaries of the data flow solvers.
+ * 
+ * If the map is created for identity comparison, keys are compared with ==
+ * and hashed with {@link System#identityHashCode(Object)}, which violates the
+ * general contract of {@link Map} in the same way as
+ * {@link java.util.IdentityHashMap}. Values are always compared with equals().
+ * Like {@link java.util.concurrent.ConcurrentHashMap}, the map does not
+ * support null keys or values.
+ * 
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class ConcurrentOpenHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+	
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAXIMUM_CAPACITY = 1 << 29;
+	
+	/**
+	 * Key of a slot that was still empty when the table was resized
+	 */
+	private static final Object MOVED_KEY = new Object();
+	/**
+	 * Value of a slot that has been copied to the next table
+	 */
+	private static final Object MOVED = new Object();
+	/**
+	 * Value of a slot whose key has been removed
+	 */
+	private static final Object TOMBSTONE = new Object();
+	
+	// Special expected values for putIfMatch()
+	private static final Object MATCH_ANY = new Object();
+	private static final Object MATCH_ABSENT = new Object();
+	private static final Object MATCH_PRESENT = new Object();
+	private static final Object MATCH_NEVER_SET = new Object();
+	
+	/**
+	 * Wrapper for a value that is being copied to the next table. The slot can
+	 * no longer be changed in the old table.
+	 */
+	private static final class Frozen {
+		
+		private final Object value;
+		
+		private Frozen(Object value) {
+			this.value = value;
+		}
+		
+	}
+	
+	/**
+	 * A single hash table. The key of slot i is stored at index 2i of the
+	 * array, the value at index 2i+1. For maps that compare keys with
+	 * equals(), the hash of the key in slot i is kept at index i of the hash
+	 * array, so that most non-matching keys can be skipped without touching
+	 * them. A hash of 0 means that the hash is unknown.
+	 */
+	private static final class Table {
+		
+		private final AtomicReferenceArray<Object> slots;
+		private final int[] hashes;
+		private final int mask;
+		private final int threshold;
+		
+		// Updated through field updaters to avoid one object per counter
+		volatile int claimed = 0;
+		volatile int copied = 0;
+		volatile Table next = null;
+		
+		private Table(int capacity, boolean identity) {
+			this.slots = new AtomicReferenceArray<Object>(capacity * 2);
+			this.hashes = identity ? null : new int[capacity];
+			this.mask = capacity - 1;
+			this.threshold = capacity - (capacity >>> 2);
+		}
+		
+		private int capacity() {
+			return mask + 1;
+		}
+		
+	}
+	
+	private static final AtomicIntegerFieldUpdater<Table> CLAIMED =
+			AtomicIntegerFieldUpdater.newUpdater(Table.class, "claimed");
+	private static final AtomicIntegerFieldUpdater<Table> COPIED =
+			AtomicIntegerFieldUpdater.newUpdater(Table.class, "copied");
+	private static final AtomicReferenceFieldUpdater<Table, Table> NEXT =
+			AtomicReferenceFieldUpdater.newUpdater(Table.class, Table.class, "next");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ConcurrentOpenHashMap, Table> ROOT =
+			AtomicReferenceFieldUpdater.newUpdater(ConcurrentOpenHashMap.class, Table.class, "root");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<ConcurrentOpenHashMap> SIZE =
+			AtomicIntegerFieldUpdater.newUpdater(ConcurrentOpenHashMap.class, "size");
+	
+	private final boolean identity;
+	private final int initialCapacity;
+	private volatile Table root;
+	private volatile int size = 0;
+	
+	private Set<Entry<K, V>> entrySet = null;
+	
+	/**
+	 * Creates a new, empty map that compares keys using equals()
+	 */
+	public ConcurrentOpenHashMap() {
+		this(0, false);
+	}
+	
+	/**
+	 * Creates a new, empty map
+	 * @param identity True if keys shall be compared by identity, false if
+	 * they shall be compared using equals()
+	 */
+	public ConcurrentOpenHashMap(boolean identity) {
+		this(0, identity);
+	}
+	
+	/**
+	 * Creates a new, empty map
+	 * @param expectedSize The number of mappings the map shall be able to hold
+	 * without being resized
+	 * @param identity True if keys shall be compared by identity, false if
+	 * they shall be compared using equals()
+	 */
+	public ConcurrentOpenHashMap(int expectedSize, boolean identity) {
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("Expected size must not be negative");
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < MAXIMUM_CAPACITY && capacity - (capacity >>> 2) < expectedSize)
+			capacity <<= 1;
+		this.identity = identity;
+		this.initialCapacity = capacity;
+		this.root = new Table(capacity, identity);
+	}
+	
+	/**
+	 * Gets whether this map compares keys by identity
+	 * @return True if this map compares keys by identity, false if it uses
+	 * equals()
+	 */
+	public boolean isIdentity() {
+		return identity;
+	}
+	
+	private int hash(Object key) {
+		int h = identity ? System.identityHashCode(key) : key.hashCode();
+		// Spread the bits, linear probing is sensitive to clustered hashes
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
+	/**
+	 * Checks whether the given slot contains the given key
+	 * @param t The table that contains the slot
+	 * @param idx The index of the slot
+	 * @param k The key in the slot
+	 * @param key The key to look for
+	 * @param hash The hash of the key to look for
+	 * @return True if the slot contains the given key, otherwise false
+	 */
+	private boolean isKeyAt(Table t, int idx, Object k, Object key, int hash) {
+		if (k == key)
+			return true;
+		if (identity)
+			return false;
+		int h = t.hashes[idx];
+		return (h == 0 || h == hash) && key.equals(k);
+	}
+	
+	/**
+	 * Checks whether a value read from the given table has been frozen for
+	 * copying. Slots are only frozen once the next table exists, so that the
+	 * value object need not be touched as long as there is no next table. The
+	 * value must be read before calling this method.
+	 * @param t The table from which the value was read
+	 * @param value The value to check
+	 * @return True if the value has been frozen or already been copied to the
+	 * next table, otherwise false
+	 */
+	private static boolean isFrozen(Table t, Object value) {
+		return t.next != null && (value == MOVED || value instanceof Frozen);
+	}
+	
+	private static boolean isPresent(Object value) {
+		return value != null && value != TOMBSTONE;
+	}
+	
+	private static boolean matches(Object value, Object expected) {
+		if (expected == MATCH_ANY)
+			return true;
+		if (expected == MATCH_ABSENT)
+			return !isPresent(value);
+		if (expected == MATCH_PRESENT)
+			return isPresent(value);
+		if (expected == MATCH_NEVER_SET)
+			return value == null;
+		return isPresent(value) && (value == expected || value.equals(expected));
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		if (key == null)
+			throw new NullPointerException();
+		
+		int hash = hash(key);
+		Table t = root;
+		outer : while (true) {
+			int idx = hash & t.mask;
+			for (int probes = 0; probes <= t.mask; probes++) {
+				Object k = t.slots.get(idx << 1);
+				if (k == null)
+					return null;
+				if (k == MOVED_KEY) {
+					t = t.next;
+					continue outer;
+				}
+				if (isKeyAt(t, idx, k, key, hash)) {
+					Object v = t.slots.get((idx << 1) + 1);
+					if (isFrozen(t, v)) {
+						// There may be a newer value in the next table
+						if (copySlot(t, idx))
+							slotsCopied(t, 1);
+						t = t.next;
+						continue outer;
+					}
+					return isPresent(v) ? (V) v : null;
+				}
+				idx = (idx + 1) & t.mask;
+			}
+			
+			// The table is full and does not contain the key
+			t = t.next;
+			if (t == null)
+				return null;
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(K key, V value) {
+		checkValue(value);
+		return (V) putIfMatch(key, value, MATCH_ANY);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V putIfAbsent(K key, V value) {
+		checkValue(value);
+		return (V) putIfMatch(key, value, MATCH_ABSENT);
+	}
+	
+	/**
+	 * Puts the new key/value-pair if no mapping for the given key was in the
+	 * map before, otherwise it returns the existing mapping. This method does
+	 * not allocate any memory if the key is already in the map.
+	 * @param key The key to check and put if it is not already in the map
+	 * @param value The value to put
+	 * @return The old value if one was present in the map for the given key,
+	 * otherwise, the newly registered value
+	 */
+	public V putIfAbsentElseGet(K key, V value) {
+		V oldVal = putIfAbsent(key, value);
+		return oldVal == null ? value : oldVal;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key) {
+		return (V) putIfMatch(key, TOMBSTONE, MATCH_ANY);
+	}
+	
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (value == null)
+			return false;
+		Object oldVal = putIfMatch(key, TOMBSTONE, value);
+		return oldVal != null && (oldVal == value || oldVal.equals(value));
+	}
+	
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		checkValue(oldValue);
+		checkValue(newValue);
+		Object curVal = putIfMatch(key, newValue, oldValue);
+		return curVal != null && (curVal == oldValue || curVal.equals(oldValue));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public V replace(K key, V value) {
+		checkValue(value);
+		return (V) putIfMatch(key, value, MATCH_PRESENT);
+	}
+	
+	private static void checkValue(Object value) {
+		if (value == null)
+			throw new NullPointerException();
+	}
+	
+	/**
+	 * Changes the value for the given key if the current value matches the
+	 * expected one
+	 * @param key The key whose value to change
+	 * @param newValue The new value, or TOMBSTONE to remove the key
+	 * @param expected The expected current value or one of the special MATCH_*
+	 * values
+	 * @return The previous value if the value was changed, otherwise the
+	 * current value. Null if there is no value for the key.
+	 */
+	private Object putIfMatch(Object key, Object newValue, Object expected) {
+		if (key == null)
+			throw new NullPointerException();
+		return putIfMatch(root, key, hash(key), newValue, expected);
+	}
+	
+	private Object putIfMatch(Table t, Object key, int hash, Object newValue, Object expected) {
+		// Only insertions and copies need to claim a slot for a missing key
+		boolean mayInsert = expected == MATCH_NEVER_SET
+				|| (newValue != TOMBSTONE && (expected == MATCH_ANY || expected == MATCH_ABSENT));
+		
+		outer : while (true) {
+			int idx = hash & t.mask;
+			int probes = 0;
+			
+			// Find the slot of the key or claim a new one
+			while (true) {
+				int keyIdx = idx << 1;
+				Object k = t.slots.get(keyIdx);
+				if (k == null) {
+					if (!mayInsert)
+						return null;
+					Table next = t.next;
+					if (next == null && t.claimed >= t.threshold)
+						next = resize(t);
+					if (next != null) {
+						// Nobody may add the key to this table anymore, we
+						// must use the next one
+						if (t.slots.compareAndSet(keyIdx, null, MOVED_KEY))
+							slotsCopied(t, 1);
+						continue;
+					}
+					if (t.slots.compareAndSet(keyIdx, null, key)) {
+						if (t.hashes != null)
+							t.hashes[idx] = hash;
+						CLAIMED.incrementAndGet(t);
+						break;
+					}
+					continue;
+				}
+				if (k == MOVED_KEY) {
+					t = t.next;
+					continue outer;
+				}
+				if (isKeyAt(t, idx, k, key, hash))
+					break;
+				if (++probes > t.mask) {
+					// The table is full and does not contain the key
+					if (!mayInsert && t.next == null)
+						return null;
+					t = resize(t);
+					continue outer;
+				}
+				idx = (idx + 1) & t.mask;
+			}
+			
+			// We have a slot for the key, now change the value
+			int valIdx = (idx << 1) + 1;
+			while (true) {
+				Object v = t.slots.get(valIdx);
+				if (isFrozen(t, v)) {
+					if (copySlot(t, idx))
+						slotsCopied(t, 1);
+					t = t.next;
+					continue outer;
+				}
+				if (!matches(v, expected))
+					return isPresent(v) ? v : null;
+				if (t.slots.compareAndSet(valIdx, v, newValue)) {
+					// Copies do not change the number of mappings
+					if (expected != MATCH_NEVER_SET) {
+						if (!isPresent(v) && newValue != TOMBSTONE)
+							SIZE.incrementAndGet(this);
+						else if (isPresent(v) && newValue == TOMBSTONE)
+							SIZE.decrementAndGet(this);
+					}
+					return isPresent(v) ? v : null;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates the next table for the given one and copies all entries over.
+	 * If another thread has already created the next table, this method
+	 * returns immediately.
+	 * @param t The table to resize
+	 * @return The next table
+	 */
+	private Table resize(Table t) {
+		Table next = t.next;
+		if (next != null)
+			return next;
+		if (t.capacity() >= MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is too large");
+		
+		next = new Table(t.capacity() << 1, identity);
+		if (!NEXT.compareAndSet(t, null, next))
+			return t.next;
+		copyAll(t);
+		return next;
+	}
+	
+	/**
+	 * Copies the given slot to the next table. The slot is frozen first, so
+	 * that it can no longer be changed in the old table. Copying a slot is
+	 * idempotent, multiple threads may copy the same slot.
+	 * @param t The table that contains the slot
+	 * @param idx The index of the slot to copy
+	 * @return True if this call has finished copying the slot, false if the
+	 * slot had already been copied by another thread
+	 */
+	private boolean copySlot(Table t, int idx) {
+		int keyIdx = idx << 1;
+		Object k = t.slots.get(keyIdx);
+		while (k == null) {
+			if (t.slots.compareAndSet(keyIdx, null, MOVED_KEY))
+				return true;
+			k = t.slots.get(keyIdx);
+		}
+		if (k == MOVED_KEY)
+			return false;
+		
+		int valIdx = keyIdx + 1;
+		while (true) {
+			Object v = t.slots.get(valIdx);
+			if (v == MOVED)
+				return false;
+			if (v == null) {
+				// The value has never been set, the pending insertion will be
+				// retried on the next table
+				if (t.slots.compareAndSet(valIdx, null, MOVED))
+					return true;
+				continue;
+			}
+			
+			Frozen frozen;
+			if (v instanceof Frozen)
+				frozen = (Frozen) v;
+			else {
+				frozen = new Frozen(v);
+				if (!t.slots.compareAndSet(valIdx, v, frozen))
+					continue;
+			}
+			
+			// Tombstones are copied as well. Otherwise, a thread that copies
+			// the slot late could resurrect a removed value.
+			int hash = t.hashes == null ? 0 : t.hashes[idx];
+			putIfMatch(t.next, k, hash == 0 ? hash(k) : hash, frozen.value, MATCH_NEVER_SET);
+			return t.slots.compareAndSet(valIdx, frozen, MOVED);
+		}
+	}
+	
+	/**
+	 * Copies all slots of the given table to the next table
+	 * @param t The table to copy
+	 */
+	private void copyAll(Table t) {
+		int copied = 0;
+		for (int i = 0; i <= t.mask; i++)
+			if (copySlot(t, i))
+				copied++;
+		if (copied > 0)
+			slotsCopied(t, copied);
+	}
+	
+	/**
+	 * Records that slots of the given table have been copied and replaces the
+	 * root table once all of its slots have been copied
+	 * @param t The table in which the slots have been copied
+	 * @param count The number of slots that have been copied
+	 */
+	private void slotsCopied(Table t, int count) {
+		if (COPIED.addAndGet(t, count) < t.capacity())
+			return;
+		Table r = root;
+		while (r.next != null && r.copied >= r.capacity()) {
+			ROOT.compareAndSet(this, r, r.next);
+			r = root;
+		}
+	}
+	
+	/**
+	 * Gets the current table after helping to finish all pending copies
+	 * @return The newest table that is not being copied
+	 */
+	private Table currentTable() {
+		Table t = root;
+		Table next;
+		while ((next = t.next) != null) {
+			copyAll(t);
+			t = next;
+		}
+		return t;
+	}
+	
+	/**
+	 * Removes all mappings from this map. Updates that run concurrently with
+	 * this method may be lost.
+	 */
+	@Override
+	public void clear() {
+		root = new Table(initialCapacity, identity);
+		size = 0;
+	}
+	
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
+	}
+	
+	private class EntrySet extends AbstractSet<Entry<K, V>> {
+		
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			Object v = e.getKey() == null ? null : get(e.getKey());
+			return v != null && v.equals(e.getValue());
+		}
+		
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return e.getKey() != null && ConcurrentOpenHashMap.this.remove(e.getKey(), e.getValue());
+		}
+		
+		@Override
+		public int size() {
+			return ConcurrentOpenHashMap.this.size();
+		}
+		
+		@Override
+		public void clear() {
+			ConcurrentOpenHashMap.this.clear();
+		}
+		
+	}
+	
+	/**
+	 * Weakly consistent iterator over the entries of the map. Like the
+	 * iterators of {@link java.util.concurrent.ConcurrentHashMap}, it never
+	 * throws a {@link java.util.ConcurrentModificationException}, but may or
+	 * may not reflect changes made after it was created.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+		
+		private final Table table = currentTable();
+		private int idx = 0;
+		private Entry<K, V> next = null;
+		private Entry<K, V> last = null;
+		
+		private EntryIterator() {
+			advance();
+		}
+		
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			next = null;
+			while (next == null && idx <= table.mask) {
+				Object k = table.slots.get(idx << 1);
+				Object v = table.slots.get((idx << 1) + 1);
+				idx++;
+				if (k == null || k == MOVED_KEY)
+					continue;
+				if (isFrozen(table, v))
+					v = get(k);
+				if (isPresent(v))
+					next = new MapEntry((K) k, (V) v);
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		@Override
+		public Entry<K, V> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			last = next;
+			advance();
+			return last;
+		}
+		
+		@Override
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			ConcurrentOpenHashMap.this.remove(last.getKey());
+			last = null;
+		}
+		
+	}
+	
+	/**
+	 * Map entry that writes changes of the value through to the map
+	 */
+	private class MapEntry extends SimpleEntry<K, V> {
+		
+		private static final long serialVersionUID = -3358520939839364960L;
+		
+		private MapEntry(K key, V value) {
+			super(key, value);
+		}
+		
+		@Override
+		public V setValue(V value) {
+			checkValue(value);
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.collect;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Lock-free concurrent hash set based on a {@link ConcurrentOpenHashMap}.
+ * Unlike {@link ConcurrentHashSet}, it does not allocate an entry object per
+ * element.
+ * 
+ * @param <E> The type of the elements
+ */
+public class ConcurrentOpenHashSet<E> extends AbstractSet<E> implements Set<E> {
+	
+	private final ConcurrentOpenHashMap<E, E> delegate;
+	
+	/**
+	 * Creates a new, empty set that compares elements using equals()
+	 */
+	public ConcurrentOpenHashSet() {
+		this(false);
+	}
+	
+	/**
+	 * Creates a new, empty set
+	 * @param identity True if elements shall be compared by identity, false
+	 * if they shall be compared using equals()
+	 */
+	public ConcurrentOpenHashSet(boolean identity) {
+		this.delegate = new ConcurrentOpenHashMap<E, E>(identity);
+	}
+	
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return delegate.isEmpty();
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return delegate.containsKey(o);
+	}
+	
+	@Override
+	public Iterator<E> iterator() {
+		return delegate.keySet().iterator();
+	}
+	
+	@Override
+	public boolean add(E o) {
+		return delegate.putIfAbsent(o, o) == null;
+	}
+	
+	/**
+	 * Adds the given element if no equal element is in the set yet, otherwise
+	 * returns the existing element
+	 * @param o The element to add
+	 * @return The element that was already in the set, or the given element
+	 * if it has been added
+	 */
+	public E addIfAbsentElseGet(E o) {
+		return delegate.putIfAbsentElseGet(o, o);
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		return delegate.remove(o) != null;
+	}
+	
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+	
+}
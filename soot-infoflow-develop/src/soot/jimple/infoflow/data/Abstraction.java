@@ -372,7 +372,7 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * @return True if this object is locally equal to the given one, otherwise
 	 * false
 	 */
-	private boolean localEquals(Abstraction other) {
+	boolean localEquals(Abstraction other) {
 		// deliberately ignore prevAbs
 		if (sourceContext == null) {
 			if (other.sourceContext != null)
@@ -402,7 +402,18 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	public int hashCode() {
 		if (this.hashCode != 0)
 			return hashCode;
-
+		
+		this.hashCode = computeHashCode(accessPath);
+		return this.hashCode;
+	}
+	
+	/**
+	 * Computes the hash code that an abstraction with the same local state
+	 * as this one, but with the given access path would have
+	 * @param accessPath The access path to use
+	 * @return The hash code of an abstraction with the given access path
+	 */
+	int computeHashCode(AccessPath accessPath) {
 		final int prime = 31;
 		int result = 1;
 	
@@ -414,9 +425,7 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		result = prime * result + ((postdominators == null) ? 0 : postdominators.hashCode());
 		result = prime * result + (dependsOnCutAP ? 1231 : 1237);
 		result = prime * result + (isImplicit ? 1231 : 1237);
-		this.hashCode = result;
-		
-		return this.hashCode;
+		return result;
 	}
 	
 	/**
@@ -569,6 +578,21 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		this.currentStmt = currentStmt;
 	}
 	
+	/**
+	 * For internal use by memory accounting only. Gets the postdominators of
+	 * this abstraction without copying them.
+	 */
+	List<UnitContainer> getPostdominators() {
+		return this.postdominators;
+	}
+	
+	/**
+	 * For internal use by memory accounting only
+	 */
+	AtomicBitSet getPathFlags() {
+		return this.pathFlags;
+	}
+	
 	@Override
 	public void setCallingContext(Abstraction callingContext) {
 	}
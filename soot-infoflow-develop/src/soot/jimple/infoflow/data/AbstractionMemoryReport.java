@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import soot.SootMethod;
+import soot.jimple.Stmt;
+
+/**
+ * Memory statistics on the abstraction graphs kept alive by the data flow
+ * solvers, as sampled by the {@link AccountingMemoryManager}. All sizes are
+ * estimates for a 64-bit JVM with compressed object pointers. Since
+ * predecessor chains share common prefixes, the retained sizes per sample are
+ * upper bounds.
+ */
+public class AbstractionMemoryReport {
+	
+	/**
+	 * The number of abstractions for which we keep weak references in order to
+	 * estimate which fraction of all abstractions is still alive
+	 */
+	private static final int RESERVOIR_SIZE = 1024;
+	
+	/**
+	 * Statistics for a group of sampled abstractions, e.g., all abstractions
+	 * derived from the same source
+	 */
+	public static class MemoryStatistics {
+		
+		private long samples = 0;
+		private long chainDepth = 0;
+		private long neighbors = 0;
+		private long retainedBytes = 0;
+		
+		private void add(int chainDepth, int neighbors, long retainedBytes) {
+			this.samples++;
+			this.chainDepth += chainDepth;
+			this.neighbors += neighbors;
+			this.retainedBytes += retainedBytes;
+		}
+		
+		/**
+		 * Gets the number of abstractions that have been sampled
+		 * @return The number of sampled abstractions
+		 */
+		public long getSamples() {
+			return this.samples;
+		}
+		
+		/**
+		 * Gets the average length of the predecessor chains of the sampled
+		 * abstractions
+		 * @return The average predecessor chain depth
+		 */
+		public double getAverageChainDepth() {
+			return samples == 0 ? 0 : (double) chainDepth / samples;
+		}
+		
+		/**
+		 * Gets the average number of neighbors along the predecessor chains of
+		 * the sampled abstractions
+		 * @return The average number of neighbors per predecessor chain
+		 */
+		public double getAverageNeighbors() {
+			return samples == 0 ? 0 : (double) neighbors / samples;
+		}
+		
+		/**
+		 * Gets the average estimated number of bytes retained by the
+		 * predecessor chain of a sampled abstraction
+		 * @return The average estimated number of retained bytes
+		 */
+		public double getAverageRetainedBytes() {
+			return samples == 0 ? 0 : (double) retainedBytes / samples;
+		}
+		
+		/**
+		 * Gets the estimated number of bytes retained by the predecessor
+		 * chains of the sampled abstractions
+		 * @return The estimated number of retained bytes over all samples
+		 */
+		public long getRetainedBytes() {
+			return this.retainedBytes;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%d samples, avg. chain depth %.1f, avg. %.1f neighbors, "
+					+ "avg. %.0f bytes retained", samples, getAverageChainDepth(),
+					getAverageNeighbors(), getAverageRetainedBytes());
+		}
+		
+	}
+	
+	private final int sampleInterval;
+	private final MemoryStatistics total = new MemoryStatistics();
+	private final Map<Stmt, MemoryStatistics> sourceStatistics = new HashMap<>();
+	private final Map<SootMethod, MemoryStatistics> methodStatistics = new HashMap<>();
+	
+	private final List<WeakReference<Abstraction>> reservoir = new ArrayList<>(RESERVOIR_SIZE);
+	private final Random random = new Random(42);
+	
+	private long handledAbstractions = 0;
+	private long generatedAbstractions = 0;
+	private long reusedAbstractions = 0;
+	
+	/**
+	 * Creates a new instance of the {@link AbstractionMemoryReport} class
+	 * @param sampleInterval The number of handled abstractions between two
+	 * samples
+	 */
+	AbstractionMemoryReport(int sampleInterval) {
+		this.sampleInterval = sampleInterval;
+	}
+	
+	synchronized void addSample(Abstraction abs, Stmt source, SootMethod method,
+			int chainDepth, int neighbors, long retainedBytes) {
+		total.add(chainDepth, neighbors, retainedBytes);
+		if (source != null)
+			getOrCreate(sourceStatistics, source).add(chainDepth, neighbors, retainedBytes);
+		if (method != null)
+			getOrCreate(methodStatistics, method).add(chainDepth, neighbors, retainedBytes);
+		
+		// Reservoir sampling gives every sampled abstraction the same chance
+		// to be watched for liveness
+		if (reservoir.size() < RESERVOIR_SIZE)
+			reservoir.add(new WeakReference<Abstraction>(abs));
+		else {
+			long idx = (long) (random.nextDouble() * total.samples);
+			if (idx < RESERVOIR_SIZE)
+				reservoir.set((int) idx, new WeakReference<Abstraction>(abs));
+		}
+	}
+	
+	synchronized void setCounts(long handled, long generated, long reused) {
+		this.handledAbstractions = handled;
+		this.generatedAbstractions = generated;
+		this.reusedAbstractions = reused;
+	}
+	
+	private static <K> MemoryStatistics getOrCreate(Map<K, MemoryStatistics> map, K key) {
+		MemoryStatistics stats = map.get(key);
+		if (stats == null) {
+			stats = new MemoryStatistics();
+			map.put(key, stats);
+		}
+		return stats;
+	}
+	
+	/**
+	 * Gets the statistics over all sampled abstractions
+	 * @return The statistics over all sampled abstractions
+	 */
+	public synchronized MemoryStatistics getTotalStatistics() {
+		return total;
+	}
+	
+	/**
+	 * Gets the statistics of the sampled abstractions, grouped by the source
+	 * statement from which they were derived
+	 * @return The statistics per source statement
+	 */
+	public synchronized Map<Stmt, MemoryStatistics> getSourceStatistics() {
+		return new HashMap<>(sourceStatistics);
+	}
+	
+	/**
+	 * Gets the statistics of the sampled abstractions, grouped by the method
+	 * in which they were last propagated
+	 * @return The statistics per method
+	 */
+	public synchronized Map<SootMethod, MemoryStatistics> getMethodStatistics() {
+		return new HashMap<>(methodStatistics);
+	}
+	
+	/**
+	 * Gets the number of abstractions that have been handed to the memory
+	 * manager by the solvers
+	 * @return The number of handled abstractions
+	 */
+	public synchronized long getHandledAbstractions() {
+		return this.handledAbstractions;
+	}
+	
+	/**
+	 * Gets the number of new abstractions the flow functions have created
+	 * @return The number of generated abstractions
+	 */
+	public synchronized long getGeneratedAbstractions() {
+		return this.generatedAbstractions;
+	}
+	
+	/**
+	 * Gets the number of flow function outputs that were replaced with their
+	 * unchanged input abstractions
+	 * @return The number of reused abstractions
+	 */
+	public synchronized long getReusedAbstractions() {
+		return this.reusedAbstractions;
+	}
+	
+	/**
+	 * Estimates the number of abstractions that are still alive, based on
+	 * which fraction of the watched samples has not been garbage-collected yet
+	 * @return The estimated number of live abstractions
+	 */
+	public synchronized long getEstimatedLiveAbstractions() {
+		if (reservoir.isEmpty())
+			return 0;
+		int alive = 0;
+		for (WeakReference<Abstraction> ref : reservoir)
+			if (ref.get() != null)
+				alive++;
+		return (long) ((double) alive / reservoir.size() * handledAbstractions);
+	}
+	
+	/**
+	 * Estimates the number of bytes retained by all handled abstractions by
+	 * extrapolating from the samples
+	 * @return The estimated number of retained bytes
+	 */
+	public synchronized long getEstimatedRetainedBytes() {
+		return (long) (total.getAverageRetainedBytes() * getEstimatedLiveAbstractions());
+	}
+	
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Abstractions: %d handled, %d generated, %d reused, "
+				+ "approx. %d live, approx. %d KB retained (sampling every %d)%n",
+				handledAbstractions, generatedAbstractions, reusedAbstractions,
+				getEstimatedLiveAbstractions(), getEstimatedRetainedBytes() / 1000,
+				sampleInterval));
+		sb.append("Overall: ").append(total);
+		appendTop(sb, "source", sourceStatistics);
+		appendTop(sb, "method", methodStatistics);
+		return sb.toString();
+	}
+	
+	/**
+	 * Appends the groups with the highest retained memory to the given
+	 * string builder
+	 * @param sb The string builder to which to append the groups
+	 * @param kind The kind of grouping, i.e., "source" or "method"
+	 * @param statistics The statistics per group
+	 */
+	private static <K> void appendTop(StringBuilder sb, String kind, Map<K, MemoryStatistics> statistics) {
+		List<Entry<K, MemoryStatistics>> entries = new ArrayList<>(statistics.entrySet());
+		Collections.sort(entries, new Comparator<Entry<K, MemoryStatistics>>() {
+			
+			@Override
+			public int compare(Entry<K, MemoryStatistics> o1, Entry<K, MemoryStatistics> o2) {
+				return Long.compare(o2.getValue().getRetainedBytes(), o1.getValue().getRetainedBytes());
+			}
+			
+		});
+		for (int i = 0; i < Math.min(10, entries.size()); i++) {
+			Entry<K, MemoryStatistics> entry = entries.get(i);
+			sb.append(String.format("%nTop %s %s: %s", kind, entry.getKey(), entry.getValue()));
+		}
+	}
+	
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Class that collapses the predecessor chains of the abstractions that have
+ * reached a sink into compact {@link AbstractionPathSegment} objects. The
+ * chains are walked from the sinks towards the sources, and every run of
+ * intermediate abstractions is replaced as soon as it has been walked. A run
+ * ends at the first abstraction that carries information the path builders
+ * need for tracking calling contexts, i.e., neighbors, call sites or sources.
+ * Only these abstractions, the ones at the sinks and their neighbors are
+ * remembered during the compaction, the intermediate abstractions are not.
+ * 
+ * An intermediate abstraction that is the predecessor of more than one
+ * abstraction is copied into the path segment of each of its successors. The
+ * path builders thus see the same statements and access paths as on the
+ * original chains, and the abstraction can be released once all of its
+ * successors have been compacted.
+ * 
+ * The compaction must only be run once the data flow solvers have completed,
+ * because the solvers may still add neighbors to abstractions before.
+ */
+public class AbstractionPathCompactor {
+	
+	private final Set<Abstraction> visited = Sets.newIdentityHashSet();
+	
+	private int segments = 0;
+	private int replacedAbstractions = 0;
+	
+	/**
+	 * Compacts the predecessor chains of the given result abstractions
+	 * @param results The abstractions that have reached a sink
+	 */
+	public void compact(Set<AbstractionAtSink> results) {
+		List<Abstraction> worklist = new ArrayList<>();
+		for (AbstractionAtSink abs : results)
+			schedule(abs.getAbstraction(), worklist);
+		while (!worklist.isEmpty()) {
+			Abstraction abs = worklist.remove(worklist.size() - 1);
+			schedule(compactPredecessors(abs), worklist);
+			if (abs.getNeighbors() != null)
+				for (Abstraction nb : abs.getNeighbors())
+					schedule(nb, worklist);
+		}
+		visited.clear();
+	}
+	
+	private void schedule(Abstraction abs, List<Abstraction> worklist) {
+		if (abs != null && visited.add(abs))
+			worklist.add(abs);
+	}
+	
+	/**
+	 * Checks whether the given abstraction may be replaced by a path segment
+	 * @param abs The abstraction to check
+	 * @return True if the given abstraction is an intermediate abstraction
+	 * that can be collapsed, otherwise false
+	 */
+	private boolean isCollapsible(Abstraction abs) {
+		return abs.getPredecessor() != null
+				&& abs.getNeighbors() == null
+				&& abs.getCurrentStmt() != null
+				&& !abs.getCurrentStmt().containsInvokeExpr()
+				&& AbstractionPathSegment.isPlainAbstraction(abs);
+	}
+	
+	/**
+	 * Replaces the run of collapsible predecessors of the given abstraction
+	 * with a single path segment
+	 * @param abs The abstraction whose predecessors to compact
+	 * @return The abstraction at which the run ends, i.e., the predecessor of
+	 * the new path segment, or null if the chain ends with the run
+	 */
+	private Abstraction compactPredecessors(Abstraction abs) {
+		List<Abstraction> run = new ArrayList<>();
+		Abstraction curAbs = abs.getPredecessor();
+		while (curAbs != null && isCollapsible(curAbs)) {
+			run.add(curAbs);
+			curAbs = curAbs.getPredecessor();
+		}
+		
+		// A segment for a single abstraction would not save anything
+		if (run.size() < 2)
+			return curAbs;
+		
+		abs.setPredecessor(new AbstractionPathSegment(run, curAbs));
+		segments++;
+		replacedAbstractions += run.size();
+		return curAbs;
+	}
+	
+	/**
+	 * Gets the number of path segments that have been created
+	 * @return The number of path segments
+	 */
+	public int getSegmentCount() {
+		return this.segments;
+	}
+	
+	/**
+	 * Gets the number of abstractions that have been replaced with path
+	 * segments. Abstractions that are shared between several chains are
+	 * counted once for every segment that replaces them.
+	 * @return The number of replaced abstractions
+	 */
+	public int getReplacedAbstractionCount() {
+		return this.replacedAbstractions;
+	}
+	
+}
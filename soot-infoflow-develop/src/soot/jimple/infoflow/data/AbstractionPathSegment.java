@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import heros.solver.Pair;
+import soot.jimple.Stmt;
+
+/**
+ * Abstraction that replaces a run of intermediate abstractions in a
+ * predecessor chain once the data flow analysis has completed. It only keeps
+ * the statements and access paths that are needed for reporting the taint
+ * propagation path, so that the original abstractions can be released.
+ * 
+ * Only plain abstractions can be replaced, i.e., abstractions whose state is
+ * fully described by their access path. Two replaced abstractions are thus
+ * equal if and only if their access paths are equal. Note that a segment is
+ * never equal to a normal abstraction, so code that compares abstractions on
+ * a taint propagation path needs to compare the replaced abstractions
+ * individually.
+ */
+public class AbstractionPathSegment extends Abstraction {
+	
+	private final Stmt[] stmts;
+	private final AccessPath[] accessPaths;
+	private final boolean containsLoop;
+	
+	/**
+	 * Creates a new path segment
+	 * @param run The abstractions to replace, starting with the one closest to
+	 * the sink
+	 * @param predecessor The predecessor of the last abstraction in the run,
+	 * i.e., the new predecessor of the path segment
+	 */
+	AbstractionPathSegment(List<Abstraction> run, Abstraction predecessor) {
+		super(run.get(0).getAccessPath(), run.get(0));
+		setCurrentStmt(run.get(0).getCurrentStmt());
+		setPredecessor(predecessor);
+		
+		// Path builders prepend abstractions while walking back from the
+		// sink, so we store the segment in source-to-sink order
+		final int size = run.size();
+		this.stmts = new Stmt[size];
+		this.accessPaths = new AccessPath[size];
+		boolean loop = false;
+		Set<Pair<Stmt, AccessPath>> seen = new HashSet<>(size);
+		for (int i = 0; i < size; i++) {
+			Abstraction abs = run.get(size - i - 1);
+			this.stmts[i] = abs.getCurrentStmt();
+			this.accessPaths[i] = abs.getAccessPath();
+			if (!seen.add(new Pair<Stmt, AccessPath>(stmts[i], accessPaths[i])))
+				loop = true;
+		}
+		this.containsLoop = loop;
+	}
+	
+	/**
+	 * Checks whether the given abstraction can be replaced by a path segment
+	 * without losing any information other than its statement and access path
+	 * @param abs The abstraction to check
+	 * @return True if the given abstraction is a plain abstraction, otherwise
+	 * false
+	 */
+	static boolean isPlainAbstraction(Abstraction abs) {
+		return !(abs instanceof AbstractionPathSegment)
+				&& abs.getSourceContext() == null
+				&& abs.getCorrespondingCallSite() == null
+				&& abs.isAbstractionActive()
+				&& abs.getPostdominators() == null
+				&& !abs.getExceptionThrown()
+				&& !abs.isImplicit()
+				&& !abs.dependsOnCutAP();
+	}
+	
+	/**
+	 * Checks whether this segment replaces an abstraction that is equal to the
+	 * given abstraction and was propagated at the same statement. If the
+	 * given abstraction is a segment as well, all of its replaced abstractions
+	 * are checked.
+	 * @param abs The abstraction to look for
+	 * @return True if this segment replaces an equivalent abstraction,
+	 * otherwise false
+	 */
+	boolean replacesEquivalentOf(Abstraction abs) {
+		if (abs instanceof AbstractionPathSegment) {
+			AbstractionPathSegment other = (AbstractionPathSegment) abs;
+			for (int i = 0; i < other.stmts.length; i++)
+				if (replacesEquivalentOf(other.stmts[i], other.accessPaths[i]))
+					return true;
+			return false;
+		}
+		return isPlainAbstraction(abs)
+				&& replacesEquivalentOf(abs.getCurrentStmt(), abs.getAccessPath());
+	}
+	
+	private boolean replacesEquivalentOf(Stmt stmt, AccessPath ap) {
+		for (int i = 0; i < stmts.length; i++)
+			if (stmts[i] == stmt && accessPaths[i].equals(ap))
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Checks whether this segment replaces an abstraction that is equal to one
+	 * of the given abstractions. Other than
+	 * {@link #replacesEquivalentOf(Abstraction)}, this does not take the
+	 * statements into account.
+	 * @param abstractions The abstractions to look for
+	 * @return True if this segment replaces an abstraction that is equal to
+	 * one of the given abstractions, otherwise false
+	 */
+	boolean replacesAnyOf(Collection<Abstraction> abstractions) {
+		for (Abstraction abs : abstractions)
+			for (int i = 0; i < accessPaths.length; i++)
+				if (entryEquals(this, i, abs, 0))
+					return true;
+		return false;
+	}
+	
+	/**
+	 * Gets whether two of the abstractions replaced by this segment are equal
+	 * and were propagated at the same statement. Without compaction, the path
+	 * builders would have rejected such a path as a loop.
+	 * @return True if this segment contains a loop, otherwise false
+	 */
+	boolean containsLoop() {
+		return this.containsLoop;
+	}
+	
+	/**
+	 * Gets the number of abstractions the given entry on a taint propagation
+	 * path stands for
+	 * @param abs The entry on the taint propagation path
+	 * @return The number of replaced abstractions if the given entry is a path
+	 * segment, otherwise 1
+	 */
+	private static int entryCount(Abstraction abs) {
+		return abs instanceof AbstractionPathSegment
+				? ((AbstractionPathSegment) abs).accessPaths.length : 1;
+	}
+	
+	/**
+	 * Checks whether two abstractions on taint propagation paths are equal.
+	 * If one of the entries is a path segment, the replaced abstraction at the
+	 * given index is compared.
+	 * @param abs1 The first entry on a taint propagation path
+	 * @param index1 The index inside the first entry
+	 * @param abs2 The second entry on a taint propagation path
+	 * @param index2 The index inside the second entry
+	 * @return True if the two abstractions are equal, otherwise false
+	 */
+	private static boolean entryEquals(Abstraction abs1, int index1,
+			Abstraction abs2, int index2) {
+		if (!(abs1 instanceof AbstractionPathSegment)
+				&& !(abs2 instanceof AbstractionPathSegment))
+			return abs1.equals(abs2);
+		
+		AccessPath ap1 = abs1 instanceof AbstractionPathSegment
+				? ((AbstractionPathSegment) abs1).accessPaths[index1] : abs1.getAccessPath();
+		AccessPath ap2 = abs2 instanceof AbstractionPathSegment
+				? ((AbstractionPathSegment) abs2).accessPaths[index2] : abs2.getAccessPath();
+		if (ap1 == null ? ap2 != null : !ap1.equals(ap2))
+			return false;
+		return abs1.localEquals(abs2);
+	}
+	
+	/**
+	 * Checks whether two taint propagation paths are equal. Path segments are
+	 * compared as the sequences of abstractions they replace, so the result
+	 * does not depend on which parts of the paths have been compacted.
+	 * @param path1 The first taint propagation path
+	 * @param path2 The second taint propagation path
+	 * @return True if the two paths are equal, otherwise false
+	 */
+	static boolean pathEquals(List<Abstraction> path1, List<Abstraction> path2) {
+		int i1 = 0, index1 = 0;
+		int i2 = 0, index2 = 0;
+		while (i1 < path1.size() && i2 < path2.size()) {
+			Abstraction abs1 = path1.get(i1);
+			Abstraction abs2 = path2.get(i2);
+			if (!entryEquals(abs1, index1, abs2, index2))
+				return false;
+			
+			if (++index1 == entryCount(abs1)) {
+				i1++;
+				index1 = 0;
+			}
+			if (++index2 == entryCount(abs2)) {
+				i2++;
+				index2 = 0;
+			}
+		}
+		return i1 == path1.size() && i2 == path2.size();
+	}
+	
+	/**
+	 * Computes the hash code of a taint propagation path in a way that is
+	 * consistent with {@link #pathEquals(List, List)}
+	 * @param path The taint propagation path
+	 * @return The hash code of the given path
+	 */
+	static int pathHashCode(List<Abstraction> path) {
+		int result = 1;
+		for (Abstraction abs : path) {
+			if (abs instanceof AbstractionPathSegment) {
+				AbstractionPathSegment segment = (AbstractionPathSegment) abs;
+				for (AccessPath ap : segment.accessPaths)
+					result = 31 * result + segment.computeHashCode(ap);
+			}
+			else
+				result = 31 * result + abs.hashCode();
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the statements of the abstractions this segment replaces, in
+	 * source-to-sink order
+	 * @return The statements on this path segment
+	 */
+	public Stmt[] getStmts() {
+		return this.stmts;
+	}
+	
+	/**
+	 * Gets the access paths of the abstractions this segment replaces, in
+	 * source-to-sink order
+	 * @return The access paths on this path segment
+	 */
+	public AccessPath[] getAccessPaths() {
+		return this.accessPaths;
+	}
+	
+}
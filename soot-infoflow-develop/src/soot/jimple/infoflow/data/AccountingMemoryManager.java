@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG.UnitContainer;
+import soot.jimple.infoflow.solver.memory.IMemoryManager;
+
+/**
+ * Memory manager that samples the abstractions passing through another memory
+ * manager and records how much memory their predecessor chains keep alive.
+ * Only every n-th abstraction is inspected, so this manager can also be used
+ * in production runs.
+ */
+public class AccountingMemoryManager implements IMemoryManager<Abstraction, Unit> {
+	
+	/**
+	 * Estimated shallow sizes in bytes on a 64-bit JVM with compressed object
+	 * pointers
+	 */
+	private static final int ABSTRACTION_BYTES = 56;
+	private static final int NEIGHBOR_SET_BYTES = 336;
+	private static final int NEIGHBOR_ENTRY_BYTES = 24;
+	private static final int NEIGHBOR_SET_CAPACITY = 21;
+	private static final int POSTDOMINATOR_LIST_BYTES = 40;
+	private static final int POSTDOMINATOR_ENTRY_BYTES = 20;
+	private static final int PATH_FLAGS_BYTES = 56;
+	
+	/**
+	 * The maximum number of predecessors we follow for a single sample
+	 */
+	private static final int MAX_CHAIN_DEPTH = 100000;
+	
+	private final IMemoryManager<Abstraction, Unit> delegate;
+	private final IInfoflowCFG icfg;
+	private final int sampleInterval;
+	private final AbstractionMemoryReport report;
+	
+	private final AtomicLong handledCounter = new AtomicLong();
+	private final AtomicLong generatedCounter = new AtomicLong();
+	private final AtomicLong reusedCounter = new AtomicLong();
+	
+	/**
+	 * Creates a new instance of the {@link AccountingMemoryManager} class
+	 * @param delegate The memory manager that actually handles the
+	 * abstractions, or null if the abstractions shall be passed through
+	 * unchanged
+	 * @param icfg The interprocedural control flow graph used to group the
+	 * samples by method. If null, no per-method statistics are recorded.
+	 * @param sampleInterval The number of handled abstractions between two
+	 * samples
+	 */
+	public AccountingMemoryManager(IMemoryManager<Abstraction, Unit> delegate,
+			IInfoflowCFG icfg, int sampleInterval) {
+		if (sampleInterval <= 0)
+			throw new IllegalArgumentException("Sample interval must be positive");
+		this.delegate = delegate;
+		this.icfg = icfg;
+		this.sampleInterval = sampleInterval;
+		this.report = new AbstractionMemoryReport(sampleInterval);
+	}
+	
+	@Override
+	public Abstraction handleMemoryObject(Abstraction obj) {
+		Abstraction res = delegate == null ? obj : delegate.handleMemoryObject(obj);
+		if (res != null && handledCounter.incrementAndGet() % sampleInterval == 0)
+			sample(res);
+		return res;
+	}
+	
+	@Override
+	public Abstraction handleGeneratedMemoryObject(Abstraction input,
+			Abstraction output) {
+		Abstraction res = delegate == null ? output
+				: delegate.handleGeneratedMemoryObject(input, output);
+		if (res == input)
+			reusedCounter.incrementAndGet();
+		else
+			generatedCounter.incrementAndGet();
+		return res;
+	}
+	
+	@Override
+	public boolean isEssentialJoinPoint(Abstraction abs, Unit relatedCallSite) {
+		// Without a delegate, we behave like a solver without a memory
+		// manager
+		if (delegate == null)
+			return relatedCallSite != null && (icfg == null || icfg.isCallStmt(relatedCallSite));
+		return delegate.isEssentialJoinPoint(abs, relatedCallSite);
+	}
+	
+	/**
+	 * Walks the predecessor chain of the given abstraction and records its
+	 * depth, its neighbors and its estimated size
+	 * @param abs The abstraction to sample
+	 */
+	private void sample(Abstraction abs) {
+		int depth = 0;
+		int neighbors = 0;
+		long bytes = 0;
+		Stmt source = null;
+		Stmt lastStmt = null;
+		
+		Abstraction curAbs = abs;
+		while (curAbs != null && depth < MAX_CHAIN_DEPTH) {
+			depth++;
+			bytes += getShallowSize(curAbs);
+			
+			Set<Abstraction> nbs = curAbs.getNeighbors();
+			if (nbs != null) {
+				int nbSize = nbs.size();
+				neighbors += nbSize;
+				bytes += NEIGHBOR_SET_BYTES
+						+ Math.max(0, nbSize - NEIGHBOR_SET_CAPACITY) * NEIGHBOR_ENTRY_BYTES
+						+ nbSize * ABSTRACTION_BYTES;
+			}
+			
+			if (lastStmt == null)
+				lastStmt = curAbs.getCurrentStmt();
+			if (curAbs.getSourceContext() != null)
+				source = curAbs.getSourceContext().getStmt();
+			curAbs = curAbs.getPredecessor();
+		}
+		
+		SootMethod method = icfg != null && lastStmt != null ? icfg.getMethodOf(lastStmt) : null;
+		report.addSample(abs, source, method, depth, neighbors, bytes);
+	}
+	
+	/**
+	 * Estimates the size of the given abstraction, without its predecessors
+	 * and neighbors
+	 * @param abs The abstraction
+	 * @return The estimated size in bytes
+	 */
+	private static long getShallowSize(Abstraction abs) {
+		long bytes = ABSTRACTION_BYTES;
+		List<UnitContainer> postdominators = abs.getPostdominators();
+		if (postdominators != null)
+			bytes += POSTDOMINATOR_LIST_BYTES + postdominators.size() * POSTDOMINATOR_ENTRY_BYTES;
+		if (abs.getPathFlags() != null)
+			bytes += PATH_FLAGS_BYTES;
+		return bytes;
+	}
+	
+	/**
+	 * Gets the memory manager to which this manager delegates
+	 * @return The memory manager that actually handles the abstractions, or
+	 * null if the abstractions are passed through unchanged
+	 */
+	public IMemoryManager<Abstraction, Unit> getDelegate() {
+		return this.delegate;
+	}
+	
+	/**
+	 * Gets the memory statistics collected so far
+	 * @return The memory statistics collected so far
+	 */
+	public AbstractionMemoryReport getReport() {
+		report.setCounts(handledCounter.get(), generatedCounter.get(), reusedCounter.get());
+		return report;
+	}
+	
+}
@@ -78,7 +78,7 @@ public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>
 	private AtomicInteger reuseCounter = new AtomicInteger();
 	
 	private final boolean tracingEnabled;
-	private final PathDataErasureMode erasePathData;
+	private volatile PathDataErasureMode erasePathData;
 	private boolean useAbstractionCache = false;
 	
 	/**
@@ -167,6 +167,10 @@ public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>
 
 	@Override
 	public Abstraction handleMemoryObject(Abstraction obj) {
+		// The erasure mode may be degraded concurrently, so we need a stable
+		// view for this object
+		final PathDataErasureMode erasePathData = this.erasePathData;
+		
 		if (useAbstractionCache) {
 			// We check for a cached version of the complete abstraction
 			Abstraction cachedAbs = getCachedAbstraction(obj);
@@ -277,6 +281,24 @@ public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>
 	public void setUseAbstractionCache(boolean useAbstractionCache) {
 		this.useAbstractionCache = useAbstractionCache;
 	}
+	
+	/**
+	 * Gets which path tracking data is erased from the abstractions
+	 * @return The path data erasure mode of this memory manager
+	 */
+	public PathDataErasureMode getPathDataErasureMode() {
+		return this.erasePathData;
+	}
+	
+	/**
+	 * Changes which path tracking data is erased from the abstractions. This
+	 * may be done while the solvers are running and applies to all
+	 * abstractions handled afterwards.
+	 * @param erasePathData The new path data erasure mode
+	 */
+	public void setPathDataErasureMode(PathDataErasureMode erasePathData) {
+		this.erasePathData = erasePathData;
+	}
 
 	@Override
 	public boolean isEssentialJoinPoint(Abstraction abs, Unit relatedCallSite) {
@@ -1,6 +1,7 @@
 package soot.jimple.infoflow.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -37,7 +38,9 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 			return Collections.<Stmt>emptyList();
 		List<Stmt> stmtPath = new ArrayList<Stmt>(this.path.size());
 		for (Abstraction abs : this.path)
-			if (abs.getCurrentStmt() != null)
+			if (abs instanceof AbstractionPathSegment)
+				stmtPath.addAll(Arrays.asList(((AbstractionPathSegment) abs).getStmts()));
+			else if (abs.getCurrentStmt() != null)
 				stmtPath.add(abs.getCurrentStmt());
 		return stmtPath;
 	}
@@ -77,6 +80,11 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 		
 		SourceContextAndPath scap = null;
 		if (trackPath && abs.getCurrentStmt() != null) {
+			// A path segment may already contain a loop on its own
+			if (abs instanceof AbstractionPathSegment
+					&& ((AbstractionPathSegment) abs).containsLoop())
+				return null;
+			
 			// Do not add the very same abstraction over and over again. We clone
 			// the data object first to ensure a stable state.
 			scap = this.clone();
@@ -89,6 +97,9 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 					// abstraction, we don't got on with a neighbor
 					if (a.getNeighbors() != null && a.getNeighbors().contains(abs))
 						return null;
+					if (a.getNeighbors() != null && abs instanceof AbstractionPathSegment
+							&& ((AbstractionPathSegment) abs).replacesAnyOf(a.getNeighbors()))
+						return null;
 					
 					// If this is exactly the same abstraction as one we have seen
 					// before, we skip it. Otherwise, we would run through loops
@@ -97,6 +108,15 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 							&& a.getCurrentStmt() == abs.getCurrentStmt()
 							&& a.getCorrespondingCallSite() == abs.getCorrespondingCallSite())
 						return null;
+					
+					// Path segments replace multiple abstractions which we need
+					// to check individually
+					if (a instanceof AbstractionPathSegment
+							&& ((AbstractionPathSegment) a).replacesEquivalentOf(abs))
+						return null;
+					if (abs instanceof AbstractionPathSegment
+							&& ((AbstractionPathSegment) abs).replacesEquivalentOf(a))
+						return null;
 				}
 				
 				// We cannot leave the same method at two different sites
@@ -178,7 +198,12 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 			return false;
 			
 		if (!InfoflowConfiguration.getPathAgnosticResults()) {	
-			if (!this.path.equals(scap.path))
+			if (this.path == null) {
+				if (scap.path != null)
+					return false;
+			}
+			else if (scap.path == null
+					|| !AbstractionPathSegment.pathEquals(this.path, scap.path))
 				return false;
 		}
 		
@@ -191,7 +216,7 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 			return hashCode;
 		
 		synchronized(this) {
-			hashCode = (!InfoflowConfiguration.getPathAgnosticResults() ? 31 * (path == null ? 0 : path.hashCode()) : 0)
+			hashCode = (!InfoflowConfiguration.getPathAgnosticResults() ? 31 * (path == null ? 0 : AbstractionPathSegment.pathHashCode(path)) : 0)
 					+ 31 * (callStack == null ? 0 : callStack.hashCode())
 					+ 31 * super.hashCode();
 		}
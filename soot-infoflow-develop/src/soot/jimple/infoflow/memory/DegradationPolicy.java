@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowConfiguration.DegradationStep;
+import soot.jimple.infoflow.data.AccountingMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
+import soot.jimple.infoflow.solver.memory.IMemoryManager;
+
+/**
+ * Policy that lets the data flow analysis trade precision for finishing when
+ * it reaches its timeout or memory limit. The configured degradation steps
+ * are applied one after the other. Only when no step is left, the solvers
+ * need to be terminated. Every step that has been applied is recorded, so that
+ * it can be reported together with the results.
+ * 
+ * Degradation steps change the configuration object while the solvers are
+ * running. Call restore() once the data flow analysis has completed to get
+ * back the original configuration. The memory manager is not restored since
+ * it is specific to a single run.
+ */
+public class DegradationPolicy {
+	
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	private final InfoflowConfiguration config;
+	private final IMemoryManager<?, ?> memoryManager;
+	private final List<DegradationStep> steps;
+	private final List<String> appliedSteps = new ArrayList<>();
+	
+	private final int originalAccessPathLength;
+	private final boolean originalImplicitFlows;
+	
+	private int nextStep = 0;
+	
+	/**
+	 * Creates a new instance of the {@link DegradationPolicy} class
+	 * @param config The configuration of the running data flow analysis
+	 * @param memoryManager The memory manager used by the solvers
+	 */
+	public DegradationPolicy(InfoflowConfiguration config,
+			IMemoryManager<?, ?> memoryManager) {
+		this.config = config;
+		this.memoryManager = memoryManager instanceof AccountingMemoryManager
+				? ((AccountingMemoryManager) memoryManager).getDelegate() : memoryManager;
+		this.steps = new ArrayList<>(config.getDegradationSteps());
+		
+		this.originalAccessPathLength = config.getAccessPathLength();
+		this.originalImplicitFlows = config.getEnableImplicitFlows();
+	}
+	
+	/**
+	 * Applies the next degradation step that still has an effect on the data
+	 * flow analysis
+	 * @param reason The reason for degrading the analysis, e.g., the limit
+	 * that has been reached
+	 * @return The degradation step that was applied, or null if all steps have
+	 * been exhausted and the solvers must be terminated
+	 */
+	public synchronized DegradationStep degrade(String reason) {
+		while (nextStep < steps.size()) {
+			DegradationStep step = steps.get(nextStep++);
+			String description = apply(step);
+			if (description != null) {
+				logger.warn("{}, degrading the analysis: {}", reason, description);
+				appliedSteps.add(reason + ": " + description);
+				return step;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Applies the given degradation step
+	 * @param step The degradation step to apply
+	 * @return A human-readable description of the precision that was traded,
+	 * or null if the step had no effect
+	 */
+	private String apply(DegradationStep step) {
+		switch (step) {
+		case ReduceAccessPathLength:
+			int apLength = config.getAccessPathLength();
+			if (apLength <= 1)
+				return null;
+			config.setAccessPathLength(apLength / 2);
+			return "access path length reduced from " + apLength + " to " + (apLength / 2);
+		case ErasePathData:
+			if (!(memoryManager instanceof FlowDroidMemoryManager))
+				return null;
+			FlowDroidMemoryManager fdmm = (FlowDroidMemoryManager) memoryManager;
+			if (fdmm.getPathDataErasureMode() == PathDataErasureMode.EraseAll)
+				return null;
+			fdmm.setPathDataErasureMode(PathDataErasureMode.EraseAll);
+			return "path tracking data erased, paths may be incomplete";
+		case DisableImplicitFlows:
+			if (!config.getEnableImplicitFlows())
+				return null;
+			config.setEnableImplicitFlows(false);
+			return "implicit flow tracking disabled";
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets descriptions of all degradation steps that have been applied so
+	 * far, in the order of their application
+	 * @return The degradation steps that have been applied
+	 */
+	public synchronized List<String> getAppliedSteps() {
+		return new ArrayList<>(appliedSteps);
+	}
+	
+	/**
+	 * Gets the number of degradation steps that have not been applied yet.
+	 * Note that some of these steps might not have any effect anymore.
+	 * @return The number of remaining degradation steps
+	 */
+	public synchronized int getRemainingSteps() {
+		return steps.size() - nextStep;
+	}
+	
+	/**
+	 * Restores the original configuration that was changed by the degradation
+	 * steps
+	 */
+	public synchronized void restore() {
+		config.setAccessPathLength(originalAccessPathLength);
+		config.setEnableImplicitFlows(originalImplicitFlows);
+	}
+
+}
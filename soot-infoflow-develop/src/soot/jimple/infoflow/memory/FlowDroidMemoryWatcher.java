@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.jimple.infoflow.collect.ConcurrentHashSet;
+import soot.jimple.infoflow.data.AccountingMemoryManager;
 import soot.jimple.infoflow.memory.MemoryWarningSystem.OnMemoryThresholdReached;
 import soot.jimple.infoflow.results.InfoflowResults;
 
@@ -20,8 +21,27 @@ public class FlowDroidMemoryWatcher {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final MemoryWarningSystem warningSystem = new MemoryWarningSystem();
 	
+	/**
+	 * The fraction of the tenured pool at which the solvers are terminated
+	 */
+	private static final double TERMINATION_THRESHOLD = 0.9d;
+	/**
+	 * The distance between two warning thresholds at which the analysis is
+	 * degraded
+	 */
+	private static final double DEGRADATION_THRESHOLD_STEP = 0.05d;
+	/**
+	 * The default interval in milliseconds at which the memory accounting
+	 * statistics are logged
+	 */
+	private static final long DEFAULT_REPORT_INTERVAL = 60000;
+	
 	private final Set<IMemoryBoundedSolver> solvers = new ConcurrentHashSet<>();
 	private final InfoflowResults results;
+	private DegradationPolicy degradationPolicy = null;
+	private int degradationLevels = 0;
+	private volatile AccountingMemoryManager accountingManager = null;
+	private Thread reportThread = null;
 	
 	/**
 	 * Creates a new instance of the {@link FlowDroidMemoryWatcher} class
@@ -40,6 +60,14 @@ public class FlowDroidMemoryWatcher {
 			
 			@Override
 			public void onThresholdReached(long usedMemory, long maxMemory) {
+				// Record what is using up the memory before we react
+				logAccountingReport();
+				
+				// If we still have some room, we try to continue with a cheaper
+				// analysis and only warn again at the next threshold
+				if (degradeAnalysis())
+					return;
+				
 				// Add the incident to the result object
 				if (results != null)
 					results.addException("Memory threshold reached");
@@ -51,10 +79,115 @@ public class FlowDroidMemoryWatcher {
 			}
 		
 		});
-		MemoryWarningSystem.setWarningThreshold(0.9d);
+		MemoryWarningSystem.setWarningThreshold(TERMINATION_THRESHOLD);
 		this.results = res;
 	}
 	
+	/**
+	 * Sets the policy that shall be consulted before the solvers are
+	 * terminated. If a policy is given, the analysis is degraded at lower
+	 * warning thresholds, one step per threshold, before the solvers are
+	 * terminated at the usual threshold.
+	 * @param degradationPolicy The policy for degrading the analysis, or null
+	 * to terminate the solvers as soon as the memory threshold is reached
+	 */
+	public synchronized void setDegradationPolicy(DegradationPolicy degradationPolicy) {
+		this.degradationPolicy = degradationPolicy;
+		this.degradationLevels = degradationPolicy == null ? 0
+				: Math.min(degradationPolicy.getRemainingSteps(), 8);
+		MemoryWarningSystem.setWarningThreshold(TERMINATION_THRESHOLD
+				- degradationLevels * DEGRADATION_THRESHOLD_STEP);
+	}
+	
+	/**
+	 * Sets the memory manager whose statistics shall be logged while the
+	 * solvers are running. The statistics are logged once a minute and
+	 * whenever a memory threshold is reached.
+	 * @param accountingManager The memory manager that samples the
+	 * abstractions, or null to stop logging its statistics
+	 */
+	public void setAccountingManager(AccountingMemoryManager accountingManager) {
+		setAccountingManager(accountingManager, DEFAULT_REPORT_INTERVAL);
+	}
+	
+	/**
+	 * Sets the memory manager whose statistics shall be logged while the
+	 * solvers are running. The statistics are logged periodically and
+	 * whenever a memory threshold is reached.
+	 * @param accountingManager The memory manager that samples the
+	 * abstractions, or null to stop logging its statistics
+	 * @param reportInterval The interval in milliseconds at which to log the
+	 * statistics
+	 */
+	public synchronized void setAccountingManager(AccountingMemoryManager accountingManager,
+			final long reportInterval) {
+		if (reportInterval <= 0)
+			throw new IllegalArgumentException("Report interval must be positive");
+		stopReporting();
+		this.accountingManager = accountingManager;
+		if (accountingManager == null)
+			return;
+		
+		reportThread = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				try {
+					while (!Thread.currentThread().isInterrupted()) {
+						Thread.sleep(reportInterval);
+						logAccountingReport();
+					}
+				} catch (InterruptedException e) {
+					// We have been stopped
+				}
+			}
+			
+		}, "FlowDroid Memory Report");
+		reportThread.setDaemon(true);
+		reportThread.start();
+	}
+	
+	/**
+	 * Stops the thread that periodically logs the memory accounting
+	 * statistics
+	 */
+	private synchronized void stopReporting() {
+		if (reportThread != null) {
+			reportThread.interrupt();
+			reportThread = null;
+		}
+	}
+	
+	/**
+	 * Logs the statistics of the current accounting memory manager, if any
+	 */
+	private void logAccountingReport() {
+		AccountingMemoryManager manager = this.accountingManager;
+		if (manager != null)
+			logger.info("Abstraction memory accounting:\n{}", manager.getReport());
+	}
+	
+	/**
+	 * Applies the next degradation step and raises the warning threshold to
+	 * the next level
+	 * @return True if the memory warning has been handled by degrading the
+	 * analysis, false if the solvers must be terminated
+	 */
+	private synchronized boolean degradeAnalysis() {
+		if (degradationPolicy == null || degradationLevels <= 0)
+			return false;
+		
+		// If the policy has no more effective steps, we directly move on to
+		// the termination threshold
+		if (degradationPolicy.degrade("Memory threshold reached") == null)
+			degradationLevels = 0;
+		else
+			degradationLevels--;
+		MemoryWarningSystem.setWarningThreshold(TERMINATION_THRESHOLD
+				- degradationLevels * DEGRADATION_THRESHOLD_STEP);
+		return true;
+	}
+	
 	/**
 	 * Adds a solver that shall be terminated when the memory threshold is reached
 	 * @param solver A solver that shall be terminated when the memory threshold
@@ -87,6 +220,8 @@ public class FlowDroidMemoryWatcher {
 	 */
 	public void close() {
 		clearSolvers();
+		stopReporting();
+		accountingManager = null;
 		warningSystem.close();
 	}
 
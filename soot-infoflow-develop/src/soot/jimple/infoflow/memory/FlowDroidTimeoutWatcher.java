@@ -44,6 +44,8 @@ public class FlowDroidTimeoutWatcher implements IMemoryBoundedSolverStatusNotifi
 	private final InfoflowResults results;
 	private final Map<IMemoryBoundedSolver, SolverState> solvers = new ConcurrentHashMap<>();
 	private boolean stopped = false;
+	private DegradationPolicy degradationPolicy = null;
+	private long gracePeriod = 0;
 	
 	/**
 	 * Creates a new instance of the {@link FlowDroidTimeoutWatcher} class
@@ -74,6 +76,20 @@ public class FlowDroidTimeoutWatcher implements IMemoryBoundedSolverStatusNotifi
 		return this.timeout;
 	}
 	
+	/**
+	 * Sets the policy that shall be consulted before the solvers are
+	 * terminated. As long as the policy can degrade the analysis, the timeout
+	 * is extended by the given grace period instead of stopping the solvers.
+	 * @param degradationPolicy The policy for degrading the analysis, or null
+	 * to terminate the solvers as soon as the timeout is reached
+	 * @param gracePeriod The time in seconds by which the timeout is extended
+	 * after each degradation step
+	 */
+	public void setDegradationPolicy(DegradationPolicy degradationPolicy, long gracePeriod) {
+		this.degradationPolicy = degradationPolicy;
+		this.gracePeriod = gracePeriod;
+	}
+	
 	/**
 	 * Adds a solver that shall be terminated when the timeout is reached
 	 * @param solver A solver that shall be terminated when the timeout is
@@ -97,8 +113,18 @@ public class FlowDroidTimeoutWatcher implements IMemoryBoundedSolverStatusNotifi
 			@Override
 			public void run() {
 				// Sleep until we have reached the timeout
+				long deadline = startTime + 1000 * timeout;
 				boolean allTerminated = true;
-				while (!stopped && (System.currentTimeMillis() - startTime) < 1000 * timeout) {
+				while (!stopped) {
+					// Before we kill anything, we try to continue with a
+					// cheaper analysis
+					if (System.currentTimeMillis() >= deadline) {
+						if (degradationPolicy == null
+								|| degradationPolicy.degrade("Timeout reached") == null)
+							break;
+						deadline = System.currentTimeMillis() + 1000 * gracePeriod;
+					}
+					
 					// Check whether all solvers in our watchlist have finished
 					// their work
 					allTerminated = true;
@@ -10,6 +10,9 @@
  ******************************************************************************/
 package soot.jimple.infoflow.problems;
 
+import heros.FlowFunctionProfiler;
+import heros.FlowFunctions;
+
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -32,6 +35,7 @@ import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.nativ.INativeCallHandler;
 import soot.jimple.infoflow.solver.IInfoflowSolver;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.functions.SolverFlowFunctionProfiler;
 import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
 import soot.jimple.infoflow.util.SystemClassHandler;
 import soot.jimple.toolkits.ide.DefaultJimpleIFDSTabulationProblem;
@@ -59,6 +63,9 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 	protected IInfoflowSolver solver = null;
 	
 	protected TaintPropagationHandler taintPropagationHandler = null;
+	
+	private int flowFunctionSampleInterval = 0;
+	private FlowFunctionProfiler<Unit, Abstraction, SootMethod> flowFunctionProfiler = null;
 
 	private MyConcurrentHashMap<Unit, Set<Unit>> activationUnitsToCallSites =
 			new MyConcurrentHashMap<Unit, Set<Unit>>();
@@ -104,6 +111,38 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 		this.ncHandler = handler;
 	}
 	
+	/**
+	 * Enables profiling of the flow functions of this problem. This must be
+	 * called before the solver is created.
+	 * @param sampleInterval Every how many applications of a flow function
+	 * one is measured, or 0 to disable profiling
+	 */
+	public void setFlowFunctionProfiling(int sampleInterval) {
+		this.flowFunctionSampleInterval = sampleInterval;
+	}
+	
+	/**
+	 * Gets the profiler that measures the flow functions of this problem
+	 * @return The flow function profiler, or null if profiling is not enabled
+	 */
+	public FlowFunctionProfiler<Unit, Abstraction, SootMethod> getFlowFunctionProfiler() {
+		return this.flowFunctionProfiler;
+	}
+	
+	/**
+	 * Wraps the given flow functions into a profiler if profiling is enabled
+	 * @param flowFunctions The flow functions of this problem
+	 * @return The flow functions to hand out to the solver
+	 */
+	protected FlowFunctions<Unit, Abstraction, SootMethod> profile(
+			FlowFunctions<Unit, Abstraction, SootMethod> flowFunctions) {
+		if (flowFunctionSampleInterval <= 0)
+			return flowFunctions;
+		flowFunctionProfiler = new SolverFlowFunctionProfiler(flowFunctions,
+				interproceduralCFG(), flowFunctionSampleInterval);
+		return flowFunctionProfiler;
+	}
+	
 	/**
 	 * Gets whether the given method is an entry point, i.e. one of the initial
 	 * seeds belongs to the given method
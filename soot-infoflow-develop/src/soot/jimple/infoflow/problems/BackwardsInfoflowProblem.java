@@ -76,7 +76,7 @@ public class BackwardsInfoflowProblem extends AbstractInfoflowProblem {
 	
 	@Override
 	public FlowFunctions<Unit, Abstraction, SootMethod> createFlowFunctionsFactory() {
-		return new FlowFunctions<Unit, Abstraction, SootMethod>() {
+		return profile(new FlowFunctions<Unit, Abstraction, SootMethod>() {
 			
 			private Abstraction checkAbstraction(Abstraction abs) {
 				if (abs == null)
@@ -852,7 +852,7 @@ public class BackwardsInfoflowProblem extends AbstractInfoflowProblem {
 				};
 			}
 			
-		};
+		});
 	}
 	
 }
@@ -29,6 +29,7 @@ import soot.SootMethod;
 import soot.Type;
 import soot.Unit;
 import soot.Value;
+import soot.VoidType;
 import soot.jimple.ArrayRef;
 import soot.jimple.AssignStmt;
 import soot.jimple.CastExpr;
@@ -86,7 +87,7 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 	
 	@Override
 	public FlowFunctions<Unit, Abstraction, SootMethod> createFlowFunctionsFactory() {
-		return new FlowFunctions<Unit, Abstraction, SootMethod>() {
+		return profile(new FlowFunctions<Unit, Abstraction, SootMethod>() {
 			
 			/**
 			 * Abstract base class for all normal flow functions. This is to
@@ -210,6 +211,27 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				return false;
 			}
 			
+			/**
+			 * Checks whether all callees of the given call are void methods
+			 * without observable effects. Nothing that happens inside such a
+			 * callee can reach a sink or be seen by the caller, so taints are
+			 * passed over the call instead of into the callees.
+			 * @param call The call site to check
+			 * @return True if taints need not be propagated into the callees
+			 * of the given call, otherwise false
+			 */
+			private boolean isTransparentCall(Unit call) {
+				Collection<SootMethod> callees = interproceduralCFG().getCalleesOfCallAt(call);
+				if (callees.isEmpty())
+					return false;
+				for (SootMethod callee : callees)
+					if (!callee.isConcrete()
+							|| callee.getReturnType() != VoidType.v()
+							|| interproceduralCFG().hasObservableEffects(callee))
+						return false;
+				return true;
+			}
+			
 			private Set<Abstraction> createNewTaintOnAssignment(
 					final AssignStmt assignStmt,
 					final Value[] rightVals,
@@ -424,6 +446,8 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				// than one might think
 				final Local thisLocal = dest.isStatic() ? null : dest.getActiveBody().getThisLocal();
 				
+				final boolean transparentCall = isTransparentCall(src);
+				
 				return new SolverCallFlowFunction() {
 
 					@Override
@@ -452,6 +476,11 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 						if (isExcluded(dest))
 							return Collections.emptySet();
 						
+						// The taint cannot have any effect inside the callee,
+						// so we pass it over the call instead
+						if (transparentCall)
+							return Collections.emptySet();
+						
 						// Notify the handler if we have one
 						if (taintPropagationHandler != null)
 							taintPropagationHandler.notifyFlowIn(stmt, source, interproceduralCFG(),
@@ -788,6 +817,7 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				
 				final SootMethod callee = invExpr.getMethod();
 				final boolean hasValidCallees = hasValidCallees(call);
+				final boolean transparentCall = isTransparentCall(call);
 				
 				return new SolverCallToReturnFlowFunction() {
 
@@ -903,6 +933,11 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 									source.getAccessPath().getFirstField()))
 								passOn = true;
 						}
+						
+						// We do not propagate taints into callees without
+						// observable effects, so we must pass them on
+						if (transparentCall && !killSource.value)
+							passOn = true;
 												
 						// Implicit taints are always passed over conditionally called methods
 						passOn |= source.getTopPostdominator() != null || source.getAccessPath().isEmpty();
@@ -1046,7 +1081,7 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				}
 				return res;
 			}
-		};
+		});
 	}
 
 	@Override
@@ -1060,5 +1095,13 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
     public TaintPropagationResults getResults(){
    		return this.results;
 	}
+	
+	/**
+	 * Gets the manager that applies the taint propagation rules
+	 * @return The manager for the taint propagation rules
+	 */
+	public PropagationRuleManager getPropagationRules() {
+		return this.propagationRules;
+	}
         
 }
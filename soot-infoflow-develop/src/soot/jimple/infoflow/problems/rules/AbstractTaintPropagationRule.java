@@ -1,8 +1,10 @@
 package soot.jimple.infoflow.problems.rules;
 
+import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 
 /**
@@ -44,4 +46,10 @@ public abstract class AbstractTaintPropagationRule implements
 		return this.results;
 	}
 	
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		// Without further knowledge, we need to apply the rule everywhere
+		return true;
+	}
+	
 }
@@ -19,6 +19,7 @@ import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -35,6 +36,18 @@ public class ArrayPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		if (type != FlowFunctionType.NormalFlowFunction || !(stmt instanceof AssignStmt))
+			return false;
+		
+		final Value rightVal = ((AssignStmt) stmt).getRightOp();
+		return rightVal instanceof LengthExpr
+				|| rightVal instanceof ArrayRef
+				|| (rightVal instanceof NewArrayExpr
+						&& getManager().getConfig().getEnableArraySizeTainting());
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
@@ -12,6 +12,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -28,6 +29,20 @@ public class ExceptionPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		switch (type) {
+			case NormalFlowFunction:
+				return stmt instanceof ThrowStmt
+						|| (stmt instanceof DefinitionStmt
+								&& ((DefinitionStmt) stmt).getRightOp() instanceof CaughtExceptionRef);
+			case ReturnFlowFunction:
+				return stmt instanceof ThrowStmt;
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
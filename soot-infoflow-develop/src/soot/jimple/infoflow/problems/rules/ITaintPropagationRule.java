@@ -5,6 +5,7 @@ import java.util.Collection;
 import soot.SootMethod;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -80,4 +81,18 @@ public interface ITaintPropagationRule {
 			Stmt stmt, Stmt retSite, Stmt callSite,
 			ByReferenceBoolean killAll);
 	
+	/**
+	 * Checks whether this rule can have an effect when propagating taints
+	 * over the given statement with the given type of flow function. The
+	 * rule manager only applies a rule to the statements for which it has
+	 * declared itself responsible. The answer must not depend on the incoming
+	 * taint and must be conservative.
+	 * @param stmt The statement to check. For return flows, this is the exit
+	 * statement of the callee.
+	 * @param type The type of flow function
+	 * @return True if the rule must be applied to the given statement,
+	 * otherwise false
+	 */
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type);
+	
 }
@@ -58,6 +58,11 @@ public class ImplicitPropagtionRule extends AbstractTaintPropagationRule {
 		if (leavesConditionalBranch(stmt, source, killAll))
 			return null;
 		
+		// Implicit flows may have been disabled while the analysis is
+		// running. In that case, we no longer open new conditional taints.
+		if (!getManager().getConfig().getEnableImplicitFlows())
+			return null;
+		
 		// We only consider active abstractions
 		if (!source.isAbstractionActive())
 			return null;
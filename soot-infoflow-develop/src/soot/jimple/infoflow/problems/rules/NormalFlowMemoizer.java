@@ -0,0 +1,376 @@
+package soot.jimple.infoflow.problems.rules;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import soot.Local;
+import soot.PrimType;
+import soot.Value;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.LengthExpr;
+import soot.jimple.NewArrayExpr;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.util.ByReferenceBoolean;
+
+/**
+ * Cache for the outcomes of the propagation rules in the normal flow
+ * function. Abstractions that only differ in their context or predecessor
+ * lead to structurally identical rule outputs at the same statement. We
+ * therefore record the outgoing access paths per statement, successor,
+ * incoming access path and activation state, and re-derive the outgoing
+ * abstractions from the actual incoming abstraction on a cache hit.
+ *
+ * Statements at which a rule has side effects, i.e., records a result or
+ * triggers an alias search for the current context, are never memoized.
+ * The same holds for rule outputs that cannot be re-derived from the
+ * incoming abstraction by a plain access path change, e.g., conditional
+ * or exceptional taints.
+ */
+public class NormalFlowMemoizer {
+	
+	/**
+	 * Outcome that is stored for keys whose rule outputs cannot be replayed
+	 */
+	private static final Outcome NOT_MEMOIZABLE = new Outcome(false, false, null);
+	
+	/**
+	 * Outcome that is stored for keys at which the rules kill all taints
+	 */
+	private static final Outcome KILL_ALL = new Outcome(true, false, null);
+	
+	private final InfoflowManager manager;
+	private final Abstraction zeroValue;
+	private final Cache<Key, Outcome> outcomes;
+	private final ConcurrentHashMap<Stmt, Boolean> memoizableStmts =
+			new ConcurrentHashMap<Stmt, Boolean>();
+	
+	private volatile int accessPathLength;
+	private volatile boolean implicitFlows;
+	
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong bypassed = new AtomicLong();
+	
+	/**
+	 * Key of a memoized rule outcome
+	 */
+	public static class Key {
+		
+		private final Stmt stmt;
+		private final Stmt destStmt;
+		private final AccessPath accessPath;
+		private final boolean active;
+		private final int hashCode;
+		
+		private Key(Stmt stmt, Stmt destStmt, AccessPath accessPath, boolean active) {
+			this.stmt = stmt;
+			this.destStmt = destStmt;
+			this.accessPath = accessPath;
+			this.active = active;
+			
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + System.identityHashCode(stmt);
+			result = prime * result + System.identityHashCode(destStmt);
+			result = prime * result + accessPath.hashCode();
+			result = prime * result + (active ? 1231 : 1237);
+			this.hashCode = result;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return hashCode == other.hashCode
+					&& stmt == other.stmt
+					&& destStmt == other.destStmt
+					&& active == other.active
+					&& accessPath.equals(other.accessPath);
+		}
+	
+	}
+	
+	/**
+	 * Memoized outcome of the propagation rules for one key
+	 */
+	private static class Outcome {
+		
+		private final boolean killAll;
+		private final boolean killSource;
+		private final AccessPath[] derivedPaths;
+		
+		private Outcome(boolean killAll, boolean killSource, AccessPath[] derivedPaths) {
+			this.killAll = killAll;
+			this.killSource = killSource;
+			this.derivedPaths = derivedPaths;
+		}
+	
+	}
+	
+	/**
+	 * Creates a new instance of the NormalFlowMemoizer class
+	 * @param manager The data flow manager for interacting with the solver
+	 * @param zeroValue The zero abstraction of the data flow problem
+	 * @param cacheSize The maximum number of rule outcomes to cache
+	 */
+	public NormalFlowMemoizer(InfoflowManager manager, Abstraction zeroValue,
+			int cacheSize) {
+		this.manager = manager;
+		this.zeroValue = zeroValue;
+		this.outcomes = CacheBuilder.newBuilder().maximumSize(cacheSize)
+				.<Key, Outcome>build();
+		
+		InfoflowConfiguration config = manager.getConfig();
+		this.accessPathLength = config.getAccessPathLength();
+		this.implicitFlows = config.getEnableImplicitFlows();
+	}
+	
+	/**
+	 * Gets the key under which the outcome of the rules for the given
+	 * abstraction at the given statement is memoized
+	 * @param source The incoming abstraction
+	 * @param stmt The statement to which the rules are applied
+	 * @param destStmt The successor of the given statement
+	 * @return The key for the memoized rule outcome, or null if the outcome
+	 * for the given abstraction at the given statement cannot be memoized
+	 */
+	public Key getKey(Abstraction source, Stmt stmt, Stmt destStmt) {
+		if (source == zeroValue || !isMemoizable(source, stmt)) {
+			bypassed.incrementAndGet();
+			return null;
+		}
+		return new Key(stmt, destStmt, source.getAccessPath(),
+				source.isAbstractionActive());
+	}
+	
+	/**
+	 * Checks whether the rule outcome for the given abstraction at the given
+	 * statement only depends on the key under which we memoize it
+	 * @param source The incoming abstraction
+	 * @param stmt The statement to which the rules are applied
+	 * @return True if the rule outcome can be memoized, otherwise false
+	 */
+	private boolean isMemoizable(Abstraction source, Stmt stmt) {
+		// The implicit flow rule and the exception rule look at the
+		// conditional and exceptional state of the abstraction
+		if (source.getTopPostdominator() != null || source.getExceptionThrown())
+			return false;
+		
+		// The strong update rule looks at whether the abstraction was
+		// created or activated at the current statement
+		if (source.getCurrentStmt() == stmt)
+			return false;
+		Abstraction pred = source.getPredecessor();
+		if (pred != null && pred.getActivationUnit() == stmt)
+			return false;
+		
+		Boolean memoizable = memoizableStmts.get(stmt);
+		if (memoizable == null) {
+			memoizable = isMemoizableStmt(stmt);
+			memoizableStmts.put(stmt, memoizable);
+		}
+		return memoizable;
+	}
+	
+	/**
+	 * Checks whether no propagation rule has side effects at the given
+	 * statement
+	 * @param stmt The statement to check
+	 * @return True if the rules are free of side effects at the given
+	 * statement, otherwise false
+	 */
+	private boolean isMemoizableStmt(Stmt stmt) {
+		// The sink rule records results
+		if (manager.getSourceSinkManager() != null
+				&& manager.getSourceSinkManager().isSink(stmt, manager, null))
+			return false;
+		
+		// The array rule computes aliases for the current context unless
+		// the new taint is a primitive local
+		if (stmt instanceof AssignStmt) {
+			AssignStmt assignStmt = (AssignStmt) stmt;
+			Value rightOp = assignStmt.getRightOp();
+			Value leftOp = assignStmt.getLeftOp();
+			if ((rightOp instanceof LengthExpr
+					|| rightOp instanceof ArrayRef
+					|| rightOp instanceof NewArrayExpr)
+					&& !(leftOp instanceof Local && leftOp.getType() instanceof PrimType))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Replays the memoized rule outcome for the given key
+	 * @param key The key of the memoized outcome
+	 * @param source The incoming abstraction from which to derive the
+	 * outgoing abstractions
+	 * @param stmt The statement to which the rules are applied
+	 * @param killSource Outgoing value that receives whether the incoming
+	 * abstraction shall be killed
+	 * @param killAll Outgoing value that receives whether all taints shall
+	 * be killed
+	 * @param res The set that receives the outgoing abstractions
+	 * @return True if a memoized outcome was replayed, false if the rules
+	 * need to be applied
+	 */
+	public boolean replay(Key key, Abstraction source, Stmt stmt,
+			ByReferenceBoolean killSource, ByReferenceBoolean killAll,
+			Set<Abstraction> res) {
+		checkConfiguration();
+		
+		Outcome outcome = outcomes.getIfPresent(key);
+		if (outcome == null) {
+			misses.incrementAndGet();
+			return false;
+		}
+		if (outcome == NOT_MEMOIZABLE) {
+			rejected.incrementAndGet();
+			return false;
+		}
+		hits.incrementAndGet();
+		
+		if (outcome.killAll) {
+			killAll.value = true;
+			return true;
+		}
+		killSource.value |= outcome.killSource;
+		if (outcome.derivedPaths != null)
+			for (AccessPath ap : outcome.derivedPaths)
+				res.add(source.deriveNewAbstraction(ap, stmt));
+		return true;
+	}
+	
+	/**
+	 * Records the outcome of the propagation rules for the given key
+	 * @param key The key under which to record the outcome
+	 * @param source The incoming abstraction to which the rules were applied
+	 * @param stmt The statement to which the rules were applied
+	 * @param ruleOut The abstractions produced by the rules, or null if the
+	 * rules did not produce any abstractions
+	 * @param killSource True if the rules have killed the incoming
+	 * abstraction, otherwise false
+	 * @param killAll True if the rules have killed all taints, otherwise
+	 * false
+	 */
+	public void record(Key key, Abstraction source, Stmt stmt,
+			Collection<Abstraction> ruleOut, boolean killSource, boolean killAll) {
+		if (killAll) {
+			outcomes.put(key, KILL_ALL);
+			return;
+		}
+		
+		// We can only replay outputs that are the incoming abstraction with
+		// a different access path
+		Set<AccessPath> derivedPaths = null;
+		if (ruleOut != null)
+			for (Abstraction abs : ruleOut) {
+				if (abs == source) {
+					killSource = false;
+					continue;
+				}
+				
+				Abstraction derived = source.deriveNewAbstraction(abs.getAccessPath(), stmt);
+				if (derived == null || !derived.equals(abs)) {
+					outcomes.put(key, NOT_MEMOIZABLE);
+					return;
+				}
+				if (derivedPaths == null)
+					derivedPaths = new HashSet<AccessPath>();
+				derivedPaths.add(abs.getAccessPath());
+			}
+		outcomes.put(key, new Outcome(false, killSource, derivedPaths == null ? null
+				: derivedPaths.toArray(new AccessPath[derivedPaths.size()])));
+	}
+	
+	/**
+	 * Drops all memoized outcomes if the configuration options that the rules
+	 * depend on have been changed while the analysis is running, e.g., when
+	 * the analysis was degraded
+	 */
+	private void checkConfiguration() {
+		InfoflowConfiguration config = manager.getConfig();
+		if (config.getAccessPathLength() != accessPathLength
+				|| config.getEnableImplicitFlows() != implicitFlows) {
+			synchronized (this) {
+				if (config.getAccessPathLength() != accessPathLength
+						|| config.getEnableImplicitFlows() != implicitFlows) {
+					outcomes.invalidateAll();
+					accessPathLength = config.getAccessPathLength();
+					implicitFlows = config.getEnableImplicitFlows();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of rule applications that were answered from the cache
+	 * @return The number of cache hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * Gets the number of memoizable rule applications for which no outcome
+	 * was cached yet
+	 * @return The number of cache misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * Gets the number of rule applications whose outcome was found to be not
+	 * replayable
+	 * @return The number of rule applications with rejected outcomes
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Gets the number of rule applications that bypassed the cache since the
+	 * statement or the abstraction is not memoizable
+	 * @return The number of rule applications that bypassed the cache
+	 */
+	public long getBypassed() {
+		return bypassed.get();
+	}
+	
+	/**
+	 * Gets the ratio of cache hits to all memoizable rule applications
+	 * @return The hit rate of the cache between 0 and 1
+	 */
+	public double getHitRate() {
+		long lookups = hits.get() + misses.get() + rejected.get();
+		return lookups == 0 ? 0 : (double) hits.get() / lookups;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d hits, %d misses, %d rejected, %d bypassed (hit rate %.1f%%)",
+				hits.get(), misses.get(), rejected.get(), bypassed.get(), getHitRate() * 100);
+	}
+
+}
@@ -4,13 +4,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import soot.SootMethod;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -27,6 +31,24 @@ public class PropagationRuleManager {
 	protected final Abstraction zeroValue;
 	protected final TaintPropagationResults results;
 	private final ITaintPropagationRule[] rules;
+	private final NormalFlowMemoizer normalFlowMemoizer;
+	
+	private final ConcurrentHashMap<Stmt, ITaintPropagationRule[][]> ruleIndex =
+			new ConcurrentHashMap<>();
+	
+	// Every thread counts its own rule invocations, so that the hot path does
+	// not contend on shared counters
+	private final Queue<long[]> ruleInvocationCounters = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<long[]> threadRuleInvocations = new ThreadLocal<long[]>() {
+		
+		@Override
+		protected long[] initialValue() {
+			long[] counters = new long[2];
+			ruleInvocationCounters.add(counters);
+			return counters;
+		}
+		
+	};
 	
 	public PropagationRuleManager(InfoflowManager manager, Aliasing aliasing,
 			Abstraction zeroValue, TaintPropagationResults results) {
@@ -53,6 +75,53 @@ public class PropagationRuleManager {
 		ruleList.add(new SkipSystemClassRule(manager, aliasing, zeroValue, results));
 		
 		this.rules = ruleList.toArray(new ITaintPropagationRule[ruleList.size()]);
+		
+		// If requested, we remember the outcomes of the normal flow rules
+		int memoizationCacheSize = manager.getConfig().getNormalFlowMemoizationCacheSize();
+		this.normalFlowMemoizer = memoizationCacheSize > 0
+				? new NormalFlowMemoizer(manager, zeroValue, memoizationCacheSize) : null;
+	}
+	
+	/**
+	 * Gets the rules that need to be applied to the given statement for the
+	 * given type of flow function. The rules are looked up once per statement
+	 * and then kept in an index.
+	 * @param stmt The statement to which to apply the rules
+	 * @param type The type of flow function
+	 * @return The rules to apply, in the order of their registration
+	 */
+	private ITaintPropagationRule[] getRules(Stmt stmt, FlowFunctionType type) {
+		ITaintPropagationRule[][] stmtRules = ruleIndex.get(stmt);
+		if (stmtRules == null) {
+			FlowFunctionType[] types = FlowFunctionType.values();
+			stmtRules = new ITaintPropagationRule[types.length][];
+			for (FlowFunctionType curType : types) {
+				List<ITaintPropagationRule> applicableRules = new ArrayList<>(rules.length);
+				for (ITaintPropagationRule rule : rules)
+					if (rule.appliesTo(stmt, curType))
+						applicableRules.add(rule);
+				stmtRules[curType.ordinal()] = applicableRules.toArray(
+						new ITaintPropagationRule[applicableRules.size()]);
+			}
+			ITaintPropagationRule[][] oldRules = ruleIndex.putIfAbsent(stmt, stmtRules);
+			if (oldRules != null)
+				stmtRules = oldRules;
+		}
+		
+		ITaintPropagationRule[] typeRules = stmtRules[type.ordinal()];
+		long[] counters = threadRuleInvocations.get();
+		counters[0] += typeRules.length;
+		counters[1] += rules.length - typeRules.length;
+		return typeRules;
+	}
+	
+	/**
+	 * Gets all rules that this manager applies, in the order of their
+	 * registration
+	 * @return The rules of this manager
+	 */
+	public ITaintPropagationRule[] getRules() {
+		return this.rules;
 	}
 	
 	/**
@@ -89,11 +158,30 @@ public class PropagationRuleManager {
 		Set<Abstraction> res = null;
 		if (killSource == null)
 			killSource = new ByReferenceBoolean();
-		for (ITaintPropagationRule rule : rules) {
+		
+		// Check whether we have already seen an abstraction of the same shape
+		// at this statement
+		NormalFlowMemoizer.Key memoKey = null;
+		if (normalFlowMemoizer != null && killAll != null)
+			memoKey = normalFlowMemoizer.getKey(source, stmt, destStmt);
+		if (memoKey != null) {
+			res = new HashSet<Abstraction>();
+			if (normalFlowMemoizer.replay(memoKey, source, stmt, killSource, killAll, res)) {
+				if (killAll.value)
+					return null;
+				return retainSource(source, res, killSource, killAll);
+			}
+			res = null;
+		}
+		
+		for (ITaintPropagationRule rule : getRules(stmt, FlowFunctionType.NormalFlowFunction)) {
 			Collection<Abstraction> ruleOut = rule.propagateNormalFlow(d1,
 					source, stmt, destStmt, killSource, killAll);
-			if (killAll != null && killAll.value)
+			if (killAll != null && killAll.value) {
+				if (memoKey != null)
+					normalFlowMemoizer.record(memoKey, source, stmt, null, false, true);
 				return null;
+			}
 			if (ruleOut != null && !ruleOut.isEmpty()) {
 				if (res == null)
 					res = new HashSet<Abstraction>(ruleOut);
@@ -101,7 +189,24 @@ public class PropagationRuleManager {
 					res.addAll(ruleOut);
 			}
 		}
+		if (memoKey != null)
+			normalFlowMemoizer.record(memoKey, source, stmt, res, killSource.value, false);
 		
+		return retainSource(source, res, killSource, killAll);
+	}
+	
+	/**
+	 * Adds the incoming taint to the outgoing taints of the normal flow
+	 * function unless the rules have killed it
+	 * @param source The incoming taint
+	 * @param res The outgoing taints produced by the rules, or null if there
+	 * are none
+	 * @param killSource Whether the rules have killed the incoming taint
+	 * @param killAll Whether the rules have killed all taints
+	 * @return The collection of outgoing taints
+	 */
+	private Set<Abstraction> retainSource(Abstraction source, Set<Abstraction> res,
+			ByReferenceBoolean killSource, ByReferenceBoolean killAll) {
 		// Do we need to retain the source value?
 		if ((killAll == null || !killAll.value) && !killSource.value) {
 			if (res == null) {
@@ -127,7 +232,7 @@ public class PropagationRuleManager {
 	public Set<Abstraction> applyCallFlowFunction(Abstraction d1,
 			Abstraction source, Stmt stmt, SootMethod dest, ByReferenceBoolean killAll) {
 		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
+		for (ITaintPropagationRule rule : getRules(stmt, FlowFunctionType.CallFlowFunction)) {
 			Collection<Abstraction> ruleOut = rule.propagateCallFlow(
 					d1, source, stmt, dest, killAll);
 			if (killAll.value)
@@ -169,7 +274,7 @@ public class PropagationRuleManager {
 			ByReferenceBoolean killAll,
 			boolean noAddSource) {
 		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
+		for (ITaintPropagationRule rule : getRules(stmt, FlowFunctionType.CallToReturnFlowFunction)) {
 			Collection<Abstraction> ruleOut = rule.propagateCallToReturnFlow(
 					d1, source, stmt, killSource, killAll);
 			if (killAll != null && killAll.value)
@@ -210,7 +315,7 @@ public class PropagationRuleManager {
 			Collection<Abstraction> callerD1s, Abstraction source, Stmt stmt,
 			Stmt retSite, Stmt callSite, ByReferenceBoolean killAll) {
 		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
+		for (ITaintPropagationRule rule : getRules(stmt, FlowFunctionType.ReturnFlowFunction)) {
 			Collection<Abstraction> ruleOut = rule.propagateReturnFlow(callerD1s,
 					source, stmt, retSite, callSite, killAll);
 			if (killAll != null && killAll.value)
@@ -225,4 +330,39 @@ public class PropagationRuleManager {
 		return res;
 	}
 	
+	/**
+	 * Gets the cache for the outcomes of the normal flow rules
+	 * @return The cache for the outcomes of the normal flow rules, or null if
+	 * no outcomes are memoized
+	 */
+	public NormalFlowMemoizer getNormalFlowMemoizer() {
+		return this.normalFlowMemoizer;
+	}
+	
+	/**
+	 * Gets the number of rule invocations that were performed. The count is
+	 * only exact once the taint propagation has completed.
+	 * @return The number of rule invocations
+	 */
+	public long getRuleInvocationCount() {
+		return sumRuleInvocations(0);
+	}
+	
+	/**
+	 * Gets the number of rule invocations that were skipped because the
+	 * respective rule cannot have an effect on the statement. The count is
+	 * only exact once the taint propagation has completed.
+	 * @return The number of skipped rule invocations
+	 */
+	public long getSkippedRuleInvocationCount() {
+		return sumRuleInvocations(1);
+	}
+	
+	private long sumRuleInvocations(int index) {
+		long sum = 0;
+		for (long[] counters : ruleInvocationCounters)
+			sum += counters[index];
+		return sum;
+	}
+	
 }
@@ -16,6 +16,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.BaseSelector;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
@@ -34,31 +35,48 @@ public class SinkPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		// Once we are in the kill state, we must stop all interprocedural
+		// propagation
+		if (type != FlowFunctionType.NormalFlowFunction)
+			return true;
+		
+		// Only the values read by some statements can leak
+		return getSinkValue(stmt) != null
+				&& getManager().getSourceSinkManager() != null
+				&& getManager().getSourceSinkManager().isSink(stmt, getManager(), null);
+	}
+	
+	/**
+	 * Gets the value that the normal flow function checks for leaks at the
+	 * given statement
+	 * @param stmt The statement to check
+	 * @return The value that may leak at the given statement, or null if the
+	 * normal flow function does not check this kind of statement
+	 */
+	private static Value getSinkValue(Stmt stmt) {
+		if (stmt instanceof ReturnStmt)
+			return ((ReturnStmt) stmt).getOp();
+		else if (stmt instanceof IfStmt)
+			return ((IfStmt) stmt).getCondition();
+		else if (stmt instanceof LookupSwitchStmt)
+			return ((LookupSwitchStmt) stmt).getKey();
+		else if (stmt instanceof TableSwitchStmt)
+			return ((TableSwitchStmt) stmt).getKey();
+		else if (stmt instanceof AssignStmt)
+			return ((AssignStmt) stmt).getRightOp();
+		return null;
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
 			ByReferenceBoolean killSource,
 			ByReferenceBoolean killAll) {
-		if (stmt instanceof ReturnStmt) {
-			final ReturnStmt returnStmt = (ReturnStmt) stmt;
-			checkForSink(d1, source, stmt, returnStmt.getOp());
-		}
-		else if (stmt instanceof IfStmt) {
-			final IfStmt ifStmt = (IfStmt) stmt;
-			checkForSink(d1, source, stmt, ifStmt.getCondition());
-		}
-		else if (stmt instanceof LookupSwitchStmt) {
-			final LookupSwitchStmt switchStmt = (LookupSwitchStmt) stmt;
-			checkForSink(d1, source, stmt, switchStmt.getKey());
-		}
-		else if (stmt instanceof TableSwitchStmt) {
-			final TableSwitchStmt switchStmt = (TableSwitchStmt) stmt;
-			checkForSink(d1, source, stmt, switchStmt.getKey());
-		}
-		else if (stmt instanceof AssignStmt) {
-			final AssignStmt assignStmt = (AssignStmt) stmt;
-			checkForSink(d1, source, stmt, assignStmt.getRightOp());
-		}
+		final Value sinkValue = getSinkValue(stmt);
+		if (sinkValue != null)
+			checkForSink(d1, source, stmt, sinkValue);
 		
 		return null;
 	}
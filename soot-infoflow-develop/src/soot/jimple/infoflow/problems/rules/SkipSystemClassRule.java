@@ -9,6 +9,7 @@ import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -37,6 +38,29 @@ public class SkipSystemClassRule extends AbstractTaintPropagationRule {
 		this.threadCons = Scene.v().grabMethod("<java.lang.Thread: void <init>()>");
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		switch (type) {
+			case CallFlowFunction:
+				// We only skip calls to system methods
+				for (SootMethod callee : getManager().getICFG().getCalleesOfCallAt(stmt))
+					if (isSystemClassDest(callee))
+						return true;
+				return false;
+			case CallToReturnFlowFunction:
+				// We only pass on taints if all callees are skipped
+				Collection<SootMethod> callees = getManager().getICFG().getCalleesOfCallAt(stmt);
+				if (callees.isEmpty())
+					return false;
+				for (SootMethod callee : callees)
+					if (!isSystemClassDest(callee))
+						return false;
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
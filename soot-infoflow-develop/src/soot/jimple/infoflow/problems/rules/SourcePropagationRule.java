@@ -11,7 +11,9 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.source.ISourceSinkManager;
 import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 import soot.jimple.infoflow.util.TypeUtils;
@@ -29,6 +31,28 @@ public class SourcePropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		switch (type) {
+			case NormalFlowFunction:
+			case CallToReturnFlowFunction:
+				// The zero value must be killed at all statements that are
+				// no sources
+				return true;
+			case CallFlowFunction:
+				// We only block calls into sources and sinks
+				final ISourceSinkManager ssm = getManager().getSourceSinkManager();
+				if (ssm == null)
+					return false;
+				return (!getManager().getConfig().getInspectSources()
+								&& ssm.getSourceInfo(stmt, getManager()) != null)
+						|| (!getManager().getConfig().getInspectSinks()
+								&& ssm.isSink(stmt, getManager(), null));
+			default:
+				return false;
+		}
+	}
+
 	private Collection<Abstraction> propagate(Abstraction d1,
 			Abstraction source, Stmt stmt, ByReferenceBoolean killSource,
 			ByReferenceBoolean killAll) {
@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import soot.Local;
 import soot.SootMethod;
+import soot.Value;
 import soot.ValueBox;
 import soot.jimple.ArrayRef;
 import soot.jimple.AssignStmt;
@@ -13,6 +14,7 @@ import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -29,6 +31,23 @@ public class StrongUpdatePropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		// Only assignments can overwrite taints
+		if (!(stmt instanceof AssignStmt))
+			return false;
+		
+		final Value leftOp = ((AssignStmt) stmt).getLeftOp();
+		switch (type) {
+			case NormalFlowFunction:
+				return !(leftOp instanceof ArrayRef);
+			case CallToReturnFlowFunction:
+				return leftOp instanceof Local;
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
@@ -13,6 +13,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
 import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
@@ -30,6 +31,12 @@ public class WrapperPropagationRule extends AbstractTaintPropagationRule {
 			Aliasing aliasing, Abstraction zeroValue, TaintPropagationResults results) {
 		super(manager, aliasing, zeroValue, results);
 	}
+
+	@Override
+	public boolean appliesTo(Stmt stmt, FlowFunctionType type) {
+		return type == FlowFunctionType.CallFlowFunction
+				|| type == FlowFunctionType.CallToReturnFlowFunction;
+	}
 	
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
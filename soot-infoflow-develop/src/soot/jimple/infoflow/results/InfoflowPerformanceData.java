@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.results;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Performance data collected during a data flow analysis, i.e., the time spent
+ * in the individual phases of the analysis and the number of edges propagated
+ * by the solvers. If the analysis is run multiple times, e.g., with one source
+ * or one component at a time, the values of all runs are added up.
+ * 
+ * CPU and garbage collection times are taken for the whole process, since the
+ * solvers run on multiple threads.
+ */
+public class InfoflowPerformanceData {
+	
+	/**
+	 * The phases of the data flow analysis for which timings are recorded
+	 */
+	public enum Phase {
+		/**
+		 * Parsing the manifest and resource files of an Android app
+		 */
+		ResourceParsing,
+		/**
+		 * Collecting the callbacks of an Android app
+		 */
+		CallbackCollection,
+		/**
+		 * Constructing the callgraph for the data flow analysis
+		 */
+		CallgraphConstruction,
+		/**
+		 * Constant propagation and dead code elimination
+		 */
+		CodeElimination,
+		/**
+		 * Propagating taints with the IFDS solvers
+		 */
+		TaintPropagation,
+		/**
+		 * Reconstructing the paths between sources and sinks
+		 */
+		PathReconstruction
+	}
+	
+	/**
+	 * The time spent in a single phase of the data flow analysis
+	 */
+	public static class PhaseData {
+		
+		private long wallTime = 0;
+		private long cpuTime = 0;
+		private long gcTime = 0;
+		
+		/**
+		 * Gets the wall clock time spent in this phase
+		 * @return The wall clock time in nanoseconds
+		 */
+		public long getWallTime() {
+			return this.wallTime;
+		}
+		
+		/**
+		 * Gets the CPU time all threads of the process have spent in this phase
+		 * @return The CPU time in nanoseconds, or -1 if the JVM does not provide
+		 * the CPU time of the process
+		 */
+		public long getCpuTime() {
+			return this.cpuTime;
+		}
+		
+		/**
+		 * Gets the time the garbage collector has spent in this phase
+		 * @return The garbage collection time in milliseconds
+		 */
+		public long getGcTime() {
+			return this.gcTime;
+		}
+		
+		private void add(long wallTime, long cpuTime, long gcTime) {
+			this.wallTime += wallTime;
+			this.cpuTime = this.cpuTime < 0 || cpuTime < 0 ? -1 : this.cpuTime + cpuTime;
+			this.gcTime += gcTime;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%.3f s wall, %.3f s CPU, %.3f s GC", wallTime / 1E9,
+					cpuTime / 1E9, gcTime / 1E3);
+		}
+		
+	}
+	
+	private final Map<Phase, PhaseData> phases = new EnumMap<>(Phase.class);
+	private final Map<Phase, long[]> runningPhases = new EnumMap<>(Phase.class);
+	
+	private long forwardPropagationCount = 0;
+	private long backwardPropagationCount = 0;
+	private long maxMemoryConsumption = -1;
+	
+	/**
+	 * Records the start of the given phase
+	 * @param phase The phase that is about to start
+	 */
+	public synchronized void startPhase(Phase phase) {
+		runningPhases.put(phase, new long[] { System.nanoTime(), getProcessCpuTime(),
+				getGcTime() });
+	}
+	
+	/**
+	 * Records the end of the given phase and adds the time spent since the
+	 * matching call to startPhase() to the phase
+	 * @param phase The phase that has ended
+	 */
+	public synchronized void endPhase(Phase phase) {
+		long[] start = runningPhases.remove(phase);
+		if (start == null)
+			return;
+		
+		long cpuTime = getProcessCpuTime();
+		getOrCreatePhaseData(phase).add(System.nanoTime() - start[0],
+				cpuTime < 0 || start[1] < 0 ? -1 : cpuTime - start[1],
+				getGcTime() - start[2]);
+	}
+	
+	private PhaseData getOrCreatePhaseData(Phase phase) {
+		PhaseData data = phases.get(phase);
+		if (data == null) {
+			data = new PhaseData();
+			phases.put(phase, data);
+		}
+		return data;
+	}
+	
+	/**
+	 * Gets the time spent in the given phase
+	 * @param phase The phase for which to get the time
+	 * @return The time spent in the given phase, or null if the phase has not
+	 * been run
+	 */
+	public synchronized PhaseData getPhaseData(Phase phase) {
+		return phases.get(phase);
+	}
+	
+	/**
+	 * Gets the time spent in all phases that have been run
+	 * @return The time spent in the phases that have been run
+	 */
+	public synchronized Map<Phase, PhaseData> getPhases() {
+		return Collections.unmodifiableMap(new EnumMap<>(phases));
+	}
+	
+	/**
+	 * Adds the number of edges propagated by the solvers in a run of the data
+	 * flow analysis
+	 * @param forward The number of edges propagated by the forward solver
+	 * @param backward The number of edges propagated by the alias solver
+	 */
+	public synchronized void addPropagationCounts(long forward, long backward) {
+		this.forwardPropagationCount += forward;
+		this.backwardPropagationCount += backward;
+	}
+	
+	/**
+	 * Gets the number of edges propagated by the forward solver
+	 * @return The number of edges propagated by the forward solver
+	 */
+	public synchronized long getForwardPropagationCount() {
+		return this.forwardPropagationCount;
+	}
+	
+	/**
+	 * Gets the number of edges propagated by the alias solver
+	 * @return The number of edges propagated by the alias solver
+	 */
+	public synchronized long getBackwardPropagationCount() {
+		return this.backwardPropagationCount;
+	}
+	
+	/**
+	 * Updates the maximum memory consumption observed during the analysis
+	 * @param memoryConsumption The currently observed memory consumption in
+	 * bytes
+	 */
+	public synchronized void updateMaxMemoryConsumption(long memoryConsumption) {
+		this.maxMemoryConsumption = Math.max(this.maxMemoryConsumption, memoryConsumption);
+	}
+	
+	/**
+	 * Gets the maximum memory consumption observed during the analysis
+	 * @return The maximum memory consumption in bytes, or -1 if it has not been
+	 * recorded
+	 */
+	public synchronized long getMaxMemoryConsumption() {
+		return this.maxMemoryConsumption;
+	}
+	
+	/**
+	 * Adds the performance data of another run of the data flow analysis to
+	 * this object
+	 * @param other The performance data to add
+	 */
+	public void add(InfoflowPerformanceData other) {
+		if (other == null || other == this)
+			return;
+		
+		Map<Phase, PhaseData> otherPhases;
+		long otherForward, otherBackward, otherMemory;
+		synchronized (other) {
+			otherPhases = new EnumMap<>(other.phases);
+			otherForward = other.forwardPropagationCount;
+			otherBackward = other.backwardPropagationCount;
+			otherMemory = other.maxMemoryConsumption;
+		}
+		synchronized (this) {
+			for (Map.Entry<Phase, PhaseData> entry : otherPhases.entrySet()) {
+				PhaseData data = entry.getValue();
+				getOrCreatePhaseData(entry.getKey()).add(data.wallTime, data.cpuTime, data.gcTime);
+			}
+			forwardPropagationCount += otherForward;
+			backwardPropagationCount += otherBackward;
+			maxMemoryConsumption = Math.max(maxMemoryConsumption, otherMemory);
+		}
+	}
+	
+	/**
+	 * Gets the CPU time used by all threads of this process
+	 * @return The CPU time in nanoseconds, or -1 if the JVM does not provide
+	 * it
+	 */
+	private static long getProcessCpuTime() {
+		OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+		if (osBean instanceof com.sun.management.OperatingSystemMXBean)
+			return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+		return -1;
+	}
+	
+	/**
+	 * Gets the total time all garbage collectors have spent so far
+	 * @return The garbage collection time in milliseconds
+	 */
+	private static long getGcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, gcBean.getCollectionTime());
+		return time;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<Phase, PhaseData> entry : phases.entrySet())
+			sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		sb.append("Propagated edges: ").append(forwardPropagationCount).append(" forward, ")
+				.append(backwardPropagationCount).append(" backward\n");
+		sb.append("Maximum memory consumption: ").append(maxMemoryConsumption / 1000 / 1000)
+				.append(" MB");
+		return sb.toString();
+	}
+	
+}
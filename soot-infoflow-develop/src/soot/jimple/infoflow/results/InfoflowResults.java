@@ -24,6 +24,7 @@ import heros.solver.Pair;
 import soot.jimple.InvokeExpr;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionPathSegment;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.util.ConcurrentHashMultiMap;
 import soot.util.MultiMap;
@@ -52,6 +53,38 @@ public class InfoflowResults {
 		exceptions.add(ex);
 	}
 	
+	// here we keep the degradation steps that were applied to finish the
+	// analysis within its resource limits, i.e., the precision we traded
+	private List<String> degradationSteps = new ArrayList<String>();
+	
+	/**
+	 * Gets the degradation steps that were applied to the data flow analysis
+	 * when it reached its timeout or memory limit
+	 * @return The degradation steps that were applied, in the order of their
+	 * application
+	 */
+	public List<String> getDegradationSteps() {
+		return degradationSteps;
+	}
+	
+	/**
+	 * Records that a degradation step was applied to the data flow analysis
+	 * @param step A description of the degradation step
+	 */
+	public void addDegradationStep(String step) {
+		degradationSteps.add(step);
+	}
+	
+	/**
+	 * Gets whether the data flow analysis traded precision for finishing
+	 * within its resource limits
+	 * @return True if at least one degradation step was applied, otherwise
+	 * false
+	 */
+	public boolean isDegraded() {
+		return !degradationSteps.isEmpty();
+	}
+	
 	public InfoflowResults() {
 		
 	}
@@ -128,7 +161,13 @@ public class InfoflowResults {
 			stmtPath = new ArrayList<Stmt>(propagationPath.size());
 			apPath = new ArrayList<AccessPath>(propagationPath.size());
 			for (Abstraction pathAbs : propagationPath) {
-				if (pathAbs.getCurrentStmt() != null) {
+				// Compacted chains need to be expanded again
+				if (pathAbs instanceof AbstractionPathSegment) {
+					AbstractionPathSegment segment = (AbstractionPathSegment) pathAbs;
+					stmtPath.addAll(Arrays.asList(segment.getStmts()));
+					apPath.addAll(Arrays.asList(segment.getAccessPaths()));
+				}
+				else if (pathAbs.getCurrentStmt() != null) {
 					stmtPath.add(pathAbs.getCurrentStmt());
 					apPath.add(pathAbs.getAccessPath());
 				}
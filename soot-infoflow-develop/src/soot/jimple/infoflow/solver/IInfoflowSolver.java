@@ -4,6 +4,9 @@ import java.util.Set;
 
 import heros.solver.Pair;
 import heros.solver.PathEdge;
+
+import com.google.common.cache.CacheStats;
+
 import soot.SootMethod;
 import soot.Unit;
 import soot.jimple.infoflow.data.Abstraction;
@@ -75,6 +78,13 @@ public interface IInfoflowSolver {
 	 */
 	public long getPropagationCount();
 	
+	/**
+	 * Gets the combined statistics of the solver's flow function caches
+	 * @return The cache statistics, or null if the solver does not cache flow
+	 * functions
+	 */
+	public CacheStats getFlowFunctionCacheStats();
+	
 	/**
 	 * Solves the data flow problem
 	 */
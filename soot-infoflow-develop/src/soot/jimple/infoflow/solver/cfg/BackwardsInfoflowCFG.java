@@ -1,6 +1,9 @@
 package soot.jimple.infoflow.solver.cfg;
 
+import soot.SootField;
+import soot.SootMethod;
 import soot.jimple.toolkits.ide.icfg.BackwardsInterproceduralCFG;
+import soot.jimple.toolkits.ide.icfg.PrecomputedInterproceduralCFG;
 
 /**
  * Inverse interprocedural control-flow graph for the infoflow solver
@@ -13,7 +16,19 @@ public class BackwardsInfoflowCFG extends InfoflowCFG {
 	private final IInfoflowCFG baseCFG;
 	
 	public BackwardsInfoflowCFG(IInfoflowCFG baseCFG) {
-		super(new BackwardsInterproceduralCFG(baseCFG));
+		this(baseCFG, false);
+	}
+	
+	/**
+	 * Creates a new inverse interprocedural CFG
+	 * @param baseCFG The forward CFG to invert
+	 * @param precompute True if the inverted CFG shall be precomputed into an
+	 * immutable snapshot, false if it shall be computed on demand
+	 */
+	public BackwardsInfoflowCFG(IInfoflowCFG baseCFG, boolean precompute) {
+		super(precompute
+				? new PrecomputedInterproceduralCFG(new BackwardsInterproceduralCFG(baseCFG))
+				: new BackwardsInterproceduralCFG(baseCFG));
 		this.baseCFG = baseCFG;
 	}
 	
@@ -21,4 +36,33 @@ public class BackwardsInfoflowCFG extends InfoflowCFG {
 		return this.baseCFG;
 	}
 	
+	// The side effects of a method do not depend on the direction in which we
+	// traverse the CFG, so we share the summaries of the forward CFG
+	
+	@Override
+	public boolean isStaticFieldRead(SootMethod method, SootField variable) {
+		return baseCFG.isStaticFieldRead(method, variable);
+	}
+	
+	@Override
+	public boolean isStaticFieldUsed(SootMethod method, SootField variable) {
+		return baseCFG.isStaticFieldUsed(method, variable);
+	}
+	
+	@Override
+	public boolean hasSideEffects(SootMethod method) {
+		return baseCFG.hasSideEffects(method);
+	}
+	
+	@Override
+	public boolean hasObservableEffects(SootMethod method) {
+		return baseCFG.hasObservableEffects(method);
+	}
+	
+	@Override
+	public void notifyMethodChanged(SootMethod m) {
+		super.notifyMethodChanged(m);
+		baseCFG.notifyMethodChanged(m);
+	}
+	
 }
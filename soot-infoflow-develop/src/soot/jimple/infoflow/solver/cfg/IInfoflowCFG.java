@@ -124,6 +124,18 @@ public interface IInfoflowCFG extends BiDiInterproceduralCFG<Unit,SootMethod> {
      */
     public boolean hasSideEffects(SootMethod method);
     
+    /**
+     * Checks whether data that is passed into the given method can have any
+     * effect outside of it other than through its return value. This is the
+     * case if the method or one of its transitive callees writes to a field or
+     * an array, contains a sink, calls a native method or a method handled by
+     * the taint wrapper, or throws an exception.
+     * @param method The method to check
+     * @return True if data passed into the given method can have observable
+     * effects, otherwise false. If the sinks are not known, true is returned.
+     */
+    public boolean hasObservableEffects(SootMethod method);
+    
     /**
      * Re-initializes the mapping betwween statements and owning methods after a
      * method has changed.
@@ -12,12 +12,8 @@ package soot.jimple.infoflow.solver.cfg;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -25,19 +21,15 @@ import com.google.common.cache.LoadingCache;
 import heros.solver.IDESolver;
 import soot.Local;
 import soot.RefType;
-import soot.Scene;
 import soot.SootField;
 import soot.SootMethod;
 import soot.Unit;
 import soot.Value;
 import soot.ValueBox;
 import soot.jimple.AssignStmt;
-import soot.jimple.FieldRef;
 import soot.jimple.InvokeExpr;
-import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import soot.jimple.VirtualInvokeExpr;
-import soot.jimple.toolkits.callgraph.Edge;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 import soot.toolkits.graph.DirectedGraph;
@@ -52,18 +44,7 @@ import soot.toolkits.graph.MHGPostDominatorsFinder;
  */
 public class InfoflowCFG implements IInfoflowCFG {
 	
-	private static enum StaticFieldUse {
-		Unknown,
-		Unused,
-		Read,
-		Write,
-		ReadWrite
-	}
-	
-	protected final Map<SootMethod, Map<SootField, StaticFieldUse>> staticFieldUses =
-			new ConcurrentHashMap<SootMethod, Map<SootField,StaticFieldUse>>();
-	protected final Map<SootMethod, Boolean> methodSideEffects =
-			new ConcurrentHashMap<SootMethod, Boolean>();
+	protected final MethodSummaries methodSummaries = new MethodSummaries();
 	
 	protected final BiDiInterproceduralCFG<Unit, SootMethod> delegate; 
 	
@@ -247,155 +228,42 @@ public class InfoflowCFG implements IInfoflowCFG {
 	
 	@Override
 	public boolean isStaticFieldRead(SootMethod method, SootField variable) {
-		return isStaticFieldUsed(method, variable, new HashSet<SootMethod>(), true);
+		return methodSummaries.isStaticFieldRead(method, variable);
 	}
 	
 	@Override
 	public boolean isStaticFieldUsed(SootMethod method, SootField variable) {
-		return isStaticFieldUsed(method, variable, new HashSet<SootMethod>(), false);
+		return methodSummaries.isStaticFieldUsed(method, variable);
 	}
 	
-	private boolean isStaticFieldUsed(SootMethod method, SootField variable,
-			Set<SootMethod> runList, boolean readOnly) {
-		// Without a body, we cannot say much
-		if (!method.hasActiveBody())
-			return false;
-		
-		// Do not process the same method twice
-		if (!runList.add(method))
-			return false;
-		
-		// Do we already have an entry?
-		Map<SootField, StaticFieldUse> entry = staticFieldUses.get(method);
-		if (entry != null) {
-			StaticFieldUse b = entry.get(variable);
-			if (b != null && b != StaticFieldUse.Unknown) {
-				if (readOnly)
-					return b == StaticFieldUse.Read || b == StaticFieldUse.ReadWrite;
-				else
-					return b != StaticFieldUse.Unused;
-			}
-		}
-		
-		// Scan for references to this variable
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				
-				if (assign.getLeftOp() instanceof StaticFieldRef) {
-					SootField sf = ((StaticFieldRef) assign.getLeftOp()).getField();
-					registerStaticVariableUse(method, sf, StaticFieldUse.Write);
-					if (!readOnly && variable.equals(sf))
-						return true;
-				}
-				
-				if (assign.getRightOp() instanceof StaticFieldRef) {
-					SootField sf = ((StaticFieldRef) assign.getRightOp()).getField();
-					registerStaticVariableUse(method, sf, StaticFieldUse.Read);
-					if (variable.equals(sf))
-						return true;
-				}
-			}
-			
-			if (((Stmt) u).containsInvokeExpr())
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-					if (isStaticFieldUsed(e.getTgt().method(), variable, runList, readOnly))
-						return true;
-				}
-		}
-		
-		// Variable is not read
-		registerStaticVariableUse(method, variable, StaticFieldUse.Unused);
-		return false;
-	}
-
-	private void registerStaticVariableUse(SootMethod method,
-			SootField variable, StaticFieldUse fieldUse) {
-		Map<SootField, StaticFieldUse> entry = staticFieldUses.get(method);
-		StaticFieldUse oldUse;
-		synchronized (staticFieldUses) {
-			if (entry == null) {
-				entry = new ConcurrentHashMap<SootField, StaticFieldUse>();
-				staticFieldUses.put(method, entry);
-				entry.put(variable, fieldUse);
-				return;
-			}
-			
-			oldUse = entry.get(variable);
-			if (oldUse == null) {
-				entry.put(variable, fieldUse);
-				return;
-			}
-		}
-		
-		// This part is monotonic, so no need for synchronization
-		StaticFieldUse newUse;
-		switch (oldUse) {
-			case Unknown :
-			case Unused :
-			case ReadWrite :
-				newUse = fieldUse;
-				break;
-			case Read :
-				newUse = (fieldUse == StaticFieldUse.Read) ? oldUse : StaticFieldUse.ReadWrite;
-				break;
-			case Write :
-				newUse = (fieldUse == StaticFieldUse.Write) ? oldUse : StaticFieldUse.ReadWrite;
-				break;
-			default:
-				throw new RuntimeException("Invalid field use");
-			}
-		entry.put(variable, newUse);
-	}
-
 	@Override
 	public boolean hasSideEffects(SootMethod method) {
-		return hasSideEffects(method, new HashSet<SootMethod>());
+		return methodSummaries.hasFlags(method, MethodSummaries.FIELD_WRITE);
 	}
 	
-	private boolean hasSideEffects(SootMethod method, Set<SootMethod> runList) {
-		// Without a body, we cannot say much
-		if (!method.hasActiveBody())
-			return false;
-		
-		// Do not process the same method twice
-		if (!runList.add(method))
-			return false;
-		
-		// Do we already have an entry?
-		Boolean hasSideEffects = methodSideEffects.get(method);
-		if (hasSideEffects != null)
-			return hasSideEffects;
-		
-		// Scan for references to this variable
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				
-				if (assign.getLeftOp() instanceof FieldRef) {
-					methodSideEffects.put(method, true);
-					return true;
-				}
-			}
-			
-			if (((Stmt) u).containsInvokeExpr())
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-					if (hasSideEffects(e.getTgt().method(), runList))
-						return true;
-				}
-		}
-		
-		// Variable is not read
-		methodSideEffects.put(method, false);
-		return false;
+	@Override
+	public boolean hasObservableEffects(SootMethod method) {
+		return !methodSummaries.knowsSinks()
+				|| methodSummaries.hasFlags(method, MethodSummaries.FIELD_WRITE
+						| MethodSummaries.ARRAY_WRITE | MethodSummaries.CALLS_SINK
+						| MethodSummaries.TAINT_WRAPPED | MethodSummaries.NATIVE_CALL
+						| MethodSummaries.THROWS);
+	}
+	
+	/**
+	 * Gets the bottom-up summaries of the side effects and static field uses
+	 * of the methods in this CFG
+	 * @return The method summaries of this CFG
+	 */
+	public MethodSummaries getMethodSummaries() {
+		return methodSummaries;
 	}
 	
 	@Override
 	public void notifyMethodChanged(SootMethod m) {
 		if (delegate instanceof JimpleBasedInterproceduralCFG)
 			((JimpleBasedInterproceduralCFG) delegate).initializeUnitToOwner(m);
+		methodSummaries.notifyMethodChanged(m);
 	}
 	
 	@Override
@@ -506,8 +374,7 @@ public class InfoflowCFG implements IInfoflowCFG {
 
 	@Override
 	public void purge() {
-		methodSideEffects.clear();
-		staticFieldUses.clear();
+		methodSummaries.clear();
 		
 		methodToUsedLocals.invalidateAll();
 		methodToUsedLocals.cleanUp();
@@ -0,0 +1,792 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.cfg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.ValueBox;
+import soot.VoidType;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.InvokeStmt;
+import soot.jimple.NewExpr;
+import soot.jimple.ParameterRef;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.Stmt;
+import soot.jimple.ThisRef;
+import soot.jimple.ThrowStmt;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
+import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+import soot.jimple.infoflow.util.SystemClassHandler;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+import soot.util.queue.QueueReader;
+
+/**
+ * Bottom-up summaries of the side effects of all methods in the callgraph. The
+ * callgraph is split into strongly connected components which are summarized
+ * in reverse topological order, i.e., callees before callers. Every method body
+ * is thus scanned only once, and all methods in a recursive cycle share the
+ * same summary object. Summaries are computed on demand, or for all reachable
+ * methods at once with {@link #computeAll(int)}.
+ * 
+ * Every summary consists of a set of flags and of the static fields that are
+ * read and written by the method or one of its transitive callees. Sinks and
+ * calls handled by the taint wrapper are only flagged once the source/sink
+ * manager and the taint wrapper have been set. Subclasses can add their own
+ * flags by overriding {@link #getLocalFlags(SootMethod, Stmt)} and
+ * {@link #getMethodFlags(SootMethod)}, starting with the bit after
+ * {@link #THROWS}.
+ */
+public class MethodSummaries {
+	
+	/**
+	 * The method or one of its transitive callees writes to a field
+	 */
+	public static final int FIELD_WRITE = 1;
+	/**
+	 * The method or one of its transitive callees writes to an array
+	 */
+	public static final int ARRAY_WRITE = 2;
+	/**
+	 * The method or one of its transitive callees contains a sink
+	 */
+	public static final int CALLS_SINK = 4;
+	/**
+	 * The method or one of its transitive callees calls a method that is
+	 * handled by the taint wrapper, which can do anything
+	 */
+	public static final int TAINT_WRAPPED = 8;
+	/**
+	 * The method or one of its transitive callees uses its "this" local
+	 */
+	public static final int USES_THIS = 16;
+	/**
+	 * The method or one of its transitive callees calls a native method
+	 */
+	public static final int NATIVE_CALL = 32;
+	/**
+	 * The method or one of its transitive callees throws an exception
+	 */
+	public static final int THROWS = 64;
+	
+	/**
+	 * The summary of a single strongly connected component. Summaries are
+	 * shared between methods and must never be modified once they have been
+	 * published.
+	 */
+	private static final class Summary {
+		
+		private final int flags;
+		private final BitSet staticReads;
+		private final BitSet staticWrites;
+		
+		private Summary(int flags, BitSet staticReads, BitSet staticWrites) {
+			this.flags = flags;
+			this.staticReads = staticReads;
+			this.staticWrites = staticWrites;
+		}
+		
+		/**
+		 * Checks whether this summary already contains all information from
+		 * the given summary
+		 * @param other The summary to check
+		 * @return True if this summary subsumes the given one, otherwise false
+		 */
+		private boolean subsumes(Summary other) {
+			return (flags | other.flags) == flags
+					&& containsAll(staticReads, other.staticReads)
+					&& containsAll(staticWrites, other.staticWrites);
+		}
+		
+		private static boolean containsAll(BitSet bits, BitSet other) {
+			for (int i = other.nextSetBit(0); i >= 0; i = other.nextSetBit(i + 1))
+				if (!bits.get(i))
+					return false;
+			return true;
+		}
+		
+	}
+	
+	private static final Summary EMPTY_SUMMARY = new Summary(0, new BitSet(0), new BitSet(0));
+	
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	private final Map<SootMethod, Summary> summaries = new ConcurrentHashMap<>();
+	private final ConcurrentMap<SootField, Integer> staticFieldIndices = new ConcurrentHashMap<>();
+	private final AtomicInteger staticFieldCount = new AtomicInteger();
+	private final Map<SootMethod, Integer> methodFlags = new ConcurrentHashMap<>();
+	
+	private volatile boolean sinksKnown = false;
+	private volatile ISourceSinkManager sourceSinkManager = null;
+	private volatile InfoflowManager manager = null;
+	private volatile ITaintPropagationWrapper taintWrapper = null;
+	
+	/**
+	 * Sets the source/sink manager that decides which statements are sinks.
+	 * If the source/sink manager changes, all summaries are recomputed.
+	 * @param sourceSinkManager The source/sink manager, or null if there are
+	 * no sinks
+	 * @param manager The data flow manager to pass to the source/sink manager
+	 */
+	public synchronized void setSourceSinkManager(ISourceSinkManager sourceSinkManager,
+			InfoflowManager manager) {
+		this.manager = manager;
+		if (!sinksKnown || this.sourceSinkManager != sourceSinkManager) {
+			this.sourceSinkManager = sourceSinkManager;
+			this.sinksKnown = true;
+			summaries.clear();
+		}
+	}
+	
+	/**
+	 * Sets the taint wrapper whose calls shall be flagged with
+	 * {@link #TAINT_WRAPPED}. If the taint wrapper changes, all summaries are
+	 * recomputed.
+	 * @param taintWrapper The taint wrapper, or null if there is none
+	 */
+	public synchronized void setTaintWrapper(ITaintPropagationWrapper taintWrapper) {
+		if (this.taintWrapper != taintWrapper) {
+			this.taintWrapper = taintWrapper;
+			summaries.clear();
+		}
+	}
+	
+	/**
+	 * Gets whether the source/sink manager has been set, i.e., whether the
+	 * {@link #CALLS_SINK} flag is reliable
+	 * @return True if the sinks are known, otherwise false
+	 */
+	public boolean knowsSinks() {
+		return sinksKnown;
+	}
+	
+	/**
+	 * Adds flags to the given method regardless of its body, e.g., because it
+	 * has turned out to be a sink. The summaries of the method and of its
+	 * transitive callers are updated accordingly.
+	 * @param method The method to mark
+	 * @param flags The flags to add to the method
+	 */
+	public synchronized void addMethodFlags(SootMethod method, int flags) {
+		Integer oldFlags = methodFlags.get(method);
+		int newFlags = oldFlags == null ? flags : oldFlags | flags;
+		if (oldFlags == null || oldFlags != newFlags) {
+			methodFlags.put(method, newFlags);
+			notifyMethodChanged(method);
+		}
+	}
+	
+	/**
+	 * Checks whether the given method or one of its transitive callees has at
+	 * least one of the given flags
+	 * @param method The method to check
+	 * @param flags The flags to look for
+	 * @return True if at least one of the given flags is set for the given
+	 * method, otherwise false
+	 */
+	public boolean hasFlags(SootMethod method, int flags) {
+		return (getSummary(method).flags & flags) != 0;
+	}
+	
+	/**
+	 * Checks whether the given static field is read inside the given method or
+	 * one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is read inside the given method,
+	 * otherwise false
+	 */
+	public boolean isStaticFieldRead(SootMethod method, SootField field) {
+		Summary summary = getSummary(method);
+		Integer index = staticFieldIndices.get(field);
+		return index != null && summary.staticReads.get(index);
+	}
+	
+	/**
+	 * Checks whether the given static field is written inside the given method
+	 * or one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is written inside the given
+	 * method, otherwise false
+	 */
+	public boolean isStaticFieldWritten(SootMethod method, SootField field) {
+		Summary summary = getSummary(method);
+		Integer index = staticFieldIndices.get(field);
+		return index != null && summary.staticWrites.get(index);
+	}
+	
+	/**
+	 * Checks whether the given static field is read or written inside the
+	 * given method or one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is used inside the given method,
+	 * otherwise false
+	 */
+	public boolean isStaticFieldUsed(SootMethod method, SootField field) {
+		Summary summary = getSummary(method);
+		Integer index = staticFieldIndices.get(field);
+		return index != null && (summary.staticReads.get(index)
+				|| summary.staticWrites.get(index));
+	}
+	
+	/**
+	 * Computes the summaries of all methods that are reachable in the current
+	 * callgraph. The method bodies are scanned in parallel, afterwards, the
+	 * strongly connected components are summarized bottom-up.
+	 * @param numThreads The number of threads to use for scanning the method
+	 * bodies
+	 */
+	public void computeAll(int numThreads) {
+		if (!Scene.v().hasCallGraph())
+			return;
+		
+		List<SootMethod> methods = new ArrayList<>();
+		for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener();
+				rdr.hasNext(); ) {
+			SootMethod sm = rdr.next().method();
+			if (needsSummary(sm))
+				methods.add(sm);
+		}
+		
+		// Scan the method bodies in parallel
+		final Map<SootMethod, Summary> localSummaries = new ConcurrentHashMap<>();
+		if (numThreads > 1) {
+			InterruptableExecutor executor = new InterruptableExecutor(numThreads, numThreads,
+					30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+			executor.setName("method-summaries");
+			for (final SootMethod sm : methods)
+				executor.execute(new Runnable() {
+					
+					@Override
+					public void run() {
+						localSummaries.put(sm, computeLocalSummary(sm));
+					}
+					
+				});
+			try {
+				executor.awaitCompletion();
+			}
+			catch (InterruptedException ex) {
+				logger.error("Could not wait for the method summaries", ex);
+			}
+			executor.shutdown();
+		}
+		
+		// Combine the local summaries. Methods that have not been scanned
+		// in parallel are scanned on demand.
+		synchronized (this) {
+			computeSummaries(methods, localSummaries);
+		}
+		logger.info("Computed side-effect summaries for {} methods", methods.size());
+	}
+	
+	/**
+	 * Invalidates the summary of the given method after its body has been
+	 * changed. The summaries of all transitive callers are invalidated as
+	 * well and are recomputed on demand.
+	 * @param method The method that has been changed
+	 */
+	public synchronized void notifyMethodChanged(SootMethod method) {
+		summaries.remove(method);
+		if (!Scene.v().hasCallGraph())
+			return;
+		
+		// If a method has a summary, so have all of its callees. We can
+		// therefore stop at callers that have already been invalidated.
+		Deque<SootMethod> worklist = new ArrayDeque<>();
+		worklist.add(method);
+		while (!worklist.isEmpty()) {
+			SootMethod sm = worklist.poll();
+			for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesInto(sm); edgeIt.hasNext(); ) {
+				SootMethod caller = edgeIt.next().src();
+				if (caller != null && summaries.remove(caller) != null)
+					worklist.add(caller);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all summaries
+	 */
+	public synchronized void clear() {
+		summaries.clear();
+		methodFlags.clear();
+		staticFieldIndices.clear();
+		staticFieldCount.set(0);
+	}
+	
+	/**
+	 * Gets the flags that apply to the given method as a whole, e.g., because
+	 * it is known to be a sink. Subclasses can override this method to add
+	 * their own flags.
+	 * @param method The method for which to get the flags
+	 * @return The flags of the given method
+	 */
+	protected int getMethodFlags(SootMethod method) {
+		Integer flags = methodFlags.get(method);
+		int result = flags == null ? 0 : flags;
+		
+		// If this method uses the "this" local, we have to conservatively
+		// assume that it can read data
+		if (!method.isStatic()) {
+			Local thisLocal = method.getActiveBody().getThisLocal();
+			units : for (Unit u : method.getActiveBody().getUnits())
+				for (ValueBox vb : u.getUseBoxes())
+					if (vb.getValue() == thisLocal) {
+						result |= USES_THIS;
+						break units;
+					}
+		}
+		return result;
+	}
+	
+	/**
+	 * Gets the flags that a single statement contributes to the summary of the
+	 * method containing it. Subclasses can override this method to add their
+	 * own flags.
+	 * @param method The method containing the statement
+	 * @param stmt The statement to check
+	 * @return The flags of the given statement
+	 */
+	protected int getLocalFlags(SootMethod method, Stmt stmt) {
+		int flags = 0;
+		if (stmt instanceof AssignStmt) {
+			AssignStmt assign = (AssignStmt) stmt;
+			if (assign.getLeftOp() instanceof FieldRef)
+				flags |= FIELD_WRITE;
+			else if (assign.getLeftOp() instanceof ArrayRef)
+				flags |= ARRAY_WRITE;
+		}
+		else if (stmt instanceof ThrowStmt)
+			flags |= THROWS;
+		
+		if (stmt.containsInvokeExpr()) {
+			// If this method calls another method for which we have a taint
+			// wrapper, we need to conservatively assume that the taint wrapper
+			// can do anything
+			ITaintPropagationWrapper wrapper = taintWrapper;
+			if (wrapper != null && wrapper.supportsCallee(stmt))
+				flags |= TAINT_WRAPPED;
+			
+			// Native methods are modeled by the native call handler
+			if (isRelevantNative(stmt.getInvokeExpr().getMethod()))
+				flags |= NATIVE_CALL;
+			else if (Scene.v().hasCallGraph())
+				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(stmt); edgeIt.hasNext(); ) {
+					SootMethod callee = edgeIt.next().tgt();
+					if (callee != null && isRelevantNative(callee)) {
+						flags |= NATIVE_CALL;
+						break;
+					}
+				}
+		}
+		
+		// Not only calls, but also return statements, conditions and
+		// assignments can be sinks
+		ISourceSinkManager ssm = sourceSinkManager;
+		if (ssm != null && ssm.isSink(stmt, manager, null))
+			flags |= CALLS_SINK;
+		return flags;
+	}
+	
+	/**
+	 * Checks whether a call to the given method is a native call that can
+	 * have an effect on the taints. The native call handler only maps taints
+	 * between the base object, the arguments and the return value, so static
+	 * native methods without parameters and return value such as
+	 * Object.registerNatives(), which every static initializer reaches, are
+	 * ignored.
+	 * @param callee The method to check
+	 * @return True if the given method is a native method with an effect on
+	 * the taints, otherwise false
+	 */
+	private static boolean isRelevantNative(SootMethod callee) {
+		return callee.isNative() && (!callee.isStatic() || callee.getParameterCount() > 0
+				|| !(callee.getReturnType() instanceof VoidType));
+	}
+	
+	/**
+	 * Checks whether the given method shall be treated as a method without any
+	 * side effects, regardless of its body and of its callees. By default,
+	 * this applies to Android stub methods that just throw a stub exception,
+	 * since they will never be called in practice.
+	 * @param method The method to check
+	 * @return True if the given method shall be ignored, otherwise false
+	 */
+	protected boolean isOpaque(SootMethod method) {
+		return isAndroidStub(method);
+	}
+	
+	/**
+	 * Checks whether the given method is a library stub method
+	 * @param method The method to check
+	 * @return True if the given method is an Android library stub, false
+	 * otherwise
+	 */
+	private boolean isAndroidStub(SootMethod method) {
+		if (!(Options.v().src_prec() == Options.src_prec_apk
+				&& method.getDeclaringClass().isLibraryClass()
+				&& SystemClassHandler.isClassInSystemPackage(
+						method.getDeclaringClass().getName())))
+			return false;
+		
+		// Check whether there is only a single throw statement
+		for (Unit u : method.getActiveBody().getUnits()) {
+			if (u instanceof DefinitionStmt) {
+				DefinitionStmt defStmt = (DefinitionStmt) u;
+				if (!(defStmt.getRightOp() instanceof ThisRef)
+						&& !(defStmt.getRightOp() instanceof ParameterRef)
+						&& !(defStmt.getRightOp() instanceof NewExpr))
+					return false;
+			}
+			else if (u instanceof InvokeStmt) {
+				InvokeStmt stmt = (InvokeStmt) u;
+				
+				// Check for exception constructor invocations
+				SootMethod callee = stmt.getInvokeExpr().getMethod();
+				if (!callee.getSubSignature().equals("void <init>(java.lang.String)"))
+					// Check for super class constructor invocation
+					if (!(method.getDeclaringClass().hasSuperclass()
+							&& callee.getDeclaringClass() == method.getDeclaringClass().getSuperclass()
+							&& callee.getName().equals("<init>")))
+						return false;
+			}
+			else if (!(u instanceof ThrowStmt))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the summary of the given method, computing it if necessary
+	 * @param method The method for which to get the summary
+	 * @return The summary of the given method
+	 */
+	private Summary getSummary(SootMethod method) {
+		// Without a body, we cannot say much
+		if (!method.hasActiveBody())
+			return EMPTY_SUMMARY;
+		
+		Summary summary = summaries.get(method);
+		if (summary != null)
+			return summary;
+		synchronized (this) {
+			summary = summaries.get(method);
+			if (summary == null) {
+				computeSummaries(Collections.singleton(method),
+						Collections.<SootMethod, Summary>emptyMap());
+				summary = summaries.get(method);
+			}
+		}
+		return summary;
+	}
+	
+	private boolean needsSummary(SootMethod method) {
+		return method != null && method.hasActiveBody() && !summaries.containsKey(method);
+	}
+	
+	/**
+	 * Summarizes all methods reachable from the given roots that do not have
+	 * a summary yet. The strongly connected components are summarized in the
+	 * order in which they are completed, i.e., bottom-up.
+	 * @param roots The methods for which to compute summaries
+	 * @param localSummaries Local summaries that have already been computed
+	 */
+	private void computeSummaries(Collection<SootMethod> roots,
+			final Map<SootMethod, Summary> localSummaries) {
+		new ComponentFinder() {
+			
+			@Override
+			protected boolean includes(SootMethod method) {
+				return needsSummary(method);
+			}
+			
+			@Override
+			protected void componentFound(List<SootMethod> component,
+					Map<SootMethod, List<SootMethod>> callees) {
+				summarizeComponent(component, callees, localSummaries);
+			}
+			
+		}.run(roots);
+	}
+	
+	/**
+	 * Gets the strongly connected components of the callgraph that contain
+	 * the methods with bodies reachable from the given roots. Methods that
+	 * call each other recursively end up in the same component.
+	 * @param roots The methods at which to start
+	 * @return The strongly connected components, ordered bottom-up, i.e., a
+	 * component comes after all components it calls into
+	 */
+	public List<List<SootMethod>> getComponents(Collection<SootMethod> roots) {
+		final List<List<SootMethod>> components = new ArrayList<>();
+		new ComponentFinder() {
+			
+			@Override
+			protected boolean includes(SootMethod method) {
+				return method != null && method.hasActiveBody();
+			}
+			
+			@Override
+			protected void componentFound(List<SootMethod> component,
+					Map<SootMethod, List<SootMethod>> callees) {
+				components.add(component);
+			}
+			
+		}.run(roots);
+		return components;
+	}
+	
+	/**
+	 * Runs Tarjan's algorithm on the callgraph and reports the strongly
+	 * connected components in the order in which they are completed, i.e.,
+	 * bottom-up. The algorithm is iterative to cope with deep call chains.
+	 */
+	private abstract class ComponentFinder {
+		
+		private final Map<SootMethod, Integer> indices = new HashMap<>();
+		private final Map<SootMethod, List<SootMethod>> callees = new HashMap<>();
+		private final Deque<SootMethod> sccStack = new ArrayDeque<>();
+		private final Set<SootMethod> onStack = new HashSet<>();
+		private final Deque<int[]> lowLinks = new ArrayDeque<>();
+		private final Deque<Iterator<SootMethod>> calleeIterators = new ArrayDeque<>();
+		private final Deque<SootMethod> callStack = new ArrayDeque<>();
+		
+		/**
+		 * Checks whether the given method shall be part of a component.
+		 * Methods that are not included are not traversed either.
+		 * @param method The method to check
+		 * @return True if the given method shall be part of a component,
+		 * otherwise false
+		 */
+		protected abstract boolean includes(SootMethod method);
+		
+		/**
+		 * Called for every completed strongly connected component. All
+		 * components it calls into have already been reported.
+		 * @param component The methods in the component
+		 * @param callees The callees of all methods visited so far
+		 */
+		protected abstract void componentFound(List<SootMethod> component,
+				Map<SootMethod, List<SootMethod>> callees);
+		
+		void run(Collection<SootMethod> roots) {
+			for (SootMethod root : roots) {
+				if (!includes(root) || indices.containsKey(root))
+					continue;
+				
+				visit(root);
+				while (!callStack.isEmpty()) {
+					Iterator<SootMethod> it = calleeIterators.peek();
+					if (it.hasNext()) {
+						SootMethod callee = it.next();
+						if (!includes(callee))
+							continue;
+						Integer calleeIndex = indices.get(callee);
+						if (calleeIndex == null)
+							visit(callee);
+						else if (onStack.contains(callee))
+							lowLinks.peek()[0] = Math.min(lowLinks.peek()[0], calleeIndex);
+					}
+					else {
+						SootMethod sm = callStack.pop();
+						calleeIterators.pop();
+						int lowLink = lowLinks.pop()[0];
+						if (!lowLinks.isEmpty())
+							lowLinks.peek()[0] = Math.min(lowLinks.peek()[0], lowLink);
+						
+						// If this is the root of a component, we report it
+						if (lowLink == indices.get(sm)) {
+							List<SootMethod> component = new ArrayList<>();
+							SootMethod member;
+							do {
+								member = sccStack.pop();
+								onStack.remove(member);
+								component.add(member);
+							} while (member != sm);
+							componentFound(component, callees);
+						}
+					}
+				}
+			}
+		}
+		
+		private void visit(SootMethod method) {
+			int index = indices.size();
+			indices.put(method, index);
+			sccStack.push(method);
+			onStack.add(method);
+			
+			List<SootMethod> methodCallees = getCallees(method);
+			callees.put(method, methodCallees);
+			lowLinks.push(new int[] { index });
+			calleeIterators.push(methodCallees.iterator());
+			callStack.push(method);
+		}
+		
+	}
+	
+	/**
+	 * Gets the methods that may be called by the given method
+	 * @param method The method for which to get the callees
+	 * @return The callees of the given method
+	 */
+	private List<SootMethod> getCallees(SootMethod method) {
+		if (isOpaque(method) || !Scene.v().hasCallGraph())
+			return Collections.emptyList();
+		
+		List<SootMethod> methodCallees = new ArrayList<>();
+		for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(method); edgeIt.hasNext(); ) {
+			SootMethod callee = edgeIt.next().tgt();
+			if (callee != null)
+				methodCallees.add(callee);
+		}
+		return methodCallees;
+	}
+	
+	/**
+	 * Computes the shared summary of all methods in a strongly connected
+	 * component. All callees outside of the component must already have been
+	 * summarized.
+	 * @param component The methods in the strongly connected component
+	 * @param callees The callees of the methods in the component
+	 * @param localSummaries Local summaries that have already been computed
+	 */
+	private void summarizeComponent(List<SootMethod> component,
+			Map<SootMethod, List<SootMethod>> callees,
+			Map<SootMethod, Summary> localSummaries) {
+		Summary summary = EMPTY_SUMMARY;
+		for (SootMethod sm : component) {
+			Summary local = localSummaries.get(sm);
+			summary = merge(summary, local != null ? local : computeLocalSummary(sm));
+		}
+		
+		// Callees inside the component do not have a summary yet, but they
+		// are merged in above already
+		for (SootMethod sm : component)
+			for (SootMethod callee : callees.get(sm)) {
+				Summary calleeSummary = callee.hasActiveBody() ? summaries.get(callee) : null;
+				if (calleeSummary != null)
+					summary = merge(summary, calleeSummary);
+			}
+		
+		for (SootMethod sm : component)
+			summaries.put(sm, summary);
+	}
+	
+	/**
+	 * Merges two summaries. If one summary already subsumes the other one, it
+	 * is returned as-is, so that methods with the same effects share the same
+	 * summary object.
+	 * @param summary1 The first summary to merge
+	 * @param summary2 The second summary to merge
+	 * @return The merged summary
+	 */
+	private static Summary merge(Summary summary1, Summary summary2) {
+		if (summary1.subsumes(summary2))
+			return summary1;
+		if (summary2.subsumes(summary1))
+			return summary2;
+		
+		BitSet staticReads = (BitSet) summary1.staticReads.clone();
+		staticReads.or(summary2.staticReads);
+		BitSet staticWrites = (BitSet) summary1.staticWrites.clone();
+		staticWrites.or(summary2.staticWrites);
+		return new Summary(summary1.flags | summary2.flags, staticReads, staticWrites);
+	}
+	
+	/**
+	 * Scans the body of the given method, ignoring its callees
+	 * @param method The method to scan
+	 * @return The summary of the given method without its callees
+	 */
+	private Summary computeLocalSummary(SootMethod method) {
+		if (isOpaque(method) || !method.hasActiveBody())
+			return EMPTY_SUMMARY;
+		
+		int flags = getMethodFlags(method);
+		BitSet staticReads = null;
+		BitSet staticWrites = null;
+		for (Unit u : method.getActiveBody().getUnits()) {
+			Stmt stmt = (Stmt) u;
+			flags |= getLocalFlags(method, stmt);
+			
+			if (stmt instanceof AssignStmt) {
+				AssignStmt assign = (AssignStmt) stmt;
+				if (assign.getLeftOp() instanceof StaticFieldRef) {
+					if (staticWrites == null)
+						staticWrites = new BitSet();
+					staticWrites.set(getStaticFieldIndex(((StaticFieldRef) assign.getLeftOp()).getField()));
+				}
+				if (assign.getRightOp() instanceof StaticFieldRef) {
+					if (staticReads == null)
+						staticReads = new BitSet();
+					staticReads.set(getStaticFieldIndex(((StaticFieldRef) assign.getRightOp()).getField()));
+				}
+			}
+		}
+		
+		if (flags == 0 && staticReads == null && staticWrites == null)
+			return EMPTY_SUMMARY;
+		return new Summary(flags, staticReads == null ? EMPTY_SUMMARY.staticReads : staticReads,
+				staticWrites == null ? EMPTY_SUMMARY.staticWrites : staticWrites);
+	}
+	
+	/**
+	 * Gets the position of the given static field in the bit sets of the
+	 * summaries
+	 * @param field The static field
+	 * @return The index of the given static field
+	 */
+	private int getStaticFieldIndex(SootField field) {
+		Integer index = staticFieldIndices.get(field);
+		if (index == null) {
+			Integer newIndex = staticFieldCount.getAndIncrement();
+			index = staticFieldIndices.putIfAbsent(field, newIndex);
+			if (index == null)
+				index = newIndex;
+		}
+		return index;
+	}
+	
+}
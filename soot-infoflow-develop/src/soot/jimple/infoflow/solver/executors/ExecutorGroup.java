@@ -0,0 +1,103 @@
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import heros.solver.CountLatch;
+
+/**
+ * Group of executors that share a single task counter. Solvers that inject
+ * edges into each other, e.g., the forward solver and the backward alias
+ * solver, can run in separate thread pools as long as these pools belong to
+ * the same group: A group is only finished once all of its executors are idle
+ * at the same time, and interrupting one executor interrupts all of them.
+ */
+public class ExecutorGroup {
+	
+	private final CountLatch numRunningTasks = new CountLatch(0);
+	private final List<InterruptableExecutor> executors = new CopyOnWriteArrayList<>();
+	
+	private volatile Throwable exception = null;
+	
+	/**
+	 * Adds the given executor to this group
+	 * @param executor The executor to add
+	 */
+	void addExecutor(InterruptableExecutor executor) {
+		this.executors.add(executor);
+	}
+	
+	void taskSubmitted() {
+		numRunningTasks.increment();
+	}
+	
+	void taskCompleted() {
+		numRunningTasks.decrement();
+	}
+	
+	void taskFailed(Throwable t) {
+		this.exception = t;
+		interrupt();
+	}
+	
+	/**
+	 * Interrupts all executors in this group and releases all threads waiting
+	 * for the group to complete
+	 */
+	public void interrupt() {
+		for (InterruptableExecutor executor : executors)
+			executor.interruptTasks();
+		numRunningTasks.resetAndInterrupt();
+	}
+	
+	/**
+	 * Awaits the completion of all tasks in all executors of this group
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		numRunningTasks.awaitZero();
+	}
+	
+	/**
+	 * Awaits the completion of all tasks in all executors of this group
+	 */
+	public void awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+		numRunningTasks.awaitZero(timeout, unit);
+	}
+	
+	/**
+	 * Gets whether all tasks in all executors of this group have completed
+	 * @return True if there are no more pending tasks in this group, otherwise
+	 * false
+	 */
+	public boolean isFinished() {
+		return numRunningTasks.isAtZero();
+	}
+	
+	/**
+	 * Gets the first exception thrown by a task in any of the executors of this
+	 * group
+	 * @return The exception thrown during task execution, or null if all tasks
+	 * completed normally
+	 */
+	public Throwable getException() {
+		return exception;
+	}
+	
+	/**
+	 * Shuts down all executors in this group
+	 */
+	public void shutdown() {
+		for (InterruptableExecutor executor : executors)
+			executor.shutdown();
+	}
+	
+	/**
+	 * Gets the executors in this group
+	 * @return The executors in this group
+	 */
+	public List<InterruptableExecutor> getExecutors() {
+		return executors;
+	}
+
+}
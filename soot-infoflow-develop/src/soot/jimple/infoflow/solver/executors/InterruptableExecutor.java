@@ -2,9 +2,13 @@ package soot.jimple.infoflow.solver.executors;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import heros.solver.CountingThreadPoolExecutor;
+import heros.util.SootThreadGroup;
 import soot.jimple.infoflow.collect.BlackHoleCollection;
 
 public class InterruptableExecutor extends CountingThreadPoolExecutor {
@@ -12,16 +16,92 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 	private boolean interrupted = false;
 	private boolean terminated = false;
 	
+	private String name = "pool";
+	private ExecutorGroup group = null;
+	
+	private final long creationTime = System.nanoTime();
+	private volatile long terminationTime = -1;
+	private final AtomicLong busyTime = new AtomicLong();
+	private final AtomicLong executedTasks = new AtomicLong();
+	private final AtomicInteger maxQueueLength = new AtomicInteger();
+	private final ThreadLocal<long[]> taskStartTime = new ThreadLocal<long[]>() {
+		
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+		
+	};
+	
 	public InterruptableExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
 			BlockingQueue<Runnable> workQueue) {
 		super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
 	}
 	
+	/**
+	 * Sets the name of this executor. The name is used for the worker threads
+	 * and when reporting the statistics of this executor. Call this method
+	 * before any threads are started.
+	 * @param name The name of this executor
+	 */
+	public void setName(final String name) {
+		this.name = name;
+		setThreadFactory(new ThreadFactory() {
+			
+			private final AtomicInteger threadNum = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(new SootThreadGroup(), r, name + "-" + threadNum.incrementAndGet());
+			}
+			
+		});
+	}
+	
+	/**
+	 * Gets the name of this executor
+	 * @return The name of this executor
+	 */
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	 * Adds this executor to the given group. Afterwards, the awaitCompletion()
+	 * methods wait for the tasks of all executors in the group, and
+	 * interrupting this executor interrupts the whole group.
+	 * @param group The group to which to add this executor
+	 */
+	public void setGroup(ExecutorGroup group) {
+		this.group = group;
+		group.addExecutor(this);
+	}
+	
+	/**
+	 * Gets the group to which this executor belongs
+	 * @return The group to which this executor belongs, or null if this
+	 * executor is not part of a group
+	 */
+	public ExecutorGroup getGroup() {
+		return this.group;
+	}
+	
 	/**
 	 * Interrupts the executor. This will make the awaitCompletion() methods
-	 * return immediately and silently reject all new tasks.
+	 * return immediately and silently reject all new tasks. If this executor
+	 * belongs to a group, all executors in the group are interrupted.
 	 */
 	public void interrupt() {
+		if (group != null)
+			group.interrupt();
+		else
+			interruptTasks();
+	}
+	
+	/**
+	 * Discards all pending tasks of this executor and rejects all new ones
+	 */
+	protected void interruptTasks() {
 		// Make sure that no new tasks are spawned
 		this.interrupted = true;
 		
@@ -50,15 +130,56 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 			throw new RuntimeException("Executor has terminated. Call reset() before submitting new tasks.");
 		
 		// Discard all submitted tasks if the executor has been interrupted
+		if (this.interrupted)
+			return;
+		
+		// The group must know about the task before any worker can finish it
+		if (group != null)
+			group.taskSubmitted();
 		try {
-			if (!this.interrupted)
-				super.execute(command);
+			super.execute(command);
 		}
 		catch (RejectedExecutionException ex) {
+			if (group != null)
+				group.taskCompleted();
+			
 			// We expect the solver to be aborted, just terminate silently
 			// now
 			this.interrupted = true;
+			return;
 		}
+		
+		// Record the queue length
+		int queueLength = getQueue().size();
+		int max = maxQueueLength.get();
+		while (queueLength > max && !maxQueueLength.compareAndSet(max, queueLength))
+			max = maxQueueLength.get();
+	}
+	
+	@Override
+	protected void beforeExecute(Thread t, Runnable r) {
+		taskStartTime.get()[0] = System.nanoTime();
+		super.beforeExecute(t, r);
+	}
+	
+	@Override
+	protected void afterExecute(Runnable r, Throwable t) {
+		busyTime.addAndGet(System.nanoTime() - taskStartTime.get()[0]);
+		executedTasks.incrementAndGet();
+		
+		super.afterExecute(r, t);
+		if (group != null) {
+			if (t == null)
+				group.taskCompleted();
+			else
+				group.taskFailed(t);
+		}
+	}
+	
+	@Override
+	protected void terminated() {
+		terminationTime = System.nanoTime();
+		super.terminated();
 	}
 	
 	@Override
@@ -68,7 +189,10 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 			return;
 		
 		// Wait for the tasks to complete
-		super.awaitCompletion();
+		if (group != null)
+			group.awaitCompletion();
+		else
+			super.awaitCompletion();
 		terminated = true;
 	}
 	
@@ -79,17 +203,29 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 			return;
 
 		// Wait for the tasks to complete
-		super.awaitCompletion(timeout, unit);
+		if (group != null)
+			group.awaitCompletion(timeout, unit);
+		else
+			super.awaitCompletion(timeout, unit);
 		terminated = true;
 	}
 	
+	@Override
+	public Throwable getException() {
+		if (exception == null && group != null)
+			return group.getException();
+		return exception;
+	}
+	
 	/**
 	 * Gets whether this executor has terminated all of its tasks
 	 * @return True if this executor has terminated all of its tasks, otherwise
 	 * false
 	 */
 	public boolean isFinished() {
-		return terminated || numRunningTasks.isAtZero();
+		if (terminated)
+			return true;
+		return group != null ? group.isFinished() : numRunningTasks.isAtZero();
 	}
 	
 	@Override
@@ -97,4 +233,48 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 		return terminated || super.isTerminated();
 	}
 	
+	/**
+	 * Gets the number of tasks this executor has run so far
+	 * @return The number of tasks this executor has run
+	 */
+	public long getExecutedTaskCount() {
+		return executedTasks.get();
+	}
+	
+	/**
+	 * Gets the maximum number of tasks that were waiting in the queue of this
+	 * executor at the same time
+	 * @return The maximum length of the work queue
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength.get();
+	}
+	
+	/**
+	 * Gets the time the worker threads of this executor have spent running
+	 * tasks
+	 * @return The accumulated task execution time in nanoseconds
+	 */
+	public long getBusyTime() {
+		return busyTime.get();
+	}
+	
+	/**
+	 * Gets the share of the available thread time this executor has spent
+	 * running tasks since it was created, until it was shut down
+	 * @return The utilization of the worker threads between 0 and 1
+	 */
+	public double getUtilization() {
+		long end = terminationTime < 0 ? System.nanoTime() : terminationTime;
+		long available = (end - creationTime) * Math.max(1, getLargestPoolSize());
+		return available <= 0 ? 0 : Math.min(1, busyTime.get() / (double) available);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: %d threads, %d tasks, max. queue length %d, %.1f%% utilization",
+				name, getLargestPoolSize(), getExecutedTaskCount(), getMaxQueueLength(),
+				getUtilization() * 100);
+	}
+	
 }
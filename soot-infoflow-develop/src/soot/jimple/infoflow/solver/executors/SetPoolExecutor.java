@@ -38,8 +38,8 @@ public class SetPoolExecutor extends InterruptableExecutor {
 	}
 	
 	@Override
-	public void interrupt() {
-		super.interrupt();
+	protected void interruptTasks() {
+		super.interruptTasks();
 		this.waiting.clear();
 	}
 	
@@ -21,7 +21,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 import heros.DontSynchronize;
 import heros.FlowFunction;
@@ -37,12 +37,13 @@ import heros.FlowFunctions;
 import heros.IFDSTabulationProblem;
 import heros.SynchronizedBy;
 import heros.ZeroedFlowFunctions;
+import heros.solver.IDESolver;
 import heros.solver.Pair;
 import heros.solver.PathEdge;
 import soot.SootMethod;
 import soot.Unit;
-import soot.jimple.infoflow.collect.ConcurrentHashSet;
-import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashSet;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
@@ -62,8 +63,8 @@ import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInterproceduralCFG<N, SootMethod>>
 			implements IMemoryBoundedSolver {
 	
-	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel
-			(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
+	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = IDESolver.functionCacheBuilder(
+			IDESolver.DEFAULT_FUNCTION_CACHE_SIZE);
 	
     protected static final Logger logger = LoggerFactory.getLogger(IFDSSolver.class);
 
@@ -76,8 +77,8 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	protected int numThreads;
 	
 	@SynchronizedBy("thread safe data structure, consistent locking when used")
-	protected MyConcurrentHashMap<PathEdge<N, D>,D> jumpFunctions =
-			new MyConcurrentHashMap<PathEdge<N,D>, D>();
+	protected ConcurrentOpenHashMap<PathEdge<N, D>,D> jumpFunctions =
+			new ConcurrentOpenHashMap<PathEdge<N,D>, D>();
 	
 	@SynchronizedBy("thread safe data structure, only modified internally")
 	protected final I icfg;
@@ -85,14 +86,14 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	//stores summaries that were queried before they were computed
 	//see CC 2010 paper by Naeem, Lhotak and Rodriguez
 	@SynchronizedBy("consistent lock on 'incoming'")
-	protected final MyConcurrentHashMap<Pair<SootMethod,D>,Set<Pair<N,D>>> endSummary =
-			new MyConcurrentHashMap<Pair<SootMethod,D>, Set<Pair<N,D>>>();
+	protected final ConcurrentOpenHashMap<Pair<SootMethod,D>,Set<Pair<N,D>>> endSummary =
+			new ConcurrentOpenHashMap<Pair<SootMethod,D>, Set<Pair<N,D>>>();
 	
 	//edges going along calls
 	//see CC 2010 paper by Naeem, Lhotak and Rodriguez
 	@SynchronizedBy("consistent lock on field")
-	protected final MyConcurrentHashMap<Pair<SootMethod,D>,MyConcurrentHashMap<N,Map<D, D>>> incoming =
-			new MyConcurrentHashMap<Pair<SootMethod,D>,MyConcurrentHashMap<N,Map<D, D>>>();
+	protected final ConcurrentOpenHashMap<Pair<SootMethod,D>,ConcurrentOpenHashMap<N,Map<D, D>>> incoming =
+			new ConcurrentOpenHashMap<Pair<SootMethod,D>,ConcurrentOpenHashMap<N,Map<D, D>>>();
 	
 	@DontSynchronize("stateless")
 	protected final FlowFunctions<N, D, SootMethod> flowFunctions;
@@ -640,8 +641,11 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		if (d1 == zeroValue)
 			return true;
 		
-		Set<Pair<N, D>> summaries = endSummary.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d1), new ConcurrentHashSet<Pair<N, D>>());
+		// Only create a new set if there is none yet
+		Pair<SootMethod, D> key = new Pair<SootMethod, D>(m, d1);
+		Set<Pair<N, D>> summaries = endSummary.get(key);
+		if (summaries == null)
+			summaries = endSummary.putIfAbsentElseGet(key, new ConcurrentOpenHashSet<Pair<N, D>>());
 		return summaries.add(new Pair<N, D>(eP, d2));
 	}
 	
@@ -651,9 +655,14 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	}
 	
 	protected boolean addIncoming(SootMethod m, D d3, N n, D d1, D d2) {
-		MyConcurrentHashMap<N, Map<D, D>> summaries = incoming.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d3), new MyConcurrentHashMap<N, Map<D, D>>());
-		Map<D, D> set = summaries.putIfAbsentElseGet(n, new ConcurrentHashMap<D, D>());
+		// Only create new maps if there are none yet
+		Pair<SootMethod, D> key = new Pair<SootMethod, D>(m, d3);
+		ConcurrentOpenHashMap<N, Map<D, D>> summaries = incoming.get(key);
+		if (summaries == null)
+			summaries = incoming.putIfAbsentElseGet(key, new ConcurrentOpenHashMap<N, Map<D, D>>());
+		Map<D, D> set = summaries.get(n);
+		if (set == null)
+			set = summaries.putIfAbsentElseGet(n, new ConcurrentOpenHashMap<D, D>());
 		return set.put(d1, d2) == null;
 	}
 	
@@ -672,6 +681,14 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		return "FAST IFDS SOLVER";
 	}
 
+	/**
+	 * Returns the combined statistics of the flow function caches
+	 * @return The cache statistics, or null if flow functions are not cached
+	 */
+	public CacheStats getFlowFunctionCacheStats() {
+		return ffCache == null ? null : ffCache.getStats();
+	}
+
 	public void printStats() {
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
@@ -18,9 +18,12 @@ import java.util.Set;
 import heros.FlowFunction;
 import heros.solver.Pair;
 import heros.solver.PathEdge;
+
+import com.google.common.cache.CacheBuilder;
+
 import soot.SootMethod;
 import soot.Unit;
-import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.AbstractInfoflowProblem;
 import soot.jimple.infoflow.solver.IFollowReturnsPastSeedsHandler;
@@ -43,7 +46,19 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 	private final AbstractInfoflowProblem problem;
 	
 	public InfoflowSolver(AbstractInfoflowProblem problem, InterruptableExecutor executor) {
-		super(problem);
+		this(problem, executor, DEFAULT_CACHE_BUILDER);
+	}
+	
+	/**
+	 * Creates a new solver that caches flow functions using the given builder
+	 * @param problem The data flow problem to solve
+	 * @param executor The executor in which to run the propagation tasks
+	 * @param flowFunctionCacheBuilder The builder for the flow function
+	 * cache, or null if flow functions shall not be cached
+	 */
+	public InfoflowSolver(AbstractInfoflowProblem problem, InterruptableExecutor executor,
+			@SuppressWarnings("rawtypes") CacheBuilder flowFunctionCacheBuilder) {
+		super(problem, flowFunctionCacheBuilder);
 		this.problem = problem;
 		this.executor = executor;
 		problem.setSolver(this);		
@@ -142,7 +157,7 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 	
 	@Override
 	public void cleanup() {
-		this.jumpFunctions = new MyConcurrentHashMap<PathEdge<Unit, Abstraction>, Abstraction>();
+		this.jumpFunctions = new ConcurrentOpenHashMap<PathEdge<Unit, Abstraction>, Abstraction>();
 		this.incoming.clear();
 		this.endSummary.clear();
 	}
@@ -20,7 +20,6 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -28,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 import heros.DontSynchronize;
 import heros.FlowFunction;
@@ -36,12 +36,13 @@ import heros.FlowFunctions;
 import heros.IFDSTabulationProblem;
 import heros.SynchronizedBy;
 import heros.ZeroedFlowFunctions;
+import heros.solver.IDESolver;
 import heros.solver.Pair;
 import heros.solver.PathEdge;
 import soot.SootMethod;
 import soot.Unit;
-import soot.jimple.infoflow.collect.ConcurrentHashSet;
-import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashSet;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver.IMemoryBoundedSolverStatusNotification;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
@@ -63,8 +64,8 @@ import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode<D, N>,I extends BiDiInterproceduralCFG<Unit, SootMethod>>
 			implements IMemoryBoundedSolver {
 	
-	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel
-			(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
+	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = IDESolver.functionCacheBuilder(
+			IDESolver.DEFAULT_FUNCTION_CACHE_SIZE);
 	
     protected static final Logger logger = LoggerFactory.getLogger(FlowInsensitiveSolver.class);
 
@@ -77,8 +78,8 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	protected int numThreads;
 	
 	@SynchronizedBy("thread safe data structure, consistent locking when used")
-	protected MyConcurrentHashMap<PathEdge<SootMethod, D>,D> jumpFunctions =
-			new MyConcurrentHashMap<PathEdge<SootMethod,D>, D>();
+	protected ConcurrentOpenHashMap<PathEdge<SootMethod, D>,D> jumpFunctions =
+			new ConcurrentOpenHashMap<PathEdge<SootMethod,D>, D>();
 	
 	@SynchronizedBy("thread safe data structure, only modified internally")
 	protected final I icfg;
@@ -86,14 +87,14 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	//stores summaries that were queried before they were computed
 	//see CC 2010 paper by Naeem, Lhotak and Rodriguez
 	@SynchronizedBy("consistent lock on 'incoming'")
-	protected final MyConcurrentHashMap<Pair<SootMethod,D>,Set<Pair<Unit,D>>> endSummary =
-			new MyConcurrentHashMap<Pair<SootMethod,D>, Set<Pair<Unit,D>>>();
+	protected final ConcurrentOpenHashMap<Pair<SootMethod,D>,Set<Pair<Unit,D>>> endSummary =
+			new ConcurrentOpenHashMap<Pair<SootMethod,D>, Set<Pair<Unit,D>>>();
 	
 	//edges going along calls
 	//see CC 2010 paper by Naeem, Lhotak and Rodriguez
 	@SynchronizedBy("consistent lock on field")
-	protected final MyConcurrentHashMap<Pair<SootMethod,D>,MyConcurrentHashMap<Unit,Map<D, D>>> incoming =
-			new MyConcurrentHashMap<Pair<SootMethod,D>,MyConcurrentHashMap<Unit,Map<D, D>>>();
+	protected final ConcurrentOpenHashMap<Pair<SootMethod,D>,ConcurrentOpenHashMap<Unit,Map<D, D>>> incoming =
+			new ConcurrentOpenHashMap<Pair<SootMethod,D>,ConcurrentOpenHashMap<Unit,Map<D, D>>>();
 	
 	@DontSynchronize("stateless")
 	protected final FlowFunctions<Unit, D, SootMethod> flowFunctions;
@@ -608,8 +609,11 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 		if (d1 == zeroValue)
 			return true;
 		
-		Set<Pair<Unit, D>> summaries = endSummary.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d1), new ConcurrentHashSet<Pair<Unit, D>>());
+		// Only create a new set if there is none yet
+		Pair<SootMethod, D> key = new Pair<SootMethod, D>(m, d1);
+		Set<Pair<Unit, D>> summaries = endSummary.get(key);
+		if (summaries == null)
+			summaries = endSummary.putIfAbsentElseGet(key, new ConcurrentOpenHashSet<Pair<Unit, D>>());
 		return summaries.add(new Pair<Unit, D>(eP, d2));
 	}
 	
@@ -618,9 +622,14 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	}
 	
 	protected boolean addIncoming(SootMethod m, D d3, Unit n, D d1, D d2) {
-		MyConcurrentHashMap<Unit, Map<D, D>> summaries = incoming.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d3), new MyConcurrentHashMap<Unit, Map<D, D>>());
-		Map<D, D> set = summaries.putIfAbsentElseGet(n, new ConcurrentHashMap<D, D>());
+		// Only create new maps if there are none yet
+		Pair<SootMethod, D> key = new Pair<SootMethod, D>(m, d3);
+		ConcurrentOpenHashMap<Unit, Map<D, D>> summaries = incoming.get(key);
+		if (summaries == null)
+			summaries = incoming.putIfAbsentElseGet(key, new ConcurrentOpenHashMap<Unit, Map<D, D>>());
+		Map<D, D> set = summaries.get(n);
+		if (set == null)
+			set = summaries.putIfAbsentElseGet(n, new ConcurrentOpenHashMap<D, D>());
 		return set.put(d1, d2) == null;
 	}
 	
@@ -639,6 +648,14 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 		return "FAST IFDS SOLVER";
 	}
 
+	/**
+	 * Returns the combined statistics of the flow function caches
+	 * @return The cache statistics, or null if flow functions are not cached
+	 */
+	public CacheStats getFlowFunctionCacheStats() {
+		return ffCache == null ? null : ffCache.getStats();
+	}
+
 	public void printStats() {
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
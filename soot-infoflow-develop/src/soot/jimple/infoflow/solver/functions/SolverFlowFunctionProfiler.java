@@ -0,0 +1,165 @@
+package soot.jimple.infoflow.solver.functions;
+
+import heros.FlowFunction;
+import heros.FlowFunctionProfiler;
+import heros.FlowFunctions;
+import heros.InterproceduralCFG;
+
+import java.util.Collection;
+import java.util.Set;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.data.Abstraction;
+
+/**
+ * A flow function profiler that keeps the special solver flow function types.
+ * The solvers only pass the context abstractions to flow functions that extend
+ * {@link SolverNormalFlowFunction}, {@link SolverCallFlowFunction},
+ * {@link SolverCallToReturnFlowFunction} or {@link SolverReturnFlowFunction},
+ * so the profiling wrappers must extend the same class as the flow function
+ * they wrap.
+ */
+public class SolverFlowFunctionProfiler extends FlowFunctionProfiler<Unit, Abstraction, SootMethod> {
+
+	public SolverFlowFunctionProfiler(FlowFunctions<Unit, Abstraction, SootMethod> delegate,
+			InterproceduralCFG<Unit, SootMethod> icfg, int sampleInterval) {
+		super(delegate, icfg, sampleInterval);
+	}
+
+	@Override
+	protected FlowFunction<Abstraction> profile(final FlowFunction<Abstraction> function,
+			final Kind kind, final Unit stmt, final SootMethod method) {
+		if (function instanceof SolverNormalFlowFunction) {
+			final SolverNormalFlowFunction solverFunction = (SolverNormalFlowFunction) function;
+			return new SolverNormalFlowFunction() {
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction source) {
+					if (!sample())
+						return solverFunction.computeTargets(source);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(source);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2) {
+					if (!sample())
+						return solverFunction.computeTargets(d1, d2);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(d1, d2);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+			};
+		}
+		if (function instanceof SolverCallFlowFunction) {
+			final SolverCallFlowFunction solverFunction = (SolverCallFlowFunction) function;
+			return new SolverCallFlowFunction() {
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction source) {
+					if (!sample())
+						return solverFunction.computeTargets(source);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(source);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2) {
+					if (!sample())
+						return solverFunction.computeTargets(d1, d2);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(d1, d2);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+			};
+		}
+		if (function instanceof SolverCallToReturnFlowFunction) {
+			final SolverCallToReturnFlowFunction solverFunction = (SolverCallToReturnFlowFunction) function;
+			return new SolverCallToReturnFlowFunction() {
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction source) {
+					if (!sample())
+						return solverFunction.computeTargets(source);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(source);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2) {
+					if (!sample())
+						return solverFunction.computeTargets(d1, d2);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(d1, d2);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+			};
+		}
+		if (function instanceof SolverReturnFlowFunction) {
+			final SolverReturnFlowFunction solverFunction = (SolverReturnFlowFunction) function;
+			return new SolverReturnFlowFunction() {
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction source) {
+					if (!sample())
+						return solverFunction.computeTargets(source);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(source);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+				@Override
+				public Set<Abstraction> computeTargets(Abstraction source,
+						Abstraction calleeD1, Collection<Abstraction> callerD1s) {
+					if (!sample())
+						return solverFunction.computeTargets(source, calleeD1, callerD1s);
+					long before = System.nanoTime();
+					try {
+						return solverFunction.computeTargets(source, calleeD1, callerD1s);
+					}
+					finally {
+						record(kind, stmt, method, System.nanoTime() - before);
+					}
+				}
+
+			};
+		}
+		return super.profile(function, kind, stmt, method);
+	}
+
+}
@@ -14,6 +14,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Table;
 
 import heros.EdgeFunction;
@@ -53,7 +54,19 @@ public class InfoflowSolver extends PathTrackingIFDSSolver<Unit, Abstraction, So
 	private final AbstractInfoflowProblem problem;
 	
 	public InfoflowSolver(AbstractInfoflowProblem problem, InterruptableExecutor executor) {
-		super(problem);
+		this(problem, executor, DEFAULT_FUNCTION_CACHE_BUILDER);
+	}
+	
+	/**
+	 * Creates a new solver that caches flow functions using the given builder
+	 * @param problem The data flow problem to solve
+	 * @param executor The executor in which to run the propagation tasks
+	 * @param flowFunctionCacheBuilder The builder for the flow function
+	 * cache, or null if flow functions shall not be cached
+	 */
+	public InfoflowSolver(AbstractInfoflowProblem problem, InterruptableExecutor executor,
+			@SuppressWarnings("rawtypes") CacheBuilder flowFunctionCacheBuilder) {
+		super(problem, flowFunctionCacheBuilder);
 		this.problem = problem;
 		this.executor = executor;
 		problem.setSolver(this);		
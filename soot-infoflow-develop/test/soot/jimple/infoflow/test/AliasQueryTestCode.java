@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test;
+
+import soot.jimple.infoflow.test.android.ConnectionManager;
+import soot.jimple.infoflow.test.android.TelephonyManager;
+import soot.jimple.infoflow.test.utilclasses.ClassWithField;
+
+public class AliasQueryTestCode {
+
+	public void aliasQueryTest() {
+		ClassWithField first = new ClassWithField();
+		ClassWithField second = new ClassWithField();
+		ClassWithField firstCopy = identity(first);
+		ClassWithField secondCopy = identity(second);
+
+		first.field = TelephonyManager.getDeviceId();
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(firstCopy.field);
+		cm.publish(secondCopy.field);
+	}
+
+	private ClassWithField identity(ClassWithField data) {
+		return data;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test;
+
+import soot.jimple.infoflow.test.android.ConnectionManager;
+import soot.jimple.infoflow.test.android.TelephonyManager;
+
+public class ConstantPropagationTestCode {
+
+	public void parameterChainTest() {
+		level1(42);
+	}
+
+	private void level1(int x) {
+		level2(x);
+	}
+
+	private void level2(int y) {
+		level3(y + 1);
+	}
+
+	private void level3(int z) {
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(z);
+	}
+
+	public void returnValueTest() {
+		int a = constantReturn();
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(a);
+	}
+
+	private int constantReturn() {
+		return nestedConstantReturn() * 2;
+	}
+
+	private int nestedConstantReturn() {
+		return 21;
+	}
+
+	public void recursionTest() {
+		ping(3);
+	}
+
+	private void ping(int n) {
+		if (n > 0)
+			pong(n);
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(n);
+	}
+
+	private void pong(int n) {
+		ping(n - 1);
+	}
+
+	public void taintedChainTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		forward(tainted, 1);
+	}
+
+	private void forward(String data, int level) {
+		if (level > 0)
+			leak(data, level + 1);
+	}
+
+	private void leak(String data, int level) {
+		if (level > 1) {
+			ConnectionManager cm = new ConnectionManager();
+			cm.publish(data);
+		}
+	}
+
+}
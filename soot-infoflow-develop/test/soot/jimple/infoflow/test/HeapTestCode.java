@@ -1404,4 +1404,30 @@ public class HeapTestCode {
 		b.attr = a;
 	}
 
+	public void copyChainTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		A a = new A();
+		a.b = tainted;
+		String s1 = a.b;
+		String s2 = s1;
+		a.c = s2;
+		String s3 = a.c;
+		String s4 = s3;
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(s4);
+	}
+
+	public void copyLoopTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		A a = new A();
+		for (int i = 0; i < a.i; i++) {
+			a.b = tainted;
+			String s1 = a.b;
+			String s2 = s1;
+			tainted = s2;
+		}
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(a.b);
+	}
+
 }
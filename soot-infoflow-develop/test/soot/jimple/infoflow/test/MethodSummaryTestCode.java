@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test;
+
+import soot.jimple.infoflow.test.android.ConnectionManager;
+import soot.jimple.infoflow.test.android.TelephonyManager;
+import soot.jimple.infoflow.test.utilclasses.ClassWithField;
+
+public class MethodSummaryTestCode {
+
+	static String staticA;
+	static String staticB;
+
+	private String field;
+	private String[] array = new String[1];
+
+	public void summaryTest() {
+		pureCaller();
+		recursiveA(3);
+		writeField("x");
+		writeArray("x");
+		callSinkIndirectly("x");
+		callNative();
+		throwException(false);
+		readThis();
+	}
+
+	private int pure(int x) {
+		return x * 2;
+	}
+
+	private int pureCaller() {
+		return pure(1) + 1;
+	}
+
+	private static String recursiveA(int n) {
+		if (n > 0)
+			return recursiveB(n - 1);
+		staticA = "a";
+		return "";
+	}
+
+	private static String recursiveB(int n) {
+		String b = staticB;
+		if (n > 0)
+			return recursiveA(n - 1);
+		return b;
+	}
+
+	private void writeField(String s) {
+		field = s;
+	}
+
+	private void writeArray(String s) {
+		array[0] = s;
+	}
+
+	private void callSink(String s) {
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(s);
+	}
+
+	private void callSinkIndirectly(String s) {
+		callSink(s);
+	}
+
+	private void callNative() {
+		char[] src = new char[] { 'a' };
+		char[] dest = new char[1];
+		System.arraycopy(src, 0, dest, 0, 1);
+	}
+
+	private void throwException(boolean b) {
+		if (b)
+			throw new IllegalStateException();
+	}
+
+	private String readThis() {
+		return field;
+	}
+
+	public void transparentCalleeTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		ClassWithField data = new ClassWithField();
+		data.field = tainted;
+		inspect(data);
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(data.field);
+	}
+
+	public void transparentStaticCalleeTest() {
+		staticB = TelephonyManager.getDeviceId();
+		inspectStatic();
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(staticB);
+	}
+
+	private void inspect(ClassWithField data) {
+		String s = data.field;
+		if (s == null)
+			return;
+	}
+
+	private static void inspectStatic() {
+		int x = pureStatic(1);
+		if (x == 0)
+			return;
+	}
+
+	private static int pureStatic(int x) {
+		return x + 1;
+	}
+
+}
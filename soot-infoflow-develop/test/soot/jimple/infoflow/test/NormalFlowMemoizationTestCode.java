@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test;
+
+import soot.jimple.infoflow.test.android.ConnectionManager;
+import soot.jimple.infoflow.test.android.TelephonyManager;
+import soot.jimple.infoflow.test.utilclasses.ClassWithField;
+
+/**
+ * Every helper method is entered with a taint on a different parameter from
+ * its two call sites, so that the same access paths reach the statements
+ * after the merge in two different contexts
+ */
+public class NormalFlowMemoizationTestCode {
+
+	public void killTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(merge(tainted, "a", true));
+		cm.publish(merge("b", tainted, false));
+		cm.publish(mergeAndKill(tainted, "c", true));
+		cm.publish(mergeAndKill("d", tainted, false));
+	}
+
+	private String merge(String first, String second, boolean useFirst) {
+		String data = useFirst ? first : second;
+		String copy = data;
+		return copy;
+	}
+
+	private String mergeAndKill(String first, String second, boolean useFirst) {
+		String data = useFirst ? first : second;
+		String copy = data;
+		copy = "clean";
+		data = copy;
+		return data;
+	}
+
+	public void aliasTest() {
+		String tainted = TelephonyManager.getDeviceId();
+		ClassWithField first = new ClassWithField();
+		ClassWithField second = new ClassWithField();
+		ClassWithField third = new ClassWithField();
+		store(first, tainted, "a", true);
+		store(second, "b", tainted, false);
+		storeAndOverwrite(third, tainted, "c", true);
+		storeAndOverwrite(third, "d", tainted, false);
+
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(first.field);
+		cm.publish(second.field);
+		cm.publish(third.field);
+	}
+
+	private void store(ClassWithField target, String first, String second, boolean useFirst) {
+		String data = useFirst ? first : second;
+		ClassWithField alias = target;
+		String copy = data;
+		alias.field = copy;
+
+		String[] array = new String[1];
+		array[0] = copy;
+		String fromArray = array[0];
+		target.field = fromArray;
+	}
+
+	private void storeAndOverwrite(ClassWithField target, String first, String second, boolean useFirst) {
+		String data = useFirst ? first : second;
+		ClassWithField alias = target;
+		alias.field = data;
+		target.field = "clean";
+	}
+
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import soot.G;
+import soot.Local;
+import soot.RefType;
+import soot.Scene;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionMemoryReport;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.data.AccountingMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
+import soot.jimple.infoflow.memory.FlowDroidMemoryWatcher;
+import soot.options.Options;
+
+/**
+ * Checks the sampling of the {@link AccountingMemoryManager} and the periodic
+ * reports of its statistics
+ */
+public class AccountingMemoryManagerTests {
+
+	@BeforeClass
+	public static void setUp() {
+		G.reset();
+		Options.v().set_soot_classpath(System.getProperty("java.home")
+				+ File.separator + "lib" + File.separator + "rt.jar");
+		Options.v().set_allow_phantom_refs(true);
+		Scene.v().loadNecessaryClasses();
+	}
+
+	/**
+	 * Creates a chain of abstractions in which every abstraction is the
+	 * predecessor of the next one
+	 * @param length The number of abstractions in the chain
+	 * @return The last abstraction in the chain
+	 */
+	private static Abstraction createChain(int length) {
+		AccessPathFactory factory = new AccessPathFactory(new InfoflowConfiguration());
+		Local local = Jimple.v().newLocal("a", RefType.v("java.lang.String"));
+		AccessPath ap = factory.createAccessPath(local, true);
+		Abstraction abs = new Abstraction(ap, Jimple.v().newNopStmt(), null, false, false);
+		for (int i = 1; i < length; i++)
+			abs = abs.deriveNewAbstraction(ap, Jimple.v().newNopStmt());
+		return abs;
+	}
+
+	@Test
+	public void nullDelegatePassesAbstractionsThrough() {
+		AccountingMemoryManager memoryManager = new AccountingMemoryManager(null, null, 1);
+		Assert.assertNull(memoryManager.getDelegate());
+
+		Abstraction abs = createChain(3);
+		Assert.assertSame(abs, memoryManager.handleMemoryObject(abs));
+		Abstraction output = createChain(2);
+		Assert.assertSame(output, memoryManager.handleGeneratedMemoryObject(abs, output));
+		Assert.assertSame(abs, memoryManager.handleGeneratedMemoryObject(abs, abs));
+
+		Unit callSite = Jimple.v().newNopStmt();
+		Assert.assertFalse(memoryManager.isEssentialJoinPoint(abs, null));
+		Assert.assertTrue(memoryManager.isEssentialJoinPoint(abs, callSite));
+
+		AbstractionMemoryReport report = memoryManager.getReport();
+		Assert.assertEquals(1, report.getHandledAbstractions());
+		Assert.assertEquals(1, report.getGeneratedAbstractions());
+		Assert.assertEquals(1, report.getReusedAbstractions());
+		Assert.assertEquals(1, report.getTotalStatistics().getSamples());
+		Assert.assertEquals(3.0, report.getTotalStatistics().getAverageChainDepth(), 0.001);
+	}
+
+	@Test
+	public void samplesEveryNthAbstraction() {
+		AccountingMemoryManager memoryManager = new AccountingMemoryManager(
+				new FlowDroidMemoryManager(false, PathDataErasureMode.EraseNothing), null, 3);
+		for (int i = 1; i <= 7; i++)
+			memoryManager.handleMemoryObject(createChain(i));
+
+		// The third and the sixth abstraction are sampled
+		AbstractionMemoryReport report = memoryManager.getReport();
+		Assert.assertEquals(7, report.getHandledAbstractions());
+		Assert.assertEquals(2, report.getTotalStatistics().getSamples());
+		Assert.assertEquals(4.5, report.getTotalStatistics().getAverageChainDepth(), 0.001);
+		Assert.assertTrue(report.getEstimatedRetainedBytes() > 0);
+	}
+
+	@Test(timeout = 30000)
+	public void watcherReportsPeriodically() throws InterruptedException {
+		final CountDownLatch reports = new CountDownLatch(3);
+		final AtomicInteger reportCount = new AtomicInteger();
+		AccountingMemoryManager memoryManager = new AccountingMemoryManager(null, null, 1) {
+
+			@Override
+			public AbstractionMemoryReport getReport() {
+				reportCount.incrementAndGet();
+				reports.countDown();
+				return super.getReport();
+			}
+
+		};
+
+		FlowDroidMemoryWatcher watcher = new FlowDroidMemoryWatcher();
+		watcher.setAccountingManager(memoryManager, 10);
+		Assert.assertTrue(reports.await(10, TimeUnit.SECONDS));
+
+		// Once the watcher is closed, there are no more reports
+		watcher.close();
+		Thread.sleep(50);
+		int count = reportCount.get();
+		Thread.sleep(100);
+		Assert.assertEquals(count, reportCount.get());
+	}
+
+}
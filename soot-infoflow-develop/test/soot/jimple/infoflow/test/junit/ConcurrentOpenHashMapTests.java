@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.jimple.infoflow.collect.ConcurrentOpenHashMap;
+import soot.jimple.infoflow.collect.ConcurrentOpenHashSet;
+
+/**
+ * Checks the lock-free {@link ConcurrentOpenHashMap} and
+ * {@link ConcurrentOpenHashSet} against the collections from java.util, both
+ * sequentially and with several threads that grow the same map
+ */
+public class ConcurrentOpenHashMapTests {
+	
+	private static final int THREADS = 8;
+	
+	@Test
+	public void randomOperationsMatchHashMap() {
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		ConcurrentOpenHashMap<Integer, Integer> actual = new ConcurrentOpenHashMap<Integer, Integer>();
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; i++) {
+			Integer key = random.nextInt(5000);
+			Integer value = random.nextInt(3);
+			switch (random.nextInt(8)) {
+			case 0:
+				Assert.assertEquals(expected.remove(key), actual.remove(key));
+				break;
+			case 1:
+				Assert.assertEquals(expected.containsKey(key) ? expected.get(key) : null,
+						actual.putIfAbsent(key, value));
+				if (!expected.containsKey(key))
+					expected.put(key, value);
+				break;
+			case 2:
+				boolean replaced = value.equals(expected.get(key));
+				Assert.assertEquals(replaced, actual.replace(key, value, value + 1));
+				if (replaced)
+					expected.put(key, value + 1);
+				break;
+			case 3:
+				boolean removed = value.equals(expected.get(key));
+				Assert.assertEquals(removed, actual.remove(key, value));
+				if (removed)
+					expected.remove(key);
+				break;
+			case 4:
+				if (random.nextInt(20000) == 0) {
+					expected.clear();
+					actual.clear();
+				}
+				break;
+			default:
+				Assert.assertEquals(expected.put(key, value), actual.put(key, value));
+			}
+			Assert.assertEquals(expected.get(key), actual.get(key));
+			if (i % 10000 == 0) {
+				Assert.assertEquals(expected.size(), actual.size());
+				Assert.assertEquals(expected, actual);
+				Assert.assertEquals(expected, new HashMap<Integer, Integer>(actual));
+			}
+		}
+		Assert.assertEquals(expected, new HashMap<Integer, Integer>(actual));
+	}
+	
+	@Test
+	public void identityComparesKeysByReference() {
+		ConcurrentOpenHashMap<String, Integer> map = new ConcurrentOpenHashMap<String, Integer>(true);
+		String a = new String("key");
+		String b = new String("key");
+		Assert.assertNull(map.putIfAbsent(a, 1));
+		Assert.assertNull(map.putIfAbsent(b, 2));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(Integer.valueOf(1), map.get(a));
+		Assert.assertEquals(Integer.valueOf(2), map.get(b));
+		Assert.assertNull(map.get("key"));
+	}
+	
+	@Test
+	public void iteratorRemovesEntries() {
+		ConcurrentOpenHashMap<Integer, Integer> map = new ConcurrentOpenHashMap<Integer, Integer>();
+		for (int i = 0; i < 1000; i++)
+			map.put(i, i);
+		for (Iterator<Entry<Integer, Integer>> it = map.entrySet().iterator(); it.hasNext(); ) {
+			Entry<Integer, Integer> entry = it.next();
+			Assert.assertEquals(entry.getKey(), entry.getValue());
+			if (entry.getKey() % 2 == 0)
+				it.remove();
+			else
+				entry.setValue(-entry.getValue());
+		}
+		Assert.assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++)
+			Assert.assertEquals(i % 2 == 0 ? null : Integer.valueOf(-i), map.get(i));
+	}
+	
+	@Test(timeout = 60000)
+	public void concurrentPutIfAbsentElseGetIsCanonical() throws Throwable {
+		final int keys = 100000;
+		final ConcurrentOpenHashMap<Integer, Object> map = new ConcurrentOpenHashMap<Integer, Object>();
+		final Object[][] seen = new Object[THREADS][keys];
+		runConcurrently(new Worker() {
+			
+			@Override
+			public void run(int thread) {
+				// Every thread inserts all keys, starting at a different offset
+				for (int i = 0; i < keys; i++) {
+					int key = (i + thread * (keys / THREADS)) % keys;
+					seen[thread][key] = map.putIfAbsentElseGet(key, new Object());
+				}
+			}
+			
+		});
+		
+		Assert.assertEquals(keys, map.size());
+		for (int key = 0; key < keys; key++) {
+			Object value = map.get(key);
+			Assert.assertNotNull(value);
+			for (int thread = 0; thread < THREADS; thread++)
+				Assert.assertSame(value, seen[thread][key]);
+		}
+		Assert.assertEquals(keys, new HashMap<Integer, Object>(map).size());
+	}
+	
+	@Test(timeout = 60000)
+	public void concurrentAddsAndRemoves() throws Throwable {
+		final ConcurrentOpenHashSet<Integer> set = new ConcurrentOpenHashSet<Integer>();
+		runConcurrently(new Worker() {
+			
+			@Override
+			public void run(int thread) {
+				// Each thread owns the keys that are congruent to its number
+				for (int i = thread; i < 200000; i += THREADS) {
+					Assert.assertTrue(set.add(i));
+					Assert.assertFalse(set.add(i));
+					if (i % 3 == 0)
+						Assert.assertTrue(set.remove(i));
+				}
+			}
+			
+		});
+		
+		Set<Integer> expected = new HashSet<Integer>();
+		for (int i = 0; i < 200000; i++)
+			if (i % 3 != 0)
+				expected.add(i);
+		Assert.assertEquals(expected.size(), set.size());
+		Assert.assertEquals(expected, new HashSet<Integer>(set));
+	}
+	
+	private interface Worker {
+		
+		public void run(int thread);
+		
+	}
+	
+	private static void runConcurrently(final Worker worker) throws Throwable {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < THREADS; i++) {
+			final int thread = i;
+			Thread t = new Thread() {
+				
+				@Override
+				public void run() {
+					try {
+						start.await();
+						worker.run(thread);
+					}
+					catch (Throwable ex) {
+						failure.compareAndSet(null, ex);
+					}
+				}
+				
+			};
+			t.start();
+			threads.add(t);
+		}
+		start.countDown();
+		for (Thread t : threads)
+			t.join();
+		if (failure.get() != null)
+			throw failure.get();
+	}
+	
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.IntConstant;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration.CodeEliminationMode;
+
+/**
+ * Checks the bodies that the interprocedural constant propagator leaves
+ * behind
+ */
+public class ConstantPropagationTests extends JUnitTests {
+
+	private static final String TEST_CLASS = "soot.jimple.infoflow.test.ConstantPropagationTestCode";
+
+	private IInfoflow runAnalysis(String entryPoint) {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setCodeEliminationMode(CodeEliminationMode.RemoveSideEffectFreeCode);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<" + TEST_CLASS + ": " + entryPoint + ">");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		return infoflow;
+	}
+
+	private SootMethod method(String subSignature) {
+		return Scene.v().getMethod("<" + TEST_CLASS + ": " + subSignature + ">");
+	}
+
+	/**
+	 * Gets the argument of the first call to the given method inside the
+	 * given method
+	 * @param method The method in which to look for the call
+	 * @param callee The signature of the method that is called
+	 * @return The first argument of the first call to the given callee
+	 */
+	private Value getFirstArgument(SootMethod method, String callee) {
+		for (Unit u : method.getActiveBody().getUnits()) {
+			Stmt stmt = (Stmt) u;
+			if (stmt.containsInvokeExpr()
+					&& stmt.getInvokeExpr().getMethod().getSignature().equals(callee))
+				return stmt.getInvokeExpr().getArg(0);
+		}
+		Assert.fail("No call to " + callee + " in " + method);
+		return null;
+	}
+
+	private boolean callsMethod(SootMethod method, SootMethod callee) {
+		for (Unit u : method.getActiveBody().getUnits()) {
+			Stmt stmt = (Stmt) u;
+			if (stmt.containsInvokeExpr() && stmt.getInvokeExpr().getMethod() == callee)
+				return true;
+		}
+		return false;
+	}
+
+	@Test(timeout=300000)
+	public void parameterChain() {
+		runAnalysis("void parameterChainTest()");
+
+		// Every level only gets its constant once its caller has been
+		// processed
+		Assert.assertEquals(IntConstant.v(42), getFirstArgument(method("void level1(int)"),
+				"<" + TEST_CLASS + ": void level2(int)>"));
+		Assert.assertEquals(IntConstant.v(43), getFirstArgument(method("void level2(int)"),
+				"<" + TEST_CLASS + ": void level3(int)>"));
+		Assert.assertEquals(IntConstant.v(43), getFirstArgument(method("void level3(int)"), sinkInt));
+	}
+
+	@Test(timeout=300000)
+	public void returnValues() {
+		runAnalysis("void returnValueTest()");
+		SootMethod returnValueTest = method("void returnValueTest()");
+		Assert.assertEquals(IntConstant.v(42), getFirstArgument(returnValueTest, sinkInt));
+		Assert.assertFalse(callsMethod(returnValueTest, method("int constantReturn()")));
+	}
+
+	@Test(timeout=300000)
+	public void recursion() {
+		runAnalysis("void recursionTest()");
+
+		// The recursive call passes a different value, so nothing is constant
+		Assert.assertFalse(getFirstArgument(method("void ping(int)"), sinkInt) instanceof IntConstant);
+		Assert.assertTrue(callsMethod(method("void pong(int)"), method("void ping(int)")));
+	}
+
+	@Test(timeout=300000)
+	public void constantConditionsKeepLeaks() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setCodeEliminationMode(CodeEliminationMode.RemoveSideEffectFreeCode);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<" + TEST_CLASS + ": void taintedChainTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowConfiguration.DegradationStep;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
+import soot.jimple.infoflow.memory.DegradationPolicy;
+
+/**
+ * Checks that the {@link DegradationPolicy} applies its steps in order, skips
+ * steps without any effect, and restores the original configuration
+ */
+public class DegradationPolicyTests {
+	
+	@Test
+	public void stepsAppliedInOrder() {
+		InfoflowConfiguration config = new InfoflowConfiguration();
+		config.setAccessPathLength(4);
+		config.setEnableImplicitFlows(true);
+		config.setDegradationSteps(Arrays.asList(DegradationStep.ReduceAccessPathLength,
+				DegradationStep.ErasePathData, DegradationStep.DisableImplicitFlows));
+		FlowDroidMemoryManager memoryManager = new FlowDroidMemoryManager(false,
+				PathDataErasureMode.EraseNothing);
+		DegradationPolicy policy = new DegradationPolicy(config, memoryManager);
+		
+		Assert.assertEquals(DegradationStep.ReduceAccessPathLength, policy.degrade("Test"));
+		Assert.assertEquals(2, config.getAccessPathLength());
+		Assert.assertEquals(DegradationStep.ErasePathData, policy.degrade("Test"));
+		Assert.assertEquals(PathDataErasureMode.EraseAll, memoryManager.getPathDataErasureMode());
+		Assert.assertEquals(DegradationStep.DisableImplicitFlows, policy.degrade("Test"));
+		Assert.assertFalse(config.getEnableImplicitFlows());
+		Assert.assertNull(policy.degrade("Test"));
+		Assert.assertEquals(3, policy.getAppliedSteps().size());
+		
+		policy.restore();
+		Assert.assertEquals(4, config.getAccessPathLength());
+		Assert.assertTrue(config.getEnableImplicitFlows());
+	}
+	
+	@Test
+	public void ineffectiveStepsSkipped() {
+		InfoflowConfiguration config = new InfoflowConfiguration();
+		config.setAccessPathLength(3);
+		config.setEnableImplicitFlows(false);
+		config.setDegradationSteps(Arrays.asList(DegradationStep.DisableImplicitFlows,
+				DegradationStep.ReduceAccessPathLength, DegradationStep.ReduceAccessPathLength,
+				DegradationStep.ErasePathData));
+		FlowDroidMemoryManager memoryManager = new FlowDroidMemoryManager(false,
+				PathDataErasureMode.EraseAll);
+		DegradationPolicy policy = new DegradationPolicy(config, memoryManager);
+		
+		Assert.assertEquals(DegradationStep.ReduceAccessPathLength, policy.degrade("Test"));
+		Assert.assertEquals(1, config.getAccessPathLength());
+		Assert.assertNull(policy.degrade("Test"));
+		Assert.assertEquals(1, policy.getAppliedSteps().size());
+		Assert.assertEquals(0, policy.getRemainingSteps());
+	}
+	
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+
+/**
+ * Runs the same data flow problems once without and once with flow function
+ * profiling. Checks that both yield the same results, i.e., that the profiling
+ * wrappers still hand the calling contexts to the flow functions.
+ */
+public class FlowFunctionProfilerTests extends JUnitTests {
+
+	private static final String[] entryPoints = {
+		"<soot.jimple.infoflow.test.HeapTestCode: void simpleTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void functionAliasTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void multiAliasTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void negativeMultiLevelTaint()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void testAliases()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void returnAliasTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void multiContextTest1()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void contextTest1()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void contextTest3()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void summaryTest1()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void delayedReturnTest1()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void recursionTest()>",
+		"<soot.jimple.infoflow.test.ContextSensitivityTestCode: void contextSensitivityTest1()>",
+		"<soot.jimple.infoflow.test.ContextSensitivityTestCode: void multipleExitTest1()>",
+		"<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>"
+	};
+
+	private Set<String> runAnalysis(String entryPoint, File profile) {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setFlowFunctionProfilingFile(profile == null ? null : profile.getAbsolutePath());
+		List<String> epoints = new ArrayList<String>();
+		epoints.add(entryPoint);
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertTrue(infoflow.isResultAvailable());
+
+		Set<String> results = new TreeSet<String>();
+		if (infoflow.getResults().getResults() != null)
+			for (ResultSinkInfo sink : infoflow.getResults().getResults().keySet())
+				for (ResultSourceInfo source : infoflow.getResults().getResults().get(sink))
+					results.add(source.getSource() + " -> " + sink.getSink());
+		return results;
+	}
+
+	@Test(timeout=600000)
+	public void sameResultsWithProfiling() throws IOException {
+		File profile = File.createTempFile("flowfunctions", ".folded");
+		try {
+			for (String ep : entryPoints) {
+				resetSoot();
+				Set<String> plainResults = runAnalysis(ep, null);
+
+				resetSoot();
+				Assert.assertTrue(profile.delete());
+				Set<String> profiledResults = runAnalysis(ep, profile);
+
+				Assert.assertEquals("Different results for " + ep, plainResults, profiledResults);
+				Assert.assertTrue("No profile written for " + ep, profile.exists());
+			}
+		}
+		finally {
+			profile.delete();
+		}
+	}
+
+	private void resetSoot() {
+		soot.G.reset();
+		System.gc();
+	}
+
+}
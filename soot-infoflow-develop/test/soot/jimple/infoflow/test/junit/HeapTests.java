@@ -29,17 +29,25 @@ import soot.jimple.DefinitionStmt;
 import soot.jimple.InstanceInvokeExpr;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
 import soot.jimple.infoflow.InfoflowConfiguration.AliasingAlgorithm;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AbstractionPathCompactor;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder;
 import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
+import soot.jimple.infoflow.memory.IMemoryBoundedSolver.IMemoryBoundedSolverStatusNotification;
 import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.source.ISourceSinkManager;
 import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.taintWrappers.AbstractTaintWrapper;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
 
 /**
  * tests aliasing of heap references
@@ -395,7 +403,21 @@ public class HeapTests extends JUnitTests {
 	@Test(timeout = 300000)
 	public void wrapperAliasesTest() {
 		IInfoflow infoflow = initInfoflow();
-		infoflow.setTaintWrapper(new AbstractTaintWrapper() {
+		infoflow.setTaintWrapper(createAliasingWrapper());
+
+		infoflow.getConfig().setAccessPathLength(3);
+		infoflow.getConfig().setInspectSources(false);
+		infoflow.getConfig().setInspectSinks(false);
+		infoflow.getConfig().setEnableImplicitFlows(false);
+		
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void testWrapperAliases()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	private ITaintPropagationWrapper createAliasingWrapper() {
+		return new AbstractTaintWrapper() {
 						
 			@Override
 			public boolean isExclusiveInternal(Stmt stmt, AccessPath taintedPath) {
@@ -478,17 +500,156 @@ public class HeapTests extends JUnitTests {
 				return null;
 			}
 			
-		});
+		};
+	}
 
-		infoflow.getConfig().setAccessPathLength(3);
-		infoflow.getConfig().setInspectSources(false);
-		infoflow.getConfig().setInspectSinks(false);
-		infoflow.getConfig().setEnableImplicitFlows(false);
+	/**
+	 * Path builder that reconstructs the taint propagation paths on the
+	 * original predecessor chains first, then compacts the chains and
+	 * reconstructs the paths again from the same abstractions. The results of
+	 * the second run are reported to the data flow analysis.
+	 */
+	private class CompactionCheckingPathBuilder implements IAbstractionPathBuilder {
 		
-		List<String> epoints = new ArrayList<String>();
-		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void testWrapperAliases()>");
-		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
-		checkInfoflow(infoflow, 1);
+		private final InterruptableExecutor executor;
+		private final IAbstractionPathBuilder originalBuilder;
+		private final IAbstractionPathBuilder compactedBuilder;
+		private final AbstractionPathCompactor compactor = new AbstractionPathCompactor();
+		private List<String> originalPaths = null;
+		
+		public CompactionCheckingPathBuilder(IAbstractionPathBuilder originalBuilder,
+				IAbstractionPathBuilder compactedBuilder, InterruptableExecutor executor) {
+			this.originalBuilder = originalBuilder;
+			this.compactedBuilder = compactedBuilder;
+			this.executor = executor;
+		}
+		
+		@Override
+		public void computeTaintPaths(Set<AbstractionAtSink> res) {
+			originalBuilder.computeTaintPaths(res);
+			try {
+				executor.awaitCompletion();
+			}
+			catch (InterruptedException e) {
+				throw new RuntimeException("Could not wait for path reconstruction", e);
+			}
+			executor.reset();
+			originalPaths = getResultPaths(originalBuilder.getResults());
+			
+			compactor.compact(res);
+			compactedBuilder.computeTaintPaths(res);
+		}
+		
+		@Override
+		public InfoflowResults getResults() {
+			return compactedBuilder.getResults();
+		}
+		
+		@Override
+		public void addResultAvailableHandler(OnPathBuilderResultAvailable handler) {
+			compactedBuilder.addResultAvailableHandler(handler);
+		}
+		
+		@Override
+		public void runIncrementalPathCompuation() {
+			throw new UnsupportedOperationException("Path compaction does not "
+					+ "support incremental result reporting");
+		}
+		
+		@Override
+		public void forceTerminate() {
+			originalBuilder.forceTerminate();
+			compactedBuilder.forceTerminate();
+		}
+		
+		@Override
+		public boolean isTerminated() {
+			return compactedBuilder.isTerminated();
+		}
+		
+		@Override
+		public boolean isKilled() {
+			return originalBuilder.isKilled() || compactedBuilder.isKilled();
+		}
+		
+		@Override
+		public void reset() {
+			originalBuilder.reset();
+			compactedBuilder.reset();
+		}
+		
+		@Override
+		public void addStatusListener(IMemoryBoundedSolverStatusNotification listener) {
+			compactedBuilder.addStatusListener(listener);
+		}
+		
+	}
+	
+	/**
+	 * Runs the data flow analysis on the given entry point and checks that
+	 * compacting the predecessor chains does not change the reconstructed
+	 * taint propagation paths. The solvers are multi-threaded, so the taint
+	 * graph may differ between two analysis runs. We therefore reconstruct
+	 * the paths with and without compaction on the same taint graph.
+	 * @param entryPoint The method in the test class to analyze
+	 * @return The number of path segments that have been created
+	 */
+	private int checkCompactedPaths(String entryPoint) {
+		// With path-agnostic results, only one path is kept per source and
+		// sink, and which one depends on the order in which the path builder
+		// explores the neighbors. We need all paths to compare the runs.
+		boolean oldPathAgnosticResults = InfoflowConfiguration.getPathAgnosticResults();
+		try {
+			InfoflowConfiguration.setPathAgnosticResults(false);
+			final List<CompactionCheckingPathBuilder> builders = new ArrayList<>();
+			IInfoflow infoflow = initInfoflow(false,
+					new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, true) {
+				
+				@Override
+				public IAbstractionPathBuilder createPathBuilder(InfoflowConfiguration config,
+						InterruptableExecutor executor, IInfoflowCFG icfg) {
+					CompactionCheckingPathBuilder builder = new CompactionCheckingPathBuilder(
+							super.createPathBuilder(config, executor, icfg),
+							super.createPathBuilder(config, executor, icfg), executor);
+					builders.add(builder);
+					return builder;
+				}
+				
+			});
+			List<String> epoints = new ArrayList<String>();
+			epoints.add("<soot.jimple.infoflow.test.HeapTestCode: " + entryPoint + ">");
+			infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+			
+			Assert.assertEquals(1, builders.size());
+			CompactionCheckingPathBuilder builder = builders.get(0);
+			List<String> paths = getResultPaths(infoflow);
+			Assert.assertFalse(paths.isEmpty());
+			Assert.assertEquals(builder.originalPaths, paths);
+			return builder.compactor.getSegmentCount();
+		}
+		finally {
+			InfoflowConfiguration.setPathAgnosticResults(oldPathAgnosticResults);
+		}
+	}
+	
+	@Test(timeout = 300000)
+	public void compactedPathsTest() {
+		checkCompactedPaths("void methodTest1()");
+	}
+	
+	@Test(timeout = 300000)
+	public void compactedPathsLoopTest() {
+		checkCompactedPaths("void testForLoop()");
+	}
+	
+	@Test(timeout = 300000)
+	public void compactedPathsCopyChainTest() {
+		Assert.assertTrue(checkCompactedPaths("void copyChainTest()") > 0);
+	}
+	
+	@Test(timeout = 300000)
+	public void compactedPathsCopyLoopTest() {
+		Assert.assertTrue(checkCompactedPaths("void copyLoopTest()") > 0);
 	}
 
 	@Test(timeout = 300000)
@@ -18,7 +18,10 @@ import static org.junit.Assert.fail;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -30,7 +33,10 @@ import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
 import soot.jimple.infoflow.data.pathBuilders.IPathBuilderFactory;
 import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
 import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+import soot.util.MultiMap;
 
 /**
  * abstract super class of all test cases which handles initialization, keeps
@@ -126,6 +132,35 @@ public abstract class JUnitTests {
 		}
 	}
 
+	/**
+	 * Gets the taint propagation paths of all results in a canonical, sorted
+	 * form, so that the results of two analysis runs can be compared
+	 * @param infoflow The data flow analysis that has computed the results
+	 * @return The taint propagation paths of all results
+	 */
+	protected List<String> getResultPaths(IInfoflow infoflow) {
+		assertTrue(infoflow.isResultAvailable());
+		return getResultPaths(infoflow.getResults());
+	}
+
+	/**
+	 * Gets the distinct taint propagation paths of the given results in a
+	 * canonical, sorted form. Results compare their paths by identity, so the
+	 * same path may be contained more than once.
+	 * @param infoflowResults The results of the data flow analysis
+	 * @return The taint propagation paths of all results
+	 */
+	protected List<String> getResultPaths(InfoflowResults infoflowResults) {
+		MultiMap<ResultSinkInfo, ResultSourceInfo> results = infoflowResults.getResults();
+		Set<String> paths = new TreeSet<String>();
+		for (ResultSinkInfo sink : results.keySet())
+			for (ResultSourceInfo source : results.get(sink))
+				paths.add(source.getSource() + " -> " + sink.getSink()
+						+ " via " + Arrays.toString(source.getPath())
+						+ " with " + Arrays.toString(source.getPathAccessPaths()));
+		return new ArrayList<String>(paths);
+	}
+
 	protected void negativeCheckInfoflow(IInfoflow infoflow) {
 		// If the result is available, it must be empty. Otherwise, it is
 		// implicitly ok since we don't expect to find anything anyway.
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+import soot.Local;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowConfiguration.AliasingAlgorithm;
+import soot.jimple.infoflow.aliasing.LazyAliasingStrategy;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.spark.pag.PAG;
+
+/**
+ * Checks the cached and refined alias queries of the
+ * {@link LazyAliasingStrategy}
+ */
+public class LazyAliasingTests extends JUnitTests {
+
+	private static final String TEST_METHOD = "<soot.jimple.infoflow.test.AliasQueryTestCode: void aliasQueryTest()>";
+	private static final String IDENTITY_METHOD = "<soot.jimple.infoflow.test.AliasQueryTestCode: "
+			+ "soot.jimple.infoflow.test.utilclasses.ClassWithField identity(soot.jimple.infoflow.test.utilclasses.ClassWithField)>";
+
+	private AccessPath first, second, firstCopy, secondCopy;
+
+	private IInfoflow runAnalysis(int refinementBudget) {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setAliasingAlgorithm(AliasingAlgorithm.Lazy);
+		infoflow.getConfig().setAliasRefinementBudget(refinementBudget);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add(TEST_METHOD);
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertTrue(Scene.v().getPointsToAnalysis() instanceof PAG);
+
+		// The arguments and results of the two calls to identity()
+		AccessPathFactory factory = new AccessPathFactory(new InfoflowConfiguration());
+		List<AccessPath> args = new ArrayList<AccessPath>();
+		List<AccessPath> results = new ArrayList<AccessPath>();
+		SootMethod sm = Scene.v().getMethod(TEST_METHOD);
+		for (Unit u : sm.getActiveBody().getUnits()) {
+			Stmt stmt = (Stmt) u;
+			if (stmt instanceof AssignStmt && stmt.containsInvokeExpr()
+					&& stmt.getInvokeExpr().getMethod().getSignature().equals(IDENTITY_METHOD)) {
+				args.add(factory.createAccessPath((Local) stmt.getInvokeExpr().getArg(0), true));
+				results.add(factory.createAccessPath(((AssignStmt) stmt).getLeftOp(), true));
+			}
+		}
+		Assert.assertEquals(2, args.size());
+		first = args.get(0);
+		second = args.get(1);
+		firstCopy = results.get(0);
+		secondCopy = results.get(1);
+		return infoflow;
+	}
+
+	@Test(timeout=300000)
+	public void queriesAreCached() {
+		runAnalysis(0);
+		LazyAliasingStrategy aliasing = new LazyAliasingStrategy(null, 100, 0);
+
+		Assert.assertTrue(aliasing.mayAlias(first, firstCopy));
+		Assert.assertFalse(aliasing.mayAlias(first, second));
+		Assert.assertEquals(2, aliasing.getQueryCacheStats().missCount());
+		Assert.assertEquals(0, aliasing.getQueryCacheStats().hitCount());
+
+		// Queries are symmetric and hit the same cache entry
+		Assert.assertTrue(aliasing.mayAlias(firstCopy, first));
+		Assert.assertFalse(aliasing.mayAlias(second, first));
+		Assert.assertFalse(aliasing.mayAlias(first, second));
+		CacheStats stats = aliasing.getQueryCacheStats();
+		Assert.assertEquals(2, stats.missCount());
+		Assert.assertEquals(3, stats.hitCount());
+
+		// Identical access paths are not looked up at all
+		Assert.assertTrue(aliasing.mayAlias(first, first));
+		Assert.assertEquals(5, aliasing.getQueryCacheStats().requestCount());
+
+		aliasing.cleanup();
+		Assert.assertTrue(aliasing.mayAlias(first, firstCopy));
+		Assert.assertEquals(3, aliasing.getQueryCacheStats().missCount());
+	}
+
+	@Test(timeout=300000)
+	public void contextInsensitiveQueries() {
+		runAnalysis(0);
+		LazyAliasingStrategy aliasing = new LazyAliasingStrategy(null, 100, 0);
+
+		// Both results of identity() point to both objects
+		Assert.assertTrue(aliasing.mayAlias(first, secondCopy));
+		Assert.assertTrue(aliasing.mayAlias(second, firstCopy));
+		Assert.assertTrue(aliasing.mayAlias(firstCopy, secondCopy));
+	}
+
+	@Test(timeout=300000)
+	public void refinementRefutesAliases() {
+		runAnalysis(0);
+		LazyAliasingStrategy aliasing = new LazyAliasingStrategy(null, 100, 10000);
+
+		// With calling contexts, every result only points to its argument
+		Assert.assertTrue(aliasing.mayAlias(first, firstCopy));
+		Assert.assertTrue(aliasing.mayAlias(second, secondCopy));
+		Assert.assertFalse(aliasing.mayAlias(first, second));
+		Assert.assertFalse(aliasing.mayAlias(first, secondCopy));
+		Assert.assertFalse(aliasing.mayAlias(firstCopy, secondCopy));
+	}
+
+	@Test(timeout=300000)
+	public void refinementKeepsLeaks() {
+		IInfoflow infoflow = runAnalysis(0);
+		Assert.assertTrue(infoflow.isResultAvailable());
+		int unrefinedResults = infoflow.getResults().size();
+
+		infoflow = runAnalysis(10000);
+		Assert.assertTrue(infoflow.isResultAvailable());
+		Assert.assertTrue(infoflow.getResults().isPathBetweenMethods(sink, sourceDeviceId));
+		Assert.assertTrue(infoflow.getResults().size() <= unrefinedResults);
+	}
+
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowConfiguration.CodeEliminationMode;
+import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.InfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.MethodSummaries;
+
+/**
+ * Checks the bottom-up method summaries that the interprocedural CFG shares
+ * with the solvers and the constant propagator
+ */
+public class MethodSummariesTests extends JUnitTests {
+	
+	private static final String TEST_CLASS = "soot.jimple.infoflow.test.MethodSummaryTestCode";
+	
+	private IInfoflowCFG icfg;
+	
+	private IInfoflow runAnalysis(String entryPoint) {
+		Infoflow infoflow = (Infoflow) initInfoflow();
+		
+		// The constant propagator would remove the calls to side-effect free
+		// methods we want to look at
+		infoflow.getConfig().setCodeEliminationMode(CodeEliminationMode.NoCodeElimination);
+		infoflow.addResultsAvailableHandler(new ResultsAvailableHandler() {
+			
+			@Override
+			public void onResultsAvailable(IInfoflowCFG cfg, InfoflowResults results) {
+				icfg = cfg;
+			}
+			
+		});
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<" + TEST_CLASS + ": " + entryPoint + ">");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertNotNull(icfg);
+		return infoflow;
+	}
+	
+	private MethodSummaries getSummaries() {
+		Assert.assertTrue(icfg instanceof InfoflowCFG);
+		return ((InfoflowCFG) icfg).getMethodSummaries();
+	}
+	
+	private SootMethod method(String subSignature) {
+		return Scene.v().getMethod("<" + TEST_CLASS + ": " + subSignature + ">");
+	}
+	
+	private SootField field(String name) {
+		return Scene.v().getSootClass(TEST_CLASS).getFieldByName(name);
+	}
+	
+	@Test(timeout=300000)
+	public void localFlags() {
+		runAnalysis("void summaryTest()");
+		MethodSummaries summaries = getSummaries();
+		Assert.assertTrue(summaries.knowsSinks());
+		
+		SootMethod pure = method("int pure(int)");
+		Assert.assertFalse(summaries.hasFlags(pure, -1));
+		Assert.assertTrue(summaries.hasFlags(method("void writeField(java.lang.String)"),
+				MethodSummaries.FIELD_WRITE));
+		Assert.assertTrue(summaries.hasFlags(method("void writeArray(java.lang.String)"),
+				MethodSummaries.ARRAY_WRITE));
+		Assert.assertTrue(summaries.hasFlags(method("void callSink(java.lang.String)"),
+				MethodSummaries.CALLS_SINK));
+		Assert.assertTrue(summaries.hasFlags(method("void callNative()"),
+				MethodSummaries.NATIVE_CALL));
+		Assert.assertTrue(summaries.hasFlags(method("void throwException(boolean)"),
+				MethodSummaries.THROWS));
+		Assert.assertTrue(summaries.hasFlags(method("java.lang.String readThis()"),
+				MethodSummaries.USES_THIS));
+	}
+	
+	@Test(timeout=300000)
+	public void flagsArePropagatedToCallers() {
+		runAnalysis("void summaryTest()");
+		MethodSummaries summaries = getSummaries();
+		
+		Assert.assertTrue(summaries.hasFlags(method("void callSinkIndirectly(java.lang.String)"),
+				MethodSummaries.CALLS_SINK));
+		Assert.assertFalse(summaries.hasFlags(method("int pureCaller()"), MethodSummaries.FIELD_WRITE
+				| MethodSummaries.ARRAY_WRITE | MethodSummaries.CALLS_SINK | MethodSummaries.NATIVE_CALL
+				| MethodSummaries.THROWS));
+		
+		SootMethod summaryTest = method("void summaryTest()");
+		Assert.assertTrue(summaries.hasFlags(summaryTest, MethodSummaries.FIELD_WRITE));
+		Assert.assertTrue(summaries.hasFlags(summaryTest, MethodSummaries.ARRAY_WRITE));
+		Assert.assertTrue(summaries.hasFlags(summaryTest, MethodSummaries.CALLS_SINK));
+		Assert.assertTrue(summaries.hasFlags(summaryTest, MethodSummaries.NATIVE_CALL));
+		Assert.assertTrue(summaries.hasFlags(summaryTest, MethodSummaries.THROWS));
+	}
+	
+	@Test(timeout=300000)
+	public void recursiveMethodsShareSummary() {
+		runAnalysis("void summaryTest()");
+		MethodSummaries summaries = getSummaries();
+		SootMethod recursiveA = method("java.lang.String recursiveA(int)");
+		SootMethod recursiveB = method("java.lang.String recursiveB(int)");
+		
+		// Each method only sees one of the fields itself
+		Assert.assertTrue(summaries.isStaticFieldWritten(recursiveB, field("staticA")));
+		Assert.assertTrue(summaries.isStaticFieldRead(recursiveA, field("staticB")));
+		Assert.assertFalse(summaries.isStaticFieldWritten(recursiveA, field("staticB")));
+		Assert.assertFalse(summaries.isStaticFieldRead(recursiveB, field("staticA")));
+		Assert.assertTrue(summaries.isStaticFieldUsed(method("void summaryTest()"), field("staticB")));
+		Assert.assertFalse(summaries.isStaticFieldUsed(method("int pureCaller()"), field("staticB")));
+	}
+	
+	@Test(timeout=300000)
+	public void componentsAreOrderedBottomUp() {
+		runAnalysis("void summaryTest()");
+		List<List<SootMethod>> components = getSummaries().getComponents(
+				Collections.singleton(method("void summaryTest()")));
+		
+		int recursiveA = indexOf(components, method("java.lang.String recursiveA(int)"));
+		Assert.assertEquals(recursiveA, indexOf(components, method("java.lang.String recursiveB(int)")));
+		Assert.assertEquals(2, components.get(recursiveA).size());
+		
+		int pure = indexOf(components, method("int pure(int)"));
+		int pureCaller = indexOf(components, method("int pureCaller()"));
+		int summaryTest = indexOf(components, method("void summaryTest()"));
+		Assert.assertTrue(pure < pureCaller);
+		Assert.assertTrue(pureCaller < summaryTest);
+		Assert.assertTrue(recursiveA < summaryTest);
+		Assert.assertEquals(components.size() - 1, summaryTest);
+	}
+	
+	private static int indexOf(List<List<SootMethod>> components, SootMethod method) {
+		for (int i = 0; i < components.size(); i++)
+			if (components.get(i).contains(method))
+				return i;
+		Assert.fail(method + " is not part of any component");
+		return -1;
+	}
+	
+	@Test(timeout=300000)
+	public void addedFlagsReachCallers() {
+		runAnalysis("void summaryTest()");
+		MethodSummaries summaries = getSummaries();
+		SootMethod pure = method("int pure(int)");
+		SootMethod pureCaller = method("int pureCaller()");
+		Assert.assertFalse(summaries.hasFlags(pureCaller, MethodSummaries.CALLS_SINK));
+		
+		summaries.addMethodFlags(pure, MethodSummaries.CALLS_SINK);
+		Assert.assertTrue(summaries.hasFlags(pure, MethodSummaries.CALLS_SINK));
+		Assert.assertTrue(summaries.hasFlags(pureCaller, MethodSummaries.CALLS_SINK));
+		Assert.assertFalse(summaries.hasFlags(pureCaller, MethodSummaries.FIELD_WRITE));
+	}
+	
+	@Test(timeout=300000)
+	public void observableEffects() {
+		runAnalysis("void summaryTest()");
+		Assert.assertFalse(icfg.hasObservableEffects(method("int pureCaller()")));
+		Assert.assertFalse(icfg.hasObservableEffects(method("java.lang.String readThis()")));
+		Assert.assertTrue(icfg.hasObservableEffects(method("void writeField(java.lang.String)")));
+		Assert.assertTrue(icfg.hasObservableEffects(method("void writeArray(java.lang.String)")));
+		Assert.assertTrue(icfg.hasObservableEffects(method("void callSinkIndirectly(java.lang.String)")));
+		Assert.assertTrue(icfg.hasObservableEffects(method("void callNative()")));
+		Assert.assertTrue(icfg.hasObservableEffects(method("void throwException(boolean)")));
+	}
+	
+	@Test(timeout=300000)
+	public void taintsArePassedOverTransparentCallees() {
+		IInfoflow infoflow = runAnalysis("void transparentCalleeTest()");
+		Assert.assertFalse(icfg.hasObservableEffects(
+				method("void inspect(soot.jimple.infoflow.test.utilclasses.ClassWithField)")));
+		checkInfoflow(infoflow, 1);
+	}
+	
+	@Test(timeout=300000)
+	public void staticTaintsArePassedOverTransparentCallees() {
+		IInfoflow infoflow = runAnalysis("void transparentStaticCalleeTest()");
+		Assert.assertFalse(icfg.hasObservableEffects(method("void inspectStatic()")));
+		checkInfoflow(infoflow, 1);
+	}
+	
+}
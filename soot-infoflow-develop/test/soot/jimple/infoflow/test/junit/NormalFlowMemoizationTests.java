@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.Unit;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowConfiguration.CodeEliminationMode;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.util.ConcurrentHashMultiMap;
+import soot.util.MultiMap;
+
+/**
+ * Checks that memoizing the outcomes of the normal flow rules does not change
+ * the taints or the results. The solvers are multi-threaded, so the taints
+ * which reach a statement may differ between two analysis runs. We therefore
+ * compare the outcomes of the normal flow functions that have been applied to
+ * the same statement and incoming taint in both runs.
+ */
+public class NormalFlowMemoizationTests extends JUnitTests {
+
+	private static final String TEST_CLASS = "soot.jimple.infoflow.test.NormalFlowMemoizationTestCode";
+
+	/**
+	 * Runs the data flow analysis on the given entry point
+	 * @param entryPoint The entry point to analyze
+	 * @param cacheSize The maximum number of memoized rule outcomes, or 0 to
+	 * disable the memoization
+	 * @param normalFlows The map that receives the outgoing access paths for
+	 * all applications of the normal flow function, keyed by the statement and
+	 * the incoming access path
+	 * @return The connections between sources and sinks that have been found
+	 */
+	private Set<String> runAnalysis(String entryPoint, int cacheSize,
+			final MultiMap<String, String> normalFlows) {
+		Infoflow infoflow = (Infoflow) initInfoflow();
+		infoflow.getConfig().setCodeEliminationMode(CodeEliminationMode.NoCodeElimination);
+		infoflow.getConfig().setNormalFlowMemoizationCacheSize(cacheSize);
+		infoflow.setTaintPropagationHandler(new TaintPropagationHandler() {
+
+			@Override
+			public void notifyFlowIn(Unit stmt, Abstraction taint, IInfoflowCFG cfg,
+					FlowFunctionType type) {
+				// nothing to do here
+			}
+
+			@Override
+			public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction d1,
+					Abstraction incoming, Set<Abstraction> outgoing, IInfoflowCFG cfg,
+					FlowFunctionType type) {
+				if (type == FlowFunctionType.NormalFlowFunction) {
+					List<String> out = new ArrayList<String>();
+					for (Abstraction abs : outgoing)
+						out.add(abs.getAccessPath() + (abs.isAbstractionActive() ? "" : " (inactive)"));
+					Collections.sort(out);
+					normalFlows.put(cfg.getMethodOf(stmt) + ": " + stmt + " with "
+							+ incoming.getAccessPath()
+							+ (incoming.isAbstractionActive() ? "" : " (inactive)"),
+							out.toString());
+				}
+				return outgoing;
+			}
+
+		});
+
+		List<String> epoints = new ArrayList<String>();
+		epoints.add(entryPoint);
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertTrue(infoflow.isResultAvailable());
+
+		Set<String> connections = new HashSet<String>();
+		MultiMap<ResultSinkInfo, ResultSourceInfo> results = infoflow.getResults().getResults();
+		for (ResultSinkInfo sink : results.keySet())
+			for (ResultSourceInfo source : results.get(sink))
+				connections.add(source.getSource() + " -> " + sink.getSink());
+		return connections;
+	}
+
+	private void checkMemoizedFlows(String entryPoint) {
+		MultiMap<String, String> normalFlows = new ConcurrentHashMultiMap<String, String>();
+		Set<String> connections = runAnalysis(entryPoint, 0, normalFlows);
+		Assert.assertFalse(normalFlows.isEmpty());
+
+		MultiMap<String, String> memoizedNormalFlows = new ConcurrentHashMultiMap<String, String>();
+		Assert.assertEquals(connections, runAnalysis(entryPoint, 1000, memoizedNormalFlows));
+
+		int commonFlows = 0;
+		for (String flow : normalFlows.keySet())
+			if (memoizedNormalFlows.containsKey(flow)) {
+				Assert.assertEquals(flow, normalFlows.get(flow), memoizedNormalFlows.get(flow));
+				commonFlows++;
+			}
+		Assert.assertTrue(commonFlows > 0);
+	}
+
+	@Test(timeout = 300000)
+	public void killTest() {
+		checkMemoizedFlows("<" + TEST_CLASS + ": void killTest()>");
+	}
+
+	@Test(timeout = 300000)
+	public void aliasTest() {
+		checkMemoizedFlows("<" + TEST_CLASS + ": void aliasTest()>");
+	}
+
+	@Test(timeout = 300000)
+	public void heapAliasTest() {
+		checkMemoizedFlows("<soot.jimple.infoflow.test.HeapTestCode: void testAliases()>");
+	}
+
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow;
+
+/**
+ * Runs the same data flow problems once on the default, cache-based
+ * interprocedural CFG and once on the precomputed snapshot. Checks that both
+ * yield the same results.
+ */
+public class PrecomputedICFGTests extends JUnitTests {
+
+	private static final String[] entryPoints = {
+		"<soot.jimple.infoflow.test.HeapTestCode: void simpleTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void functionAliasTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void multiAliasTest()>",
+		"<soot.jimple.infoflow.test.HeapTestCode: void twoLevelTest()>",
+		"<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+		"<soot.jimple.infoflow.test.ArrayTestCode: void arrayAsFieldOfClass()>"
+	};
+
+	private int runAnalysis(String entryPoint, boolean precompute) {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setPrecomputeICFG(precompute);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add(entryPoint);
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertTrue(infoflow.isResultAvailable());
+		return infoflow.getResults().size();
+	}
+
+	@Test(timeout=600000)
+	public void sameResultsAsCachedICFG() {
+		for (String ep : entryPoints) {
+			resetSoot();
+			int cachedResults = runAnalysis(ep, false);
+
+			resetSoot();
+			int precomputedResults = runAnalysis(ep, true);
+
+			Assert.assertEquals("Different results for " + ep, cachedResults, precomputedResults);
+		}
+	}
+
+	private void resetSoot() {
+		soot.G.reset();
+		System.gc();
+	}
+
+}
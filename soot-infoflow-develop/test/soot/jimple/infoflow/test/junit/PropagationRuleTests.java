@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
+import soot.jimple.infoflow.problems.InfoflowProblem;
+import soot.jimple.infoflow.problems.rules.ITaintPropagationRule;
+import soot.jimple.infoflow.problems.rules.PropagationRuleManager;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+import soot.jimple.infoflow.test.ArrayTestCode;
+import soot.jimple.infoflow.test.ExceptionTestCode;
+import soot.jimple.infoflow.test.HeapTestCode;
+import soot.jimple.infoflow.test.TypeTestCode;
+import soot.jimple.infoflow.util.ByReferenceBoolean;
+
+/**
+ * Checks that the {@link PropagationRuleManager} only skips rules that would
+ * not have had any effect on the statement
+ */
+public class PropagationRuleTests extends JUnitTests {
+
+	private static final Class<?>[] TEST_CLASSES = { ArrayTestCode.class,
+			ExceptionTestCode.class, HeapTestCode.class, TypeTestCode.class };
+
+	private InfoflowManager manager;
+	private PropagationRuleManager ruleManager;
+	private final List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Gets the signatures of all test cases in the given class
+	 * @param clazz The class that contains the test cases
+	 * @return The signatures of all public void methods without parameters
+	 */
+	private static List<String> getEntryPoints(Class<?> clazz) {
+		List<String> epoints = new ArrayList<String>();
+		for (Method method : clazz.getDeclaredMethods())
+			if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+					&& method.getReturnType() == void.class && method.getParameterTypes().length == 0)
+				epoints.add("<" + clazz.getName() + ": void " + method.getName() + "()>");
+		Collections.sort(epoints);
+		return epoints;
+	}
+
+	/**
+	 * Runs the data flow analysis on all test cases of the test classes and
+	 * checks every rule that the rule manager skips against the flows of the
+	 * solver
+	 * @param implicitFlows True if implicit flows shall be tracked, otherwise
+	 * false
+	 */
+	private void runAnalysis(boolean implicitFlows) throws IOException {
+		Infoflow infoflow = (Infoflow) initInfoflow();
+		infoflow.getConfig().setEnableImplicitFlows(implicitFlows);
+		infoflow.setTaintWrapper(new EasyTaintWrapper(new File("EasyTaintWrapperSource.txt")) {
+
+			@Override
+			public void initialize(InfoflowManager manager) {
+				super.initialize(manager);
+				PropagationRuleTests.this.manager = manager;
+				ruleManager = ((InfoflowProblem) manager.getForwardSolver()
+						.getTabulationProblem()).getPropagationRules();
+			}
+
+		});
+		infoflow.setTaintPropagationHandler(new TaintPropagationHandler() {
+
+			@Override
+			public void notifyFlowIn(Unit stmt, Abstraction taint, IInfoflowCFG cfg,
+					FlowFunctionType type) {
+				// nothing to do here
+			}
+
+			@Override
+			public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction d1,
+					Abstraction incoming, Set<Abstraction> outgoing, IInfoflowCFG cfg,
+					FlowFunctionType type) {
+				for (ITaintPropagationRule rule : ruleManager.getRules())
+					if (!rule.appliesTo((Stmt) stmt, type))
+						checkSkippedRule(rule, (Stmt) stmt, d1, incoming, cfg, type);
+				return outgoing;
+			}
+
+		});
+
+		List<String> epoints = new ArrayList<String>();
+		for (Class<?> clazz : TEST_CLASSES)
+			epoints.addAll(getEntryPoints(clazz));
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		Assert.assertTrue(infoflow.isResultAvailable());
+		Assert.assertNotNull(manager);
+	}
+
+	/**
+	 * Applies a rule that the rule manager skips and records a violation if
+	 * the rule would have generated or killed any taint
+	 */
+	private void checkSkippedRule(ITaintPropagationRule rule, Stmt stmt, Abstraction d1,
+			Abstraction incoming, IInfoflowCFG cfg, FlowFunctionType type) {
+		switch (type) {
+			case NormalFlowFunction:
+				for (Unit succ : cfg.getSuccsOf(stmt)) {
+					ByReferenceBoolean killSource = new ByReferenceBoolean();
+					ByReferenceBoolean killAll = new ByReferenceBoolean();
+					checkRuleOutcome(rule, stmt, type, rule.propagateNormalFlow(d1, incoming,
+							stmt, (Stmt) succ, killSource, killAll), killSource, killAll);
+				}
+				break;
+			case CallFlowFunction:
+				for (SootMethod callee : cfg.getCalleesOfCallAt(stmt)) {
+					ByReferenceBoolean killAll = new ByReferenceBoolean();
+					checkRuleOutcome(rule, stmt, type, rule.propagateCallFlow(d1, incoming,
+							stmt, callee, killAll), new ByReferenceBoolean(), killAll);
+				}
+				break;
+			case CallToReturnFlowFunction: {
+				ByReferenceBoolean killSource = new ByReferenceBoolean();
+				ByReferenceBoolean killAll = new ByReferenceBoolean();
+				checkRuleOutcome(rule, stmt, type, rule.propagateCallToReturnFlow(d1, incoming,
+						stmt, killSource, killAll), killSource, killAll);
+				break;
+			}
+			case ReturnFlowFunction:
+				for (Unit callSite : cfg.getCallersOf(cfg.getMethodOf(stmt)))
+					for (Unit retSite : cfg.getReturnSitesOfCallAt(callSite)) {
+						ByReferenceBoolean killAll = new ByReferenceBoolean();
+						checkRuleOutcome(rule, stmt, type, rule.propagateReturnFlow(
+								Collections.singleton(d1), incoming, stmt, (Stmt) retSite,
+								(Stmt) callSite, killAll), new ByReferenceBoolean(), killAll);
+					}
+				break;
+		}
+	}
+
+	private void checkRuleOutcome(ITaintPropagationRule rule, Stmt stmt, FlowFunctionType type,
+			Collection<Abstraction> res, ByReferenceBoolean killSource, ByReferenceBoolean killAll) {
+		if ((res != null && !res.isEmpty()) || killSource.value || killAll.value)
+			violations.add(rule.getClass().getSimpleName() + " was skipped for " + type
+					+ " at " + stmt + " in " + manager.getICFG().getMethodOf(stmt));
+	}
+
+	@Test(timeout=600000)
+	public void skippedRulesHaveNoEffect() throws IOException {
+		runAnalysis(false);
+		Assert.assertEquals(Collections.emptyList(), violations);
+	}
+
+	@Test(timeout=600000)
+	public void skippedRulesHaveNoEffectOnImplicitFlows() throws IOException {
+		runAnalysis(true);
+		Assert.assertEquals(Collections.emptyList(), violations);
+	}
+
+	@Test(timeout=600000)
+	public void mostRuleInvocationsAreSkipped() throws IOException {
+		runAnalysis(false);
+		long invoked = ruleManager.getRuleInvocationCount();
+		long skipped = ruleManager.getSkippedRuleInvocationCount();
+		Assert.assertTrue(invoked > 0);
+
+		// On these test cases, about 70% of the rule invocations are skipped
+		Assert.assertTrue("Only " + skipped + " of " + (invoked + skipped)
+				+ " rule invocations were skipped", 3 * skipped >= 2 * (invoked + skipped));
+	}
+
+}